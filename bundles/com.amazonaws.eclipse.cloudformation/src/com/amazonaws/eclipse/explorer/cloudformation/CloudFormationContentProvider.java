@@ -78,4 +78,19 @@ public class CloudFormationContentProvider extends AbstractContentProvider {
         return ServiceAbbreviations.CLOUD_FORMATION;
     }
 
+    @Override
+    protected String getSnapshotKey(Object parentElement) {
+        return parentElement instanceof CloudFormationRootElement ? "stacks" : null;
+    }
+
+    @Override
+    protected String toSnapshotValue(Object child) {
+        return child instanceof StackNode ? ((StackNode) child).stack.getStackName() : null;
+    }
+
+    @Override
+    protected Object fromSnapshotValue(String value) {
+        return new StackNode(new StackSummary().withStackName(value));
+    }
+
 }
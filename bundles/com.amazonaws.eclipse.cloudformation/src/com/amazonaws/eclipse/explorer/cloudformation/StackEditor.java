@@ -50,7 +50,10 @@ import com.amazonaws.eclipse.core.AWSClientFactory;
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.regions.Region;
 import com.amazonaws.eclipse.core.regions.RegionUtils;
+import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
 import com.amazonaws.eclipse.core.ui.WebLinkListener;
+import com.amazonaws.eclipse.core.util.AdaptiveRateLimiter;
+import com.amazonaws.eclipse.explorer.LoadingScheduler;
 import com.amazonaws.services.cloudformation.AmazonCloudFormation;
 import com.amazonaws.services.cloudformation.model.DescribeStackResourcesRequest;
 import com.amazonaws.services.cloudformation.model.DescribeStacksRequest;
@@ -65,6 +68,8 @@ public class StackEditor extends EditorPart {
         "CREATE_COMPLETE", "CREATE_FAILED", "DELETE_COMPLETE", "DELETE_FAILED", "ROLLBACK_COMPLETE", "ROLLBACK_FAILED",
         "UPDATE_COMPLETE", "UPDATE_ROLLBACK_COMPLETE", "UPDATE_ROLLBACK_FAILED"};
     private static final List<String> STABLE_STATE_LIST = Arrays.asList(STABLE_STATES);
+    /** The period between refreshes while the stack is changing, before any throttling backoff. */
+    private static final long AUTO_REFRESH_INTERVAL_MILLIS = 5 * 1000;
 
     private StackEditorInput stackEditorInput;
     private Text stackNameLabel;
@@ -77,6 +82,7 @@ public class StackEditor extends EditorPart {
     private Text rollbackOnFailureLabel;
 
     private Link outputLink;
+
     private volatile boolean stackInStableState;
     private Thread autoRefreshThread;
 
@@ -134,15 +140,17 @@ public class StackEditor extends EditorPart {
         form.getToolBarManager().add(refreshAction);
         form.getToolBarManager().update(true);
 
-        new LoadStackSummaryThread().start();
+        LoadingScheduler.getInstance().submit(ServiceAbbreviations.CLOUD_FORMATION, new LoadStackSummaryThread());
 
         if (stackEditorInput.isAutoRefresh()) {
+            final AdaptiveRateLimiter rateLimiter = getRateLimiter();
             autoRefreshThread = new Thread(new Runnable() {
                 @Override
                 public void run() {
                     while (!isStackInStableState()) {
                         try {
-                            Thread.sleep(5 * 1000);
+                            Thread.sleep(rateLimiter.getIntervalMillis(AUTO_REFRESH_INTERVAL_MILLIS));
+                            rateLimiter.acquire();
                             refreshAction.run();
                         } catch (InterruptedException e) {
                             // When exception happens, we leave this thread.
@@ -264,6 +272,13 @@ public class StackEditor extends EditorPart {
         return clientFactory.getCloudFormationClientByEndpoint(stackEditorInput.getRegionEndpoint());
     }
 
+    private AdaptiveRateLimiter getRateLimiter() {
+        Region region = RegionUtils.getRegionByEndpoint(stackEditorInput.getRegionEndpoint());
+        String regionId = region == null ? stackEditorInput.getRegionEndpoint() : region.getId();
+        return AwsToolkitCore.getClientFactory(stackEditorInput.getAccountId())
+                .getRateLimiter(regionId, ServiceAbbreviations.CLOUD_FORMATION);
+    }
+
     public boolean isStackInStableState() {
         return stackInStableState;
     }
@@ -272,7 +287,7 @@ public class StackEditor extends EditorPart {
         this.stackInStableState = stackInStableState;
     }
 
-    private class LoadStackSummaryThread extends Thread {
+    private class LoadStackSummaryThread implements Runnable {
 
         private Stack describeStack() {
             DescribeStacksRequest request = new DescribeStacksRequest().withStackName(stackEditorInput.getStackName());
@@ -375,7 +390,7 @@ public class StackEditor extends EditorPart {
 
         @Override
         public void run() {
-            new LoadStackSummaryThread().start();
+            LoadingScheduler.getInstance().submit(ServiceAbbreviations.CLOUD_FORMATION, new LoadStackSummaryThread());
             stackEventsTable.refresh();
             stackResourcesTable.refresh();
         }
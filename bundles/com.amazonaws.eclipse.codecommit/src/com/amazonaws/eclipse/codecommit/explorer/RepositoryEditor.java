@@ -57,7 +57,9 @@ import com.amazonaws.eclipse.codecommit.CodeCommitUtil;
 import com.amazonaws.eclipse.codecommit.explorer.CodeCommitActionProvider.CloneRepositoryAction;
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.mobileanalytics.AwsToolkitMetricType;
+import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
 import com.amazonaws.eclipse.explorer.AwsAction;
+import com.amazonaws.eclipse.explorer.LoadingScheduler;
 import com.amazonaws.services.codecommit.AWSCodeCommit;
 import com.amazonaws.services.codecommit.model.Commit;
 import com.amazonaws.services.codecommit.model.GetBranchRequest;
@@ -162,7 +164,7 @@ public class RepositoryEditor extends EditorPart {
             }
         });
 
-        new LoadSummaryDataThread().start();
+        LoadingScheduler.getInstance().submit(ServiceAbbreviations.CODECOMMIT, new LoadSummaryDataThread());
     }
 
     private void createCommitHistory(Composite parent, FormToolkit toolkit) {
@@ -206,7 +208,7 @@ public class RepositoryEditor extends EditorPart {
         createColumns(tableColumnLayout, viewer.getTree());
         viewer.setInput(new Object());
 
-        new LoadBranchesThread().start();
+        LoadingScheduler.getInstance().submit(ServiceAbbreviations.CODECOMMIT, new LoadBranchesThread());
     }
 
     private void createColumns(TreeColumnLayout columnLayout, Tree tree) {
@@ -228,7 +230,7 @@ public class RepositoryEditor extends EditorPart {
     @Override
     public void setFocus() {}
 
-    private class LoadSummaryDataThread extends Thread {
+    private class LoadSummaryDataThread implements Runnable {
         @Override
         public void run() {
 
@@ -251,7 +253,7 @@ public class RepositoryEditor extends EditorPart {
         }
     }
 
-    private class LoadBranchesThread extends Thread {
+    private class LoadBranchesThread implements Runnable {
         @Override
         public void run() {
             Display.getDefault().asyncExec(new Runnable() {
@@ -271,13 +273,13 @@ public class RepositoryEditor extends EditorPart {
                                 .getRepositoryMetadata().getDefaultBranch();
                         branchCombo.select(branchCombo.indexOf(defautBranch));
                     }
-                    new LoadCommitHistoryThread().start();
+                    LoadingScheduler.getInstance().submit(ServiceAbbreviations.CODECOMMIT, new LoadCommitHistoryThread());
                 }
             });
         }
     }
 
-    private class LoadCommitHistoryThread extends Thread {
+    private class LoadCommitHistoryThread implements Runnable {
         @Override
         public void run() {
             Display.getDefault().asyncExec(new Runnable() {
@@ -321,8 +323,8 @@ public class RepositoryEditor extends EditorPart {
 
         @Override
         public void doRun() {
-            new LoadSummaryDataThread().start();
-            new LoadBranchesThread().start();
+            LoadingScheduler.getInstance().submit(ServiceAbbreviations.CODECOMMIT, new LoadSummaryDataThread());
+            LoadingScheduler.getInstance().submit(ServiceAbbreviations.CODECOMMIT, new LoadBranchesThread());
             actionFinished();
         }
     }
@@ -427,6 +429,6 @@ public class RepositoryEditor extends EditorPart {
     }
 
     private void onBranchSelected() {
-        new LoadCommitHistoryThread().start();
+        LoadingScheduler.getInstance().submit(ServiceAbbreviations.CODECOMMIT, new LoadCommitHistoryThread());
     }
 }
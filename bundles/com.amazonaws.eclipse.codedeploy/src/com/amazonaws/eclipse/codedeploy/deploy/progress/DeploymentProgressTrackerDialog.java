@@ -35,6 +35,7 @@ import com.amazonaws.eclipse.codedeploy.explorer.image.CodeDeployExplorerImages;
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.regions.Region;
 import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
+import com.amazonaws.eclipse.core.util.AdaptiveRateLimiter;
 import com.amazonaws.services.codedeploy.AmazonCodeDeploy;
 import com.amazonaws.services.codedeploy.model.DeploymentInfo;
 import com.amazonaws.services.codedeploy.model.DeploymentStatus;
@@ -51,6 +52,7 @@ public class DeploymentProgressTrackerDialog extends Dialog {
     private final String deploymentGroupName;
     private final String applicationName;
     private final AmazonCodeDeploy client;
+    private final AdaptiveRateLimiter rateLimiter;
 
     /**
      * Used as the direct input for the instance table view
@@ -95,6 +97,8 @@ public class DeploymentProgressTrackerDialog extends Dialog {
                 .get(ServiceAbbreviations.CODE_DEPLOY);
         this.client = AwsToolkitCore.getClientFactory()
                 .getCodeDeployClientByEndpoint(endpoint);
+        this.rateLimiter = AwsToolkitCore.getClientFactory()
+                .getRateLimiter(region.getId(), ServiceAbbreviations.CODE_DEPLOY);
     }
 
     /**
@@ -197,6 +201,7 @@ public class DeploymentProgressTrackerDialog extends Dialog {
 
                 boolean isFinalStatus = false;
 
+                rateLimiter.acquire();
                 DeploymentInfo deploymentInfo = client
                         .getDeployment(new GetDeploymentRequest()
                                 .withDeploymentId(deploymentId))
@@ -255,7 +260,7 @@ public class DeploymentProgressTrackerDialog extends Dialog {
                 // Otherwise keep polling
 
                 try {
-                    Thread.sleep(REFRESH_INTERVAL_MS);
+                    Thread.sleep(rateLimiter.getIntervalMillis(REFRESH_INTERVAL_MS));
                 } catch (InterruptedException e) {
                     CodeDeployPlugin.getDefault()
                         .logInfo("Interrupted when polling deployment status");
@@ -263,6 +268,9 @@ public class DeploymentProgressTrackerDialog extends Dialog {
                 }
             }
 
+        } catch (InterruptedException e) {
+            CodeDeployPlugin.getDefault()
+                .logInfo("Interrupted when polling deployment status");
         } catch (Exception e) {
             CodeDeployPlugin.getDefault().reportException(
                     "Error when polling deployment status.", e);
@@ -347,6 +355,7 @@ public class DeploymentProgressTrackerDialog extends Dialog {
 
                         if (InstanceStatus.InProgress.toString().equals(instance.getStatus())
                                 || InstanceStatus.Pending.toString().equals(instance.getStatus())) {
+                            rateLimiter.acquire();
                             InstanceSummary latestSummary = client.getDeploymentInstance(
                                     new GetDeploymentInstanceRequest()
                                             .withDeploymentId(deploymentId)
@@ -377,13 +386,16 @@ public class DeploymentProgressTrackerDialog extends Dialog {
                 }
 
                 try {
-                    Thread.sleep(REFRESH_INTERVAL_MS);
+                    Thread.sleep(rateLimiter.getIntervalMillis(REFRESH_INTERVAL_MS));
                 } catch (InterruptedException e) {
                     System.err.println("Interrupted when polling " +
                             "lifecycle events from deployment instances.");
                 }
             }
 
+        } catch (InterruptedException e) {
+            CodeDeployPlugin.getDefault().logInfo(
+                    "Interrupted when polling lifecycle events from deployment instances.");
         } catch (Exception e) {
             CodeDeployPlugin.getDefault().reportException(
                     "Error when polling lifecycle events from deployment instances.", e);
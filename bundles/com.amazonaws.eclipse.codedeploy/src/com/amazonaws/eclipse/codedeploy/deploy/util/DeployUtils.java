@@ -23,6 +23,7 @@ import com.amazonaws.services.codedeploy.model.RevisionLocation;
 import com.amazonaws.services.codedeploy.model.RevisionLocationType;
 import com.amazonaws.services.codedeploy.model.S3Location;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
 
 public class DeployUtils {
 
@@ -109,7 +110,8 @@ public class DeployUtils {
         CodeDeployPlugin.getDefault().logInfo(
                 "Uploading zip file to S3 bucket [" + bucketName + "].");
 
-        s3Client.putObject(bucketName, keyName, zipArchive);
+        AwsToolkitCore.getDefault().getResumableUploadStore().upload(
+                s3Client, new PutObjectRequest(bucketName, keyName, zipArchive), progressMonitor);
         CodeDeployPlugin.getDefault().logInfo(
                 "Upload succeed. [s3://" + bucketName + "/" + keyName + "]");
 
@@ -19,7 +19,12 @@ import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import org.eclipse.core.net.proxy.IProxyChangeEvent;
 import org.eclipse.core.net.proxy.IProxyChangeListener;
@@ -38,11 +43,16 @@ import com.amazonaws.auth.BasicSessionCredentials;
 import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
 import com.amazonaws.client.builder.AwsSyncClientBuilder;
 import com.amazonaws.eclipse.core.accounts.AccountInfoChangeListener;
+import com.amazonaws.eclipse.core.metrics.ClientUsage;
+import com.amazonaws.eclipse.core.metrics.RequestMetrics;
 import com.amazonaws.eclipse.core.preferences.PreferenceConstants;
 import com.amazonaws.eclipse.core.regions.Region;
 import com.amazonaws.eclipse.core.regions.RegionUtils;
 import com.amazonaws.eclipse.core.regions.Service;
 import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
+import com.amazonaws.eclipse.core.util.AdaptiveRateLimiter;
+import com.amazonaws.eclipse.core.util.S3BucketRegionCache;
+import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.autoscaling.AmazonAutoScaling;
 import com.amazonaws.services.autoscaling.AmazonAutoScalingClient;
@@ -115,6 +125,18 @@ public class AWSClientFactory {
      */
     public static final String ACCOUNT_INFO_OVERRIDE_PROPERTY = "com.amazonaws.eclipse.test.AccountInfoOverride";
 
+    /** Cached clients that haven't been used for this long are dropped from the cache. */
+    private static final long IDLE_CLIENT_TIMEOUT_MILLIS = 30 * 60 * 1000;
+
+    /** How often the cached clients are checked for idleness. */
+    private static final long IDLE_CLIENT_CHECK_INTERVAL_MILLIS = 60 * 1000;
+
+    /** Upper bound of the HTTP connections pooled by each client. */
+    private static final int MAX_CONNECTIONS_PER_CLIENT = 25;
+
+    /** Pooled HTTP connections idle for this long are closed by the SDK's connection reaper. */
+    private static final long CONNECTION_MAX_IDLE_MILLIS = 30 * 1000;
+
     /** Manages the cached client objects by endpoint. */
     private CachedClients cachedClientsByEndpoint = new CachedClients();
 
@@ -130,6 +152,15 @@ public class AWSClientFactory {
 
     private AWSCredentialsProvider credentialsProviderOverride;
 
+    /** Shared cache of bucket regions, used to route requests to the right S3 endpoint. */
+    private final S3BucketRegionCache bucketRegionCache;
+
+    /** Shared statistics of the calls made by the clients of this factory. */
+    private final RequestMetrics requestMetrics;
+
+    /** Rate limiters of the background pollers, by service and region. */
+    private final ConcurrentMap<String, AdaptiveRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
     /**
      * Constructs a client factory that uses the given account identifier to
      * retrieve its credentials.
@@ -140,6 +171,8 @@ public class AWSClientFactory {
 
         this.accountId = accountId;
         accountInfo = plugin.getAccountManager().getAccountInfo(accountId);
+        bucketRegionCache = plugin.getS3BucketRegionCache();
+        requestMetrics = plugin.getRequestMetrics();
 
         plugin.getProxyService().addProxyChangeListener(this::onProxyChange);
         plugin.getAccountManager().addAccountInfoChangeListener(this::onAccountInfoChange);
@@ -152,6 +185,18 @@ public class AWSClientFactory {
     public AWSClientFactory(AWSCredentialsProvider credentialsProvider) {
         this.accountId = null;
         this.credentialsProviderOverride = credentialsProvider;
+        this.bucketRegionCache = new S3BucketRegionCache(null, S3BucketRegionCache.DEFAULT_MAX_ENTRIES);
+        this.requestMetrics = new RequestMetrics();
+    }
+
+    /**
+     * Shuts down all the clients created by this factory, releasing their
+     * connection pools. Clients handed out before are no longer usable, so
+     * this is only called when the plugin stops.
+     */
+    public void shutdown() {
+        cachedClientsByEndpoint.shutdown();
+        cachedClients.shutdown();
     }
 
     private void onProxyChange(IProxyChangeEvent e) {
@@ -165,6 +210,16 @@ public class AWSClientFactory {
         cachedClients.invalidateClients();
     }
 
+    /**
+     * Returns the rate limiter that background pollers calling the given
+     * service in the given region with this factory's account should go
+     * through. The limiter is told about throttled calls by all the clients
+     * of this factory for that service and region.
+     */
+    public AdaptiveRateLimiter getRateLimiter(String regionId, String serviceName) {
+        return rateLimiters.computeIfAbsent(serviceName + "@" + regionId, key -> new AdaptiveRateLimiter());
+    }
+
     // Returns an anonymous S3 client in us-east-1 region for fetching public-read files.
     public static AmazonS3 getAnonymousS3Client() {
         final String serviceEndpoint = RegionUtils.S3_US_EAST_1_REGIONAL_ENDPOINT;
@@ -174,12 +229,14 @@ public class AWSClientFactory {
                 .withCredentials(new AWSStaticCredentialsProvider(new AnonymousAWSCredentials()))
                 .withEndpointConfiguration(new EndpointConfiguration(serviceEndpoint, serviceRegion))
                 .withClientConfiguration(clientConfiguration)
+                .withRequestHandlers(AwsToolkitCore.getDefault().getRequestMetrics()
+                        .newRequestHandler(ServiceAbbreviations.S3, serviceRegion))
                 .build();
     }
 
     /**
-     * Returns a client for the region where the given bucket resides. No
-     * caching is performed on the region lookup.
+     * Returns a client for the region where the given bucket resides. The
+     * region lookup is cached in the toolkit-wide {@link S3BucketRegionCache}.
      */
     public AmazonS3 getS3ClientForBucket(String bucketName) {
         return getS3ClientByRegion(getS3BucketRegion(bucketName));
@@ -197,12 +254,7 @@ public class AWSClientFactory {
      * Returns the standard region the bucket is located.
      */
     private String getS3BucketRegion(String bucketName) {
-        AmazonS3 s3Client = getS3Client();
-        String region = s3Client.getBucketLocation(bucketName);
-        if (region == null || region.equals("US") ) {
-            region = Regions.US_EAST_1.getName();
-        }
-        return region;
+        return bucketRegionCache.getBucketRegion(getS3Client(), bucketName);
     }
 
     /*
@@ -402,13 +454,7 @@ public class AWSClientFactory {
      */
     public AmazonS3 getS3ClientByRegion(String regionId) {
         if (Regions.US_EAST_1.getName().equals(regionId)) {
-            synchronized (AmazonS3.class) {
-                if ( cachedClients.getClient(regionId, AmazonS3.class) == null ) {
-                    cachedClients.cacheClient(regionId, AmazonS3.class, createS3UsEast1RegionalClient());
-                }
-            }
-
-            return cachedClients.getClient(regionId, AmazonS3.class);
+            return cachedClients.getOrCreateClient(regionId, AmazonS3.class, this::createS3UsEast1RegionalClient);
         } else {
             return getOrCreateClientByRegion(ServiceAbbreviations.S3, regionId, AmazonS3ClientBuilder.standard(),
                     AmazonS3.class);
@@ -507,13 +553,8 @@ public class AWSClientFactory {
 
     @Deprecated
     private <T extends AmazonWebServiceClient> T getOrCreateClient(String endpoint, Class<T> clientClass) {
-        synchronized (clientClass) {
-            if ( cachedClientsByEndpoint.getClient(endpoint, clientClass) == null ) {
-                cachedClientsByEndpoint.cacheClient(endpoint, createClient(endpoint, clientClass));
-            }
-        }
-
-        return cachedClientsByEndpoint.getClient(endpoint, clientClass);
+        return cachedClientsByEndpoint.getOrCreateClient(endpoint, clientClass,
+                usage -> createClient(endpoint, clientClass, usage));
     }
 
     private <T> T getOrCreateClientByRegion(String serviceName, String regionId,
@@ -523,13 +564,8 @@ public class AWSClientFactory {
             return null;
         }
 
-        synchronized (clientClass) {
-            if ( cachedClients.getClient(regionId, clientClass) == null ) {
-                cachedClients.cacheClient(regionId, clientClass, createClientByRegion(builder, serviceName, region, isGlobalClient));
-            }
-        }
-
-        return cachedClients.getClient(regionId, clientClass);
+        return cachedClients.getOrCreateClient(regionId, clientClass,
+                usage -> createClientByRegion(builder, serviceName, region, isGlobalClient, usage));
     }
 
     private <T> T getOrCreateClientByRegion(String serviceName, String regionId,
@@ -538,12 +574,13 @@ public class AWSClientFactory {
     }
 
     /**
-     * @deprecated for {@link #createClientByRegion(AwsSyncClientBuilder, String, String)}
+     * @deprecated for {@link #createClientByRegion(AwsSyncClientBuilder, String, Region, boolean, ClientUsage)}
      */
     @Deprecated
-    private <T extends AmazonWebServiceClient> T createClient(String endpoint, Class<T> clientClass) {
+    private <T extends AmazonWebServiceClient> T createClient(String endpoint, Class<T> clientClass, ClientUsage usage) {
         try {
-            Constructor<T> constructor = clientClass.getConstructor(AWSCredentials.class, ClientConfiguration.class);
+            Constructor<T> constructor = clientClass.getConstructor(AWSCredentialsProvider.class,
+                    ClientConfiguration.class, RequestMetricCollector.class);
             ClientConfiguration config = createClientConfiguration(endpoint);
 
             Service service = RegionUtils.getServiceByEndpoint(endpoint);
@@ -559,7 +596,12 @@ public class AWSClientFactory {
                         accountInfo.getAccessKey(), accountInfo.getSecretKey());
             }
 
-            T client = constructor.newInstance(credentials, config);
+            T client = constructor.newInstance(new AWSStaticCredentialsProvider(credentials), config,
+                    usage.newMetricCollector());
+            Region clientRegion = RegionUtils.getRegionByEndpoint(endpoint);
+            String clientRegionId = clientRegion == null ? endpoint : clientRegion.getId();
+            client.addRequestHandler(requestMetrics.newRequestHandler(service.getServiceName(), clientRegionId));
+            client.addRequestHandler(getRateLimiter(clientRegionId, service.getServiceName()).newRequestHandler());
 
             /*
              * If a serviceId is explicitly specified with the region metadata,
@@ -586,14 +628,22 @@ public class AWSClientFactory {
     // Low layer method for building a service client by using the client builder.
     @SuppressWarnings("unchecked")
     private <T> T createClientByRegion(AwsSyncClientBuilder<? extends AwsSyncClientBuilder, T> builder,
-            String serviceName, Region region, boolean isGlobalClient) {
+            String serviceName, Region region, boolean isGlobalClient, ClientUsage usage) {
         String endpoint = region.getServiceEndpoint(serviceName);
         String signingRegion = isGlobalClient ? region.getGlobalRegionSigningRegion() : region.getId();
-        Object client = builder
-                .withEndpointConfiguration(new EndpointConfiguration(endpoint, signingRegion))
+        builder.withEndpointConfiguration(new EndpointConfiguration(endpoint, signingRegion))
                 .withCredentials(new AWSStaticCredentialsProvider(getAwsCredentials()))
                 .withClientConfiguration(createClientConfiguration(endpoint))
-                .build();
+                .withMetricsCollector(usage.newMetricCollector());
+        if (ServiceAbbreviations.S3.equals(serviceName)) {
+            builder.withRequestHandlers(requestMetrics.newRequestHandler(serviceName, region.getId()),
+                    getRateLimiter(region.getId(), serviceName).newRequestHandler(),
+                    bucketRegionCache.newRedirectHandler());
+        } else {
+            builder.withRequestHandlers(requestMetrics.newRequestHandler(serviceName, region.getId()),
+                    getRateLimiter(region.getId(), serviceName).newRequestHandler());
+        }
+        Object client = builder.build();
 
         return (T) client;
     }
@@ -601,11 +651,16 @@ public class AWSClientFactory {
     /**
      * Return the regional us-east-1 S3 client.
      */
-    private AmazonS3 createS3UsEast1RegionalClient() {
+    private AmazonS3 createS3UsEast1RegionalClient(ClientUsage usage) {
         return AmazonS3ClientBuilder.standard()
                 .withCredentials(new AWSStaticCredentialsProvider(getAwsCredentials()))
                 .withClientConfiguration(createClientConfiguration(RegionUtils.S3_US_EAST_1_REGIONAL_ENDPOINT))
+                .withMetricsCollector(usage.newMetricCollector())
                 .withEndpointConfiguration(new EndpointConfiguration(RegionUtils.S3_US_EAST_1_REGIONAL_ENDPOINT, Regions.US_EAST_1.getName()))
+                .withRequestHandlers(
+                        requestMetrics.newRequestHandler(ServiceAbbreviations.S3, Regions.US_EAST_1.getName()),
+                        getRateLimiter(Regions.US_EAST_1.getName(), ServiceAbbreviations.S3).newRequestHandler(),
+                        bucketRegionCache.newRedirectHandler())
                 .build();
     }
 
@@ -661,6 +716,12 @@ public class AWSClientFactory {
         config.setConnectionTimeout(connectionTimeout);
         config.setSocketTimeout(socketTimeout);
 
+        // The SDK offers no way to share one connection pool between clients,
+        // so keep each client's pool small and close its idle connections.
+        config.setMaxConnections(MAX_CONNECTIONS_PER_CLIENT);
+        config.setConnectionMaxIdleMillis(CONNECTION_MAX_IDLE_MILLIS);
+        config.setUseReaper(true);
+
         config.setUserAgentPrefix(AwsClientUtils.formatUserAgentString("AWS-Toolkit-For-Eclipse", AwsToolkitCore.getDefault()));
 
         AwsToolkitCore plugin = AwsToolkitCore.getDefault();
@@ -689,36 +750,105 @@ public class AWSClientFactory {
 
     /**
      * Responsible for managing the various AWS client objects needed for each service/region combination.
+     * Clients are created at most once per class and region, without a global lock, and clients that
+     * haven't been used for {@link #IDLE_CLIENT_TIMEOUT_MILLIS} are dropped from the cache.
+     * <p>
+     * Clients dropped from the cache, whether idle or by {@link #invalidateClients()}, may still be held
+     * by open editors and wizards, so they are only shut down by {@link #shutdown()} when the plugin
+     * stops. Until then the SDK's connection reaper closes their idle connections.
+     * <p>
      * This class is thread safe.
      */
-    private static class CachedClients {
+    private class CachedClients {
+
+        private final ConcurrentMap<String, CachedClient> cachedClients = new ConcurrentHashMap<>();
+
+        /** Clients dropped from the cache, shut down when the plugin stops. */
+        private final Queue<CachedClient> retiredClients = new ConcurrentLinkedQueue<>();
+
+        private final AtomicLong lastIdleCheckMillis = new AtomicLong(System.currentTimeMillis());
+
+        /**
+         * Returns the client of the given class for the given region or
+         * endpoint, creating it with the given factory if it isn't cached yet.
+         */
+        public <T> T getOrCreateClient(String region, Class<T> clientClass, Function<ClientUsage, T> factory) {
+            evictIdleClients();
+
+            CachedClient cachedClient = cachedClients.computeIfAbsent(clientClass.getName() + "@" + region, key -> {
+                ClientUsage usage = new ClientUsage(clientClass.getSimpleName() + " " + region);
+                CachedClient newClient = new CachedClient(factory.apply(usage), usage);
+                requestMetrics.clientCreated(usage);
+                return newClient;
+            });
+            cachedClient.usage.touch();
+            return clientClass.cast(cachedClient.client);
+        }
+
+        public void invalidateClients() {
+            for (String key : cachedClients.keySet()) {
+                CachedClient cachedClient = cachedClients.get(key);
+                if (release(key, cachedClient)) {
+                    retiredClients.add(cachedClient);
+                }
+            }
+        }
 
-        private final Map<Class<?>, Map<String, Object>> cachedClients = new ConcurrentHashMap<>();
+        private void evictIdleClients() {
+            long now = System.currentTimeMillis();
+            long lastCheck = lastIdleCheckMillis.get();
+            if (now - lastCheck < IDLE_CLIENT_CHECK_INTERVAL_MILLIS
+                    || !lastIdleCheckMillis.compareAndSet(lastCheck, now)) {
+                return;
+            }
 
-        @SuppressWarnings("unchecked")
-        public synchronized <T> T getClient(String region, Class<T> clientClass) {
-            if (cachedClients.get(clientClass) == null) {
-                return null;
+            for (Map.Entry<String, CachedClient> entry : cachedClients.entrySet()) {
+                if (entry.getValue().usage.getIdleMillis() > IDLE_CLIENT_TIMEOUT_MILLIS
+                        && release(entry.getKey(), entry.getValue())) {
+                    retiredClients.add(entry.getValue());
+                }
             }
-            return (T)cachedClients.get(clientClass).get(region);
         }
 
-        public synchronized <T> void cacheClient(String region, T client) {
-            cacheClient(region, null, client);
+        /**
+         * Shuts down every client, cached or retired. Only called when the
+         * plugin stops, since callers may still hold the clients.
+         */
+        public void shutdown() {
+            invalidateClients();
+            CachedClient retiredClient;
+            while ((retiredClient = retiredClients.poll()) != null) {
+                retiredClient.shutdown();
+            }
         }
 
-        public <T> void cacheClient(String region, Class<T> clazz, T client) {
-            Class<?> key = clazz == null ? client.getClass() : clazz;
-            if (cachedClients.get(key) == null) {
-                cachedClients.put(key, new ConcurrentHashMap<String, Object>());
+        /**
+         * Removes the given client from the cache, returning false if it had
+         * already been removed.
+         */
+        private boolean release(String key, CachedClient cachedClient) {
+            if (cachedClient != null && cachedClients.remove(key, cachedClient)) {
+                requestMetrics.clientReleased(cachedClient.usage);
+                return true;
             }
+            return false;
+        }
+    }
 
-            Map<String, Object> map = cachedClients.get(key);
-            map.put(region, client);
+    private static final class CachedClient {
+        private final Object client;
+        private final ClientUsage usage;
+
+        private CachedClient(Object client, ClientUsage usage) {
+            this.client = client;
+            this.usage = usage;
         }
 
-        public synchronized void invalidateClients() {
-            cachedClients.clear();
+        /** Closes the client's connection pool. */
+        private void shutdown() {
+            if (client instanceof AmazonWebServiceClient) {
+                ((AmazonWebServiceClient) client).shutdown();
+            }
         }
     }
-}
\ No newline at end of file
+}
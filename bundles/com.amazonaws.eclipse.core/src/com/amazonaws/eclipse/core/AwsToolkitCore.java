@@ -14,6 +14,7 @@
  */
 package com.amazonaws.eclipse.core;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -36,6 +37,7 @@ import org.osgi.util.tracker.ServiceTracker;
 import com.amazonaws.eclipse.core.accounts.AccountInfoProvider;
 import com.amazonaws.eclipse.core.accounts.AwsPluginAccountManager;
 import com.amazonaws.eclipse.core.diagnostic.ui.AwsToolkitErrorSupportProvider;
+import com.amazonaws.eclipse.core.metrics.RequestMetrics;
 import com.amazonaws.eclipse.core.mobileanalytics.ToolkitAnalyticsManager;
 import com.amazonaws.eclipse.core.mobileanalytics.cognito.AWSCognitoCredentialsProvider;
 import com.amazonaws.eclipse.core.mobileanalytics.context.ClientContextConfig;
@@ -49,6 +51,12 @@ import com.amazonaws.eclipse.core.regions.Region;
 import com.amazonaws.eclipse.core.regions.RegionUtils;
 import com.amazonaws.eclipse.core.ui.preferences.accounts.LegacyPreferenceStoreAccountMerger;
 import com.amazonaws.eclipse.core.ui.setupwizard.InitialSetupUtils;
+import com.amazonaws.eclipse.core.util.PhaseTimer;
+import com.amazonaws.eclipse.core.util.RequestCoalescer;
+import com.amazonaws.eclipse.core.util.ResumableUploadStore;
+import com.amazonaws.eclipse.core.util.S3BucketDirectory;
+import com.amazonaws.eclipse.core.util.S3BucketRegionCache;
+import com.amazonaws.eclipse.explorer.ExplorerSnapshot;
 
 /**
  * Entry point for functionality provided by the AWS Toolkit Core plugin,
@@ -169,6 +177,25 @@ public class AwsToolkitCore extends AbstractAwsPlugin {
      */
     private ToolkitAnalyticsManager toolkitAnalyticsManager;
 
+    /** Records how long each phase of the plugin start-up takes. */
+    private final PhaseTimer startupTimer = new PhaseTimer();
+
+    /** Toolkit-wide cache of S3 bucket regions, persisted in the plugin state location. */
+    private S3BucketRegionCache s3BucketRegionCache;
+    private S3BucketDirectory s3BucketDirectory;
+
+    /** Statistics of the AWS calls made by the toolkit's clients. */
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+
+    /** Shares the results of identical read-only calls made concurrently by different views. */
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer(requestMetrics);
+
+    /** Snapshot of the AWS Explorer tree, persisted in the plugin state location. */
+    private ExplorerSnapshot explorerSnapshot;
+
+    /** Records of the S3 multipart uploads that can be resumed after a restart. */
+    private ResumableUploadStore resumableUploadStore;
+
     /*
      * ======================================
      * APIs that require basic initialization
@@ -240,6 +267,62 @@ public class AwsToolkitCore extends AbstractAwsPlugin {
         return (IProxyService)proxyServiceTracker.getService();
     }
 
+    /**
+     * Returns the toolkit-wide cache of S3 bucket regions, shared by all the
+     * client factories and bucket listing utilities.
+     */
+    public S3BucketRegionCache getS3BucketRegionCache() {
+        return s3BucketRegionCache;
+    }
+
+    /**
+     * Returns the toolkit-wide directory of the buckets of each account, used
+     * to list the buckets of a region.
+     */
+    public S3BucketDirectory getS3BucketDirectory() {
+        return s3BucketDirectory;
+    }
+
+    /**
+     * Returns the statistics of the AWS calls made by the clients of every
+     * {@link AWSClientFactory}.
+     */
+    public RequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    /**
+     * Returns the coalescer that identical describe and list calls made from
+     * different views should go through.
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Returns the snapshot of the AWS Explorer tree saved by the previous
+     * session, used to render the explorer before its data is reloaded.
+     */
+    public ExplorerSnapshot getExplorerSnapshot() {
+        return explorerSnapshot;
+    }
+
+    /**
+     * Returns the store that large uploads to S3 should go through, so that
+     * they can be resumed after a workbench restart.
+     */
+    public ResumableUploadStore getResumableUploadStore() {
+        return resumableUploadStore;
+    }
+
+    /**
+     * Returns the durations of the start-up phases completed so far, for
+     * diagnosing slow workbench start-ups.
+     */
+    public PhaseTimer getStartupTimer() {
+        return startupTimer;
+    }
+
     /*
      * ======================================
      * APIs that require full initialization
@@ -354,20 +437,43 @@ public class AwsToolkitCore extends AbstractAwsPlugin {
 
         long startTime = System.currentTimeMillis();
         logInfo("Starting the AWS toolkit core plugin...");
+        startupTimer.start("start");
 
         // Publish the "global" plugin singleton immediately after the basic
         // initialization is done.
 
+        startupTimer.start("basicInit");
         doBasicInit(context);
         synchronized (AwsToolkitCore.class) {
             plugin = this;
         }
         pluginBasicInitLatch.countDown();
+        startupTimer.end("basicInit");
 
         // Then do full initialization
 
+        startupTimer.start("fullInit");
         doFullInit(context);
         pluginFullInitLatch.countDown();
+        startupTimer.end("fullInit");
+
+        // Refresh the region metadata from the remote source in the
+        // background; the plugin is started with the cached version.
+        Job refreshRegionsJob = new Job("Refreshing AWS region metadata...") {
+
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                startupTimer.start("remoteRegionsRefresh");
+                boolean modified = RegionUtils.refreshRegionsFromRemote();
+                startupTimer.end("remoteRegionsRefresh");
+                logInfo("AWS region metadata refreshed (" + (modified ? "updated" : "not modified")
+                        + "), start-up phases: " + startupTimer);
+                return Status.OK_STATUS;
+            }
+
+        };
+        refreshRegionsJob.setSystem(true);
+        refreshRegionsJob.schedule();
 
         // All other expensive initialization tasks are executed
         // asynchronously (after all the plugins are started)
@@ -381,9 +487,10 @@ public class AwsToolkitCore extends AbstractAwsPlugin {
 
         }.schedule();
 
+        startupTimer.end("start");
         logInfo(String.format(
-                "AWS toolkit core plugin initialized after %d milliseconds.",
-                System.currentTimeMillis() - startTime));
+                "AWS toolkit core plugin initialized after %d milliseconds (%s).",
+                System.currentTimeMillis() - startTime, startupTimer));
     }
 
     /**
@@ -400,6 +507,22 @@ public class AwsToolkitCore extends AbstractAwsPlugin {
             proxyServiceTracker = new ServiceTracker(context, IProxyService.class.getName(), null);
             proxyServiceTracker.open();
 
+            // Load the bucket region cache persisted by the previous session
+            s3BucketRegionCache = new S3BucketRegionCache(
+                    new File(getStateLocation().toFile(), "s3/bucket-regions.properties"),
+                    S3BucketRegionCache.DEFAULT_MAX_ENTRIES);
+            s3BucketDirectory = new S3BucketDirectory(s3BucketRegionCache,
+                    S3BucketDirectory.DEFAULT_BUCKET_LIST_TTL_MILLIS);
+
+            requestMetrics.registerMBean();
+
+            // Load the explorer tree saved by the previous session
+            explorerSnapshot = new ExplorerSnapshot(
+                    new File(getStateLocation().toFile(), "explorer/snapshot.properties"));
+
+            resumableUploadStore = new ResumableUploadStore(
+                    new File(getStateLocation().toFile(), "s3/uploads"));
+
         } catch (Exception e) {
             reportException("Internal error when starting the AWS Toolkit plugin.", e);
         }
@@ -413,10 +536,13 @@ public class AwsToolkitCore extends AbstractAwsPlugin {
     private void doFullInit(BundleContext context) {
         try {
 
-            // Initialize region metadata
+            // Initialize region metadata from the cached or embedded file
+            startupTimer.start("regions");
             RegionUtils.init();
+            startupTimer.end("regions");
 
             // Initialize AccountManager
+            startupTimer.start("accounts");
             AccountInfoProvider accountInfoProvider = new AccountInfoProvider(
                     getPreferenceStore());
             // Load profile credentials. Do not bootstrap credentials file
@@ -444,16 +570,21 @@ public class AwsToolkitCore extends AbstractAwsPlugin {
                 public void watchedPropertyChanged() {
                     Region newRegion = RegionUtils.getCurrentRegion();
                     accountManager.updateCurrentAccount(newRegion);
+                    // Don't keep serving results listed with the previous account or region
+                    requestCoalescer.clear();
                 }
 
             };
 
             accountManager.addDefaultAccountChangeListener(resetAccountListenr);
             addDefaultRegionChangeListener(resetAccountListenr);
+            startupTimer.end("accounts");
 
             // Initialize Mobile Analytics
+            startupTimer.start("analytics");
             toolkitAnalyticsManager = initializeToolkitAnalyticsManager();
             toolkitAnalyticsManager.startSession(true);
+            startupTimer.end("analytics");
 
         } catch (Exception e) {
             reportException("Internal error when starting the AWS Toolkit plugin.", e);
@@ -570,6 +701,23 @@ public class AwsToolkitCore extends AbstractAwsPlugin {
         accountManager.stopAccountMonitors();
         getPreferenceStore().removePropertyChangeListener(defaultRegionMonitor);
         proxyServiceTracker.close();
+        if (s3BucketDirectory != null) {
+            s3BucketDirectory.shutdown();
+        }
+        if (s3BucketRegionCache != null) {
+            logInfo(s3BucketRegionCache.toString());
+            s3BucketRegionCache.save();
+        }
+        if (explorerSnapshot != null) {
+            explorerSnapshot.save();
+        }
+        synchronized (this) {
+            for (AWSClientFactory clientFactory : clientsFactoryByAccountId.values()) {
+                clientFactory.shutdown();
+            }
+        }
+        logInfo(requestMetrics.toString());
+        requestMetrics.unregisterMBean();
 
         plugin = null;
         super.stop(context);
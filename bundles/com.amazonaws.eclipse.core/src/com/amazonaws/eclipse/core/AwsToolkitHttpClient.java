@@ -25,6 +25,7 @@ import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.HttpClient;
@@ -127,6 +128,79 @@ public class AwsToolkitHttpClient {
         return entity == null ? null : entity.getContent();
     }
 
+    /**
+     * Fetch the content of the target URL only if it differs from the version
+     * identified by the given validators, and redirect it to the output
+     * stream. The validators are sent as If-None-Match and If-Modified-Since
+     * headers so that an unchanged resource costs a single 304 round trip.
+     *
+     * @param url The target URL
+     * @param validators The validators of the locally cached version, or null if there is none
+     * @param output The OutputStream
+     * @return The validators of the fetched content, or null if the resource is not modified
+     * @throws ClientProtocolException
+     * @throws IOException
+     */
+    public CacheValidators outputEntityContentIfModified(String url, CacheValidators validators, OutputStream output)
+            throws ClientProtocolException, IOException {
+        HttpGet getMethod = new HttpGet(url);
+        if (validators != null) {
+            if (validators.getETag() != null) {
+                getMethod.setHeader("If-None-Match", validators.getETag());
+            }
+            if (validators.getLastModified() != null) {
+                getMethod.setHeader("If-Modified-Since", validators.getLastModified());
+            }
+        }
+
+        HttpResponse response = httpClient.execute(getMethod);
+        HttpEntity entity = response.getEntity();
+        try (InputStream inputStream = entity == null ? null : entity.getContent()) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode == HttpStatus.SC_NOT_MODIFIED) {
+                return null;
+            }
+            if (statusCode != HttpStatus.SC_OK) {
+                throw new IOException("Unexpected status code " + statusCode + " when fetching " + url);
+            }
+            if (inputStream != null) {
+                int length;
+                byte[] buffer = new byte[2048];
+                while ((length = inputStream.read(buffer)) != -1) {
+                    output.write(buffer, 0, length);
+                }
+            }
+        }
+
+        Header eTag = response.getFirstHeader("ETag");
+        Header lastModified = response.getFirstHeader("Last-Modified");
+        return new CacheValidators(
+                eTag == null ? null : eTag.getValue(),
+                lastModified == null ? null : lastModified.getValue());
+    }
+
+    /**
+     * The HTTP validators (ETag and Last-Modified) identifying a version of a
+     * remote resource.
+     */
+    public static final class CacheValidators {
+        private final String eTag;
+        private final String lastModified;
+
+        public CacheValidators(String eTag, String lastModified) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+    }
+
     static AwsToolkitHttpClientBuilder builder() {
         return new AwsToolkitHttpClientBuilder();
     }
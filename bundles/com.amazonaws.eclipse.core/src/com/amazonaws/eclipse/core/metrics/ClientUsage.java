@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.metrics;
+
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.TimingInfo;
+
+/**
+ * Tracks when a cached client was last used and the size of its HTTP
+ * connection pool, as sampled by the SDK on the client's last request.
+ * <p>
+ * This class is thread safe.
+ */
+public class ClientUsage {
+
+    private final String description;
+
+    private volatile long lastUsedMillis = System.currentTimeMillis();
+    private volatile int pooledConnections;
+    private volatile int leasedConnections;
+
+    public ClientUsage(String description) {
+        this.description = description;
+    }
+
+    /** Records that the client was just handed out or used. */
+    public void touch() {
+        lastUsedMillis = System.currentTimeMillis();
+    }
+
+    /** Returns how long the client has been neither handed out nor used. */
+    public long getIdleMillis() {
+        return System.currentTimeMillis() - lastUsedMillis;
+    }
+
+    /**
+     * Returns the number of connections, idle or in use, in the client's pool
+     * at its last request.
+     */
+    public int getPooledConnections() {
+        return pooledConnections;
+    }
+
+    /** Returns the number of connections in use at the client's last request. */
+    public int getLeasedConnections() {
+        return leasedConnections;
+    }
+
+    /**
+     * Returns a metric collector to install on the client. Installing a
+     * collector makes the SDK sample the client's connection pool on every
+     * request, and the collector records those samples and the time of the
+     * request.
+     */
+    public RequestMetricCollector newMetricCollector() {
+        return new RequestMetricCollector() {
+            @Override
+            public void collectMetrics(Request<?> request, Response<?> response) {
+                touch();
+                AWSRequestMetrics metrics = request.getAWSRequestMetrics();
+                if (metrics == null) {
+                    return;
+                }
+                TimingInfo timingInfo = metrics.getTimingInfo();
+                Number available = timingInfo.getCounter(Field.HttpClientPoolAvailableCount.name());
+                Number leased = timingInfo.getCounter(Field.HttpClientPoolLeasedCount.name());
+                if (available != null && leased != null) {
+                    leasedConnections = leased.intValue();
+                    pooledConnections = available.intValue() + leased.intValue();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
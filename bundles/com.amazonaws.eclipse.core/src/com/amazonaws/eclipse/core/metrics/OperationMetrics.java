@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and latency histogram of the calls made to one operation of one
+ * service in one region.
+ * <p>
+ * This class is thread safe.
+ */
+public class OperationMetrics {
+
+    /** Upper bounds, in milliseconds, of the latency histogram buckets; the last bucket is unbounded. */
+    private static final long[] LATENCY_BUCKET_BOUNDS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final String service;
+    private final String operation;
+    private final String region;
+
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong throttleCount = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKET_BOUNDS.length + 1);
+
+    public OperationMetrics(String service, String operation, String region) {
+        this.service = service;
+        this.operation = operation;
+        this.region = region;
+    }
+
+    /**
+     * Records one call to the operation.
+     *
+     * @param latencyMillis
+     *            The time the call took, including its retries.
+     * @param retries
+     *            The number of times the call was retried.
+     * @param throttles
+     *            The number of attempts that were throttled.
+     * @param sent
+     *            The number of bytes sent, or -1 if unknown.
+     * @param received
+     *            The number of bytes received, or -1 if unknown.
+     * @param failed
+     *            Whether the call ended in an error.
+     */
+    public void record(long latencyMillis, int retries, int throttles, long sent, long received, boolean failed) {
+        callCount.incrementAndGet();
+        if (failed) {
+            errorCount.incrementAndGet();
+        }
+        retryCount.addAndGet(retries);
+        throttleCount.addAndGet(throttles);
+        if (sent > 0) {
+            bytesSent.addAndGet(sent);
+        }
+        if (received > 0) {
+            bytesReceived.addAndGet(received);
+        }
+
+        totalLatencyMillis.addAndGet(latencyMillis);
+        long max;
+        while (latencyMillis > (max = maxLatencyMillis.get())) {
+            if (maxLatencyMillis.compareAndSet(max, latencyMillis)) {
+                break;
+            }
+        }
+        latencyHistogram.incrementAndGet(getBucket(latencyMillis));
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getThrottleCount() {
+        return throttleCount.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public long getAverageLatencyMillis() {
+        long calls = callCount.get();
+        return calls == 0 ? 0 : totalLatencyMillis.get() / calls;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis.get();
+    }
+
+    /**
+     * Returns the upper bound of the histogram bucket holding the given
+     * percentile (between 0 and 100) of the call latencies, in milliseconds.
+     * Latencies beyond the last bucket are reported as the maximum latency.
+     */
+    public long getLatencyPercentileMillis(double percentile) {
+        long calls = 0;
+        long[] counts = new long[latencyHistogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latencyHistogram.get(i);
+            calls += counts[i];
+        }
+        if (calls == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(calls * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKET_BOUNDS.length; i++) {
+            seen += counts[i];
+            if (seen >= threshold) {
+                return LATENCY_BUCKET_BOUNDS[i];
+            }
+        }
+        return getMaxLatencyMillis();
+    }
+
+    /**
+     * Returns the number of calls in each latency histogram bucket; see
+     * {@link #getLatencyBucketBounds()}.
+     */
+    public long[] getLatencyHistogram() {
+        long[] counts = new long[latencyHistogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latencyHistogram.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the upper bounds, in milliseconds, of the latency histogram
+     * buckets. The histogram has one more, unbounded, bucket.
+     */
+    public static long[] getLatencyBucketBounds() {
+        return LATENCY_BUCKET_BOUNDS.clone();
+    }
+
+    private static int getBucket(long latencyMillis) {
+        for (int i = 0; i < LATENCY_BUCKET_BOUNDS.length; i++) {
+            if (latencyMillis <= LATENCY_BUCKET_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BUCKET_BOUNDS.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %s: %d calls, %d errors, %d retries, %d throttles, avg %dms, p99 %dms",
+                service, operation, region, getCallCount(), getErrorCount(), getRetryCount(),
+                getThrottleCount(), getAverageLatencyMillis(), getLatencyPercentileMillis(99));
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.SdkBaseException;
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.retry.RetryUtils;
+
+/**
+ * Toolkit-wide statistics of the AWS calls made by the clients of
+ * {@link com.amazonaws.eclipse.core.AWSClientFactory}, by service, operation
+ * and region. The statistics are collected by request handlers created with
+ * {@link #newRequestHandler(String, String)}, and are exposed through the
+ * Request Metrics view and the {@value #OBJECT_NAME} JMX MBean.
+ * <p>
+ * This class is thread safe.
+ */
+public class RequestMetrics implements RequestMetricsMBean {
+
+    public static final String OBJECT_NAME = "com.amazonaws.eclipse:type=RequestMetrics";
+
+    private static final HandlerContextKey<CallState> CALL_STATE =
+            new HandlerContextKey<>(RequestMetrics.class.getName());
+
+    private static final String CSV_HEADER = "Service,Operation,Region,Calls,Errors,Retries,Throttles,"
+            + "Bytes Sent,Bytes Received,Average Latency (ms),P50 (ms),P90 (ms),P99 (ms),Max Latency (ms)";
+
+    private final ConcurrentMap<String, OperationMetrics> metricsByKey = new ConcurrentHashMap<>();
+
+    private final Set<ClientUsage> liveClients = ConcurrentHashMap.newKeySet();
+    private final AtomicLong createdClientCount = new AtomicLong();
+    private final AtomicLong releasedClientCount = new AtomicLong();
+    private final AtomicLong joinedCallCount = new AtomicLong();
+    private final AtomicLong reusedResultCount = new AtomicLong();
+
+    private ObjectName registeredName;
+
+    /**
+     * Returns a request handler recording the calls made by a client of the
+     * given service in the given region. Each client needs its own handler.
+     */
+    public RequestHandler2 newRequestHandler(final String service, final String region) {
+        return new RequestHandler2() {
+            @Override
+            public void beforeRequest(Request<?> request) {
+                request.addHandlerContext(CALL_STATE, new CallState());
+            }
+
+            @Override
+            public void beforeAttempt(HandlerBeforeAttemptContext context) {
+                CallState state = context.getRequest().getHandlerContext(CALL_STATE);
+                if (state != null) {
+                    state.attempts++;
+                }
+            }
+
+            @Override
+            public void afterAttempt(HandlerAfterAttemptContext context) {
+                CallState state = context.getRequest().getHandlerContext(CALL_STATE);
+                Exception exception = context.getException();
+                if (state != null && exception instanceof SdkBaseException
+                        && RetryUtils.isThrottlingException((SdkBaseException) exception)) {
+                    state.throttles++;
+                }
+            }
+
+            @Override
+            public void afterResponse(Request<?> request, Response<?> response) {
+                record(service, region, request, response, false);
+            }
+
+            @Override
+            public void afterError(Request<?> request, Response<?> response, Exception e) {
+                record(service, region, request, response, true);
+            }
+        };
+    }
+
+    /**
+     * Records that a client was created and cached by the client factory.
+     */
+    public void clientCreated(ClientUsage usage) {
+        if (liveClients.add(usage)) {
+            createdClientCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records that a client was evicted or invalidated from the client
+     * factory's cache.
+     */
+    public void clientReleased(ClientUsage usage) {
+        if (liveClients.remove(usage)) {
+            releasedClientCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records a call that wasn't made because an identical call was in flight
+     * or had just completed; see
+     * {@link com.amazonaws.eclipse.core.util.RequestCoalescer}.
+     */
+    public void callCoalesced(boolean inFlight) {
+        if (inFlight) {
+            joinedCallCount.incrementAndGet();
+        } else {
+            reusedResultCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public long getJoinedCallCount() {
+        return joinedCallCount.get();
+    }
+
+    @Override
+    public long getReusedResultCount() {
+        return reusedResultCount.get();
+    }
+
+    @Override
+    public long getSavedCallCount() {
+        return joinedCallCount.get() + reusedResultCount.get();
+    }
+
+    @Override
+    public int getLiveClientCount() {
+        return liveClients.size();
+    }
+
+    @Override
+    public int getOpenConnectionCount() {
+        int total = 0;
+        for (ClientUsage usage : liveClients) {
+            total += usage.getPooledConnections();
+        }
+        return total;
+    }
+
+    @Override
+    public int getLeasedConnectionCount() {
+        int total = 0;
+        for (ClientUsage usage : liveClients) {
+            total += usage.getLeasedConnections();
+        }
+        return total;
+    }
+
+    @Override
+    public long getCreatedClientCount() {
+        return createdClientCount.get();
+    }
+
+    @Override
+    public long getReleasedClientCount() {
+        return releasedClientCount.get();
+    }
+
+    /**
+     * Returns the statistics of every service, operation and region called so
+     * far, busiest first.
+     */
+    public List<OperationMetrics> getOperationMetrics() {
+        List<OperationMetrics> metrics = new ArrayList<>(metricsByKey.values());
+        Collections.sort(metrics, new Comparator<OperationMetrics>() {
+            @Override
+            public int compare(OperationMetrics a, OperationMetrics b) {
+                return Long.compare(b.getCallCount(), a.getCallCount());
+            }
+        });
+        return metrics;
+    }
+
+    @Override
+    public long getTotalCallCount() {
+        long total = 0;
+        for (OperationMetrics metrics : metricsByKey.values()) {
+            total += metrics.getCallCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalErrorCount() {
+        long total = 0;
+        for (OperationMetrics metrics : metricsByKey.values()) {
+            total += metrics.getErrorCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalRetryCount() {
+        long total = 0;
+        for (OperationMetrics metrics : metricsByKey.values()) {
+            total += metrics.getRetryCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalThrottleCount() {
+        long total = 0;
+        for (OperationMetrics metrics : metricsByKey.values()) {
+            total += metrics.getThrottleCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalBytesSent() {
+        long total = 0;
+        for (OperationMetrics metrics : metricsByKey.values()) {
+            total += metrics.getBytesSent();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalBytesReceived() {
+        long total = 0;
+        for (OperationMetrics metrics : metricsByKey.values()) {
+            total += metrics.getBytesReceived();
+        }
+        return total;
+    }
+
+    @Override
+    public String[] getOperationSummaries() {
+        List<String> summaries = new ArrayList<>();
+        for (OperationMetrics metrics : getOperationMetrics()) {
+            summaries.add(metrics.toString());
+        }
+        return summaries.toArray(new String[summaries.size()]);
+    }
+
+    @Override
+    public void reset() {
+        metricsByKey.clear();
+        joinedCallCount.set(0);
+        reusedResultCount.set(0);
+    }
+
+    @Override
+    public void exportToFile(String path) throws IOException {
+        exportToFile(new File(path));
+    }
+
+    /**
+     * Writes the statistics of every operation to the given CSV file.
+     */
+    public void exportToFile(File file) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writeCsv(writer);
+        }
+    }
+
+    /**
+     * Writes the statistics of every operation as CSV, one line per service,
+     * operation and region.
+     */
+    public void writeCsv(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        out.println(CSV_HEADER);
+        for (OperationMetrics metrics : getOperationMetrics()) {
+            out.println(metrics.getService() + "," + metrics.getOperation() + "," + metrics.getRegion()
+                    + "," + metrics.getCallCount() + "," + metrics.getErrorCount()
+                    + "," + metrics.getRetryCount() + "," + metrics.getThrottleCount()
+                    + "," + metrics.getBytesSent() + "," + metrics.getBytesReceived()
+                    + "," + metrics.getAverageLatencyMillis()
+                    + "," + metrics.getLatencyPercentileMillis(50)
+                    + "," + metrics.getLatencyPercentileMillis(90)
+                    + "," + metrics.getLatencyPercentileMillis(99)
+                    + "," + metrics.getMaxLatencyMillis());
+        }
+        out.flush();
+    }
+
+    /**
+     * Registers this object in the platform MBean server under
+     * {@value #OBJECT_NAME}.
+     */
+    public synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                registeredName = name;
+            }
+        } catch (JMException e) {
+            AwsToolkitCore.getDefault().logWarning("Unable to register the request metrics MBean", e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            AwsToolkitCore.getDefault().logWarning("Unable to unregister the request metrics MBean", e);
+        }
+        registeredName = null;
+    }
+
+    private void record(String service, String region, Request<?> request, Response<?> response, boolean failed) {
+        CallState state = request.getHandlerContext(CALL_STATE);
+        if (state == null) {
+            return;
+        }
+
+        String operation = getOperationName(request.getOriginalRequest());
+        String key = service + "/" + operation + "/" + region;
+        OperationMetrics metrics = metricsByKey.get(key);
+        if (metrics == null) {
+            metrics = new OperationMetrics(service, operation, region);
+            OperationMetrics existing = metricsByKey.putIfAbsent(key, metrics);
+            if (existing != null) {
+                metrics = existing;
+            }
+        }
+
+        long received = -1;
+        if (response != null && response.getHttpResponse() != null) {
+            received = parseContentLength(response.getHttpResponse().getHeaders());
+        }
+        metrics.record((System.nanoTime() - state.startTime) / 1000000,
+                Math.max(0, state.attempts - 1), state.throttles,
+                parseContentLength(request.getHeaders()), received, failed);
+    }
+
+    private static String getOperationName(AmazonWebServiceRequest originalRequest) {
+        if (originalRequest == null) {
+            return "Unknown";
+        }
+        String name = originalRequest.getClass().getSimpleName();
+        return name.endsWith("Request") ? name.substring(0, name.length() - "Request".length()) : name;
+    }
+
+    private static long parseContentLength(Map<String, String> headers) {
+        if (headers == null) {
+            return -1;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if ("Content-Length".equalsIgnoreCase(header.getKey())) {
+                try {
+                    return Long.parseLong(header.getValue().trim());
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Request metrics: %d calls, %d errors, %d retries, %d throttles, "
+                + "%d calls saved, %d live clients, %d open connections",
+                getTotalCallCount(), getTotalErrorCount(), getTotalRetryCount(), getTotalThrottleCount(),
+                getSavedCallCount(), getLiveClientCount(), getOpenConnectionCount());
+    }
+
+    /** Per-call state, stored in the request's handler context. */
+    private static final class CallState {
+        private final long startTime = System.nanoTime();
+        private int attempts;
+        private int throttles;
+    }
+}
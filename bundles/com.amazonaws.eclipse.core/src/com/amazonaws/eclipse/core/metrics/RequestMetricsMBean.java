@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.metrics;
+
+import java.io.IOException;
+
+/**
+ * JMX management interface of {@link RequestMetrics}.
+ */
+public interface RequestMetricsMBean {
+
+    long getTotalCallCount();
+
+    long getTotalErrorCount();
+
+    long getTotalRetryCount();
+
+    long getTotalThrottleCount();
+
+    long getTotalBytesSent();
+
+    long getTotalBytesReceived();
+
+    /** Returns the number of calls that waited for an identical call in flight instead of being made. */
+    long getJoinedCallCount();
+
+    /** Returns the number of calls answered with the result of an identical call that just completed. */
+    long getReusedResultCount();
+
+    /** Returns the total number of calls that weren't made thanks to request coalescing. */
+    long getSavedCallCount();
+
+    /** Returns the number of clients currently cached by the client factory. */
+    int getLiveClientCount();
+
+    /** Returns the number of HTTP connections pooled by the cached clients. */
+    int getOpenConnectionCount();
+
+    /** Returns the number of HTTP connections in use by the cached clients. */
+    int getLeasedConnectionCount();
+
+    /** Returns the number of clients created by the client factory. */
+    long getCreatedClientCount();
+
+    /** Returns the number of clients evicted or invalidated from the client factory's cache. */
+    long getReleasedClientCount();
+
+    /** Returns one line of statistics per service, operation and region. */
+    String[] getOperationSummaries();
+
+    /** Writes the statistics of every operation to the given CSV file. */
+    void exportToFile(String path) throws IOException;
+
+    /** Discards all the recorded statistics. */
+    void reset();
+}
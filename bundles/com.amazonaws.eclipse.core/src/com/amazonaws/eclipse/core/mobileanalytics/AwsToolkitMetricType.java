@@ -55,6 +55,9 @@ public enum AwsToolkitMetricType {
     EXPLORER_S3_GENERATE_PRESIGNED_URL("Explorer-S3GeneratePresignedUrl"),
     EXPLORER_S3_EDIT_OBJECT_TAGS("Explorer-S3EditObjectTags"),
     EXPLORER_S3_EDIT_OBJECT_PERMISSIONS("Explorer-S3EditObjectPermissions"),
+    EXPLORER_S3_SYNC_FOLDER("Explorer-S3SyncFolder"),
+    EXPLORER_S3_STORAGE_ANALYTICS("Explorer-S3StorageAnalytics"),
+    EXPLORER_S3_OPEN_OBJECT_PREVIEW("Explorer-S3OpenObjectPreview"),
     /* Explorer EC2 Actions */
     EXPLORER_EC2_OPEN_VIEW("Explorer-Ec2OpenView"),
     EXPLORER_EC2_OPEN_AMIS_VIEW("Explorer-Ec2OpenAmisView"),
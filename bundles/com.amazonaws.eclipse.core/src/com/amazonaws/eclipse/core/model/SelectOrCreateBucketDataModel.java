@@ -60,7 +60,7 @@ public class SelectOrCreateBucketDataModel extends SelectOrCreateDataModel<Bucke
 
     @Override
     public List<Bucket> loadAwsResources(AwsResourceScopeParamBase param) {
-        return S3BucketUtil.listBucketsInRegion(
+        return S3BucketUtil.listBucketsInRegion(param.getAccountId(),
                 AwsToolkitCore.getClientFactory(param.getAccountId()).getS3ClientByRegion(param.getRegionId()),
                 RegionUtils.getRegion(param.getRegionId()));
     }
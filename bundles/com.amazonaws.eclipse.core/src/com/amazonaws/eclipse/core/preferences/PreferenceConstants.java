@@ -136,6 +136,12 @@ public class PreferenceConstants {
     public static final String P_CONNECTION_TIMEOUT = "connectionTimeout";
     public static final String P_SOCKET_TIMEOUT = "socketTimeout";
 
+    /**
+     * Preference key for the maximum number of files uploaded to Amazon S3 at
+     * the same time when uploading several files.
+     */
+    public static final String P_S3_MAX_CONCURRENT_UPLOADS = "s3MaxConcurrentUploads";
+
     /**
      * Preference key for the default user email to show in the error report form.
      */
@@ -65,6 +65,8 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
         store.setDefault(PreferenceConstants.P_CONNECTION_TIMEOUT, 20 * 1000);
         store.setDefault(PreferenceConstants.P_SOCKET_TIMEOUT, 20 * 1000);
 
+        store.setDefault(PreferenceConstants.P_S3_MAX_CONCURRENT_UPLOADS, 8);
+
         String defaultCredentialsFile =
                 System.getProperty("user.home") + File.separator
                 + ".aws" + File.separator
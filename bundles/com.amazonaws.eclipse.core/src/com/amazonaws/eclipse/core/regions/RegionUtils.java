@@ -20,11 +20,13 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.http.client.ClientProtocolException;
 import org.eclipse.core.runtime.IPath;
@@ -34,6 +36,7 @@ import org.eclipse.jface.resource.ImageDescriptor;
 
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.AwsToolkitHttpClient;
+import com.amazonaws.eclipse.core.AwsToolkitHttpClient.CacheValidators;
 import com.amazonaws.eclipse.core.HttpClientFactory;
 import com.amazonaws.eclipse.core.preferences.PreferenceConstants;
 import com.amazonaws.regions.Regions;
@@ -46,6 +49,10 @@ import com.amazonaws.regions.Regions;
  * > {@link #LOCAL_REGION_FILE_OVERRIDE}         // Use the embedded regions file /etc/override.xml if exists - used for accessing private partitions
  * > {@link #CLOUDFRONT_DISTRO}                  // Use the remote shared ServiceEndPoints.xml file - used in most cases for accessing public regions
  * > /etc/regions.xml                            // Use the local embedded file if failed to download the remote file - fall back to the embedded version which could be outdated
+ *
+ * The remote file is never fetched while initializing: {@link #init()} only reads the copy cached in the
+ * workspace metadata directory by a previous session, and {@link #refreshRegionsFromRemote()} later updates
+ * it in the background with a conditional GET, notifying any {@link RegionsChangeListener} of new metadata.
  */
 public class RegionUtils {
 
@@ -62,7 +69,17 @@ public class RegionUtils {
     private static final String LOCAL_REGION_FILE_OVERRIDE = "/etc/regions-override.xml";
     private static final String LOCAL_REGION_FILE = "/etc/regions.xml";
 
-    private static List<Region> regions;
+    // The ETag and Last-Modified validators of the cached remote regions file.
+    private static final String REGIONS_FILE_VALIDATORS = "regions-validators.properties";
+    private static final String P_ETAG = "ETag";
+    private static final String P_LAST_MODIFIED = "Last-Modified";
+
+    private static volatile List<Region> regions;
+
+    // Whether the regions are loaded from the remote file, and therefore should be refreshed from the remote source.
+    private static boolean useRemoteRegionsFile;
+
+    private static final List<RegionsChangeListener> regionsChangeListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Returns true if the specified service is available in the current/active
@@ -225,28 +242,110 @@ public class RegionUtils {
 
 
     /**
-     * Fetches the most recent version of the regions file from the remote
-     * source and caches it to the workspace metadata directory, then
-     * initializes the static list of regions with it.
+     * Registers a listener to be notified when the region metadata is
+     * replaced by a newer version fetched from the remote source.
+     */
+    public static void addRegionsChangeListener(RegionsChangeListener listener) {
+        regionsChangeListeners.add(listener);
+    }
+
+    public static void removeRegionsChangeListener(RegionsChangeListener listener) {
+        regionsChangeListeners.remove(listener);
+    }
+
+    /**
+     * Initializes the static list of regions without any network access: the
+     * regions file cached to the workspace metadata directory by a previous
+     * session is used if it exists, otherwise the version shipped with the
+     * toolkit. Call {@link #refreshRegionsFromRemote()} to fetch the most
+     * recent version of the remote file.
      */
     public static synchronized void init() {
+        useRemoteRegionsFile = false;
         // Use overriding file for testing unlaunched services.
         if (System.getProperty(P_REGIONS_FILE_OVERRIDE) != null) {
             loadRegionsFromOverrideFile();
         // Use the local region override file
         } else if (localRegionOverrideFileExists()) {
             initBundledRegionsOverride();
-        // Use the remote ServiceEndpoints.xml file
+        // Use the cached copy of the remote ServiceEndpoints.xml file
         } else if (!Boolean.valueOf(System.getProperty(P_USE_LOCAL_REGION_FILE))) {
-            initRegionsFromS3();
+            useRemoteRegionsFile = true;
+            File regionsFile = getCachedRegionsFile();
+            if (regionsFile.exists()) {
+                initCachedRegions(regionsFile);
+            }
         }
         // Fall back onto the version we ship with the toolkit
         if (regions == null) {
             initBundledRegions();
         }
 
-        // If the preference store references an unknown starting region,
-        // go ahead and set the starting region to any existing region
+        resetUnknownDefaultRegion();
+    }
+
+    /**
+     * Fetches the most recent version of the regions file from the remote
+     * source if it differs from the cached copy, caches it to the workspace
+     * metadata directory, then re-initializes the static list of regions with
+     * it and notifies the registered {@link RegionsChangeListener}s. This
+     * method does network I/O and should not be called from the UI thread.
+     *
+     * @return True if new region metadata was loaded, otherwise false.
+     */
+    public static boolean refreshRegionsFromRemote() {
+        synchronized (RegionUtils.class) {
+            if (regions == null) {
+                init();
+            }
+            if (!useRemoteRegionsFile) {
+                return false;
+            }
+        }
+
+        File regionsFile = getCachedRegionsFile();
+        boolean modified = cacheRegionsFile(regionsFile);
+
+        List<Region> newRegions = null;
+        if (modified) {
+            synchronized (RegionUtils.class) {
+                List<Region> previousRegions = regions;
+                initCachedRegions(regionsFile);
+                if (regions == null) {
+                    regions = previousRegions;
+                    return false;
+                }
+                resetUnknownDefaultRegion();
+                newRegions = regions;
+            }
+        }
+
+        // Download any flag icon missing from the cache
+        try {
+            cacheFlags(regionsFile.getParentFile());
+        } catch (Exception e) {
+            AwsToolkitCore.getDefault().logError(
+                    "Couldn't cache flag icons", e);
+        }
+
+        if (modified) {
+            for (RegionsChangeListener listener : regionsChangeListeners) {
+                try {
+                    listener.regionsChanged(newRegions);
+                } catch (Exception e) {
+                    AwsToolkitCore.getDefault().logError(
+                            "Error notifying regions change listener", e);
+                }
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * If the preference store references an unknown starting region, go ahead
+     * and set the starting region to any existing region.
+     */
+    private static void resetUnknownDefaultRegion() {
         IPreferenceStore preferenceStore = AwsToolkitCore.getDefault().getPreferenceStore();
         Region defaultRegion = getRegion(preferenceStore.getString(PreferenceConstants.P_DEFAULT_REGION));
         if (defaultRegion == null) {
@@ -275,53 +374,95 @@ public class RegionUtils {
         }
     }
 
-    private static void initRegionsFromS3() {
+    private static File getCachedRegionsFile() {
         IPath stateLocation = Platform.getStateLocation(AwsToolkitCore
                 .getDefault().getBundle());
         File regionsDir = new File(stateLocation.toFile(), "regions");
-        File regionsFile = new File(regionsDir, "regions.xml");
-
-        cacheRegionsFile(regionsFile);
-        initCachedRegions(regionsFile);
+        return new File(regionsDir, "regions.xml");
     }
 
     /**
      * Caches the regions file stored in cloudfront to the destination file
-     * given. Tries S3 if cloudfront is unavailable.
+     * given, using the validators saved with the cached copy to only
+     * download the file when it has changed.
      *
-     * If the file in s3 is older than the one on disk, does nothing.
+     * @return True if a new version of the file was downloaded.
      */
-    private static void cacheRegionsFile(File regionsFile) {
-        Date regionsFileLastModified = new Date(0);
-        if (!regionsFile.exists()) {
-            regionsFile.getParentFile().mkdirs();
-        } else {
-            regionsFileLastModified = new Date(regionsFile.lastModified());
-        }
+    private static boolean cacheRegionsFile(File regionsFile) {
+        File regionsDir = regionsFile.getParentFile();
+        regionsDir.mkdirs();
+        File validatorsFile = new File(regionsDir, REGIONS_FILE_VALIDATORS);
+        File downloadFile = new File(regionsDir, regionsFile.getName() + ".download");
 
         try {
+            CacheValidators validators = regionsFile.exists() ? loadValidators(validatorsFile) : null;
             String url = CLOUDFRONT_DISTRO + REGIONS_METADATA_S3_OBJECT;
             AwsToolkitHttpClient client = HttpClientFactory.create(AwsToolkitCore.getDefault(), url);
-            Date remoteFileLastModified = client.getLastModifiedDate(url);
-            if (remoteFileLastModified == null || remoteFileLastModified.after(regionsFileLastModified)) {
-                fetchFile(url, regionsFile);
+
+            CacheValidators newValidators;
+            try (OutputStream output = new FileOutputStream(downloadFile)) {
+                newValidators = client.outputEntityContentIfModified(url, validators, output);
             }
+            if (newValidators == null) {
+                return false;
+            }
+
+            // Make sure the downloaded file is valid before replacing the cached copy
+            try (InputStream inputStream = new FileInputStream(downloadFile)) {
+                parseRegionMetadata(inputStream);
+            }
+            regionsFile.delete();
+            if (!downloadFile.renameTo(regionsFile)) {
+                throw new IOException("Unable to replace the cached regions file " + regionsFile);
+            }
+            saveValidators(validatorsFile, newValidators);
+            return true;
         } catch (Exception e) {
             AwsToolkitCore.getDefault().logError(
                     "Failed to cache regions file", e);
+            return false;
+        } finally {
+            downloadFile.delete();
+        }
+    }
+
+    private static CacheValidators loadValidators(File validatorsFile) {
+        if (!validatorsFile.exists()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(validatorsFile)) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            return null;
+        }
+        return new CacheValidators(properties.getProperty(P_ETAG), properties.getProperty(P_LAST_MODIFIED));
+    }
+
+    private static void saveValidators(File validatorsFile, CacheValidators validators) throws IOException {
+        Properties properties = new Properties();
+        if (validators.getETag() != null) {
+            properties.setProperty(P_ETAG, validators.getETag());
+        }
+        if (validators.getLastModified() != null) {
+            properties.setProperty(P_LAST_MODIFIED, validators.getLastModified());
+        }
+        try (OutputStream output = new FileOutputStream(validatorsFile)) {
+            properties.store(output, null);
         }
     }
 
     /**
      * Tries to initialize the regions list from the file given. If the file
      * doesn't exist or cannot, it is deleted so that it can be fetched cleanly
-     * on the next startup.
+     * on the next refresh. Flag icons are only registered from the cache, see
+     * {@link #cacheFlags(File)} for downloading the missing ones.
      */
     private static void initCachedRegions(File regionsFile) {
         try (InputStream inputStream = new FileInputStream(regionsFile)) {
             regions = parseRegionMetadata(inputStream);
             try {
-                cacheFlags(regionsFile.getParentFile());
+                registerCachedFlags(regionsFile.getParentFile());
             } catch (Exception e) {
                 AwsToolkitCore.getDefault().logError(
                         "Couldn't cache flag icons", e);
@@ -329,12 +470,46 @@ public class RegionUtils {
         } catch (Exception e) {
             AwsToolkitCore.getDefault().logError(
                     "Couldn't read regions file", e);
+            regions = null;
             // Clear out the regions file so that it will get cached again at
-            // next startup
+            // next refresh
             regionsFile.delete();
         }
     }
 
+    /**
+     * Registers the flag icons cached to the given directory, falling back to
+     * the icons shipped with the toolkit for those not cached yet.
+     */
+    private static void registerCachedFlags(File regionsDir) throws MalformedURLException {
+        for (Region r : regions) {
+            if (r == LocalRegion.INSTANCE) {
+                continue;
+            }
+
+            File icon = new File(regionsDir, r.getFlagIconPath());
+            registerFlag(r, icon.exists()
+                    ? ImageDescriptor.createFromURL(icon.getAbsoluteFile().toURI().toURL())
+                    : ImageDescriptor.createFromFile(RegionUtils.class, "/icons/" + r.getFlagIconPath()));
+        }
+    }
+
+    /**
+     * Registers the flag icon of the given region, unless the image previously
+     * registered for it is already in use.
+     */
+    private static void registerFlag(Region region, ImageDescriptor descriptor) {
+        try {
+            AwsToolkitCore
+                .getDefault()
+                .getImageRegistry()
+                .put(AwsToolkitCore.IMAGE_FLAG_PREFIX + region.getId(), descriptor);
+        } catch (IllegalArgumentException e) {
+            // The image was already created from the previous descriptor, and
+            // could still be displayed; keep it for the rest of the session.
+        }
+    }
+
     /**
      * Failsafe method to initialize the regions list from the list bundled with
      * the plugin, in case it cannot be fetched from the remote source.
@@ -426,12 +601,8 @@ public class RegionUtils {
                 fetchFile(iconUrl, icon);
             }
 
-            AwsToolkitCore
-                .getDefault()
-                .getImageRegistry()
-                .put(AwsToolkitCore.IMAGE_FLAG_PREFIX + r.getId(),
-                    ImageDescriptor.createFromURL(
-                        icon.getAbsoluteFile().toURI().toURL()));
+            registerFlag(r, ImageDescriptor.createFromURL(
+                    icon.getAbsoluteFile().toURI().toURL()));
         }
     }
 
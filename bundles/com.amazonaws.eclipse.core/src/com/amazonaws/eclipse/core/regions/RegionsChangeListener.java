@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.regions;
+
+import java.util.List;
+
+/**
+ * The interface for handling the event of the region metadata being replaced
+ * by a newer version fetched from the remote source.
+ *
+ * @see RegionUtils#addRegionsChangeListener(RegionsChangeListener)
+ */
+public interface RegionsChangeListener {
+
+    /**
+     * This method will be called from a background thread after the new
+     * region metadata is loaded.
+     *
+     * @param regions
+     *            The new list of available regions.
+     */
+    public void regionsChanged(List<Region> regions);
+}
@@ -20,14 +20,23 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
 import org.eclipse.core.runtime.IExtension;
 import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorInput;
@@ -39,11 +48,15 @@ import org.eclipse.ui.PlatformUI;
 
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.mobileanalytics.AwsToolkitMetricType;
+import com.amazonaws.eclipse.core.util.ResumableUploadStore;
+import com.amazonaws.eclipse.core.util.ResumableUploadStore.PendingUpload;
 import com.amazonaws.eclipse.explorer.AwsAction;
+import com.amazonaws.services.s3.AmazonS3;
 
 /**
  * Runs at startup to determine if any new AWS Toolkit components have been
- * installed, and if so, displays the AWS Toolkit Overview view.
+ * installed, and if so, displays the AWS Toolkit Overview view. Also offers
+ * to resume the uploads to Amazon S3 left unfinished by previous sessions.
  */
 public class Startup implements IStartup {
 
@@ -55,6 +68,7 @@ public class Startup implements IStartup {
     @Override
     public void earlyStartup() {
         recordOverviewContributors();
+        offerToResumeUploads();
     }
 
 
@@ -223,6 +237,116 @@ public class Startup implements IStartup {
         return plugins;
     }
 
+    /**
+     * Aborts the uploads to S3 left unfinished by previous sessions that can't
+     * be resumed anymore, and asks the user whether to resume the others.
+     */
+    private void offerToResumeUploads() {
+        final ResumableUploadStore store = AwsToolkitCore.getDefault().getResumableUploadStore();
+        if (store == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        final List<PendingUpload> resumableUploads = new ArrayList<>();
+        List<PendingUpload> abandonedUploads = new ArrayList<>();
+        for (PendingUpload pendingUpload : store.getPendingUploads()) {
+            if (pendingUpload.isAbandoned(now)) {
+                abandonedUploads.add(pendingUpload);
+            } else {
+                resumableUploads.add(pendingUpload);
+            }
+        }
+
+        if (!abandonedUploads.isEmpty()) {
+            new ResumeUploadsJob(store, Collections.<PendingUpload>emptyList(), abandonedUploads).schedule();
+        }
+        if (resumableUploads.isEmpty()) {
+            return;
+        }
+
+        final StringBuilder message = new StringBuilder(String.format(
+                "%d uploads to Amazon S3 didn't complete before the workbench was closed:\n\n",
+                resumableUploads.size()));
+        for (PendingUpload pendingUpload : resumableUploads) {
+            message.append(pendingUpload.getFile().getName()).append(" to ").append(pendingUpload).append("\n");
+        }
+        message.append("\nDo you want to resume them? The parts already uploaded are deleted otherwise.");
+
+        Display.getDefault().asyncExec(new Runnable() {
+            @Override
+            public void run() {
+                boolean resume = MessageDialog.openQuestion(
+                        Display.getDefault().getActiveShell(), "Resume Uploads", message.toString());
+                List<PendingUpload> none = Collections.emptyList();
+                new ResumeUploadsJob(store, resume ? resumableUploads : none, resume ? none : resumableUploads)
+                        .schedule();
+            }
+        });
+    }
+
+    /**
+     * Resumes or aborts the uploads left unfinished by previous sessions.
+     */
+    private static class ResumeUploadsJob extends Job {
+
+        private final ResumableUploadStore store;
+        private final List<PendingUpload> uploadsToResume;
+        private final List<PendingUpload> uploadsToDiscard;
+
+        ResumeUploadsJob(ResumableUploadStore store, List<PendingUpload> uploadsToResume,
+                List<PendingUpload> uploadsToDiscard) {
+            super(uploadsToResume.isEmpty() ? "Cleaning up unfinished uploads to Amazon S3"
+                    : "Resuming uploads to Amazon S3");
+            this.store = store;
+            this.uploadsToResume = uploadsToResume;
+            this.uploadsToDiscard = uploadsToDiscard;
+            setUser(!uploadsToResume.isEmpty());
+            setSystem(uploadsToResume.isEmpty());
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            monitor.beginTask(getName(), uploadsToResume.size() + uploadsToDiscard.size());
+            List<String> errors = new ArrayList<>();
+            try {
+                for (PendingUpload pendingUpload : uploadsToDiscard) {
+                    try {
+                        store.discard(getS3Client(pendingUpload), pendingUpload);
+                    } catch (Exception e) {
+                        AwsToolkitCore.getDefault().logWarning(
+                                "Unable to abort the unfinished upload to " + pendingUpload, e);
+                    }
+                    monitor.worked(1);
+                }
+                for (PendingUpload pendingUpload : uploadsToResume) {
+                    monitor.subTask("Uploading " + pendingUpload.getFile().getName() + " to " + pendingUpload);
+                    try {
+                        store.resume(getS3Client(pendingUpload), pendingUpload, monitor);
+                    } catch (OperationCanceledException e) {
+                        return Status.CANCEL_STATUS;
+                    } catch (Exception e) {
+                        errors.add(String.format("Error uploading %s: %s", pendingUpload, e.getMessage()));
+                    }
+                    monitor.worked(1);
+                }
+            } finally {
+                monitor.done();
+            }
+
+            if (!errors.isEmpty()) {
+                return new Status(IStatus.ERROR, AwsToolkitCore.getDefault().getPluginId(),
+                        String.join("\n", errors));
+            }
+            return Status.OK_STATUS;
+        }
+
+        private static AmazonS3 getS3Client(PendingUpload pendingUpload) {
+            return AwsToolkitCore.getClientFactory(pendingUpload.getAccountId())
+                    .getS3ClientForBucket(pendingUpload.getBucketName());
+        }
+    }
+
     /**
      * Records a list of the detected plugins (and their versions) which
      * contribute to the AWS Toolkit Overview view through the core plugin's
@@ -53,6 +53,7 @@ public class CreateS3BucketDialog extends AbstractInputDialog<Bucket> {
         String s3RegionName = regionId.equalsIgnoreCase("us-east-1") ? null : regionId;
 
         createdBucket = s3.createBucket(new CreateBucketRequest(input, s3RegionName));
+        AwsToolkitCore.getDefault().getS3BucketDirectory().bucketCreated(input, regionId);
     }
 
     @Override
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.ui.metrics;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.layout.TableColumnLayout;
+import org.eclipse.jface.viewers.ColumnWeightData;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.ui.part.ViewPart;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.metrics.OperationMetrics;
+import com.amazonaws.eclipse.core.metrics.RequestMetrics;
+import com.amazonaws.eclipse.core.ui.AbstractTableContentProvider;
+import com.amazonaws.eclipse.core.ui.AbstractTableLabelProvider;
+
+/**
+ * An Eclipse view displaying the statistics of the AWS calls made by the
+ * toolkit, by service, operation and region.
+ */
+public class RequestMetricsView extends ViewPart {
+
+    /** The view is refreshed periodically while it is open. */
+    private static final int REFRESH_INTERVAL_MILLIS = 5000;
+
+    private static final String[] COLUMN_NAMES = {
+        "Service", "Operation", "Region", "Calls", "Errors", "Retries", "Throttles",
+        "Bytes Sent", "Bytes Received", "Avg (ms)", "P90 (ms)", "P99 (ms)", "Max (ms)"
+    };
+
+    private TableViewer viewer;
+
+    private final Runnable refreshTimer = new Runnable() {
+        @Override
+        public void run() {
+            if (viewer == null || viewer.getTable().isDisposed()) {
+                return;
+            }
+            refresh();
+            Display.getCurrent().timerExec(REFRESH_INTERVAL_MILLIS, this);
+        }
+    };
+
+    @Override
+    public void createPartControl(Composite parent) {
+        Composite composite = new Composite(parent, SWT.NONE);
+        TableColumnLayout tableColumnLayout = new TableColumnLayout();
+        composite.setLayout(tableColumnLayout);
+        parent.setLayout(new FillLayout());
+
+        viewer = new TableViewer(composite, SWT.FULL_SELECTION | SWT.BORDER);
+        Table table = viewer.getTable();
+        table.setHeaderVisible(true);
+        table.setLinesVisible(true);
+        for (int i = 0; i < COLUMN_NAMES.length; i++) {
+            TableColumn column = new TableColumn(table, i < 3 ? SWT.LEFT : SWT.RIGHT);
+            column.setText(COLUMN_NAMES[i]);
+            tableColumnLayout.setColumnData(column, new ColumnWeightData(i < 3 ? 15 : 7));
+        }
+
+        viewer.setContentProvider(new AbstractTableContentProvider() {
+            @Override
+            public Object[] getElements(Object inputElement) {
+                return ((RequestMetrics) inputElement).getOperationMetrics().toArray();
+            }
+        });
+        viewer.setLabelProvider(new MetricsLabelProvider());
+        viewer.setInput(getRequestMetrics());
+        updateClientSummary();
+
+        IToolBarManager toolBar = getViewSite().getActionBars().getToolBarManager();
+        toolBar.add(new RefreshAction());
+        toolBar.add(new ExportAction());
+        toolBar.add(new ResetAction());
+
+        Display.getCurrent().timerExec(REFRESH_INTERVAL_MILLIS, refreshTimer);
+    }
+
+    @Override
+    public void setFocus() {
+        viewer.getTable().setFocus();
+    }
+
+    private void refresh() {
+        viewer.refresh();
+        updateClientSummary();
+    }
+
+    private void updateClientSummary() {
+        RequestMetrics metrics = getRequestMetrics();
+        setContentDescription(String.format("%d calls saved by coalescing, "
+                + "%d live clients, %d open connections (%d in use)",
+                metrics.getSavedCallCount(), metrics.getLiveClientCount(),
+                metrics.getOpenConnectionCount(), metrics.getLeasedConnectionCount()));
+    }
+
+    private static RequestMetrics getRequestMetrics() {
+        return AwsToolkitCore.getDefault().getRequestMetrics();
+    }
+
+    private static final class MetricsLabelProvider extends AbstractTableLabelProvider {
+        @Override
+        public String getColumnText(Object element, int columnIndex) {
+            OperationMetrics metrics = (OperationMetrics) element;
+            switch (columnIndex) {
+            case 0: return metrics.getService();
+            case 1: return metrics.getOperation();
+            case 2: return metrics.getRegion();
+            case 3: return Long.toString(metrics.getCallCount());
+            case 4: return Long.toString(metrics.getErrorCount());
+            case 5: return Long.toString(metrics.getRetryCount());
+            case 6: return Long.toString(metrics.getThrottleCount());
+            case 7: return Long.toString(metrics.getBytesSent());
+            case 8: return Long.toString(metrics.getBytesReceived());
+            case 9: return Long.toString(metrics.getAverageLatencyMillis());
+            case 10: return Long.toString(metrics.getLatencyPercentileMillis(90));
+            case 11: return Long.toString(metrics.getLatencyPercentileMillis(99));
+            case 12: return Long.toString(metrics.getMaxLatencyMillis());
+            default: return "";
+            }
+        }
+    }
+
+    private final class RefreshAction extends Action {
+        public RefreshAction() {
+            setText("Refresh");
+            setToolTipText("Refresh the request metrics");
+            setImageDescriptor(AwsToolkitCore.getDefault().getImageRegistry().getDescriptor(AwsToolkitCore.IMAGE_REFRESH));
+        }
+
+        @Override
+        public void run() {
+            refresh();
+        }
+    }
+
+    private final class ResetAction extends Action {
+        public ResetAction() {
+            setText("Reset");
+            setToolTipText("Discard the recorded request metrics");
+            setImageDescriptor(AwsToolkitCore.getDefault().getImageRegistry().getDescriptor(AwsToolkitCore.IMAGE_REMOVE));
+        }
+
+        @Override
+        public void run() {
+            getRequestMetrics().reset();
+            refresh();
+        }
+    }
+
+    private final class ExportAction extends Action {
+        public ExportAction() {
+            setText("Export...");
+            setToolTipText("Export the request metrics to a CSV file");
+            setImageDescriptor(AwsToolkitCore.getDefault().getImageRegistry().getDescriptor(AwsToolkitCore.IMAGE_EXPORT));
+        }
+
+        @Override
+        public void run() {
+            FileDialog dialog = new FileDialog(getSite().getShell(), SWT.SAVE);
+            dialog.setFilterExtensions(new String[] { "*.csv" });
+            dialog.setFileName("aws-request-metrics.csv");
+            dialog.setOverwrite(true);
+            String path = dialog.open();
+            if (path == null) {
+                return;
+            }
+
+            try {
+                getRequestMetrics().exportToFile(new File(path));
+            } catch (IOException e) {
+                AwsToolkitCore.getDefault().logError("Unable to export the request metrics", e);
+                MessageDialog.openError(getSite().getShell(), "Export failed",
+                        "Unable to export the request metrics: " + e.getMessage());
+            }
+        }
+    }
+}
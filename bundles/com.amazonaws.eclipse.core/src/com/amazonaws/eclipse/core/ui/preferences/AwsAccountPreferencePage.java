@@ -98,6 +98,8 @@ public class AwsAccountPreferencePage extends AwsToolkitPreferencePage implement
     private IntegerFieldEditor connectionTimeout;
     private IntegerFieldEditor socketTimeout;
 
+    private IntegerFieldEditor s3MaxConcurrentUploads;
+
     private Font italicFont;
 
     /**
@@ -210,6 +212,9 @@ public class AwsAccountPreferencePage extends AwsToolkitPreferencePage implement
         // Timeouts section
         createTimeoutSectionGroup(composite);
 
+        // Amazon S3 transfers section
+        createS3TransferSectionGroup(composite);
+
         // The weblinks at the bottom part of the page
         createFeedbackSection(composite);
 
@@ -272,6 +277,9 @@ public class AwsAccountPreferencePage extends AwsToolkitPreferencePage implement
         if (socketTimeout != null) {
             socketTimeout.loadDefault();
         }
+        if (s3MaxConcurrentUploads != null) {
+            s3MaxConcurrentUploads.loadDefault();
+        }
 
         super.performDefaults();
     }
@@ -328,6 +336,9 @@ public class AwsAccountPreferencePage extends AwsToolkitPreferencePage implement
             if (socketTimeout != null) {
                 socketTimeout.store();
             }
+            if (s3MaxConcurrentUploads != null) {
+                s3MaxConcurrentUploads.store();
+            }
 
             return super.performOk();
 
@@ -647,6 +658,31 @@ public class AwsAccountPreferencePage extends AwsToolkitPreferencePage implement
         return group;
     }
 
+    private Group createS3TransferSectionGroup(final Composite parent) {
+        Group group = new Group(parent, SWT.NONE);
+        group.setText("Amazon S3 Transfers:");
+        group.setLayoutData(new GridData(SWT.FILL, SWT.TOP, false, false));
+        group.setLayout(new GridLayout(2, false));
+
+        Composite composite = new Composite(group, SWT.NONE);
+
+        GridData data = new GridData(SWT.FILL, SWT.TOP, false, false);
+        composite.setLayoutData(data);
+
+        s3MaxConcurrentUploads = new IntegerFieldEditor(
+                PreferenceConstants.P_S3_MAX_CONCURRENT_UPLOADS,
+                "Concurrent Uploads",
+                composite);
+
+        s3MaxConcurrentUploads.setValidRange(1, 64);
+        s3MaxConcurrentUploads.setPage(this);
+        s3MaxConcurrentUploads.setPreferenceStore(getPreferenceStore());
+        s3MaxConcurrentUploads.load();
+        s3MaxConcurrentUploads.fillIntoGrid(composite, 3);
+
+        return group;
+    }
+
     /**
      * Insert links to the Java dev forum and aws-eclipse-feedback@amazon.com
      */
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import com.amazonaws.SdkBaseException;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.retry.RetryUtils;
+
+/**
+ * Token bucket shared by the background pollers calling one service in one
+ * region with one account, e.g. the explorer status updates and the editors'
+ * auto-refresh loops.
+ * <p>
+ * The limiter adapts to throttling: every throttled call reported by the
+ * clients of {@link com.amazonaws.eclipse.core.AWSClientFactory} halves the
+ * refill rate and doubles the polling intervals returned by
+ * {@link #getIntervalMillis(long)}, and every successful call gradually
+ * restores them.
+ * <p>
+ * This class is thread safe.
+ */
+public class AdaptiveRateLimiter {
+
+    /** Sustained number of background calls per second, when not throttled. */
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 2;
+
+    /** Number of background calls that can be made in a burst. */
+    public static final int DEFAULT_BURST = 10;
+
+    /** Upper bound of the factor the polling intervals are widened by. */
+    static final double MAX_BACKOFF = 16;
+
+    /** Each successful call narrows the polling intervals by this factor. */
+    private static final double RECOVERY_RATE = 0.9;
+
+    /** Throttled retries of the same call widen the intervals only once. */
+    private static final long MIN_MILLIS_BETWEEN_BACKOFFS = 1000;
+
+    private final double requestsPerSecond;
+    private final int burst;
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private double backoff = 1;
+    private long lastBackoffMillis;
+
+    public AdaptiveRateLimiter() {
+        this(DEFAULT_REQUESTS_PER_SECOND, DEFAULT_BURST);
+    }
+
+    public AdaptiveRateLimiter(double requestsPerSecond, int burst) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+    }
+
+    /**
+     * Takes a token if one is available, without waiting. Pollers running on
+     * a timer should skip their current round when this returns false.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes a token, waiting until one is available.
+     *
+     * @throws InterruptedException
+     *             If the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitMillis;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens--;
+                    return;
+                }
+                waitMillis = (long) Math.ceil((1 - tokens) * 1000 / getCurrentRate());
+            }
+            Thread.sleep(Math.max(1, waitMillis));
+        }
+    }
+
+    /**
+     * Returns the given polling interval, widened by the current backoff.
+     */
+    public synchronized long getIntervalMillis(long baseIntervalMillis) {
+        return (long) (baseIntervalMillis * backoff);
+    }
+
+    /**
+     * Returns the factor the polling intervals are currently widened by,
+     * between 1 and {@value #MAX_BACKOFF}.
+     */
+    public synchronized double getBackoff() {
+        return backoff;
+    }
+
+    /** Records a throttled call, widening the polling intervals. */
+    public synchronized void onThrottled() {
+        refill();
+        long now = System.currentTimeMillis();
+        if (now - lastBackoffMillis >= MIN_MILLIS_BETWEEN_BACKOFFS) {
+            backoff = Math.min(MAX_BACKOFF, backoff * 2);
+            lastBackoffMillis = now;
+        }
+        tokens = Math.min(tokens, 0);
+    }
+
+    /** Records a successful call, narrowing the polling intervals. */
+    public synchronized void onSuccess() {
+        if (backoff > 1) {
+            refill();
+            backoff = Math.max(1, backoff * RECOVERY_RATE);
+        }
+    }
+
+    /**
+     * Returns a request handler reporting the outcome of every attempt made by
+     * a client to this limiter.
+     */
+    public RequestHandler2 newRequestHandler() {
+        return new RequestHandler2() {
+            @Override
+            public void afterAttempt(HandlerAfterAttemptContext context) {
+                Exception exception = context.getException();
+                if (exception == null) {
+                    onSuccess();
+                } else if (exception instanceof SdkBaseException
+                        && RetryUtils.isThrottlingException((SdkBaseException) exception)) {
+                    onThrottled();
+                }
+            }
+        };
+    }
+
+    private double getCurrentRate() {
+        return requestsPerSecond / backoff;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1e9 * getCurrentRate());
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.ProgressListener;
+
+/**
+ * Aggregate progress and throughput of a batch of S3 transfers. The
+ * transferred bytes are reported by the SDK's transfer threads through
+ * {@link #newProgressListener()}, while the job running the batch reads the
+ * progress at its own pace.
+ * <p>
+ * This class is thread safe.
+ */
+public class BatchTransferProgress {
+
+    private static final String[] BYTE_UNITS = {"B", "KB", "MB", "GB", "TB"};
+
+    private final int totalFiles;
+    private final long totalBytes;
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private final AtomicInteger completedFiles = new AtomicInteger();
+    private final AtomicInteger failedFiles = new AtomicInteger();
+
+    public BatchTransferProgress(int totalFiles, long totalBytes) {
+        this.totalFiles = totalFiles;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Returns a listener to add to each transfer of the batch. Bytes resent
+     * after a retry are only counted once.
+     */
+    public ProgressListener newProgressListener() {
+        return new ProgressListener() {
+            @Override
+            public void progressChanged(ProgressEvent event) {
+                ProgressEventType type = event.getEventType();
+                if (type == ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT
+                        || type == ProgressEventType.HTTP_REQUEST_CONTENT_RESET_EVENT
+                        || type == ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT
+                        || type == ProgressEventType.HTTP_RESPONSE_CONTENT_RESET_EVENT) {
+                    transferredBytes.addAndGet(event.getBytesTransferred());
+                }
+            }
+        };
+    }
+
+    /**
+     * Records bytes transferred outside of the SDK's progress events, e.g.
+     * parts of a resumed download, or negative to discard bytes that will be
+     * transferred again.
+     */
+    public void bytesTransferred(long bytes) {
+        transferredBytes.addAndGet(bytes);
+    }
+
+    /** Records that a transfer of the batch completed, successfully or not. */
+    public void fileCompleted(boolean failed) {
+        completedFiles.incrementAndGet();
+        if (failed) {
+            failedFiles.incrementAndGet();
+        }
+    }
+
+    public int getCompletedFiles() {
+        return completedFiles.get();
+    }
+
+    public int getFailedFiles() {
+        return failedFiles.get();
+    }
+
+    public long getTransferredBytes() {
+        return transferredBytes.get();
+    }
+
+    /**
+     * Returns the progress of the batch between 0 and the given amount of
+     * work, by bytes, or by files if the batch holds no bytes.
+     */
+    public int getWorkDone(int totalWork) {
+        double done = totalBytes > 0
+                ? (double) Math.min(transferredBytes.get(), totalBytes) / totalBytes
+                : totalFiles > 0 ? (double) completedFiles.get() / totalFiles : 1;
+        return (int) (done * totalWork);
+    }
+
+    /**
+     * Returns a one line summary such as
+     * "12/300 files, 1.5 MB of 20.0 MB (750.0 KB/s, 6.0 files/s)".
+     */
+    public String getSummary() {
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1e9, 0.001);
+        String summary = String.format("%d/%d files, %s of %s (%s/s, %.1f files/s)",
+                completedFiles.get(), totalFiles, formatBytes(transferredBytes.get()), formatBytes(totalBytes),
+                formatBytes((long) (transferredBytes.get() / seconds)), completedFiles.get() / seconds);
+        int failed = failedFiles.get();
+        return failed == 0 ? summary : summary + String.format(", %d failed", failed);
+    }
+
+    /** Formats the given number of bytes with a binary unit, e.g. "1.5 MB". */
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        double value = bytes;
+        int unit = 0;
+        while (value >= 1024 && unit < BYTE_UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format("%.1f %s", value, BYTE_UNITS[unit]);
+    }
+}
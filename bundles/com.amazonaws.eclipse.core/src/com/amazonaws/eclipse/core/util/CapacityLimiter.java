@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+/**
+ * Token bucket keeping the capacity units consumed by a stream of DynamoDB
+ * requests under a budget, e.g. a bulk export or import.
+ * <p>
+ * Unlike {@link AdaptiveRateLimiter}, the cost of a request is only known
+ * once it has been made: callers wait for the bucket to be non-empty before
+ * each request, then take out the units the response reports. A bucket can
+ * therefore go into debt, and the requests following an expensive one wait
+ * until it is paid back.
+ * <p>
+ * This class is thread safe.
+ */
+public class CapacityLimiter {
+
+    private final double unitsPerSecond;
+    private final double burst;
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * Creates a limiter allowing a burst of one second worth of units.
+     */
+    public CapacityLimiter(double unitsPerSecond) {
+        this(unitsPerSecond, unitsPerSecond);
+    }
+
+    public CapacityLimiter(double unitsPerSecond, double burst) {
+        if (unitsPerSecond <= 0) {
+            throw new IllegalArgumentException("The capacity budget must be positive: " + unitsPerSecond);
+        }
+        this.unitsPerSecond = unitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+    }
+
+    /**
+     * Waits until the bucket is no longer empty or in debt.
+     *
+     * @throws InterruptedException
+     *             If the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        long waitMillis;
+        while ((waitMillis = getWaitMillis()) > 0) {
+            Thread.sleep(waitMillis);
+        }
+    }
+
+    /**
+     * Returns how long a request has to wait for the bucket to refill, or
+     * zero if it can be made now.
+     */
+    public synchronized long getWaitMillis() {
+        refill();
+        if (tokens > 0) {
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil(-tokens * 1000 / unitsPerSecond));
+    }
+
+    /**
+     * Takes out the capacity units a request consumed.
+     */
+    public synchronized void consume(double units) {
+        refill();
+        tokens -= units;
+    }
+
+    public double getUnitsPerSecond() {
+        return unitsPerSecond;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1e9 * unitsPerSecond);
+        lastRefillNanos = now;
+    }
+}
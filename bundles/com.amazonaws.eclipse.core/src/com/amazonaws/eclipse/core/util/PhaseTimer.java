@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Records the elapsed time of named phases of a multi-step workflow, such as
+ * the plugin start-up, so that they can be logged and compared across
+ * releases. Phases may overlap and run on different threads.
+ * <p>
+ * This class is thread safe.
+ */
+public class PhaseTimer {
+
+    private final Map<String, Long> startTimes = new HashMap<>();
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+
+    /**
+     * Marks the start of the given phase.
+     */
+    public synchronized void start(String phase) {
+        startTimes.put(phase, System.nanoTime());
+    }
+
+    /**
+     * Marks the end of the given phase and returns its duration in
+     * milliseconds, or -1 if the phase was never started.
+     */
+    public synchronized long end(String phase) {
+        Long startTime = startTimes.remove(phase);
+        if (startTime == null) {
+            return -1;
+        }
+        long duration = (System.nanoTime() - startTime) / 1000000;
+        durations.put(phase, duration);
+        return duration;
+    }
+
+    /**
+     * Returns the duration in milliseconds of every completed phase, in the
+     * order they completed.
+     */
+    public synchronized Map<String, Long> getPhaseDurations() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(durations));
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Entry<String, Long> entry : durations.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(entry.getKey()).append('=').append(entry.getValue()).append("ms");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Bounded, LRU cache of the fixed size pages of a remote object, which is
+ * read through ranged requests. Missing pages that are adjacent are fetched
+ * with a single request, so that reading a window of the object costs at most
+ * one round trip.
+ * <p>
+ * This class is thread safe.
+ */
+public class RangePageCache {
+
+    /** Reads a range of the remote object. */
+    public interface RangeReader {
+        /**
+         * Returns the bytes of the object from start to end, both inclusive.
+         */
+        byte[] read(long start, long end) throws IOException;
+    }
+
+    private final RangeReader reader;
+    private final int pageSize;
+    private final Map<Long, byte[]> pages;
+    private long length;
+
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @param length
+     *            The length of the object.
+     * @param pageSize
+     *            The size of the pages the object is read by.
+     * @param maxPages
+     *            The maximum number of pages to cache; the least recently used
+     *            pages are evicted first.
+     */
+    public RangePageCache(RangeReader reader, long length, int pageSize, final int maxPages) {
+        this.reader = reader;
+        this.length = length;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<Long, byte[]> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    public synchronized long getLength() {
+        return length;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Drops every cached page, e.g. once the object has been replaced by a
+     * new version of the given length.
+     */
+    public synchronized void reset(long newLength) {
+        pages.clear();
+        length = newLength;
+    }
+
+    /**
+     * Returns up to the given number of bytes of the object from the given
+     * offset; fewer if the end of the object is reached.
+     */
+    public synchronized byte[] read(long offset, int count) throws IOException {
+        if (offset < 0 || count < 0) {
+            throw new IllegalArgumentException("Invalid range: " + offset + " + " + count);
+        }
+        long end = Math.min(offset + count, length);
+        if (offset >= end) {
+            return new byte[0];
+        }
+
+        long firstPage = offset / pageSize;
+        long lastPage = (end - 1) / pageSize;
+        byte[][] window = new byte[(int) (lastPage - firstPage + 1)][];
+        for (long page = firstPage; page <= lastPage; page++) {
+            window[(int) (page - firstPage)] = pages.get(page);
+        }
+        fetchMissingPages(window, firstPage);
+
+        byte[] result = new byte[(int) (end - offset)];
+        int copied = 0;
+        for (int i = 0; i < window.length; i++) {
+            long pageStart = (firstPage + i) * pageSize;
+            int from = (int) Math.max(0, offset - pageStart);
+            int to = (int) Math.min(window[i].length, end - pageStart);
+            System.arraycopy(window[i], from, result, copied, to - from);
+            copied += to - from;
+        }
+        return result;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /** Fetches each run of missing pages in the window with one request. */
+    private void fetchMissingPages(byte[][] window, long firstPage) throws IOException {
+        int i = 0;
+        while (i < window.length) {
+            if (window[i] != null) {
+                hitCount++;
+                i++;
+                continue;
+            }
+            int runStart = i;
+            while (i < window.length && window[i] == null) {
+                i++;
+            }
+            long start = (firstPage + runStart) * pageSize;
+            long end = Math.min((firstPage + i) * pageSize, length) - 1;
+            byte[] bytes = reader.read(start, end);
+            if (bytes.length != end - start + 1) {
+                throw new IOException("Expected " + (end - start + 1) + " bytes at offset " + start
+                        + " but read " + bytes.length);
+            }
+            missCount += i - runStart;
+            for (int run = runStart; run < i; run++) {
+                int from = (run - runStart) * pageSize;
+                int to = (int) Math.min(from + pageSize, bytes.length);
+                byte[] page = new byte[to - from];
+                System.arraycopy(bytes, from, page, 0, page.length);
+                window[run] = page;
+                pages.put(firstPage + run, page);
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.eclipse.core.metrics.RequestMetrics;
+
+/**
+ * Coalesces identical read-only calls made concurrently by different parts of
+ * the toolkit, e.g. the same describeInstances call from the EC2 instance view
+ * and the explorer. The first caller makes the call; callers making the same
+ * call with the same client while it's in flight, or within
+ * {@link #DEFAULT_RESULT_WINDOW_MILLIS} after it completed, get its result
+ * instead of making their own. Failed calls aren't remembered.
+ * <p>
+ * Results are shared between callers, so callers must not modify them. Only
+ * calls without side effects should go through this class.
+ * <p>
+ * This class is thread safe.
+ */
+public class RequestCoalescer {
+
+    /** How long a completed call's result is handed to identical calls. */
+    public static final long DEFAULT_RESULT_WINDOW_MILLIS = 2000;
+
+    /** How often completed calls are purged. */
+    private static final long PURGE_INTERVAL_MILLIS = 30 * 1000;
+
+    private final ConcurrentMap<CallKey, Call> calls = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurgeMillis = new AtomicLong(System.currentTimeMillis());
+
+    private final long resultWindowMillis;
+    private final RequestMetrics requestMetrics;
+
+    public RequestCoalescer(RequestMetrics requestMetrics) {
+        this(requestMetrics, DEFAULT_RESULT_WINDOW_MILLIS);
+    }
+
+    public RequestCoalescer(RequestMetrics requestMetrics, long resultWindowMillis) {
+        this.requestMetrics = requestMetrics;
+        this.resultWindowMillis = resultWindowMillis;
+    }
+
+    /**
+     * Makes the given call, or shares the result of an identical call made
+     * with the same client.
+     *
+     * @param client
+     *            The client the call is made with; calls are only coalesced
+     *            when made with the same client instance.
+     * @param request
+     *            The request, compared with the requests of the other calls
+     *            using {@link Object#equals(Object)}.
+     * @param call
+     *            Makes the call, typically a method reference such as
+     *            {@code ec2::describeInstances}.
+     */
+    public <R extends AmazonWebServiceRequest, T> T execute(Object client, R request, Function<R, T> call) {
+        purgeCompletedCalls();
+
+        // The caller may reuse and modify its request once the call returns
+        CallKey key = new CallKey(client, request.clone());
+        while (true) {
+            Call existing = calls.get(key);
+            if (existing != null) {
+                if (!existing.isExpired()) {
+                    boolean inFlight = !existing.isDone();
+                    T result = existing.<T>await();
+                    requestMetrics.callCoalesced(inFlight);
+                    return result;
+                }
+                calls.remove(key, existing);
+            }
+
+            Call newCall = new Call();
+            if (calls.putIfAbsent(key, newCall) != null) {
+                continue;
+            }
+
+            try {
+                T result = call.apply(request);
+                newCall.complete(result, null);
+                return result;
+            } catch (RuntimeException | Error e) {
+                calls.remove(key, newCall);
+                newCall.complete(null, e);
+                throw e;
+            }
+        }
+    }
+
+    /** Forgets all the completed calls, e.g. after the current account or region changed. */
+    public void clear() {
+        for (CallKey key : calls.keySet()) {
+            Call call = calls.get(key);
+            if (call != null && call.isDone()) {
+                calls.remove(key, call);
+            }
+        }
+    }
+
+    private void purgeCompletedCalls() {
+        long now = System.currentTimeMillis();
+        long lastPurge = lastPurgeMillis.get();
+        if (now - lastPurge < PURGE_INTERVAL_MILLIS || !lastPurgeMillis.compareAndSet(lastPurge, now)) {
+            return;
+        }
+        for (CallKey key : calls.keySet()) {
+            Call call = calls.get(key);
+            if (call != null && call.isExpired()) {
+                calls.remove(key, call);
+            }
+        }
+    }
+
+    /** One call, in flight or completed. */
+    private final class Call {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile long completedMillis;
+        private Object result;
+        private Throwable failure;
+
+        void complete(Object result, Throwable failure) {
+            this.result = result;
+            this.failure = failure;
+            this.completedMillis = System.currentTimeMillis();
+            done.countDown();
+        }
+
+        boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        boolean isExpired() {
+            return isDone() && System.currentTimeMillis() - completedMillis > resultWindowMillis;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T await() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AbortedException("Interrupted while waiting for an identical call", e);
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            return (T) result;
+        }
+    }
+
+    private static final class CallKey {
+        private final Object client;
+        private final AmazonWebServiceRequest request;
+
+        CallKey(Object client, AmazonWebServiceRequest request) {
+            this.client = client;
+            this.request = request;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(client) * 31 + request.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CallKey)) {
+                return false;
+            }
+            CallKey other = (CallKey) obj;
+            return client == other.client && request.getClass() == other.request.getClass()
+                    && request.equals(other.request);
+        }
+    }
+}
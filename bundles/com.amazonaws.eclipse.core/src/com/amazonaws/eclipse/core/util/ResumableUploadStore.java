@@ -0,0 +1,417 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.ui.PlatformUI;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.PersistableTransfer;
+import com.amazonaws.services.s3.transfer.PersistableUpload;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.amazonaws.services.s3.transfer.Upload;
+import com.amazonaws.services.s3.transfer.internal.S3SyncProgressListener;
+import com.amazonaws.services.s3.transfer.model.UploadResult;
+import com.amazonaws.util.json.Jackson;
+
+/**
+ * Persists the state of the multipart uploads started by the toolkit, so that
+ * an upload interrupted by a workbench restart can be resumed from its last
+ * completed part instead of starting over from the first byte.
+ * <p>
+ * An upload is recorded once S3 has assigned it a multipart upload ID, and the
+ * record is removed when the upload completes, fails or is aborted. The parts
+ * already uploaded aren't recorded; the transfer manager lists them from S3
+ * when the upload is resumed. Files under the transfer manager's multipart
+ * threshold are uploaded with a single request and never recorded.
+ * <p>
+ * This class is thread safe.
+ */
+public class ResumableUploadStore {
+
+    /**
+     * Age after which an unfinished upload is considered abandoned, and
+     * aborted rather than offered for resumption.
+     */
+    public static final long ABANDONED_UPLOAD_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final String RECORD_SUFFIX = ".upload";
+
+    /** How often the blocking uploads check for cancellation. */
+    private static final long POLL_INTERVAL_MILLIS = 200;
+
+    private static final String NO_SUCH_UPLOAD = "NoSuchUpload";
+
+    private final File directory;
+
+    /** Record files of the uploads started or resumed by this store. */
+    private final Map<Upload, File> recordFiles = Collections.synchronizedMap(new WeakHashMap<Upload, File>());
+
+    /**
+     * @param directory
+     *            The directory the upload records are kept in.
+     */
+    public ResumableUploadStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Starts uploading the given request with the given transfer manager,
+     * recording the upload so that it can be resumed after a restart. The
+     * upload should be stopped with {@link #cancel(Upload)} rather than
+     * {@link Upload#abort()}.
+     */
+    public Upload upload(TransferManager transferManager, PutObjectRequest request) {
+        File recordFile = new File(directory, UUID.randomUUID() + RECORD_SUFFIX);
+        Upload upload = transferManager.upload(request,
+                new RecordingListener(recordFile, request, currentAccountId()));
+        recordFiles.put(upload, recordFile);
+        return upload;
+    }
+
+    /**
+     * Uploads the given request and waits for the upload to complete. Large
+     * files are uploaded in parts, several at a time, and can be resumed after
+     * a restart.
+     *
+     * @throws OperationCanceledException
+     *             If the monitor is cancelled before the upload completes.
+     */
+    public UploadResult upload(AmazonS3 s3, PutObjectRequest request, IProgressMonitor monitor) {
+        TransferManager transferManager = TransferManagerBuilder.standard().withS3Client(s3).build();
+        try {
+            return await(upload(transferManager, request), monitor);
+        } finally {
+            transferManager.shutdownNow(false);
+        }
+    }
+
+    /**
+     * Resumes an upload recorded by a previous session, uploading only the
+     * parts S3 doesn't have yet.
+     */
+    public Upload resume(TransferManager transferManager, PendingUpload pendingUpload) {
+        final File recordFile = pendingUpload.recordFile;
+        Upload upload = transferManager.resumeUpload(
+                PersistableTransfer.<PersistableUpload>deserializeFrom(pendingUpload.state));
+        upload.addProgressListener(new ProgressListener() {
+            @Override
+            public void progressChanged(ProgressEvent progressEvent) {
+                if (progressEvent.getEventType() == ProgressEventType.TRANSFER_COMPLETED_EVENT
+                        || progressEvent.getEventType() == ProgressEventType.TRANSFER_FAILED_EVENT) {
+                    recordFile.delete();
+                }
+            }
+        });
+        recordFiles.put(upload, recordFile);
+        return upload;
+    }
+
+    /**
+     * Resumes an upload recorded by a previous session and waits for it to
+     * complete. A pending upload S3 no longer knows about is discarded.
+     *
+     * @throws OperationCanceledException
+     *             If the monitor is cancelled before the upload completes.
+     */
+    public UploadResult resume(AmazonS3 s3, PendingUpload pendingUpload, IProgressMonitor monitor) {
+        TransferManager transferManager = TransferManagerBuilder.standard().withS3Client(s3).build();
+        try {
+            return await(resume(transferManager, pendingUpload), monitor);
+        } catch (AmazonServiceException e) {
+            if (NO_SUCH_UPLOAD.equals(e.getErrorCode())) {
+                pendingUpload.recordFile.delete();
+            }
+            throw e;
+        } finally {
+            transferManager.shutdownNow(false);
+        }
+    }
+
+    /**
+     * Stops an upload started or resumed by this store. While the workbench
+     * is shutting down the upload is paused, so that it can be resumed by the
+     * next session; otherwise it's aborted and the parts already uploaded are
+     * deleted.
+     */
+    public void cancel(Upload upload) {
+        File recordFile = recordFiles.remove(upload);
+        if (isWorkbenchClosing() && upload.tryPause(false).getPauseStatus().isPaused()) {
+            return;
+        }
+        upload.abort();
+        if (recordFile != null) {
+            recordFile.delete();
+        }
+    }
+
+    /**
+     * Returns the uploads recorded by previous sessions that haven't
+     * completed, oldest first.
+     */
+    public List<PendingUpload> getPendingUploads() {
+        List<PendingUpload> pendingUploads = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return pendingUploads;
+        }
+
+        for (File file : files) {
+            if (!file.getName().endsWith(RECORD_SUFFIX) || isActive(file)) {
+                continue;
+            }
+            Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+                pendingUploads.add(new PendingUpload(file, properties));
+            } catch (IOException | RuntimeException e) {
+                AwsToolkitCore.getDefault().logWarning("Unable to read the resumable upload record " + file, e);
+                file.delete();
+            }
+        }
+        Collections.sort(pendingUploads, (a, b) -> Long.compare(a.getSavedMillis(), b.getSavedMillis()));
+        return pendingUploads;
+    }
+
+    /**
+     * Aborts a pending upload, deleting the parts already uploaded to S3, and
+     * removes its record.
+     */
+    public void discard(AmazonS3 s3, PendingUpload pendingUpload) {
+        try {
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(
+                    pendingUpload.getBucketName(), pendingUpload.getKey(), pendingUpload.getUploadId()));
+        } catch (AmazonServiceException e) {
+            if (!NO_SUCH_UPLOAD.equals(e.getErrorCode())) {
+                throw e;
+            }
+        }
+        pendingUpload.recordFile.delete();
+    }
+
+    /**
+     * Writes the record of an upload that has been assigned its multipart
+     * upload ID.
+     */
+    void save(File recordFile, PersistableUpload state, PutObjectRequest request, String accountId) {
+        String json = state.serialize();
+        File file = request.getFile();
+
+        Properties properties = new Properties();
+        properties.setProperty(PendingUpload.STATE, json);
+        properties.setProperty(PendingUpload.UPLOAD_ID, Jackson.jsonNodeOf(json).get("multipartUploadId").asText());
+        properties.setProperty(PendingUpload.BUCKET_NAME, request.getBucketName());
+        properties.setProperty(PendingUpload.KEY, request.getKey());
+        properties.setProperty(PendingUpload.FILE, file.getAbsolutePath());
+        properties.setProperty(PendingUpload.FILE_LENGTH, Long.toString(file.length()));
+        properties.setProperty(PendingUpload.FILE_LAST_MODIFIED, Long.toString(file.lastModified()));
+        properties.setProperty(PendingUpload.SAVED_MILLIS, Long.toString(System.currentTimeMillis()));
+        if (accountId != null) {
+            properties.setProperty(PendingUpload.ACCOUNT_ID, accountId);
+        }
+
+        directory.mkdirs();
+        try (OutputStream out = new FileOutputStream(recordFile)) {
+            properties.store(out, "Resumable S3 upload");
+        } catch (IOException e) {
+            AwsToolkitCore.getDefault().logWarning("Unable to save the resumable upload record " + recordFile, e);
+        }
+    }
+
+    private boolean isActive(File recordFile) {
+        synchronized (recordFiles) {
+            return recordFiles.containsValue(recordFile);
+        }
+    }
+
+    private UploadResult await(Upload upload, IProgressMonitor monitor) {
+        try {
+            while (!upload.isDone()) {
+                if (monitor != null && monitor.isCanceled()) {
+                    cancel(upload);
+                    throw new OperationCanceledException();
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+            return upload.waitForUploadResult();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(upload);
+            throw new OperationCanceledException();
+        } finally {
+            recordFiles.remove(upload);
+        }
+    }
+
+    private static String currentAccountId() {
+        AwsToolkitCore plugin = AwsToolkitCore.getDefault();
+        return plugin == null ? null : plugin.getCurrentAccountId();
+    }
+
+    private static boolean isWorkbenchClosing() {
+        return PlatformUI.isWorkbenchRunning() && PlatformUI.getWorkbench().isClosing();
+    }
+
+    /**
+     * Records the upload once it can be resumed, and removes the record once
+     * there's nothing left to resume.
+     */
+    private class RecordingListener extends S3SyncProgressListener {
+
+        private final File recordFile;
+        private final PutObjectRequest request;
+        private final String accountId;
+
+        RecordingListener(File recordFile, PutObjectRequest request, String accountId) {
+            this.recordFile = recordFile;
+            this.request = request;
+            this.accountId = accountId;
+        }
+
+        @Override
+        public void onPersistableTransfer(PersistableTransfer persistableTransfer) {
+            if (persistableTransfer instanceof PersistableUpload && request.getFile() != null) {
+                save(recordFile, (PersistableUpload) persistableTransfer, request, accountId);
+            }
+        }
+
+        @Override
+        public void progressChanged(ProgressEvent progressEvent) {
+            if (progressEvent.getEventType() == ProgressEventType.TRANSFER_COMPLETED_EVENT
+                    || progressEvent.getEventType() == ProgressEventType.TRANSFER_FAILED_EVENT) {
+                recordFile.delete();
+            }
+        }
+    }
+
+    /**
+     * An upload recorded by a previous session that hasn't completed.
+     */
+    public static class PendingUpload {
+
+        static final String STATE = "state";
+        static final String UPLOAD_ID = "uploadId";
+        static final String BUCKET_NAME = "bucketName";
+        static final String KEY = "key";
+        static final String FILE = "file";
+        static final String FILE_LENGTH = "fileLength";
+        static final String FILE_LAST_MODIFIED = "fileLastModified";
+        static final String SAVED_MILLIS = "savedMillis";
+        static final String ACCOUNT_ID = "accountId";
+
+        private final File recordFile;
+        private final String state;
+        private final String uploadId;
+        private final String bucketName;
+        private final String key;
+        private final File file;
+        private final long fileLength;
+        private final long fileLastModified;
+        private final long savedMillis;
+        private final String accountId;
+
+        PendingUpload(File recordFile, Properties properties) {
+            this.recordFile = recordFile;
+            this.state = required(properties, STATE);
+            this.uploadId = required(properties, UPLOAD_ID);
+            this.bucketName = required(properties, BUCKET_NAME);
+            this.key = required(properties, KEY);
+            this.file = new File(required(properties, FILE));
+            this.fileLength = Long.parseLong(required(properties, FILE_LENGTH));
+            this.fileLastModified = Long.parseLong(required(properties, FILE_LAST_MODIFIED));
+            this.savedMillis = Long.parseLong(required(properties, SAVED_MILLIS));
+            this.accountId = properties.getProperty(ACCOUNT_ID);
+        }
+
+        private static String required(Properties properties, String name) {
+            String value = properties.getProperty(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing property " + name);
+            }
+            return value;
+        }
+
+        public String getUploadId() {
+            return uploadId;
+        }
+
+        public String getBucketName() {
+            return bucketName;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /** Returns when the upload was started, in milliseconds since the epoch. */
+        public long getSavedMillis() {
+            return savedMillis;
+        }
+
+        /**
+         * Returns the id of the account the upload was started with, or null
+         * if it's unknown.
+         */
+        public String getAccountId() {
+            return accountId;
+        }
+
+        /**
+         * Returns whether the upload can't or shouldn't be resumed anymore,
+         * either because it was started more than
+         * {@link ResumableUploadStore#ABANDONED_UPLOAD_AGE_MILLIS} ago, or
+         * because the file being uploaded has been changed or deleted since.
+         */
+        public boolean isAbandoned(long nowMillis) {
+            return nowMillis - savedMillis > ABANDONED_UPLOAD_AGE_MILLIS
+                    || !file.isFile()
+                    || file.length() != fileLength
+                    || file.lastModified() != fileLastModified;
+        }
+
+        @Override
+        public String toString() {
+            return "s3://" + bucketName + "/" + key;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.Bucket;
+
+/**
+ * Directory of the buckets of each account and the regions they live in,
+ * shared by every bucket selection control. The buckets of an account are
+ * listed once and their regions are resolved on a shared, bounded pool
+ * through the {@link S3BucketRegionCache}, so that asking for the buckets of
+ * another region, or asking again from another wizard, costs no extra calls.
+ * Resolving a bucket's region only happens once even if several callers ask
+ * for it at the same time.
+ * <p>
+ * This class is thread safe.
+ */
+public class S3BucketDirectory {
+
+    /** How long the bucket list of an account is reused, in milliseconds. */
+    public static final long DEFAULT_BUCKET_LIST_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /** Maximum number of getBucketLocation calls made at the same time. */
+    private static final int MAX_CONCURRENT_LOOKUPS = 10;
+
+    private final S3BucketRegionCache regionCache;
+    private final long bucketListTtlMillis;
+    private final ExecutorService executor;
+    private final Map<String, AccountBuckets> accounts = new LinkedHashMap<>();
+
+    /** Incremented by every invalidation; guarded by this. */
+    private long generation;
+
+    public S3BucketDirectory(S3BucketRegionCache regionCache, long bucketListTtlMillis) {
+        this.regionCache = regionCache;
+        this.bucketListTtlMillis = bucketListTtlMillis;
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_CONCURRENT_LOOKUPS, MAX_CONCURRENT_LOOKUPS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "S3 bucket region lookup " + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Returns the buckets of the given account that live in the given region,
+     * in the order S3 lists them, blocking until all their regions are known.
+     * Buckets whose region can't be resolved are left out.
+     *
+     * @param s3
+     *            A client of the account, used to list the buckets and resolve
+     *            their regions.
+     */
+    public List<Bucket> listBucketsInRegion(String accountId, AmazonS3 s3, String regionId) {
+        List<Bucket> result = new ArrayList<>();
+        for (BucketRegion bucketRegion : getAccount(accountId, s3).resolve(s3)) {
+            String bucketRegionId = getResolvedRegion(bucketRegion);
+            if (regionId.equals(bucketRegionId)) {
+                result.add(bucketRegion.bucket);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records a bucket created by the toolkit, so that the next listing
+     * includes it without looking up its region.
+     */
+    public void bucketCreated(String bucketName, String regionId) {
+        regionCache.putRegion(bucketName, regionId);
+        invalidate();
+    }
+
+    /** Forgets a bucket deleted by the toolkit. */
+    public void bucketDeleted(String bucketName) {
+        regionCache.invalidate(bucketName);
+        invalidate();
+    }
+
+    /** Drops the bucket list of every account; regions remain cached. */
+    public synchronized void invalidate() {
+        accounts.clear();
+        generation++;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the buckets of the given account, listing them if they aren't
+     * known or have expired. The listing runs outside of the lock, so that it
+     * doesn't hold up the callers of other accounts; a listing that raced
+     * with an invalidation is used once but not kept.
+     */
+    private AccountBuckets getAccount(String accountId, AmazonS3 s3) {
+        long listGeneration;
+        synchronized (this) {
+            AccountBuckets account = accounts.get(accountId);
+            if (account != null && !isExpired(account)) {
+                return account;
+            }
+            listGeneration = generation;
+        }
+
+        AccountBuckets listed = new AccountBuckets(s3.listBuckets());
+
+        synchronized (this) {
+            if (generation != listGeneration) {
+                return listed;
+            }
+            AccountBuckets account = accounts.get(accountId);
+            if (account != null && !isExpired(account)) {
+                // Another caller listed the buckets meanwhile; share its region lookups
+                return account;
+            }
+            accounts.put(accountId, listed);
+            return listed;
+        }
+    }
+
+    private boolean isExpired(AccountBuckets account) {
+        return System.currentTimeMillis() - account.listedMillis > bucketListTtlMillis;
+    }
+
+    private static String getResolvedRegion(BucketRegion bucketRegion) {
+        try {
+            return bucketRegion.region.join();
+        } catch (CompletionException e) {
+            AwsToolkitCore.getDefault().logInfo("Exception thrown when checking bucket "
+                    + bucketRegion.bucket.getName() + " with message: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    /** The buckets of an account, and the lookups of their regions. */
+    private final class AccountBuckets {
+        private final long listedMillis = System.currentTimeMillis();
+        private final List<Bucket> buckets;
+        private final Map<String, CompletableFuture<String>> regions = new LinkedHashMap<>();
+
+        AccountBuckets(List<Bucket> buckets) {
+            this.buckets = buckets;
+        }
+
+        /** Starts looking up the region of each bucket not resolved yet. */
+        synchronized List<BucketRegion> resolve(final AmazonS3 s3) {
+            List<BucketRegion> result = new ArrayList<>(buckets.size());
+            for (final Bucket bucket : buckets) {
+                CompletableFuture<String> region = regions.get(bucket.getName());
+                if (region == null || region.isCompletedExceptionally()) {
+                    String cachedRegion = regionCache.getCachedRegion(bucket.getName());
+                    if (cachedRegion != null) {
+                        region = CompletableFuture.completedFuture(cachedRegion);
+                    } else {
+                        region = CompletableFuture.supplyAsync(
+                                () -> regionCache.getBucketRegion(s3, bucket.getName()), executor);
+                    }
+                    regions.put(bucket.getName(), region);
+                }
+                result.add(new BucketRegion(bucket, region));
+            }
+            return result;
+        }
+    }
+
+    private static final class BucketRegion {
+        private final Bucket bucket;
+        private final CompletableFuture<String> region;
+
+        BucketRegion(Bucket bucket, CompletableFuture<String> region) {
+            this.bucket = bucket;
+            this.region = region;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+
+/**
+ * Bounded, LRU cache of S3 bucket name to region id, shared by every code path
+ * that needs to know where a bucket lives. The cache is optionally backed by a
+ * properties file so that lookups survive workbench restarts.
+ * <p>
+ * This class is thread safe.
+ */
+public class S3BucketRegionCache {
+
+    /** The default number of buckets whose region is remembered. */
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    /** Delay before dirty entries are flushed to disk, in milliseconds. */
+    private static final long SAVE_DELAY_MILLIS = 5000;
+
+    private static final String PERMANENT_REDIRECT = "PermanentRedirect";
+
+    private final File cacheFile;
+    private final Map<String, String> regionsByBucket;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private final Job saveJob = new Job("Saving S3 bucket region cache") {
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            save();
+            return Status.OK_STATUS;
+        }
+    };
+
+    /**
+     * @param cacheFile
+     *            The file used to persist the cache, or null for an in-memory
+     *            only cache.
+     * @param maxEntries
+     *            The maximum number of buckets to remember; the least recently
+     *            used entries are evicted first.
+     */
+    public S3BucketRegionCache(File cacheFile, final int maxEntries) {
+        this.cacheFile = cacheFile;
+        this.regionsByBucket = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<String, String> eldest) {
+                if (size() > maxEntries) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        saveJob.setSystem(true);
+        load();
+    }
+
+    /**
+     * Returns the region of the given bucket, calling getBucketLocation with
+     * the given client only if the region is not cached yet.
+     */
+    public String getBucketRegion(AmazonS3 s3, String bucketName) {
+        String region = getCachedRegion(bucketName);
+        if (region != null) {
+            hitCount.incrementAndGet();
+            return region;
+        }
+
+        missCount.incrementAndGet();
+        region = toRegionId(s3.getBucketLocation(bucketName));
+        putRegion(bucketName, region);
+        return region;
+    }
+
+    /**
+     * Returns the cached region of the given bucket, or null if it is not
+     * cached. The hit/miss counters are not affected.
+     */
+    public String getCachedRegion(String bucketName) {
+        synchronized (regionsByBucket) {
+            return regionsByBucket.get(bucketName);
+        }
+    }
+
+    public void putRegion(String bucketName, String regionId) {
+        synchronized (regionsByBucket) {
+            if (regionId.equals(regionsByBucket.put(bucketName, regionId))) {
+                return;
+            }
+        }
+        scheduleSave();
+    }
+
+    /**
+     * Drops the cached region of the given bucket, e.g. after the bucket is
+     * deleted or S3 reports that it lives somewhere else.
+     */
+    public void invalidate(String bucketName) {
+        synchronized (regionsByBucket) {
+            if (regionsByBucket.remove(bucketName) == null) {
+                return;
+            }
+        }
+        scheduleSave();
+    }
+
+    public void invalidateAll() {
+        synchronized (regionsByBucket) {
+            regionsByBucket.clear();
+        }
+        scheduleSave();
+    }
+
+    public int size() {
+        synchronized (regionsByBucket) {
+            return regionsByBucket.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("S3 bucket region cache: %d entries, %d hits, %d misses, %d evictions",
+                size(), getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    /**
+     * Returns a request handler that drops the cached region of a bucket
+     * whenever S3 answers with a 301/PermanentRedirect for it, so that the
+     * next lookup goes back to getBucketLocation.
+     */
+    public RequestHandler2 newRedirectHandler() {
+        return new RequestHandler2() {
+            @Override
+            public void afterError(Request<?> request, Response<?> response, Exception e) {
+                if (!(e instanceof AmazonS3Exception)) {
+                    return;
+                }
+                AmazonS3Exception s3Exception = (AmazonS3Exception) e;
+                if (s3Exception.getStatusCode() != 301
+                        && !PERMANENT_REDIRECT.equals(s3Exception.getErrorCode())) {
+                    return;
+                }
+                Map<String, String> details = s3Exception.getAdditionalDetails();
+                String bucketName = details == null ? null : details.get("Bucket");
+                if (bucketName != null) {
+                    invalidate(bucketName);
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes the current cache content to the backing file, if any.
+     */
+    public void save() {
+        if (cacheFile == null) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        synchronized (regionsByBucket) {
+            properties.putAll(regionsByBucket);
+        }
+
+        cacheFile.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(cacheFile)) {
+            properties.store(out, "S3 bucket regions");
+        } catch (IOException e) {
+            AwsToolkitCore.getDefault().logWarning("Unable to save the S3 bucket region cache", e);
+        }
+    }
+
+    private void load() {
+        if (cacheFile == null || !cacheFile.exists()) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(cacheFile)) {
+            properties.load(in);
+        } catch (IOException e) {
+            AwsToolkitCore.getDefault().logWarning("Unable to load the S3 bucket region cache", e);
+            cacheFile.delete();
+            return;
+        }
+
+        synchronized (regionsByBucket) {
+            for (String bucketName : properties.stringPropertyNames()) {
+                regionsByBucket.put(bucketName, properties.getProperty(bucketName));
+            }
+        }
+    }
+
+    private void scheduleSave() {
+        if (cacheFile != null) {
+            saveJob.schedule(SAVE_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Normalizes the value returned by getBucketLocation into a region id.
+     */
+    static String toRegionId(String bucketLocation) {
+        if (bucketLocation == null || bucketLocation.equals("US")) {
+            return Regions.US_EAST_1.getName();
+        }
+        if (bucketLocation.equals("EU")) {
+            return Regions.EU_WEST_1.getName();
+        }
+        return bucketLocation;
+    }
+}
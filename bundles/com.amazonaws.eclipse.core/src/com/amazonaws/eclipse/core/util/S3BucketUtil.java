@@ -15,10 +15,6 @@
 package com.amazonaws.eclipse.core.util;
 
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.regions.Region;
@@ -27,57 +23,15 @@ import com.amazonaws.services.s3.model.Bucket;
 
 public class S3BucketUtil {
 
-    public static List<Bucket> listBucketsInRegion(AmazonS3 s3, Region region) {
-        List<Bucket> bucketsInAllRegions = s3.listBuckets();
-        return findBucketsInRegion(s3, bucketsInAllRegions, region, 10);
-    }
-
-    private static List<Bucket> findBucketsInRegion(final AmazonS3 s3, List<Bucket> buckets,
-            final Region region, int threads) {
-
-        ExecutorService es = Executors.newFixedThreadPool(threads);
-
-        final CopyOnWriteArrayList<Bucket> result = new CopyOnWriteArrayList<>();
-        final CountDownLatch latch = new CountDownLatch(buckets.size());
-
-        for (final Bucket bucket : buckets) {
-            es.submit(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        if (isBucketInRegion(s3, bucket, region)) {
-                            result.add(bucket);
-                        }
-                    } catch (Exception e) {
-                        AwsToolkitCore.getDefault().logInfo("Exception thrown when checking bucket " + bucket.getName() +
-                            " with message: " + e.getMessage());
-                    } finally {
-                        latch.countDown();
-                    }
-                }
-            });
-        }
-
-        try {
-            latch.await();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        return result;
+    /**
+     * Returns the buckets of the given account in the given region, through
+     * the toolkit-wide {@link S3BucketDirectory}.
+     */
+    public static List<Bucket> listBucketsInRegion(String accountId, AmazonS3 s3, Region region) {
+        return AwsToolkitCore.getDefault().getS3BucketDirectory().listBucketsInRegion(accountId, s3, region.getId());
     }
 
     public static String createS3Path(String bucketName, String keyName) {
         return String.format("s3://%s/%s", bucketName, keyName);
     }
-
-    private static boolean isBucketInRegion(AmazonS3 s3, Bucket bucket,
-            Region eclipseRegion) {
-
-        String s3RegionId = s3.getBucketLocation(bucket.getName());
-        if (s3RegionId == null || s3RegionId.equals("US")) {
-            s3RegionId = "us-east-1";
-        }
-        return eclipseRegion.getId().equals(s3RegionId);
-    }
 }
\ No newline at end of file
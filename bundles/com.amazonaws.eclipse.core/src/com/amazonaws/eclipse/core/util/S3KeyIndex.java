@@ -0,0 +1,488 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Compact, immutable index of the keys of a bucket, supporting key search,
+ * prefix roll-ups and largest object queries without any call to S3.
+ * <p>
+ * Keys are split after each slash into fragments, and every distinct fragment
+ * is stored once; a key is the list of its fragment ids. Keys are kept sorted,
+ * so the keys under a prefix are a contiguous range found by binary search,
+ * and the total size of any range is read from cumulative sizes.
+ * <p>
+ * Instances are built with a {@link Builder}, typically fed with the pages of
+ * a bucket listing, and can be written to and read from a stream.
+ */
+public final class S3KeyIndex {
+
+    private static final int FORMAT_VERSION = 1;
+
+    /** Distinct key fragments; every fragment but the last of a key ends with a slash. */
+    private final String[] fragments;
+    /** The fragments of key i are keyFragments[keyOffsets[i]] to keyFragments[keyOffsets[i + 1] - 1]. */
+    private final int[] keyOffsets;
+    private final int[] keyFragments;
+    private final long[] sizes;
+    private final long[] lastModified;
+    /** cumulativeSizes[i] is the total size of the keys before key i. */
+    private final long[] cumulativeSizes;
+    private final long createdMillis;
+
+    private S3KeyIndex(String[] fragments, int[] keyOffsets, int[] keyFragments, long[] sizes,
+            long[] lastModified, long createdMillis) {
+        this.fragments = fragments;
+        this.keyOffsets = keyOffsets;
+        this.keyFragments = keyFragments;
+        this.sizes = sizes;
+        this.lastModified = lastModified;
+        this.createdMillis = createdMillis;
+        this.cumulativeSizes = new long[sizes.length + 1];
+        for (int i = 0; i < sizes.length; i++) {
+            cumulativeSizes[i + 1] = cumulativeSizes[i] + sizes[i];
+        }
+    }
+
+    /** Returns the number of keys in the index. */
+    public int size() {
+        return sizes.length;
+    }
+
+    /** Returns the number of distinct key fragments, for diagnostics. */
+    public int getFragmentCount() {
+        return fragments.length;
+    }
+
+    /** Returns when the listing the index was built from started. */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    /** Returns the number of keys and their total size under a prefix. */
+    public PrefixSummary summarize(String prefix) {
+        int from = lowerBound(prefix);
+        int to = upperBound(prefix, from);
+        return new PrefixSummary(prefix, to - from, cumulativeSizes[to] - cumulativeSizes[from]);
+    }
+
+    /**
+     * Returns the keys containing the given text, ignoring case, in key
+     * order.
+     *
+     * @param limit
+     *            The maximum number of keys to return.
+     */
+    public List<KeyEntry> search(String text, int limit) {
+        String query = text.toLowerCase(Locale.ROOT);
+        List<KeyEntry> results = new ArrayList<>();
+        if (query.isEmpty()) {
+            return results;
+        }
+
+        if (query.indexOf('/') < 0) {
+            // Without a slash the text can only match within a single fragment
+            boolean[] matchingFragments = new boolean[fragments.length];
+            boolean anyMatch = false;
+            for (int f = 0; f < fragments.length; f++) {
+                matchingFragments[f] = fragments[f].toLowerCase(Locale.ROOT).contains(query);
+                anyMatch |= matchingFragments[f];
+            }
+            for (int i = 0; anyMatch && i < sizes.length && results.size() < limit; i++) {
+                for (int j = keyOffsets[i]; j < keyOffsets[i + 1]; j++) {
+                    if (matchingFragments[keyFragments[j]]) {
+                        results.add(getEntry(i));
+                        break;
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < sizes.length && results.size() < limit; i++) {
+                if (getKey(i).toLowerCase(Locale.ROOT).contains(query)) {
+                    results.add(getEntry(i));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the largest objects under a prefix, largest first.
+     *
+     * @param limit
+     *            The maximum number of objects to return.
+     */
+    public List<KeyEntry> getLargestObjects(String prefix, int limit) {
+        int from = lowerBound(prefix);
+        int to = upperBound(prefix, from);
+        PriorityQueue<Integer> largest = new PriorityQueue<>(limit + 1, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(sizes[a], sizes[b]);
+            }
+        });
+        for (int i = from; i < to; i++) {
+            if (largest.size() < limit) {
+                largest.add(i);
+            } else if (limit > 0 && sizes[i] > sizes[largest.peek()]) {
+                largest.poll();
+                largest.add(i);
+            }
+        }
+
+        List<KeyEntry> results = new ArrayList<>(largest.size());
+        while (!largest.isEmpty()) {
+            results.add(getEntry(largest.poll()));
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    /**
+     * Returns the number of keys and total size of each folder and object
+     * directly under a prefix, in key order.
+     *
+     * @param prefix
+     *            An empty prefix or a prefix ending with a slash.
+     */
+    public List<PrefixSummary> rollUp(String prefix) {
+        if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+            throw new IllegalArgumentException("Prefix must end with a slash: " + prefix);
+        }
+        int depth = 0;
+        for (int i = prefix.indexOf('/'); i >= 0; i = prefix.indexOf('/', i + 1)) {
+            depth++;
+        }
+
+        List<PrefixSummary> results = new ArrayList<>();
+        int from = lowerBound(prefix);
+        int to = upperBound(prefix, from);
+        int groupStart = from;
+        while (groupStart < to) {
+            if (keyOffsets[groupStart + 1] - keyOffsets[groupStart] == depth) {
+                // The folder placeholder object named after the prefix itself
+                groupStart++;
+                continue;
+            }
+            int child = keyFragments[keyOffsets[groupStart] + depth];
+            int groupEnd = groupStart + 1;
+            while (groupEnd < to && keyFragments[keyOffsets[groupEnd] + depth] == child) {
+                groupEnd++;
+            }
+            results.add(new PrefixSummary(prefix + fragments[child], groupEnd - groupStart,
+                    cumulativeSizes[groupEnd] - cumulativeSizes[groupStart]));
+            groupStart = groupEnd;
+        }
+        return results;
+    }
+
+    /**
+     * Returns a copy of this index in which the keys under a prefix are
+     * replaced by the keys of another index, such as a fresh listing of the
+     * prefix.
+     */
+    public S3KeyIndex replacePrefix(String prefix, S3KeyIndex listing) {
+        int from = lowerBound(prefix);
+        int to = upperBound(prefix, from);
+        Builder builder = new Builder();
+        for (int i = 0; i < sizes.length; i++) {
+            if (i < from || i >= to) {
+                builder.add(getKey(i), sizes[i], lastModified[i]);
+            }
+        }
+        for (int j = 0; j < listing.size(); j++) {
+            builder.add(listing.getKey(j), listing.sizes[j], listing.lastModified[j]);
+        }
+        return builder.build(createdMillis);
+    }
+
+    /** Returns the key at the given position, in key order. */
+    public String getKey(int index) {
+        StringBuilder key = new StringBuilder();
+        for (int j = keyOffsets[index]; j < keyOffsets[index + 1]; j++) {
+            key.append(fragments[keyFragments[j]]);
+        }
+        return key.toString();
+    }
+
+    private KeyEntry getEntry(int index) {
+        return new KeyEntry(getKey(index), sizes[index], lastModified[index]);
+    }
+
+    /** Returns the position of the first key not before the prefix. */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = sizes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getKey(mid).compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Returns the position of the first key after the keys starting with the prefix. */
+    private int upperBound(String prefix, int from) {
+        int low = from;
+        int high = sizes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getKey(mid).startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Writes this index to a stream, which isn't closed. */
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(createdMillis);
+        out.writeInt(fragments.length);
+        for (String fragment : fragments) {
+            out.writeUTF(fragment);
+        }
+        out.writeInt(sizes.length);
+        for (int i = 0; i < sizes.length; i++) {
+            out.writeShort(keyOffsets[i + 1] - keyOffsets[i]);
+            for (int j = keyOffsets[i]; j < keyOffsets[i + 1]; j++) {
+                out.writeInt(keyFragments[j]);
+            }
+            out.writeLong(sizes[i]);
+            out.writeLong(lastModified[i]);
+        }
+        out.flush();
+    }
+
+    /** Reads an index written by {@link #writeTo(OutputStream)}. */
+    public static S3KeyIndex readFrom(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported key index format " + version);
+        }
+        long createdMillis = in.readLong();
+        String[] fragments = new String[in.readInt()];
+        for (int f = 0; f < fragments.length; f++) {
+            fragments[f] = in.readUTF();
+        }
+
+        int keyCount = in.readInt();
+        int[] keyOffsets = new int[keyCount + 1];
+        IntList keyFragments = new IntList();
+        long[] sizes = new long[keyCount];
+        long[] lastModified = new long[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            int fragmentCount = in.readUnsignedShort();
+            for (int j = 0; j < fragmentCount; j++) {
+                int fragment = in.readInt();
+                if (fragment < 0 || fragment >= fragments.length) {
+                    throw new IOException("Corrupted key index");
+                }
+                keyFragments.add(fragment);
+            }
+            keyOffsets[i + 1] = keyFragments.size();
+            sizes[i] = in.readLong();
+            lastModified[i] = in.readLong();
+        }
+        return new S3KeyIndex(fragments, keyOffsets, keyFragments.toArray(), sizes, lastModified, createdMillis);
+    }
+
+    /**
+     * Collects keys in any order and builds an index of them. Adding a key
+     * twice keeps the last one added.
+     */
+    public static class Builder {
+
+        private final Map<String, Integer> fragmentIds = new HashMap<>();
+        private final List<String> fragments = new ArrayList<>();
+        private final List<PendingKey> keys = new ArrayList<>();
+
+        public Builder add(String key, long size, long lastModified) {
+            IntList ids = new IntList();
+            int start = 0;
+            while (start < key.length()) {
+                int slash = key.indexOf('/', start);
+                int end = slash < 0 ? key.length() : slash + 1;
+                ids.add(fragmentId(key.substring(start, end)));
+                start = end;
+            }
+            keys.add(new PendingKey(key, ids.toArray(), size, lastModified));
+            return this;
+        }
+
+        public int size() {
+            return keys.size();
+        }
+
+        /**
+         * @param createdMillis
+         *            When the listing of the keys started.
+         */
+        public S3KeyIndex build(long createdMillis) {
+            // Listings are already sorted, which the sort is linear for
+            Collections.sort(keys, new Comparator<PendingKey>() {
+                @Override
+                public int compare(PendingKey a, PendingKey b) {
+                    return a.key.compareTo(b.key);
+                }
+            });
+
+            List<PendingKey> distinctKeys = new ArrayList<>(keys.size());
+            for (PendingKey key : keys) {
+                if (!distinctKeys.isEmpty() && distinctKeys.get(distinctKeys.size() - 1).key.equals(key.key)) {
+                    distinctKeys.set(distinctKeys.size() - 1, key);
+                } else {
+                    distinctKeys.add(key);
+                }
+            }
+
+            int[] keyOffsets = new int[distinctKeys.size() + 1];
+            IntList keyFragments = new IntList();
+            long[] sizes = new long[distinctKeys.size()];
+            long[] lastModified = new long[distinctKeys.size()];
+            for (int i = 0; i < distinctKeys.size(); i++) {
+                PendingKey key = distinctKeys.get(i);
+                for (int fragment : key.fragments) {
+                    keyFragments.add(fragment);
+                }
+                keyOffsets[i + 1] = keyFragments.size();
+                sizes[i] = key.size;
+                lastModified[i] = key.lastModified;
+            }
+            return new S3KeyIndex(fragments.toArray(new String[fragments.size()]), keyOffsets,
+                    keyFragments.toArray(), sizes, lastModified, createdMillis);
+        }
+
+        private int fragmentId(String fragment) {
+            Integer id = fragmentIds.get(fragment);
+            if (id == null) {
+                id = fragments.size();
+                fragments.add(fragment);
+                fragmentIds.put(fragment, id);
+            }
+            return id;
+        }
+    }
+
+    /** An object of the index. */
+    public static class KeyEntry {
+        private final String key;
+        private final long size;
+        private final long lastModified;
+
+        KeyEntry(String key, long size, long lastModified) {
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /** Returns the last modification date, in milliseconds since the epoch. */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    /** The number of keys and total size under a prefix. */
+    public static class PrefixSummary {
+        private final String prefix;
+        private final int objectCount;
+        private final long totalBytes;
+
+        PrefixSummary(String prefix, int objectCount, long totalBytes) {
+            this.prefix = prefix;
+            this.objectCount = objectCount;
+            this.totalBytes = totalBytes;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public int getObjectCount() {
+            return objectCount;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+    }
+
+    private static class PendingKey {
+        final String key;
+        final int[] fragments;
+        final long size;
+        final long lastModified;
+
+        PendingKey(String key, int[] fragments, long size, long lastModified) {
+            this.key = key;
+            this.fragments = fragments;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /** Growable array of ints, to avoid boxing the fragment ids. */
+    private static class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                int[] grown = new int[values.length * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            int[] array = new int[size];
+            System.arraycopy(values, 0, array, 0, size);
+            return array;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates the objects listed under a prefix of a bucket into one rollup
+ * per folder directly under that prefix, plus a total. Only counters are
+ * kept, so memory doesn't grow with the number of objects, and aggregators
+ * filled by separate listings can be merged. All methods are thread safe.
+ */
+public class StorageAnalytics {
+
+    /** Upper bounds, in days, of the age histogram buckets but the last. */
+    private static final int[] AGE_BUCKET_DAYS = { 30, 90, 365, 3 * 365 };
+
+    private static final String[] AGE_BUCKET_LABELS = {
+            "< 30 days", "30-90 days", "90-365 days", "1-3 years", "> 3 years" };
+
+    /** Rollup name of the objects directly under the prefix. */
+    public static final String FILES_ROLLUP = "(files)";
+
+    /** Name of the rollup of all the objects. */
+    public static final String TOTAL_ROLLUP = "(total)";
+
+    private final String prefix;
+    private final long nowMillis;
+    private final Map<String, Rollup> rollups = new TreeMap<>();
+    private final Rollup total;
+
+    /**
+     * @param prefix
+     *            The prefix the objects are listed under, empty or ending with
+     *            "/".
+     * @param nowMillis
+     *            The time the ages of the objects are computed at.
+     */
+    public StorageAnalytics(String prefix, long nowMillis) {
+        this.prefix = prefix;
+        this.nowMillis = nowMillis;
+        this.total = new Rollup(TOTAL_ROLLUP);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public long getNowMillis() {
+        return nowMillis;
+    }
+
+    /** Returns the labels of the buckets of {@link Rollup#getAgeHistogram()}. */
+    public static String[] getAgeBucketLabels() {
+        return AGE_BUCKET_LABELS.clone();
+    }
+
+    /**
+     * Adds an object listed under the prefix.
+     *
+     * @param lastModifiedMillis
+     *            The last modified time of the object, or 0 if unknown.
+     */
+    public synchronized void add(String key, long size, String storageClass, long lastModifiedMillis) {
+        int ageBucket = ageBucket(lastModifiedMillis);
+        total.add(size, storageClass, ageBucket, 1);
+        getRollup(rollupName(key)).add(size, storageClass, ageBucket, 1);
+    }
+
+    /**
+     * Adds all the objects aggregated by another instance for the same
+     * prefix.
+     */
+    public void merge(StorageAnalytics other) {
+        List<Rollup> otherRollups = other.getRollups();
+        synchronized (this) {
+            for (Rollup rollup : otherRollups) {
+                getRollup(rollup.getName()).merge(rollup);
+            }
+            total.merge(other.getTotal());
+        }
+    }
+
+    /** Returns a copy of the rollups, sorted by name. */
+    public synchronized List<Rollup> getRollups() {
+        List<Rollup> copies = new ArrayList<>(rollups.size());
+        for (Rollup rollup : rollups.values()) {
+            copies.add(rollup.copy());
+        }
+        return copies;
+    }
+
+    /** Returns a copy of the rollup of all the objects. */
+    public synchronized Rollup getTotal() {
+        return total.copy();
+    }
+
+    /**
+     * Writes the rollups as CSV, one line per rollup, followed by the total.
+     */
+    public void writeCsv(Writer writer) {
+        List<Rollup> rows = getRollups();
+        rows.add(getTotal());
+
+        List<String> storageClasses = rows.get(rows.size() - 1).getStorageClasses();
+
+        PrintWriter out = new PrintWriter(writer);
+        StringBuilder header = new StringBuilder("Prefix,Objects,Bytes");
+        for (String storageClass : storageClasses) {
+            header.append(',').append(storageClass).append(" Objects,").append(storageClass).append(" Bytes");
+        }
+        for (String label : AGE_BUCKET_LABELS) {
+            header.append(",Age ").append(label);
+        }
+        out.println(header);
+
+        for (Rollup rollup : rows) {
+            StringBuilder line = new StringBuilder(quote(rollup.getName()));
+            line.append(',').append(rollup.getObjectCount()).append(',').append(rollup.getTotalBytes());
+            for (String storageClass : storageClasses) {
+                line.append(',').append(rollup.getObjectCount(storageClass))
+                    .append(',').append(rollup.getTotalBytes(storageClass));
+            }
+            for (long count : rollup.getAgeHistogram()) {
+                line.append(',').append(count);
+            }
+            out.println(line);
+        }
+        out.flush();
+    }
+
+    private String rollupName(String key) {
+        int slash = key.indexOf('/', prefix.length());
+        return slash < 0 ? FILES_ROLLUP : key.substring(0, slash + 1);
+    }
+
+    private Rollup getRollup(String name) {
+        Rollup rollup = rollups.get(name);
+        if (rollup == null) {
+            rollup = new Rollup(name);
+            rollups.put(name, rollup);
+        }
+        return rollup;
+    }
+
+    private int ageBucket(long lastModifiedMillis) {
+        long ageDays = lastModifiedMillis <= 0 ? 0 : TimeUnit.MILLISECONDS.toDays(nowMillis - lastModifiedMillis);
+        for (int i = 0; i < AGE_BUCKET_DAYS.length; i++) {
+            if (ageDays < AGE_BUCKET_DAYS[i]) {
+                return i;
+            }
+        }
+        return AGE_BUCKET_DAYS.length;
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * The object count, size, storage class breakdown and age histogram of
+     * the objects under a folder.
+     */
+    public static class Rollup {
+        private final String name;
+        private long objectCount;
+        private long totalBytes;
+        private final Map<String, Long> storageClassObjects = new TreeMap<>();
+        private final Map<String, Long> storageClassBytes = new TreeMap<>();
+        private final long[] ageHistogram = new long[AGE_BUCKET_LABELS.length];
+
+        private Rollup(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the folder, ending with "/", {@link #FILES_ROLLUP} for the
+         * objects directly under the prefix, or {@link #TOTAL_ROLLUP}.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public long getObjectCount() {
+            return objectCount;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        /** Returns the storage classes of the objects, sorted. */
+        public List<String> getStorageClasses() {
+            return new ArrayList<>(storageClassBytes.keySet());
+        }
+
+        public long getObjectCount(String storageClass) {
+            Long count = storageClassObjects.get(storageClass);
+            return count == null ? 0 : count;
+        }
+
+        public long getTotalBytes(String storageClass) {
+            Long bytes = storageClassBytes.get(storageClass);
+            return bytes == null ? 0 : bytes;
+        }
+
+        /**
+         * Returns the number of objects in each age bucket, labeled by
+         * {@link StorageAnalytics#getAgeBucketLabels()}.
+         */
+        public long[] getAgeHistogram() {
+            return ageHistogram.clone();
+        }
+
+        private void add(long size, String storageClass, int ageBucket, long count) {
+            objectCount += count;
+            totalBytes += size;
+            String key = storageClass == null ? "STANDARD" : storageClass;
+            storageClassObjects.merge(key, count, Long::sum);
+            storageClassBytes.merge(key, size, Long::sum);
+            ageHistogram[ageBucket] += count;
+        }
+
+        private void merge(Rollup other) {
+            objectCount += other.objectCount;
+            totalBytes += other.totalBytes;
+            for (Map.Entry<String, Long> entry : other.storageClassObjects.entrySet()) {
+                storageClassObjects.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+            for (Map.Entry<String, Long> entry : other.storageClassBytes.entrySet()) {
+                storageClassBytes.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+            for (int i = 0; i < ageHistogram.length; i++) {
+                ageHistogram[i] += other.ageHistogram[i];
+            }
+        }
+
+        private Rollup copy() {
+            Rollup copy = new Rollup(name);
+            copy.merge(this);
+            return copy;
+        }
+    }
+}
@@ -17,9 +17,11 @@ package com.amazonaws.eclipse.explorer;
 import static com.amazonaws.eclipse.core.mobileanalytics.AwsToolkitMetricType.EXPLORER_LOADING;
 import static com.amazonaws.eclipse.core.mobileanalytics.ToolkitAnalyticsUtils.publishBooleansEvent;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -28,6 +30,8 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.ITreeViewerListener;
+import org.eclipse.jface.viewers.TreeExpansionEvent;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.swt.widgets.Display;
@@ -39,23 +43,69 @@ import com.amazonaws.eclipse.core.BrowserUtils;
 import com.amazonaws.eclipse.core.regions.RegionUtils;
 import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
 import com.amazonaws.eclipse.core.ui.IRefreshable;
+import com.amazonaws.eclipse.core.util.AdaptiveRateLimiter;
+import com.amazonaws.eclipse.explorer.LoadingScheduler.Priority;
+import com.amazonaws.retry.RetryUtils;
 
 /**
  * Abstract base class for AWS Explorer content providers. This class provides
  * basic implementations for ContentProvider methods as well as handling
  * refreshing the content when the current account or region changes. This class
  * also handles caching and returning results for previously loaded data.
+ * <p>
+ * Cached data is served until it is older than {@link #getCacheTtlMillis()};
+ * after that, the stale data is still returned right away while it is
+ * reloaded in the background, and the viewer is only refreshed if the reloaded
+ * children differ from the cached ones.
+ * <p>
+ * Subclasses can also opt in to the {@link ExplorerSnapshot}, which persists
+ * the loaded children across workbench sessions so that the explorer can show
+ * them before they are reloaded, by overriding {@link #getSnapshotKey(Object)},
+ * {@link #toSnapshotValue(Object)} and {@link #fromSnapshotValue(String)}.
  */
 public abstract class AbstractContentProvider implements ITreeContentProvider, IRefreshable {
 
+    /** The default time after which cached data is reloaded. */
+    public static final long DEFAULT_CACHE_TTL_MILLIS = 5 * 60 * 1000;
+
     /** Reference to the TreeViewer in which content will be displayed. */
     protected TreeViewer viewer;
 
     /** Cache for previously loaded data */
     protected Map<Object, Object[]> cachedResponses = new ConcurrentHashMap<>();
 
+    /** The time each entry of the cache was loaded; entries without one are stale. */
+    private final Map<Object, Long> cacheLoadTimes = new ConcurrentHashMap<>();
+
+    /** The parent elements whose stale children are being reloaded. */
+    private final Set<Object> revalidatingElements = ConcurrentHashMap.newKeySet();
+
     protected BackgroundContentUpdateJobFactory backgroundJobFactory;
 
+    /** Cancels the pending load of a node's children when the node is collapsed. */
+    private final ITreeViewerListener collapseListener = new ITreeViewerListener() {
+        @Override
+        public void treeCollapsed(TreeExpansionEvent event) {
+            final Object element = event.getElement();
+            if (LoadingScheduler.getInstance().cancel(getServiceAbbreviation(), AbstractContentProvider.this, element)
+                    && !revalidatingElements.remove(element)) {
+                // Forget the "Loading..." child so that the load is restarted
+                // when the node is expanded again.
+                Display.getDefault().asyncExec(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (viewer != null && !viewer.getControl().isDisposed()) {
+                            viewer.refresh(element);
+                        }
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void treeExpanded(TreeExpansionEvent event) {}
+    };
+
     /**
      * Creates a new AbstractContentProvider and registers it with the registry
      * of AWS Explorer ContentProviders.
@@ -97,16 +147,150 @@ public abstract class AbstractContentProvider implements ITreeContentProvider, I
     public abstract String getServiceAbbreviation();
 
     /**
-     * Thread to asynchronously load data for an AWS Explorer ContentProvider.
+     * Returns how long, in milliseconds, loaded children are served from the
+     * cache before being reloaded in the background. Subclasses can override
+     * this method for data that changes more or less often than usual.
+     */
+    protected long getCacheTtlMillis() {
+        return DEFAULT_CACHE_TTL_MILLIS;
+    }
+
+    /**
+     * Returns true if the given reloaded child is the same as the given cached
+     * child, in which case the viewer doesn't need to be refreshed. By default
+     * two children are the same if they are equal, or if they have the same
+     * class and string representation, which covers explorer nodes and SDK
+     * model objects. Subclasses whose children have state that isn't part of
+     * their string representation should override this method.
+     */
+    protected boolean isSameElement(Object cachedChild, Object loadedChild) {
+        if (cachedChild == null || loadedChild == null) {
+            return cachedChild == loadedChild;
+        }
+        return cachedChild.equals(loadedChild)
+                || (cachedChild.getClass() == loadedChild.getClass()
+                        && cachedChild.toString().equals(loadedChild.toString()));
+    }
+
+    /**
+     * Returns the key of the given parent element in the explorer snapshot,
+     * unique within this content provider, or null if the children of the
+     * element aren't snapshotted. Returns null by default.
+     */
+    protected String getSnapshotKey(Object parentElement) {
+        return null;
+    }
+
+    /**
+     * Returns a single line of text from which {@link #fromSnapshotValue(String)}
+     * can recreate the given child, or null if the child can't be snapshotted.
+     * Returns null by default.
+     */
+    protected String toSnapshotValue(Object child) {
+        return null;
+    }
+
+    /**
+     * Recreates a child from the value returned by
+     * {@link #toSnapshotValue(Object)}, or returns null if the value can't be
+     * read. Returns null by default.
+     */
+    protected Object fromSnapshotValue(String value) {
+        return null;
+    }
+
+    private String getFullSnapshotKey(Object parentElement) {
+        ExplorerSnapshot snapshot = AwsToolkitCore.getDefault().getExplorerSnapshot();
+        String nodeKey = getSnapshotKey(parentElement);
+        if (snapshot == null || nodeKey == null) {
+            return null;
+        }
+        return ExplorerSnapshot.toKey(AwsToolkitCore.getDefault().getCurrentAccountId(),
+                RegionUtils.getCurrentRegion().getId(), getServiceAbbreviation(), nodeKey);
+    }
+
+    /**
+     * Caches the children of the given element saved in the explorer snapshot,
+     * if any, without a load time so that they are reloaded right away.
+     */
+    private void restoreFromSnapshot(Object parentElement) {
+        String key = getFullSnapshotKey(parentElement);
+        if (key == null) {
+            return;
+        }
+        List<String> values = AwsToolkitCore.getDefault().getExplorerSnapshot().getChildren(key);
+        if (values == null) {
+            return;
+        }
+
+        List<Object> children = new ArrayList<>(values.size());
+        try {
+            for (String value : values) {
+                Object child = fromSnapshotValue(value);
+                if (child == null) {
+                    return;
+                }
+                children.add(child);
+            }
+        } catch (RuntimeException e) {
+            AwsToolkitCore.getDefault().logWarning("Ignoring unreadable explorer snapshot entry " + key, e);
+            return;
+        }
+        cachedResponses.put(parentElement, children.toArray());
+    }
+
+    private void saveToSnapshot(Object parentElement, Object[] children) {
+        String key = getFullSnapshotKey(parentElement);
+        if (key == null) {
+            return;
+        }
+
+        List<String> values = new ArrayList<>(children.length);
+        for (Object child : children) {
+            String value = toSnapshotValue(child);
+            if (value == null) {
+                return;
+            }
+            values.add(value);
+        }
+        AwsToolkitCore.getDefault().getExplorerSnapshot().putChildren(key, values);
+    }
+
+    private boolean isSameChildren(Object[] cachedChildren, Object[] loadedChildren) {
+        if (cachedChildren.length != loadedChildren.length) {
+            return false;
+        }
+        for (int i = 0; i < cachedChildren.length; i++) {
+            if (!isSameElement(cachedChildren[i], loadedChildren[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isStale(Object parentElement) {
+        Long loadTime = cacheLoadTimes.get(parentElement);
+        return loadTime == null || System.currentTimeMillis() - loadTime > getCacheTtlMillis();
+    }
+
+    /**
+     * Task to asynchronously load data for an AWS Explorer ContentProvider.
      * This class takes care of several error cases, such as not being signed up
      * for a service yet and handles them correctly so that subclasses don't
      * have to worry about. Subclasses simply need to implement the loadData()
      * method to return their specific data.
      *
      * This class also takes care of storing the returned results from
-     * loadData() into the ContentProvider's cache.
+     * loadData() into the ContentProvider's cache. When it reloads stale
+     * data, the viewer is only refreshed if the data changed, and the stale
+     * data is kept if the reload fails.
+     *
+     * Despite its name, this class doesn't start a new thread: calling
+     * {@link #start()} schedules the load on the shared
+     * {@link LoadingScheduler}, which limits the concurrent loads per service
+     * and cancels the load if its node is collapsed or the region changes.
      */
-    protected abstract class DataLoaderThread extends Thread {
+    protected abstract class DataLoaderThread implements Runnable {
         private final Object parentElement;
 
         /** Various AWS error codes indicating that a developer isn't signed up yet. */
@@ -127,34 +311,79 @@ public abstract class AbstractContentProvider implements ITreeContentProvider, I
          */
         public abstract Object[] loadData();
 
+        /**
+         * Schedules this load in the {@link LoadingScheduler}, in the
+         * background lane if it reloads stale data and in the interactive lane
+         * otherwise.
+         */
+        public void start() {
+            start(revalidatingElements.contains(parentElement) ? Priority.BACKGROUND : Priority.INTERACTIVE);
+        }
+
+        /**
+         * Schedules this load in the given lane of the
+         * {@link LoadingScheduler}.
+         */
+        public void start(Priority priority) {
+            LoadingScheduler.getInstance().submit(getServiceAbbreviation(), AbstractContentProvider.this,
+                    parentElement, priority, this);
+        }
+
         @Override
         public final void run() {
+            Object[] staleData = cachedResponses.get(parentElement);
+            boolean changed = true;
             try {
-                cachedResponses.put(parentElement, loadData());
+                Object[] data = loadData();
+                if (LoadingScheduler.isCurrentTaskCancelled()) {
+                    return;
+                }
+                if (staleData != null && isSameChildren(staleData, data)) {
+                    // Keep the cached instances, which the viewer is showing
+                    changed = false;
+                } else {
+                    cachedResponses.put(parentElement, data);
+                }
+                cacheLoadTimes.put(parentElement, System.currentTimeMillis());
+                saveToSnapshot(parentElement, data);
                 if ( null != backgroundJobFactory ) {
                     backgroundJobFactory.startBackgroundContentUpdateJob(parentElement);
                 }
             } catch (Exception e) {
-                if ( e instanceof AmazonServiceException
+                if (LoadingScheduler.isCurrentTaskCancelled()) {
+                    return;
+                }
+                if (staleData != null) {
+                    // Keep showing the stale data and retry once it expires again
+                    changed = false;
+                } else if ( e instanceof AmazonServiceException
                         && NOT_SIGNED_UP_ERROR_CODES.contains(((AmazonServiceException) e).getErrorCode()) ) {
                     cachedResponses.put(parentElement,
                             new Object[] { new NotSignedUpNode(((AmazonServiceException) e).getServiceName()) });
                 } else {
                     cachedResponses.put(parentElement, new Object[] { new UnableToConnectNode() });
                 }
+                cacheLoadTimes.put(parentElement, System.currentTimeMillis());
 
                 AwsToolkitCore.getDefault().logWarning("Error loading explorer data", e);
+            } finally {
+                revalidatingElements.remove(parentElement);
             }
 
-            Display.getDefault().syncExec(new RefreshRunnable(viewer, parentElement));
+            if (changed) {
+                Display.getDefault().syncExec(new RefreshRunnable(viewer, parentElement));
+            }
         }
     }
 
     /**
-     * Clears all cached responses and reinitializes the tree.
+     * Marks all cached responses as stale and reinitializes the tree. The
+     * cached data stays visible while the expanded nodes are reloaded.
      */
     public synchronized void refresh() {
-        this.cachedResponses.clear();
+        LoadingScheduler.getInstance().cancelAllOwnedBy(this);
+        this.revalidatingElements.clear();
+        this.cacheLoadTimes.clear();
 
         Object[] children = this.getChildren(new AWSResourcesRootElement());
         if (children.length == 0) {
@@ -199,7 +428,26 @@ public abstract class AbstractContentProvider implements ITreeContentProvider, I
             return new Object[0];
         }
 
+        if ( !cachedResponses.containsKey(parentElement)
+                && AwsToolkitCore.getDefault().getAccountInfo().isValid() ) {
+            restoreFromSnapshot(parentElement);
+        }
+
         if ( cachedResponses.containsKey(parentElement)) {
+            if ( isStale(parentElement)
+                    && AwsToolkitCore.getDefault().getAccountInfo().isValid()
+                    && revalidatingElements.add(parentElement) ) {
+                Object[] children = loadChildren(parentElement);
+                if ( children != null && children != Loading.LOADING ) {
+                    // Loaded synchronously, no DataLoaderThread was started
+                    if ( !isSameChildren(cachedResponses.get(parentElement), children) ) {
+                        cachedResponses.put(parentElement, children);
+                    }
+                    cacheLoadTimes.put(parentElement, System.currentTimeMillis());
+                    revalidatingElements.remove(parentElement);
+                }
+            }
+
             if ( null != backgroundJobFactory ) {
                 backgroundJobFactory.startBackgroundContentUpdateJob(parentElement);
             }
@@ -229,12 +477,27 @@ public abstract class AbstractContentProvider implements ITreeContentProvider, I
         ContentProviderRegistry.unregisterContentProvider(this);
     }
 
+    /**
+     * Clears all cached responses and cancels any pending load, e.g. after the
+     * current account or region changes.
+     */
     public void clearCachedResponse() {
+        LoadingScheduler.getInstance().cancelAllOwnedBy(this);
+        revalidatingElements.clear();
+        cacheLoadTimes.clear();
         cachedResponses.clear();
     }
 
     @Override
     public void inputChanged(final Viewer viewer, final Object oldInput, final Object newInput) {
+        if (this.viewer != viewer) {
+            if (this.viewer != null) {
+                this.viewer.removeTreeListener(collapseListener);
+            }
+            if (viewer != null) {
+                ((TreeViewer) viewer).addTreeListener(collapseListener);
+            }
+        }
         this.viewer = (TreeViewer) viewer;
     }
 
@@ -300,6 +563,15 @@ public abstract class AbstractContentProvider implements ITreeContentProvider, I
          */
         protected abstract long getRefreshDelay();
 
+        /**
+         * Returns the rate limiter the background job goes through, shared
+         * with the other pollers of this service in the current region.
+         */
+        protected AdaptiveRateLimiter getRateLimiter() {
+            return AwsToolkitCore.getClientFactory()
+                    .getRateLimiter(RegionUtils.getCurrentRegion().getId(), getServiceAbbreviation());
+        }
+
         private Job getBackgroundJobByParentElement(Object parentElement) {
             return backgroundJobs.get(parentElement);
         }
@@ -317,16 +589,28 @@ public abstract class AbstractContentProvider implements ITreeContentProvider, I
 
                     @Override
                     protected IStatus run(IProgressMonitor monitor) {
+                        AdaptiveRateLimiter rateLimiter = getRateLimiter();
+                        if ( !rateLimiter.tryAcquire() ) {
+                            /* Skip this round, other pollers used up the budget */
+                            this.schedule(rateLimiter.getIntervalMillis(getRefreshDelay()));
+                            return Status.OK_STATUS;
+                        }
+
                         try {
                             if ( executeBackgroundJob(updatedParentElement) ) {
-                                /* Reschedule the job after some delay */
-                                this.schedule(getRefreshDelay());
+                                /* Reschedule the job after some delay, widened while throttled */
+                                this.schedule(rateLimiter.getIntervalMillis(getRefreshDelay()));
                             } else {
                                 /* If the background job has already finished its work,
                                  * remove the parent element from the map. */
                                 backgroundJobs.remove(updatedParentElement);
                             }
                         } catch (AmazonClientException e) {
+                            if ( RetryUtils.isThrottlingException(e) ) {
+                                /* The limiter has widened the interval, try again later */
+                                this.schedule(rateLimiter.getIntervalMillis(getRefreshDelay()));
+                                return Status.OK_STATUS;
+                            }
                             return new Status(Status.ERROR, AwsToolkitCore.getDefault().getPluginId(),
                                     "Unable to update the content: " + e.getMessage(), e);
                         }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+
+/**
+ * On-disk snapshot of the children last loaded for the AWS Explorer nodes,
+ * keyed by account, region, service and node, so that the explorer can be
+ * rendered right away on the next start while the real data is reloaded.
+ * Each child is stored as a single line of text produced by its content
+ * provider; see {@link AbstractContentProvider#toSnapshotValue(Object)}.
+ * <p>
+ * This class is thread safe.
+ */
+public class ExplorerSnapshot {
+
+    /** Delay before changes are flushed to disk, in milliseconds. */
+    private static final long SAVE_DELAY_MILLIS = 5000;
+
+    private static final String SEPARATOR = "\n";
+
+    private final File snapshotFile;
+
+    /** The stored children by key; guarded by itself. */
+    private final Map<String, String> childrenByKey = new HashMap<>();
+
+    private final Job saveJob = new Job("Saving AWS Explorer snapshot") {
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            save();
+            return Status.OK_STATUS;
+        }
+    };
+
+    /**
+     * @param snapshotFile
+     *            The file used to persist the snapshot, or null for an
+     *            in-memory only snapshot.
+     */
+    public ExplorerSnapshot(File snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        saveJob.setSystem(true);
+        load();
+    }
+
+    /**
+     * Builds the key of an explorer node's children.
+     */
+    public static String toKey(String accountId, String regionId, String service, String nodeKey) {
+        return accountId + "/" + regionId + "/" + service + "/" + nodeKey;
+    }
+
+    /**
+     * Returns the stored children of the given key, or null if none are
+     * stored.
+     */
+    public List<String> getChildren(String key) {
+        String children;
+        synchronized (childrenByKey) {
+            children = childrenByKey.get(key);
+        }
+        if (children == null) {
+            return null;
+        }
+        return children.isEmpty() ? Arrays.<String>asList() : Arrays.asList(children.split(SEPARATOR, -1));
+    }
+
+    /**
+     * Stores the children of the given key; the snapshot is written to disk
+     * asynchronously if it changed. Children must be single lines of text.
+     */
+    public void putChildren(String key, List<String> children) {
+        StringBuilder builder = new StringBuilder();
+        for (String child : children) {
+            if (child.contains(SEPARATOR)) {
+                throw new IllegalArgumentException("Snapshot values must be single lines: " + child);
+            }
+            if (builder.length() > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(child);
+        }
+
+        String value = builder.toString();
+        synchronized (childrenByKey) {
+            if (value.equals(childrenByKey.put(key, value))) {
+                return;
+            }
+        }
+        scheduleSave();
+    }
+
+    public void remove(String key) {
+        synchronized (childrenByKey) {
+            if (childrenByKey.remove(key) == null) {
+                return;
+            }
+        }
+        scheduleSave();
+    }
+
+    public void clear() {
+        synchronized (childrenByKey) {
+            childrenByKey.clear();
+        }
+        scheduleSave();
+    }
+
+    public int size() {
+        synchronized (childrenByKey) {
+            return childrenByKey.size();
+        }
+    }
+
+    /**
+     * Writes the current snapshot to the backing file, if any.
+     */
+    public void save() {
+        if (snapshotFile == null) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        synchronized (childrenByKey) {
+            properties.putAll(childrenByKey);
+        }
+
+        snapshotFile.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(snapshotFile)) {
+            properties.store(out, "AWS Explorer snapshot");
+        } catch (IOException e) {
+            AwsToolkitCore.getDefault().logWarning("Unable to save the AWS Explorer snapshot", e);
+        }
+    }
+
+    private void load() {
+        if (snapshotFile == null || !snapshotFile.exists()) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(snapshotFile)) {
+            properties.load(in);
+        } catch (IOException e) {
+            AwsToolkitCore.getDefault().logWarning("Unable to load the AWS Explorer snapshot", e);
+            snapshotFile.delete();
+            return;
+        }
+
+        synchronized (childrenByKey) {
+            for (String key : properties.stringPropertyNames()) {
+                childrenByKey.put(key, properties.getProperty(key));
+            }
+        }
+    }
+
+    private void scheduleSave() {
+        if (snapshotFile != null) {
+            saveJob.schedule(SAVE_DELAY_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+
+/**
+ * Toolkit-wide scheduler for loading remote data into the AWS Explorer and
+ * the resource editors. Loads run on a small shared pool of daemon threads,
+ * with a limit on the number of concurrent loads for any one service, and
+ * {@link Priority#INTERACTIVE} loads always run before queued
+ * {@link Priority#BACKGROUND} ones.
+ * <p>
+ * Loads can be cancelled by key, e.g. when the explorer node they populate is
+ * collapsed, or by owner, e.g. all the loads of an explorer content provider
+ * when the current region changes. Cancelling by owner leaves the loads that
+ * other components submitted for the same service, such as the resource
+ * editors, alone. Loaders should check {@link #isCurrentTaskCancelled()}
+ * before publishing their results.
+ * <p>
+ * This class is thread safe.
+ */
+public class LoadingScheduler {
+
+    /** The priority lanes of the scheduler. */
+    public enum Priority {
+        /** Loads whose result the user is waiting for, e.g. an expanded node. */
+        INTERACTIVE,
+        /** Loads refreshing data that is already displayed. */
+        BACKGROUND
+    }
+
+    private static final int DEFAULT_THREADS = 8;
+    private static final int DEFAULT_MAX_CONCURRENT_LOADS_PER_SERVICE = 3;
+
+    private static final LoadingScheduler INSTANCE =
+            new LoadingScheduler(DEFAULT_THREADS, DEFAULT_MAX_CONCURRENT_LOADS_PER_SERVICE);
+
+    private static final ThreadLocal<LoadingTask> CURRENT_TASK = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrentLoadsPerService;
+
+    /** Pending and running tasks by service; guarded by this. */
+    private final Map<String, ServiceQueue> serviceQueues = new HashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong totalQueueMillis = new AtomicLong();
+    private final AtomicLong maxQueueMillis = new AtomicLong();
+    private final AtomicLong totalRunMillis = new AtomicLong();
+
+    public static LoadingScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns true if the load running on the current thread has been
+     * cancelled, in which case its result should be discarded.
+     */
+    public static boolean isCurrentTaskCancelled() {
+        LoadingTask task = CURRENT_TASK.get();
+        return task != null && task.isCancelled();
+    }
+
+    LoadingScheduler(int threads, int maxConcurrentLoadsPerService) {
+        this.maxConcurrentLoadsPerService = maxConcurrentLoadsPerService;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new LoaderThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Schedules an interactive load with no cancellation key.
+     */
+    public LoadingTask submit(String service, Runnable loader) {
+        return submit(service, null, Priority.INTERACTIVE, loader);
+    }
+
+    /**
+     * Schedules a load.
+     *
+     * @param service
+     *            The abbreviation of the service the load calls, used to
+     *            limit the concurrent calls to any one service.
+     * @param key
+     *            The key used to cancel the load, typically the explorer
+     *            element being populated; may be null.
+     * @param priority
+     *            The priority lane of the load.
+     * @param loader
+     *            The code loading the data.
+     * @return The handle of the scheduled load.
+     */
+    public LoadingTask submit(String service, Object key, Priority priority, Runnable loader) {
+        return submit(service, null, key, priority, loader);
+    }
+
+    /**
+     * Schedules a load on behalf of the given owner, which can later cancel
+     * all its loads with {@link #cancelAllOwnedBy(Object)}.
+     *
+     * @param service
+     *            The abbreviation of the service the load calls, used to
+     *            limit the concurrent calls to any one service.
+     * @param owner
+     *            The component submitting the load; may be null.
+     * @param key
+     *            The key used to cancel the load, typically the explorer
+     *            element being populated; may be null.
+     * @param priority
+     *            The priority lane of the load.
+     * @param loader
+     *            The code loading the data.
+     * @return The handle of the scheduled load.
+     */
+    public synchronized LoadingTask submit(String service, Object owner, Object key, Priority priority,
+            Runnable loader) {
+        LoadingTask task = new LoadingTask(service, owner, key, priority, loader, sequence.incrementAndGet());
+        ServiceQueue queue = serviceQueues.get(service);
+        if (queue == null) {
+            queue = new ServiceQueue();
+            serviceQueues.put(service, queue);
+        }
+        queue.pending.add(task);
+        dispatch(queue);
+        return task;
+    }
+
+    /**
+     * Cancels the pending and running loads of the given service submitted by
+     * the given owner and registered with the given key.
+     *
+     * @return True if any load was cancelled.
+     */
+    public synchronized boolean cancel(String service, Object owner, Object key) {
+        ServiceQueue queue = serviceQueues.get(service);
+        if (queue == null) {
+            return false;
+        }
+
+        boolean cancelled = false;
+        for (LoadingTask task : queue.getTasks()) {
+            if (task.owner == owner && (key == null ? task.key == null : key.equals(task.key))) {
+                cancelled |= cancel(queue, task);
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancels all the pending and running loads submitted by the given owner,
+     * whatever their service.
+     */
+    public synchronized void cancelAllOwnedBy(Object owner) {
+        for (ServiceQueue queue : serviceQueues.values()) {
+            for (LoadingTask task : queue.getTasks()) {
+                if (task.owner == owner) {
+                    cancel(queue, task);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancels all the pending and running loads of every service.
+     */
+    public synchronized void cancelAll() {
+        for (ServiceQueue queue : serviceQueues.values()) {
+            for (LoadingTask task : queue.getTasks()) {
+                cancel(queue, task);
+            }
+        }
+    }
+
+    /** Returns the number of loads waiting to run. */
+    public synchronized int getQueueDepth() {
+        int depth = 0;
+        for (ServiceQueue queue : serviceQueues.values()) {
+            depth += queue.pending.size();
+        }
+        return depth + executor.getQueue().size();
+    }
+
+    /** Returns the number of loads of the given service waiting to run. */
+    public synchronized int getQueueDepth(String service) {
+        ServiceQueue queue = serviceQueues.get(service);
+        return queue == null ? 0 : queue.pending.size();
+    }
+
+    /** Returns the number of loads currently dispatched to the thread pool. */
+    public synchronized int getRunningCount() {
+        int running = 0;
+        for (ServiceQueue queue : serviceQueues.values()) {
+            running += queue.running.size();
+        }
+        return running;
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /** Returns the average time loads waited before running, in milliseconds. */
+    public long getAverageQueueLatencyMillis() {
+        long started = completedCount.get() + failedCount.get();
+        return started == 0 ? 0 : totalQueueMillis.get() / started;
+    }
+
+    /** Returns the longest time a load waited before running, in milliseconds. */
+    public long getMaxQueueLatencyMillis() {
+        return maxQueueMillis.get();
+    }
+
+    /** Returns the average running time of the loads, in milliseconds. */
+    public long getAverageRunMillis() {
+        long started = completedCount.get() + failedCount.get();
+        return started == 0 ? 0 : totalRunMillis.get() / started;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Loading scheduler: %d queued, %d running, %d completed, %d failed, %d cancelled, "
+                + "queue latency avg %dms max %dms, run time avg %dms",
+                getQueueDepth(), getRunningCount(), getCompletedCount(), getFailedCount(), getCancelledCount(),
+                getAverageQueueLatencyMillis(), getMaxQueueLatencyMillis(), getAverageRunMillis());
+    }
+
+    private boolean cancel(ServiceQueue queue, LoadingTask task) {
+        if (!task.cancel()) {
+            return false;
+        }
+        cancelledCount.incrementAndGet();
+        // Pending tasks are dropped right away; running ones release their
+        // slot when they return.
+        queue.pending.remove(task);
+        return true;
+    }
+
+    private void dispatch(ServiceQueue queue) {
+        while (queue.running.size() < maxConcurrentLoadsPerService && !queue.pending.isEmpty()) {
+            LoadingTask task = queue.pending.poll();
+            queue.running.add(task);
+            executor.execute(task);
+        }
+    }
+
+    private synchronized void finished(LoadingTask task) {
+        ServiceQueue queue = serviceQueues.get(task.service);
+        queue.running.remove(task);
+        dispatch(queue);
+        if (queue.running.isEmpty() && queue.pending.isEmpty()) {
+            serviceQueues.remove(task.service);
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    /** Handle of a load scheduled with the {@link LoadingScheduler}. */
+    public final class LoadingTask implements Runnable, Comparable<LoadingTask> {
+        private final String service;
+        private final Object owner;
+        private final Object key;
+        private final Priority priority;
+        private final Runnable loader;
+        private final long sequenceNumber;
+        private final long submitTime = System.currentTimeMillis();
+
+        private boolean cancelled;
+        private Thread runner;
+
+        private LoadingTask(String service, Object owner, Object key, Priority priority, Runnable loader,
+                long sequenceNumber) {
+            this.service = service;
+            this.owner = owner;
+            this.key = key;
+            this.priority = priority;
+            this.loader = loader;
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Cancels this load; a running load is interrupted.
+         *
+         * @return False if the load was already cancelled.
+         */
+        public boolean cancel() {
+            synchronized (this) {
+                if (cancelled) {
+                    return false;
+                }
+                cancelled = true;
+                if (runner != null) {
+                    runner.interrupt();
+                }
+            }
+            return true;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        @Override
+        public void run() {
+            long startTime = System.currentTimeMillis();
+            boolean cancelledBeforeStart;
+            synchronized (this) {
+                cancelledBeforeStart = cancelled;
+                if (!cancelledBeforeStart) {
+                    runner = Thread.currentThread();
+                }
+            }
+            if (cancelledBeforeStart) {
+                finished(this);
+                return;
+            }
+
+            long queueMillis = startTime - submitTime;
+            totalQueueMillis.addAndGet(queueMillis);
+            updateMax(maxQueueMillis, queueMillis);
+
+            CURRENT_TASK.set(this);
+            try {
+                loader.run();
+                completedCount.incrementAndGet();
+            } catch (Throwable t) {
+                failedCount.incrementAndGet();
+                if (!isCancelled()) {
+                    AwsToolkitCore.getDefault().logWarning("Error loading " + service + " data", t);
+                }
+            } finally {
+                CURRENT_TASK.remove();
+                synchronized (this) {
+                    runner = null;
+                }
+                // Don't leak a cancellation interrupt to the next task
+                Thread.interrupted();
+                totalRunMillis.addAndGet(System.currentTimeMillis() - startTime);
+                finished(this);
+            }
+        }
+
+        @Override
+        public int compareTo(LoadingTask other) {
+            int result = priority.compareTo(other.priority);
+            if (result == 0) {
+                result = Long.compare(sequenceNumber, other.sequenceNumber);
+            }
+            return result;
+        }
+    }
+
+    private static final class ServiceQueue {
+        private final PriorityQueue<LoadingTask> pending = new PriorityQueue<>();
+        private final Set<LoadingTask> running = new HashSet<>();
+
+        private List<LoadingTask> getTasks() {
+            List<LoadingTask> tasks = new ArrayList<>(pending);
+            tasks.addAll(running);
+            return tasks;
+        }
+    }
+
+    private static final class LoaderThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "AWS Toolkit loader " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
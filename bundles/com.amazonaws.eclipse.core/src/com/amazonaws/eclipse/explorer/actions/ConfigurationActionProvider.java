@@ -14,6 +14,7 @@
  */
 package com.amazonaws.eclipse.explorer.actions;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -33,6 +34,7 @@ import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.MenuItem;
 import org.eclipse.ui.IActionBars;
@@ -45,6 +47,7 @@ import com.amazonaws.eclipse.core.preferences.PreferenceConstants;
 import com.amazonaws.eclipse.core.preferences.PreferencePropertyChangeListener;
 import com.amazonaws.eclipse.core.regions.Region;
 import com.amazonaws.eclipse.core.regions.RegionUtils;
+import com.amazonaws.eclipse.core.regions.RegionsChangeListener;
 import com.amazonaws.eclipse.core.ui.IRefreshable;
 import com.amazonaws.eclipse.explorer.ContentProviderRegistry;
 import com.amazonaws.eclipse.explorer.ExplorerNode;
@@ -90,6 +93,7 @@ public class ConfigurationActionProvider extends CommonActionProvider {
     private final class RegionSelectionMenuAction extends Action implements IRefreshable, IDisposable {
         private Menu menu;
         private PreferencePropertyChangeListener regionChangeListener;
+        private RegionsChangeListener regionsMetadataChangeListener;
 
         private RegionSelectionMenuAction() {
             super(null, Action.AS_DROP_DOWN_MENU);
@@ -105,6 +109,25 @@ public class ConfigurationActionProvider extends CommonActionProvider {
                 }
             };
             AwsToolkitCore.getDefault().addDefaultRegionChangeListener(regionChangeListener);
+
+            // Rebuild the menu once the region metadata is refreshed from the remote source
+            regionsMetadataChangeListener = new RegionsChangeListener() {
+
+                @Override
+                public void regionsChanged(List<Region> regions) {
+                    Display.getDefault().asyncExec(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (menu != null) {
+                                menu.dispose();
+                                menu = null;
+                            }
+                            updateRegionFlag();
+                        }
+                    });
+                }
+            };
+            RegionUtils.addRegionsChangeListener(regionsMetadataChangeListener);
         }
 
         @Override
@@ -126,6 +149,7 @@ public class ConfigurationActionProvider extends CommonActionProvider {
                     if (regionChangeListener != null) {
                         AwsToolkitCore.getDefault().removeDefaultRegionChangeListener(regionChangeListener);
                     }
+                    RegionUtils.removeRegionsChangeListener(regionsMetadataChangeListener);
                     if (menu != null) {
                         menu.dispose();
                     }
@@ -189,6 +213,7 @@ public class ConfigurationActionProvider extends CommonActionProvider {
             if (regionChangeListener != null) {
                 AwsToolkitCore.getDefault().removeDefaultRegionChangeListener(regionChangeListener);
             }
+            RegionUtils.removeRegionsChangeListener(regionsMetadataChangeListener);
         }
     }
 
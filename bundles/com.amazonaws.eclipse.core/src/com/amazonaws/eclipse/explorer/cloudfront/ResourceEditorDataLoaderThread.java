@@ -23,12 +23,21 @@ import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Text;
 
 import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
+import com.amazonaws.eclipse.explorer.LoadingScheduler;
 import com.amazonaws.util.DateUtils;
 
-public abstract class ResourceEditorDataLoaderThread extends Thread {
+public abstract class ResourceEditorDataLoaderThread implements Runnable {
 
     public abstract void loadData();
 
+    /**
+     * Schedules this load with the shared {@link LoadingScheduler}.
+     */
+    public void start() {
+        LoadingScheduler.getInstance().submit(ServiceAbbreviations.CLOUDFRONT, this);
+    }
+
     @Override
     public void run() {
         try {
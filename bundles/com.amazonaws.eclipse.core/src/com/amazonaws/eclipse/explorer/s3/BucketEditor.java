@@ -14,6 +14,8 @@
  */
 package com.amazonaws.eclipse.explorer.s3;
 
+import java.io.File;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -44,6 +46,7 @@ import com.amazonaws.eclipse.core.regions.RegionUtils;
 import com.amazonaws.eclipse.explorer.AwsAction;
 import com.amazonaws.eclipse.explorer.s3.acls.EditBucketPermissionsDialog;
 import com.amazonaws.eclipse.explorer.s3.acls.EditPermissionsDialog;
+import com.amazonaws.eclipse.explorer.s3.util.BucketKeyIndexer;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.Bucket;
 
@@ -55,6 +58,8 @@ public class BucketEditor extends EditorPart {
 
     private S3ObjectSummaryTable objectSummaryTable;
 
+    private BucketKeyIndexer keyIndexer;
+
     public S3ObjectSummaryTable getObjectSummaryTable() {
         return objectSummaryTable;
     }
@@ -99,7 +104,9 @@ public class BucketEditor extends EditorPart {
         form.getBody().setLayout(new GridLayout(1, false));
 
         createBucketSummary(form, toolkit, bucketEditorInput.getBucketName());
+        createKeySearch(form, toolkit, bucketEditorInput.getBucketName());
         createBucketObjectList(form, toolkit, bucketEditorInput.getBucketName());
+        objectSummaryTable.setKeyIndexer(keyIndexer);
 
         form.getToolBarManager().add(new RefreshAction());
         form.getToolBarManager().update(true);
@@ -120,6 +127,18 @@ public class BucketEditor extends EditorPart {
         }
     }
 
+    /**
+     * Creates the search over the key index of the bucket
+     */
+    private void createKeySearch(final ScrolledForm form, final FormToolkit toolkit, final String bucketName) {
+        File indexFile = new File(AwsToolkitCore.getDefault().getStateLocation().toFile(),
+                "s3/key-index/" + bucketEditorInput.getAccountId() + "/" + bucketName + ".idx");
+        keyIndexer = new BucketKeyIndexer(bucketName, indexFile, () -> objectSummaryTable.getS3Client());
+        KeySearchSection keySearchSection = new KeySearchSection(form.getBody(), toolkit, keyIndexer);
+        keySearchSection.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
+        keyIndexer.load();
+    }
+
     /**
      * Creates a table of buckets
      */
@@ -210,4 +229,12 @@ public class BucketEditor extends EditorPart {
     @Override
     public void setFocus() {
     }
+
+    @Override
+    public void dispose() {
+        if ( keyIndexer != null ) {
+            keyIndexer.dispose();
+        }
+        super.dispose();
+    }
 }
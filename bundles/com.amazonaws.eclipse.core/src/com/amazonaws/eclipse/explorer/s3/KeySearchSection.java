@@ -0,0 +1,273 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.forms.widgets.FormToolkit;
+
+import com.amazonaws.eclipse.core.util.BatchTransferProgress;
+import com.amazonaws.eclipse.core.util.S3KeyIndex;
+import com.amazonaws.eclipse.core.util.S3KeyIndex.KeyEntry;
+import com.amazonaws.eclipse.core.util.S3KeyIndex.PrefixSummary;
+import com.amazonaws.eclipse.explorer.s3.util.BucketKeyIndexer;
+
+/**
+ * Searches the keys of a bucket with its {@link BucketKeyIndexer}, as the
+ * user types: keys containing the text, the largest objects under a prefix,
+ * or the size of each folder under a prefix. Searches scan the whole index, so
+ * they run in a background job, and are only run again when the text, the
+ * mode or the index itself changes.
+ */
+public class KeySearchSection extends Composite {
+
+    private static final int MAX_RESULTS = 500;
+
+    /** Delay between the last keystroke and the search. */
+    private static final int SEARCH_DELAY_MILLIS = 150;
+
+    private static final int MODE_CONTAINING = 0;
+    private static final int MODE_LARGEST = 1;
+    private static final int MODE_PREFIX_SIZES = 2;
+
+    private final BucketKeyIndexer indexer;
+    private final Text searchText;
+    private final Combo modeCombo;
+    private final Button indexButton;
+    private final Label statusLabel;
+    private final TableViewer resultViewer;
+
+    /** The index the shown results come from; only used from the UI thread. */
+    private S3KeyIndex searchedIndex;
+
+    /** Incremented by every search, to drop the results of older ones. */
+    private int searchGeneration;
+
+    private final Runnable searchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            search();
+        }
+    };
+
+    private final Runnable indexListener = new Runnable() {
+        @Override
+        public void run() {
+            Display.getDefault().asyncExec(new Runnable() {
+                @Override
+                public void run() {
+                    if ( !isDisposed() ) {
+                        updateStatus();
+                        // The status changes far more often than the index
+                        if ( indexer.getIndex() != searchedIndex ) {
+                            search();
+                        }
+                    }
+                }
+            });
+        }
+    };
+
+    public KeySearchSection(Composite parent, FormToolkit toolkit, BucketKeyIndexer indexer) {
+        super(parent, SWT.NONE);
+        this.indexer = indexer;
+        toolkit.adapt(this);
+        setLayout(new GridLayout(5, false));
+
+        toolkit.createLabel(this, "Search keys:");
+        searchText = toolkit.createText(this, "", SWT.SEARCH | SWT.ICON_CANCEL);
+        searchText.setLayoutData(GridDataFactory.fillDefaults().grab(true, false).create());
+        searchText.setMessage("Text in the key, or prefix");
+        searchText.addModifyListener(e -> scheduleSearch());
+
+        modeCombo = new Combo(this, SWT.READ_ONLY);
+        modeCombo.setItems(new String[] { "Keys containing", "Largest objects under prefix", "Folder sizes under prefix" });
+        modeCombo.select(MODE_CONTAINING);
+        modeCombo.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                search();
+            }
+        });
+
+        indexButton = toolkit.createButton(this, "Build Index", SWT.PUSH);
+        indexButton.setToolTipText("List all the keys of the bucket in the background to search them");
+        indexButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                KeySearchSection.this.indexer.rebuild();
+            }
+        });
+
+        statusLabel = toolkit.createLabel(this, "");
+        statusLabel.setLayoutData(GridDataFactory.fillDefaults().grab(false, false).hint(200, SWT.DEFAULT).create());
+
+        resultViewer = new TableViewer(this, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL);
+        Table table = resultViewer.getTable();
+        table.setHeaderVisible(true);
+        table.setLayoutData(GridDataFactory.fillDefaults().grab(true, false).span(5, 1).hint(SWT.DEFAULT, 150).create());
+        createColumn(table, "Key", 400);
+        createColumn(table, "Size", 100);
+        createColumn(table, "Objects", 80);
+        createColumn(table, "Last Modified", 200);
+        resultViewer.setContentProvider(ArrayContentProvider.getInstance());
+        resultViewer.setLabelProvider(new ResultLabelProvider());
+        resultViewer.addDoubleClickListener(event -> {
+            // Drill down into a folder
+            Object element = ((IStructuredSelection) event.getSelection()).getFirstElement();
+            if ( element instanceof PrefixSummary && ((PrefixSummary) element).getPrefix().endsWith("/") ) {
+                searchText.setText(((PrefixSummary) element).getPrefix());
+            }
+        });
+
+        indexer.addListener(indexListener);
+        updateStatus();
+    }
+
+    @Override
+    public void dispose() {
+        indexer.removeListener(indexListener);
+        super.dispose();
+    }
+
+    private static void createColumn(Table table, String text, int width) {
+        TableColumn column = new TableColumn(table, SWT.NONE);
+        column.setText(text);
+        column.setWidth(width);
+    }
+
+    private void scheduleSearch() {
+        getDisplay().timerExec(-1, searchRunnable);
+        getDisplay().timerExec(SEARCH_DELAY_MILLIS, searchRunnable);
+    }
+
+    private void updateStatus() {
+        S3KeyIndex index = indexer.getIndex();
+        indexButton.setText(index == null ? "Build Index" : "Rebuild Index");
+        statusLabel.setText(index == null && indexer.getStatus().isEmpty() ? "Not indexed" : indexer.getStatus());
+        layout(true);
+    }
+
+    /**
+     * Searches the current index in the background, then shows the results
+     * unless another search has started meanwhile.
+     */
+    private void search() {
+        if ( isDisposed() ) {
+            return;
+        }
+        final S3KeyIndex index = indexer.getIndex();
+        final String text = searchText.getText();
+        final int mode = modeCombo.getSelectionIndex();
+        final int generation = ++searchGeneration;
+        searchedIndex = index;
+        if ( index == null ) {
+            resultViewer.setInput(Collections.emptyList());
+            return;
+        }
+
+        Job searchJob = new Job("Searching keys") {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                final List<?> results = search(index, text, mode);
+                Display.getDefault().asyncExec(new Runnable() {
+                    @Override
+                    public void run() {
+                        if ( !isDisposed() && generation == searchGeneration ) {
+                            resultViewer.setInput(results);
+                        }
+                    }
+                });
+                return Status.OK_STATUS;
+            }
+        };
+        searchJob.setSystem(true);
+        searchJob.schedule();
+    }
+
+    private static List<?> search(S3KeyIndex index, String text, int mode) {
+        switch ( mode ) {
+        case MODE_LARGEST:
+            return index.getLargestObjects(text, MAX_RESULTS);
+        case MODE_PREFIX_SIZES:
+            String prefix = text.isEmpty() || text.endsWith("/") ? text : text.substring(0, text.lastIndexOf('/') + 1);
+            return index.rollUp(prefix);
+        default:
+            return index.search(text, MAX_RESULTS);
+        }
+    }
+
+    private static class ResultLabelProvider extends LabelProvider implements ITableLabelProvider {
+
+        @Override
+        public Image getColumnImage(Object element, int columnIndex) {
+            return null;
+        }
+
+        @Override
+        public String getColumnText(Object element, int columnIndex) {
+            if ( element instanceof KeyEntry ) {
+                KeyEntry entry = (KeyEntry) element;
+                switch ( columnIndex ) {
+                case 0:
+                    return entry.getKey();
+                case 1:
+                    return BatchTransferProgress.formatBytes(entry.getSize());
+                case 2:
+                    return "";
+                default:
+                    return entry.getLastModified() == 0 ? "" : new Date(entry.getLastModified()).toString();
+                }
+            }
+
+            PrefixSummary summary = (PrefixSummary) element;
+            switch ( columnIndex ) {
+            case 0:
+                return summary.getPrefix();
+            case 1:
+                return BatchTransferProgress.formatBytes(summary.getTotalBytes());
+            case 2:
+                return String.format("%,d", summary.getObjectCount());
+            default:
+                return "";
+            }
+        }
+    }
+}
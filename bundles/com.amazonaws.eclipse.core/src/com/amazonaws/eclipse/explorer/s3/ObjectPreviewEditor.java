@@ -0,0 +1,505 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorSite;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.part.EditorPart;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.util.BatchTransferProgress;
+import com.amazonaws.eclipse.core.util.RangePageCache;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Read-only preview of an S3 object that reads only the window being
+ * displayed, through ranged GETs, so that objects of any size can be paged
+ * through, from the head, the tail or any offset. Text is shown with whole
+ * lines, small JSON objects are pretty printed and binary content is shown as
+ * a hex dump. When following, new versions of the object that append to it
+ * are appended to the display.
+ */
+public class ObjectPreviewEditor extends EditorPart {
+
+    public final static String ID = "com.amazonaws.eclipse.explorer.s3.objectPreviewEditor";
+
+    private static final int PAGE_SIZE = 64 * 1024;
+
+    /** The page cache holds at most 2MB of the object. */
+    private static final int MAX_CACHED_PAGES = 32;
+
+    private static final int WINDOW_SIZE = 256 * 1024;
+
+    /** Longest partial line dropped at the start of a window. */
+    private static final int MAX_PARTIAL_LINE = 4096;
+
+    private static final int FOLLOW_INTERVAL_MILLIS = 5000;
+
+    /** Characters kept in the display while following. */
+    private static final int MAX_FOLLOW_CHARS = 1024 * 1024;
+
+    /** Bytes of the previous version compared to detect appends. */
+    private static final int APPEND_CHECK_SIZE = 256;
+
+    private static final int HEX_BYTES_PER_LINE = 16;
+
+    // Offsets requested relative to the object or the displayed window
+    private static final long TAIL = -1;
+    private static final long PREVIOUS = -2;
+    private static final long NEXT = -3;
+    private static final long NO_REQUEST = Long.MIN_VALUE;
+
+    private ObjectPreviewEditorInput previewInput;
+    private AmazonS3 s3;
+
+    private Label infoLabel;
+    private StyledText text;
+    private Text offsetText;
+    private Button followButton;
+
+    /** Offset requested by the user, read by the read job. */
+    private final AtomicLong requestedOffset = new AtomicLong(0);
+    private volatile boolean following;
+
+    // Only accessed by the read job
+    private String eTag;
+    private String contentType;
+    private RangePageCache cache;
+    private long windowStart;
+    private long windowEnd;
+    private boolean binary;
+
+    private final Job readJob = new Job("Reading S3 object") {
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            try {
+                long offset = requestedOffset.getAndSet(NO_REQUEST);
+                if ( offset != NO_REQUEST ) {
+                    showWindow(offset);
+                } else if ( following ) {
+                    pollForAppends();
+                }
+            } catch (Exception e) {
+                AwsToolkitCore.getDefault().logWarning("Unable to read " + previewInput.getToolTipText(), e);
+                showStatus("Unable to read the object: " + e.getMessage());
+            }
+            if ( following ) {
+                schedule(FOLLOW_INTERVAL_MILLIS);
+            }
+            return Status.OK_STATUS;
+        }
+    };
+
+    @Override
+    public void init(IEditorSite site, IEditorInput input) throws PartInitException {
+        setSite(site);
+        setInput(input);
+        previewInput = (ObjectPreviewEditorInput) input;
+        setPartName(input.getName());
+        setTitleToolTip(input.getToolTipText());
+        readJob.setName("Reading " + previewInput.getKey());
+        readJob.setSystem(true);
+    }
+
+    @Override
+    public void createPartControl(Composite parent) {
+        Composite composite = new Composite(parent, SWT.NONE);
+        composite.setLayout(new GridLayout(1, false));
+
+        infoLabel = new Label(composite, SWT.NONE);
+        infoLabel.setLayoutData(GridDataFactory.fillDefaults().grab(true, false).create());
+        infoLabel.setText(previewInput.getBucketName() + "/" + previewInput.getKey());
+
+        Composite toolbar = new Composite(composite, SWT.NONE);
+        toolbar.setLayout(new GridLayout(8, false));
+        createNavigationButton(toolbar, "Head", 0);
+        createNavigationButton(toolbar, "Previous", PREVIOUS);
+        createNavigationButton(toolbar, "Next", NEXT);
+        createNavigationButton(toolbar, "Tail", TAIL);
+
+        new Label(toolbar, SWT.NONE).setText("Offset:");
+        offsetText = new Text(toolbar, SWT.BORDER);
+        offsetText.setLayoutData(GridDataFactory.fillDefaults().hint(120, SWT.DEFAULT).create());
+        offsetText.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetDefaultSelected(SelectionEvent e) {
+                goToOffset();
+            }
+        });
+        Button goButton = new Button(toolbar, SWT.PUSH);
+        goButton.setText("Go");
+        goButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                goToOffset();
+            }
+        });
+
+        followButton = new Button(toolbar, SWT.CHECK);
+        followButton.setText("Follow appended versions");
+        followButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                following = followButton.getSelection();
+                if ( following ) {
+                    request(TAIL);
+                }
+            }
+        });
+
+        text = new StyledText(composite, SWT.BORDER | SWT.READ_ONLY | SWT.V_SCROLL | SWT.H_SCROLL);
+        text.setFont(JFaceResources.getTextFont());
+        text.setLayoutData(GridDataFactory.fillDefaults().grab(true, true).create());
+
+        s3 = previewInput.getS3Client();
+        request(0);
+    }
+
+    @Override
+    public void dispose() {
+        following = false;
+        readJob.cancel();
+        super.dispose();
+    }
+
+    private void createNavigationButton(Composite parent, String label, final long target) {
+        Button button = new Button(parent, SWT.PUSH);
+        button.setText(label);
+        button.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                request(target);
+            }
+        });
+    }
+
+    private void goToOffset() {
+        try {
+            request(Math.max(0, Long.parseLong(offsetText.getText().trim().replace(",", ""))));
+        } catch (NumberFormatException e) {
+            offsetText.selectAll();
+        }
+    }
+
+    /**
+     * Asks the read job to show the window at the given offset, or at
+     * {@link #TAIL}, {@link #PREVIOUS} or {@link #NEXT}; the bounds of the
+     * current window belong to the read job, so it resolves those.
+     */
+    private void request(long offset) {
+        if ( offset != TAIL ) {
+            following = false;
+            followButton.setSelection(false);
+        }
+        requestedOffset.set(offset);
+        readJob.schedule();
+    }
+
+    private void showWindow(long offset) throws IOException {
+        if ( cache == null ) {
+            loadMetadata();
+        }
+        if ( offset == PREVIOUS ) {
+            offset = Math.max(0, windowStart - WINDOW_SIZE);
+        } else if ( offset == NEXT ) {
+            offset = windowEnd < cache.getLength() ? windowEnd : windowStart;
+        }
+
+        byte[] bytes;
+        try {
+            bytes = read(offset);
+        } catch (ObjectChangedException e) {
+            loadMetadata();
+            bytes = read(offset);
+        }
+        if ( offset == TAIL ) {
+            offset = Math.max(0, cache.getLength() - WINDOW_SIZE);
+        }
+
+        binary = isBinary(bytes);
+        int from = 0;
+        int to = bytes.length;
+        if ( !binary ) {
+            if ( offset > 0 ) {
+                int newline = indexOf(bytes, 0, Math.min(to, MAX_PARTIAL_LINE));
+                from = newline < 0 ? 0 : newline + 1;
+            }
+            if ( offset + to < cache.getLength() ) {
+                int newline = lastIndexOf(bytes, from, to);
+                to = newline < 0 ? to : newline + 1;
+            }
+        }
+        windowStart = offset + from;
+        windowEnd = offset + to;
+
+        final String content;
+        if ( binary ) {
+            content = hexDump(bytes, from, to, windowStart);
+        } else if ( windowStart == 0 && windowEnd == cache.getLength() && isJson() ) {
+            content = prettyPrint(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        } else {
+            content = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+
+        final String info = describeWindow();
+        final boolean scrollToEnd = following;
+        Display.getDefault().asyncExec(new Runnable() {
+            @Override
+            public void run() {
+                if ( text.isDisposed() ) {
+                    return;
+                }
+                infoLabel.setText(info);
+                text.setText(content);
+                text.setTopIndex(scrollToEnd ? text.getLineCount() - 1 : 0);
+            }
+        });
+    }
+
+    /**
+     * Checks whether a new version of the object was written, and appends its
+     * new content to the display if it extends the version being displayed.
+     */
+    private void pollForAppends() throws IOException {
+        ObjectMetadata metadata = s3.getObjectMetadata(previewInput.getBucketName(), previewInput.getKey());
+        if ( metadata.getETag().equals(eTag) ) {
+            return;
+        }
+
+        long newLength = metadata.getContentLength();
+        long checkStart = Math.max(windowStart, windowEnd - APPEND_CHECK_SIZE);
+        byte[] previousEnd;
+        try {
+            previousEnd = cache.read(checkStart, (int) (windowEnd - checkStart));
+        } catch (ObjectChangedException e) {
+            previousEnd = null;
+        }
+        eTag = metadata.getETag();
+        cache.reset(newLength);
+
+        if ( previousEnd == null || binary || newLength < windowEnd || newLength - windowEnd > WINDOW_SIZE ) {
+            showWindow(TAIL);
+            return;
+        }
+
+        byte[] bytes;
+        try {
+            bytes = cache.read(checkStart, (int) (newLength - checkStart));
+        } catch (ObjectChangedException e) {
+            // Replaced again; catch up on the next poll
+            return;
+        }
+        if ( !Arrays.equals(previousEnd, Arrays.copyOf(bytes, previousEnd.length)) ) {
+            // The new version rewrote the object rather than appending to it
+            showWindow(TAIL);
+            return;
+        }
+
+        int from = previousEnd.length;
+        int to = lastIndexOf(bytes, from, bytes.length);
+        to = to < 0 ? from : to + 1;
+        windowEnd = checkStart + to;
+        final String appended = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        final String info = describeWindow();
+        Display.getDefault().asyncExec(new Runnable() {
+            @Override
+            public void run() {
+                if ( text.isDisposed() ) {
+                    return;
+                }
+                infoLabel.setText(info);
+                text.append(appended);
+                int excess = text.getCharCount() - MAX_FOLLOW_CHARS;
+                if ( excess > 0 ) {
+                    // Drop whole lines from the top
+                    text.replaceTextRange(0, text.getOffsetAtLine(text.getLineAtOffset(excess)), "");
+                }
+                text.setTopIndex(text.getLineCount() - 1);
+            }
+        });
+    }
+
+    private byte[] read(long offset) throws IOException {
+        long start = offset == TAIL ? Math.max(0, cache.getLength() - WINDOW_SIZE) : offset;
+        return cache.read(start, WINDOW_SIZE);
+    }
+
+    private void loadMetadata() {
+        ObjectMetadata metadata = s3.getObjectMetadata(previewInput.getBucketName(), previewInput.getKey());
+        eTag = metadata.getETag();
+        contentType = metadata.getContentType();
+        if ( cache == null ) {
+            cache = new RangePageCache(new RangePageCache.RangeReader() {
+                @Override
+                public byte[] read(long start, long end) throws IOException {
+                    return readRange(start, end);
+                }
+            }, metadata.getContentLength(), PAGE_SIZE, MAX_CACHED_PAGES);
+        } else {
+            cache.reset(metadata.getContentLength());
+        }
+    }
+
+    /**
+     * Reads a range of the version being displayed; fails with an
+     * {@link ObjectChangedException} if it has been replaced.
+     */
+    private byte[] readRange(long start, long end) throws IOException {
+        GetObjectRequest request = new GetObjectRequest(previewInput.getBucketName(), previewInput.getKey())
+                .withRange(start, end)
+                .withMatchingETagConstraint(eTag);
+        S3Object object = s3.getObject(request);
+        if ( object == null ) {
+            throw new ObjectChangedException();
+        }
+        try (InputStream in = object.getObjectContent()) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private String describeWindow() {
+        long length = cache.getLength();
+        return String.format("%s/%s    %s    %s    showing bytes %,d to %,d of %,d",
+                previewInput.getBucketName(), previewInput.getKey(),
+                contentType == null ? "" : contentType,
+                BatchTransferProgress.formatBytes(length),
+                windowStart, windowEnd, length);
+    }
+
+    private void showStatus(final String status) {
+        Display.getDefault().asyncExec(new Runnable() {
+            @Override
+            public void run() {
+                if ( !infoLabel.isDisposed() ) {
+                    infoLabel.setText(status);
+                }
+            }
+        });
+    }
+
+    private boolean isJson() {
+        return (contentType != null && contentType.contains("json"))
+                || previewInput.getKey().toLowerCase().endsWith(".json");
+    }
+
+    private static String prettyPrint(String json) {
+        try {
+            ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            return mapper.writeValueAsString(mapper.readTree(json));
+        } catch (IOException e) {
+            return json;
+        }
+    }
+
+    private static boolean isBinary(byte[] bytes) {
+        for (int i = 0; i < Math.min(bytes.length, 8192); i++) {
+            if ( bytes[i] == 0 ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if ( bytes[i] == '\n' ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] bytes, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if ( bytes[i] == '\n' ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String hexDump(byte[] bytes, int from, int to, long offset) {
+        StringBuilder dump = new StringBuilder((to - from) * 4);
+        for (int line = from; line < to; line += HEX_BYTES_PER_LINE) {
+            dump.append(String.format("%010x ", offset + line - from));
+            StringBuilder ascii = new StringBuilder(HEX_BYTES_PER_LINE);
+            for (int i = line; i < line + HEX_BYTES_PER_LINE; i++) {
+                if ( i < to ) {
+                    dump.append(String.format(" %02x", bytes[i] & 0xff));
+                    ascii.append(bytes[i] >= 0x20 && bytes[i] < 0x7f ? (char) bytes[i] : '.');
+                } else {
+                    dump.append("   ");
+                }
+            }
+            dump.append("  ").append(ascii).append('\n');
+        }
+        return dump.toString();
+    }
+
+    /** Thrown when the version being displayed has been replaced. */
+    private static class ObjectChangedException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    @Override
+    public void doSave(IProgressMonitor monitor) {}
+
+    @Override
+    public void doSaveAs() {}
+
+    @Override
+    public boolean isDirty() {
+        return false;
+    }
+
+    @Override
+    public boolean isSaveAsAllowed() {
+        return false;
+    }
+
+    @Override
+    public void setFocus() {
+        text.setFocus();
+    }
+}
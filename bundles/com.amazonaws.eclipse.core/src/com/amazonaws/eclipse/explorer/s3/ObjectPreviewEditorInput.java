@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.regions.RegionUtils;
+import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
+import com.amazonaws.eclipse.explorer.AbstractAwsResourceEditorInput;
+import com.amazonaws.services.s3.AmazonS3;
+
+public final class ObjectPreviewEditorInput extends AbstractAwsResourceEditorInput {
+
+    private final String bucketName;
+    private final String key;
+
+    public ObjectPreviewEditorInput(String accountId, String regionId, String bucketName, String key) {
+        super(RegionUtils.getRegion(regionId).getServiceEndpoint(ServiceAbbreviations.S3), accountId, regionId);
+        this.bucketName = bucketName;
+        this.key = key;
+    }
+
+    @Override
+    public String getToolTipText() {
+        return "Amazon S3 Object Preview - " + bucketName + "/" + key;
+    }
+
+    @Override
+    public String getName() {
+        int slash = key.lastIndexOf('/');
+        return slash < 0 ? key : key.substring(slash + 1);
+    }
+
+    @Override
+    public ImageDescriptor getImageDescriptor() {
+        return AwsToolkitCore.getDefault().getImageRegistry().getDescriptor(AwsToolkitCore.IMAGE_SCROLL);
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public AmazonS3 getS3Client() {
+        return AwsToolkitCore.getClientFactory(getAccountId()).getS3ClientByRegion(getRegionId());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if ( obj == null || !(obj instanceof ObjectPreviewEditorInput) )
+            return false;
+        ObjectPreviewEditorInput other = (ObjectPreviewEditorInput) obj;
+        return other.getBucketName().equals(bucketName) && other.getKey().equals(key);
+    }
+
+    @Override
+    public int hashCode() {
+        return bucketName.hashCode() * 31 + key.hashCode();
+    }
+}
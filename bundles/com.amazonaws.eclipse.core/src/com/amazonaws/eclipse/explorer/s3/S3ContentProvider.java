@@ -14,6 +14,7 @@
  */
 package com.amazonaws.eclipse.explorer.s3;
 
+import java.util.Date;
 import java.util.Iterator;
 
 import org.eclipse.jface.viewers.IOpenListener;
@@ -28,6 +29,7 @@ import com.amazonaws.eclipse.explorer.AbstractContentProvider;
 import com.amazonaws.eclipse.explorer.Loading;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.Bucket;
+import com.amazonaws.services.s3.model.Owner;
 
 public class S3ContentProvider extends AbstractContentProvider {
 
@@ -99,4 +101,48 @@ public class S3ContentProvider extends AbstractContentProvider {
     public String getServiceAbbreviation() {
         return ServiceAbbreviations.S3;
     };
+
+    /**
+     * Bucket lists rarely change, and the toolkit's own bucket actions refresh
+     * the tree explicitly.
+     */
+    @Override
+    protected long getCacheTtlMillis() {
+        return 15 * 60 * 1000;
+    }
+
+    @Override
+    protected String getSnapshotKey(Object parentElement) {
+        return parentElement instanceof S3RootElement ? "buckets" : null;
+    }
+
+    @Override
+    protected String toSnapshotValue(Object child) {
+        if ( !(child instanceof Bucket) ) {
+            return null;
+        }
+        Bucket bucket = (Bucket) child;
+        Owner owner = bucket.getOwner();
+        return bucket.getName()
+                + "\t" + (bucket.getCreationDate() == null ? "" : bucket.getCreationDate().getTime())
+                + "\t" + (owner == null || owner.getId() == null ? "" : owner.getId())
+                + "\t" + (owner == null || owner.getDisplayName() == null ? "" : owner.getDisplayName());
+    }
+
+    @Override
+    protected Object fromSnapshotValue(String value) {
+        String[] fields = value.split("\t", -1);
+        if ( fields.length != 4 ) {
+            return null;
+        }
+        Bucket bucket = new Bucket(fields[0]);
+        if ( !fields[1].isEmpty() ) {
+            bucket.setCreationDate(new Date(Long.parseLong(fields[1])));
+        }
+        if ( !fields[2].isEmpty() || !fields[3].isEmpty() ) {
+            bucket.setOwner(new Owner(fields[2].isEmpty() ? null : fields[2],
+                    fields[3].isEmpty() ? null : fields[3]));
+        }
+        return bucket;
+    }
 }
@@ -15,13 +15,17 @@
 package com.amazonaws.eclipse.explorer.s3;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
@@ -34,6 +38,8 @@ import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.JFaceResources;
 import org.eclipse.jface.util.LocalSelectionTransfer;
 import org.eclipse.jface.viewers.ColumnWeightData;
+import org.eclipse.jface.viewers.DoubleClickEvent;
+import org.eclipse.jface.viewers.IDoubleClickListener;
 import org.eclipse.jface.viewers.ILabelProviderListener;
 import org.eclipse.jface.viewers.ILazyTreePathContentProvider;
 import org.eclipse.jface.viewers.ISelection;
@@ -54,16 +60,17 @@ import org.eclipse.swt.dnd.DropTargetEvent;
 import org.eclipse.swt.dnd.FileTransfer;
 import org.eclipse.swt.dnd.Transfer;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.layout.FillLayout;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.Tree;
 import org.eclipse.swt.widgets.TreeColumn;
 import org.eclipse.swt.widgets.TreeItem;
+import org.eclipse.swt.widgets.Widget;
 import org.eclipse.ui.ISharedImages;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.forms.IFormColors;
@@ -71,15 +78,23 @@ import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.eclipse.ui.part.PluginTransfer;
 import org.eclipse.ui.part.PluginTransferData;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.regions.RegionUtils;
+import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
+import com.amazonaws.eclipse.explorer.LoadingScheduler;
+import com.amazonaws.eclipse.explorer.LoadingScheduler.Priority;
 import com.amazonaws.eclipse.explorer.s3.actions.DeleteObjectAction;
 import com.amazonaws.eclipse.explorer.s3.actions.EditObjectPermissionsAction;
 import com.amazonaws.eclipse.explorer.s3.actions.EditObjectTagsAction;
 import com.amazonaws.eclipse.explorer.s3.actions.GeneratePresignedUrlAction;
+import com.amazonaws.eclipse.explorer.s3.actions.OpenObjectPreviewAction;
+import com.amazonaws.eclipse.explorer.s3.actions.StorageAnalyticsAction;
+import com.amazonaws.eclipse.explorer.s3.actions.SyncFolderAction;
 import com.amazonaws.eclipse.explorer.s3.dnd.S3ObjectSummaryDropAction;
 import com.amazonaws.eclipse.explorer.s3.dnd.UploadDropAssistant;
 import com.amazonaws.eclipse.explorer.s3.dnd.UploadFilesJob;
+import com.amazonaws.eclipse.explorer.s3.util.BucketKeyIndexer;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
@@ -96,6 +111,15 @@ public class S3ObjectSummaryTable extends Composite {
 
     private final static String DEFAULT_DELIMITER = "/";
 
+    /** Number of keys listed per request as the tree is scrolled. */
+    private static final int PAGE_SIZE = 1000;
+
+    /**
+     * Number of listed objects kept in memory across all the folders. Pages
+     * that haven't been shown for the longest time are dropped beyond this.
+     */
+    private static final int MAX_CACHED_ELEMENTS = 20 * PAGE_SIZE;
+
     private static final int KEY_COL = 0;
     private static final int ETAG_COL = 1;
     private static final int OWNER_COL = 2;
@@ -107,11 +131,13 @@ public class S3ObjectSummaryTable extends Composite {
     private final String accountId;
     private final String regionId;
 
-    private final Map<TreePath, Object[]> children;
-    private final TreeViewer viewer;
+    private final Map<TreePath, ChildListing> children;
+    private final ClearableTreeViewer viewer;
 
     private final Map<ImageDescriptor, Image> imageCache = new HashMap<>();
 
+    private BucketKeyIndexer keyIndexer;
+
     private final class S3ObjectSummaryContentProvider implements // ITreePathContentProvider,
             ILazyTreePathContentProvider {
 
@@ -150,14 +176,12 @@ public class S3ObjectSummaryTable extends Composite {
          */
         @Override
         public void updateElement(TreePath parentPath, int index) {
-            cacheChildren(parentPath);
-
-            Object[] childNodes = children.get(parentPath);
-            if ( index >= childNodes.length )
+            Object child = getChildListing(parentPath).getElement(index);
+            if ( child == null )
                 return;
 
-            viewer.replace(parentPath, index, childNodes[index]);
-            updateHasChildren(parentPath.createChildPath(childNodes[index]));
+            viewer.replace(parentPath, index, child);
+            updateHasChildren(parentPath.createChildPath(child));
         }
 
         /*
@@ -169,13 +193,12 @@ public class S3ObjectSummaryTable extends Composite {
          */
         @Override
         public void updateChildCount(TreePath treePath, int currentChildCount) {
-            cacheChildren(treePath);
-            Object[] objects = children.get(treePath);
+            ChildListing listing = getChildListing(treePath);
 
-            viewer.setChildCount(treePath, objects.length);
-            for ( int i = 0; i < objects.length; i++ ) {
-                if ( objects[i] instanceof IPath ) {
-                    viewer.setHasChildren(treePath.createChildPath(objects[i]), true);
+            viewer.setChildCount(treePath, listing.getChildCount());
+            for ( Object child : listing.getCachedElements() ) {
+                if ( child instanceof IPath ) {
+                    viewer.setHasChildren(treePath.createChildPath(child), true);
                 }
             }
 
@@ -208,8 +231,7 @@ public class S3ObjectSummaryTable extends Composite {
         @SuppressWarnings("unused")
         public Object[] getElements(Object inputElement) {
             TreePath treePath = new TreePath(new Object[0]);
-            cacheChildren(treePath);
-            return children.get(treePath);
+            return getChildListing(treePath).getCachedElements().toArray();
         }
 
         /*
@@ -221,9 +243,7 @@ public class S3ObjectSummaryTable extends Composite {
          */
         @SuppressWarnings("unused")
         public Object[] getChildren(TreePath parentPath) {
-            cacheChildren(parentPath);
-
-            return children.get(parentPath);
+            return getChildListing(parentPath).getCachedElements().toArray();
         }
 
         /*
@@ -260,8 +280,11 @@ public class S3ObjectSummaryTable extends Composite {
 
         @Override
         public String getColumnText(Object element, int columnIndex) {
-            if ( element == LOADING ) {
+            if ( element == LOADING || element instanceof ContinuationNode ) {
                 return "Loading...";
+            } else if ( element instanceof ErrorNode ) {
+                return columnIndex == 0 ? "Unable to list objects: " + ((ErrorNode) element).message
+                        + " (double-click to retry)" : "";
             } else if ( element instanceof IPath ) {
                 if ( columnIndex == 0 )
                     return ((IPath) element).lastSegment();
@@ -294,7 +317,8 @@ public class S3ObjectSummaryTable extends Composite {
 
         @Override
         public Image getColumnImage(Object element, int columnIndex) {
-            if ( columnIndex == 0 && element != LOADING ) {
+            if ( columnIndex == 0 && element != LOADING && !(element instanceof ContinuationNode)
+                    && !(element instanceof ErrorNode) ) {
                 if ( element instanceof IPath ) {
                     return PlatformUI.getWorkbench().getSharedImages().getImage(ISharedImages.IMG_OBJ_FOLDER);
                 }
@@ -318,7 +342,7 @@ public class S3ObjectSummaryTable extends Composite {
         this.accountId = accountId;
         this.regionId = RegionUtils.getRegionByEndpoint(s3Endpoint).getId();
         this.bucketName = bucketName;
-        this.children = Collections.synchronizedMap(new HashMap<TreePath, Object[]>());
+        this.children = Collections.synchronizedMap(new HashMap<TreePath, ChildListing>());
 
         GridLayout gridLayout = new GridLayout(1, false);
         gridLayout.marginWidth = 0;
@@ -348,7 +372,7 @@ public class S3ObjectSummaryTable extends Composite {
         TreeColumnLayout tableColumnLayout = new TreeColumnLayout();
         tableComp.setLayout(tableColumnLayout);
 
-        viewer = new TreeViewer(tableComp, SWT.BORDER | SWT.VIRTUAL | SWT.MULTI);
+        viewer = new ClearableTreeViewer(tableComp, SWT.BORDER | SWT.VIRTUAL | SWT.MULTI);
         viewer.getTree().setLinesVisible(true);
         viewer.getTree().setHeaderVisible(true);
         viewer.setUseHashlookup(true);
@@ -362,44 +386,41 @@ public class S3ObjectSummaryTable extends Composite {
         initializeDragAndDrop();
 
         final TreePath rootPath = new TreePath(new Object[0]);
-        final Thread t = cacheChildren(rootPath);
 
         viewer.setInput(LOADING);
 
-        new Thread() {
+        cacheChildren(rootPath, new Runnable() {
 
             @Override
             public void run() {
-                try {
-                    t.join();
-                } catch ( InterruptedException e1 ) {
-                    return;
+                // Preserve the current column widths
+                int[] colWidth = new int[viewer.getTree().getColumns().length];
+                int i = 0;
+                for ( TreeColumn col : viewer.getTree().getColumns() ) {
+                    colWidth[i++] = col.getWidth();
                 }
 
-                Display.getDefault().syncExec(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        // Preserve the current column widths
-                        int[] colWidth = new int[viewer.getTree().getColumns().length];
-                        int i = 0;
-                        for ( TreeColumn col : viewer.getTree().getColumns() ) {
-                            colWidth[i++] = col.getWidth();
-                        }
-
-                        viewer.setInput(LOADING_DONE);
+                viewer.setInput(LOADING_DONE);
 
-                        i = 0;
-                        for ( TreeColumn col : viewer.getTree().getColumns() ) {
-                            col.setWidth(colWidth[i++]);
-                        }
-                    }
-                });
+                i = 0;
+                for ( TreeColumn col : viewer.getTree().getColumns() ) {
+                    col.setWidth(colWidth[i++]);
+                }
             }
-
-        }.start();
+        });
 
         hookContextMenu();
+
+        viewer.addDoubleClickListener(new IDoubleClickListener() {
+
+            @Override
+            public void doubleClick(DoubleClickEvent event) {
+                Object element = ((IStructuredSelection) event.getSelection()).getFirstElement();
+                if ( element instanceof ErrorNode ) {
+                    ((ErrorNode) element).retry.run();
+                }
+            }
+        });
     }
 
     protected void initializeDragAndDrop() {
@@ -412,8 +433,9 @@ public class S3ObjectSummaryTable extends Composite {
                 event.doit = false;
                 ISelection selection = viewer.getSelection();
                 if ( selection instanceof IStructuredSelection ) {
+                    Object element = ((IStructuredSelection) selection).getFirstElement();
                     if ( ((IStructuredSelection) selection).size() == 1
-                            && ((IStructuredSelection) selection).getFirstElement() instanceof S3ObjectSummary ) {
+                            && (element instanceof S3ObjectSummary || element instanceof IPath) ) {
                         event.doit = true;
                     }
                 }
@@ -426,6 +448,10 @@ public class S3ObjectSummaryTable extends Composite {
                     S3ObjectSummary s = (S3ObjectSummary) o;
                     event.data = new PluginTransferData(S3ObjectSummaryDropAction.ID, S3ObjectSummaryDropAction
                             .encode(s));
+                } else if ( o instanceof IPath ) {
+                    // Dragging a folder downloads all the objects under it
+                    event.data = new PluginTransferData(S3ObjectSummaryDropAction.ID, S3ObjectSummaryDropAction
+                            .encodePrefix(bucketName, ((IPath) o).toString()));
                 } else {
                     event.doit = false;
                 }
@@ -453,7 +479,7 @@ public class S3ObjectSummaryTable extends Composite {
                     }
                 }
 
-                final TransferManager transferManager = new TransferManager(getS3Client());
+                final TransferManager transferManager = UploadFilesJob.newTransferManager(getS3Client());
 
                 UploadFilesJob uploadFileJob = new UploadFilesJob(String.format("Upload files to bucket %s", bucketName),
                         bucketName, files, transferManager);
@@ -472,6 +498,18 @@ public class S3ObjectSummaryTable extends Composite {
         return AwsToolkitCore.getClientFactory(accountId).getS3ClientByRegion(regionId);
     }
 
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public String getRegionId() {
+        return regionId;
+    }
+
     protected void createColumns(TreeColumnLayout tableColumnLayout, Tree tree) {
 
         TreeColumn column = new TreeColumn(tree, SWT.NONE);
@@ -510,73 +548,590 @@ public class S3ObjectSummaryTable extends Composite {
      * Fills in the children for the tree path given, which must either be empty
      * or end in a File object.
      */
-    protected Thread cacheChildren(final TreePath treePath) {
-        if ( children.containsKey(treePath) )
-            return null;
+    protected void cacheChildren(final TreePath treePath) {
+        cacheChildren(treePath, null);
+    }
 
-        children.put(treePath, new Object[] { LOADING });
-        Thread thread = new Thread() {
+    /**
+     * Starts listing the children for the tree path given, then runs the given
+     * callback, if any, in the UI thread once the first page is shown. The
+     * listing is scheduled with the shared {@link LoadingScheduler}.
+     */
+    protected void cacheChildren(final TreePath treePath, final Runnable onLoaded) {
+        ChildListing listing;
+        synchronized ( children ) {
+            if ( children.containsKey(treePath) )
+                return;
+            listing = new ChildListing(treePath);
+            children.put(treePath, listing);
+        }
+        listing.loadNextPage(onLoaded);
+    }
+
+    private ChildListing getChildListing(TreePath treePath) {
+        cacheChildren(treePath);
+        return children.get(treePath);
+    }
+
+    /**
+     * Drops the pages that haven't been shown for the longest time until no
+     * more than {@link #MAX_CACHED_ELEMENTS} listed objects are kept, then
+     * clears their rows that aren't visible, selected or expanded so that the
+     * tree lets go of their objects too.
+     */
+    private void evictPages() {
+        final Map<Page, ChildListing> evictedPages = new HashMap<>();
+        synchronized ( children ) {
+            int cachedElements = 0;
+            for ( ChildListing listing : children.values() ) {
+                cachedElements += listing.getCachedElementCount();
+            }
+
+            while ( cachedElements > MAX_CACHED_ELEMENTS ) {
+                ChildListing oldestListing = null;
+                Page oldestPage = null;
+                for ( ChildListing listing : children.values() ) {
+                    Page page = listing.getLeastRecentlyShownPage();
+                    if ( page != null && (oldestPage == null || page.lastShownNanos < oldestPage.lastShownNanos) ) {
+                        oldestListing = listing;
+                        oldestPage = page;
+                    }
+                }
+                if ( oldestPage == null )
+                    break;
+                cachedElements -= oldestListing.evict(oldestPage);
+                evictedPages.put(oldestPage, oldestListing);
+            }
+        }
+        if ( evictedPages.isEmpty() )
+            return;
+
+        viewer.getTree().getDisplay().asyncExec(new Runnable() {
 
             @Override
             public void run() {
-                String prefix;
-                if ( treePath.getSegmentCount() == 0 ) {
-                    prefix = "";
+                if ( viewer.getTree().isDisposed() )
+                    return;
+                for ( Map.Entry<Page, ChildListing> evicted : evictedPages.entrySet() ) {
+                    ChildListing listing = evicted.getValue();
+                    Page page = evicted.getKey();
+                    synchronized ( listing ) {
+                        if ( children.get(listing.treePath) != listing || page.elements != null )
+                            continue;
+                    }
+                    viewer.clearHidden(listing.treePath, page.start, page.count);
+                }
+            }
+        });
+    }
+
+    /**
+     * Tree viewer that can clear rows, unlinking them from their elements so
+     * that the elements can be garbage collected. Cleared rows ask the content
+     * provider for their element again when they are shown.
+     */
+    private static final class ClearableTreeViewer extends TreeViewer {
+
+        ClearableTreeViewer(Composite parent, int style) {
+            super(parent, style);
+        }
+
+        /**
+         * Clears the row at the given index under the given parent.
+         */
+        void clear(TreePath parentPath, int index) {
+            for ( Widget parent : internalFindItems(parentPath) ) {
+                TreeItem item = getChildItem(parent, index);
+                if ( item != null )
+                    clear(parent, index, item);
+            }
+        }
+
+        /**
+         * Clears the given range of rows under the given parent, except the
+         * ones that are visible, selected or expanded.
+         */
+        void clearHidden(TreePath parentPath, int start, int count) {
+            Rectangle clientArea = getTree().getClientArea();
+            Set<TreeItem> selection = new HashSet<>(Arrays.asList(getTree().getSelection()));
+            for ( Widget parent : internalFindItems(parentPath) ) {
+                for ( int index = start; index < start + count; index++ ) {
+                    TreeItem item = getChildItem(parent, index);
+                    if ( item == null )
+                        break;
+                    // Rows without data were never shown or are cleared already
+                    if ( item.getData() == null || item.getExpanded() || selection.contains(item)
+                            || item.getBounds().intersects(clientArea) )
+                        continue;
+                    clear(parent, index, item);
+                }
+            }
+        }
+
+        private TreeItem getChildItem(Widget parent, int index) {
+            if ( parent instanceof Tree ) {
+                Tree tree = (Tree) parent;
+                return index < tree.getItemCount() ? tree.getItem(index) : null;
+            }
+            TreeItem parentItem = (TreeItem) parent;
+            return index < parentItem.getItemCount() ? parentItem.getItem(index) : null;
+        }
+
+        private void clear(Widget parent, int index, TreeItem item) {
+            if ( item.getData() != null )
+                disassociate(item);
+            if ( parent instanceof Tree ) {
+                ((Tree) parent).clear(index, false);
+            } else {
+                ((TreeItem) parent).clear(index, false);
+            }
+        }
+    }
+
+    /**
+     * Placeholder shown after the last listed child of a truncated listing;
+     * showing it lists the next page.
+     */
+    private static final class ContinuationNode {
+    }
+
+    /**
+     * Shown in place of children that couldn't be listed; double-clicking it
+     * lists them again.
+     */
+    private static final class ErrorNode {
+        final String message;
+        final Runnable retry;
+
+        ErrorNode(String message, Runnable retry) {
+            this.message = message;
+            this.retry = retry;
+        }
+    }
+
+    /** A page of listed children, which may have been evicted. */
+    private static final class Page {
+        final int start;
+        final int count;
+        /** The marker the page was listed from, to list it again. */
+        final String marker;
+        Object[] elements;
+        long lastShownNanos = System.nanoTime();
+        /** Indexes the tree asked for while the page was listed again. */
+        final Set<Integer> pendingIndexes = new HashSet<>();
+        boolean reloading;
+        /** Shown in place of the page's children if listing it again failed. */
+        ErrorNode error;
+
+        Page(int start, String marker, Object[] elements) {
+            this.start = start;
+            this.count = elements.length;
+            this.marker = marker;
+            this.elements = elements;
+        }
+    }
+
+    /**
+     * The children of one tree path, listed {@link #PAGE_SIZE} keys at a time
+     * as the tree is scrolled to the end of the listed children.
+     */
+    private final class ChildListing {
+        private final TreePath treePath;
+        private final String prefix;
+        private final ContinuationNode continuation = new ContinuationNode();
+
+        private final List<Page> pages = new ArrayList<>();
+        private int listedCount;
+        private String nextMarker;
+        private boolean truncated = true;
+        private boolean listing;
+        /** Shown in place of the continuation node if listing the next page failed. */
+        private ErrorNode loadError;
+
+        ChildListing(TreePath treePath) {
+            this.treePath = treePath;
+            if ( treePath.getSegmentCount() == 0 ) {
+                prefix = "";
+            } else {
+                prefix = ((IPath) treePath.getLastSegment()).toString();
+            }
+        }
+
+        /** Returns the number of rows, including the continuation node. */
+        synchronized int getChildCount() {
+            return truncated ? listedCount + 1 : listedCount;
+        }
+
+        synchronized List<Object> getCachedElements() {
+            List<Object> elements = new ArrayList<>();
+            for ( Page page : pages ) {
+                if ( page.elements != null ) {
+                    elements.addAll(Arrays.asList(page.elements));
+                }
+            }
+            return elements;
+        }
+
+        synchronized int getCachedElementCount() {
+            int count = 0;
+            for ( Page page : pages ) {
+                if ( page.elements != null ) {
+                    count += page.count;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Returns the child at the given index, or null if it isn't available
+         * yet. Asking for the continuation node lists the next page, and asking
+         * for a child of an evicted page lists that page again.
+         */
+        synchronized Object getElement(int index) {
+            if ( index >= listedCount ) {
+                if ( index == listedCount && truncated ) {
+                    if ( loadError != null )
+                        return loadError;
+                    loadNextPage(null);
+                    return continuation;
+                }
+                return null;
+            }
+
+            Page page = findPage(index);
+            page.lastShownNanos = System.nanoTime();
+            if ( page.elements == null ) {
+                page.pendingIndexes.add(index);
+                if ( page.error != null )
+                    return page.error;
+                reloadPage(page);
+                return null;
+            }
+            return page.elements[index - page.start];
+        }
+
+        private Page findPage(int index) {
+            int low = 0;
+            int high = pages.size() - 1;
+            while ( low < high ) {
+                int mid = (low + high + 1) >>> 1;
+                if ( pages.get(mid).start <= index ) {
+                    low = mid;
                 } else {
-                    prefix = ((IPath) treePath.getLastSegment()).toString();
+                    high = mid - 1;
                 }
+            }
+            return pages.get(low);
+        }
 
-                List<S3ObjectSummary> filteredObjectSummaries = new LinkedList<>();
-                List<String> filteredCommonPrefixes = new LinkedList<>();
-                ObjectListing listObjectsResponse = null;
-
-                AmazonS3 s3 = getS3Client();
-                do {
-                    if (listObjectsResponse == null) {
-                        ListObjectsRequest listObjectsRequest = new ListObjectsRequest()
-                            .withBucketName(S3ObjectSummaryTable.this.bucketName)
-                            .withDelimiter(DEFAULT_DELIMITER)
-                            .withPrefix(prefix);
-                        listObjectsResponse = s3.listObjects(listObjectsRequest);
-                    } else {
-                        listObjectsResponse = s3.listNextBatchOfObjects(listObjectsResponse);
+        /** Returns the resident page shown the longest time ago, but never the last one. */
+        synchronized Page getLeastRecentlyShownPage() {
+            Page oldest = null;
+            for ( int i = 0; i < pages.size() - 1; i++ ) {
+                Page page = pages.get(i);
+                if ( page.elements != null && (oldest == null || page.lastShownNanos < oldest.lastShownNanos) ) {
+                    oldest = page;
+                }
+            }
+            return oldest;
+        }
+
+        /** Drops the elements of the given page and returns how many were dropped. */
+        synchronized int evict(Page page) {
+            page.elements = null;
+            return page.count;
+        }
+
+        /** Lists the page following the listed children in the background. */
+        synchronized void loadNextPage(final Runnable onLoaded) {
+            if ( listing || !truncated )
+                return;
+            listing = true;
+
+            final String marker = nextMarker;
+            Runnable loader = new Runnable() {
+
+                @Override
+                public void run() {
+                    ObjectListing objectListing = null;
+                    AmazonClientException error = null;
+                    try {
+                        objectListing = listPage(marker);
+                    } catch ( AmazonClientException e ) {
+                        error = e;
+                    } finally {
+                        synchronized ( ChildListing.this ) {
+                            listing = false;
+                        }
                     }
 
-                    for ( S3ObjectSummary s : listObjectsResponse.getObjectSummaries() ) {
-                        if ( !s.getKey().equals(prefix) ) {
-                            filteredObjectSummaries.add(s);
+                    if ( LoadingScheduler.isCurrentTaskCancelled() ) {
+                        if ( marker == null ) {
+                            // Let the next expansion of this path start over
+                            children.remove(treePath);
+                        } else {
+                            // Let the continuation node list the page again once it's shown
+                            final int continuationIndex;
+                            synchronized ( ChildListing.this ) {
+                                continuationIndex = listedCount;
+                            }
+                            reshowContinuation(continuationIndex);
                         }
+                        return;
                     }
 
-                    filteredCommonPrefixes.addAll(listObjectsResponse.getCommonPrefixes());
-                } while (listObjectsResponse.isTruncated());
+                    if ( error != null ) {
+                        AwsToolkitCore.getDefault().reportException(error.getMessage(), error);
+                        final int errorIndex;
+                        synchronized ( ChildListing.this ) {
+                            loadError = new ErrorNode(error.getMessage(), new Runnable() {
+
+                                @Override
+                                public void run() {
+                                    retryNextPage();
+                                }
+                            });
+                            errorIndex = listedCount;
+                        }
+                        // Show the error in place of the continuation node
+                        reshowContinuation(errorIndex);
+                        return;
+                    }
 
+                    final Object[] objects = toElements(objectListing);
+                    final int start;
+                    final int childCount;
+                    synchronized ( ChildListing.this ) {
+                        start = listedCount;
+                        pages.add(new Page(start, marker, objects));
+                        listedCount += objects.length;
+                        truncated = objectListing.isTruncated();
+                        nextMarker = getNextMarker(objectListing);
+                        childCount = getChildCount();
+                    }
+                    evictPages();
+
+                    viewer.getTree().getDisplay().asyncExec(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            if ( viewer.getTree().isDisposed() || children.get(treePath) != ChildListing.this )
+                                return;
+                            if ( start == 0 ) {
+                                if ( treePath.getSegmentCount() == 0 )
+                                    viewer.setChildCount(treePath, childCount);
+                                viewer.refresh();
+                                if ( onLoaded != null )
+                                    onLoaded.run();
+                                return;
+                            }
+
+                            viewer.setChildCount(treePath, childCount);
+                            // The row of the continuation node now shows the first listed child
+                            if ( objects.length > 0 ) {
+                                viewer.replace(treePath, start, objects[0]);
+                                viewer.setHasChildren(treePath.createChildPath(objects[0]), objects[0] instanceof IPath);
+                            } else if ( childCount > start ) {
+                                // Every key of the page was filtered out, but the
+                                // listing goes on: ask for the continuation node again
+                                viewer.clear(treePath, start);
+                            }
+                        }
+                    });
+                }
+            };
+
+            LoadingScheduler.getInstance().submit(ServiceAbbreviations.S3, treePath, Priority.INTERACTIVE, loader);
+        }
 
-                final Object[] objects = new Object[filteredObjectSummaries.size() + filteredCommonPrefixes.size()];
-                filteredObjectSummaries.toArray(objects);
+        /**
+         * Lists the next page again after it failed. Must be called from the
+         * UI thread.
+         */
+        private void retryNextPage() {
+            int index;
+            synchronized ( this ) {
+                loadError = null;
+                index = listedCount;
+            }
+            viewer.clear(treePath, index);
+        }
+
+        /**
+         * Lists an evicted page again after it failed, for the rows that
+         * showed the error. Must be called from the UI thread.
+         */
+        private void retryPage(Page page) {
+            List<Integer> indexes;
+            synchronized ( this ) {
+                page.error = null;
+                indexes = new ArrayList<>(page.pendingIndexes);
+                page.pendingIndexes.clear();
+            }
+            for ( int index : indexes ) {
+                viewer.clear(treePath, index);
+            }
+        }
 
-                int i = filteredObjectSummaries.size();
-                for ( String commonPrefix : filteredCommonPrefixes ) {
-                    objects[i++] = new Path(null, commonPrefix);
+        /**
+         * Clears the row of the continuation node after its listing was
+         * cancelled or failed, so that the tree asks for it again the next
+         * time the row is shown.
+         */
+        private void reshowContinuation(final int index) {
+            viewer.getTree().getDisplay().asyncExec(new Runnable() {
+
+                @Override
+                public void run() {
+                    if ( !viewer.getTree().isDisposed() && children.get(treePath) == ChildListing.this )
+                        viewer.clear(treePath, index);
                 }
+            });
+        }
+
+        /** Lists an evicted page again from its marker, in the background. */
+        private void reloadPage(final Page page) {
+            if ( page.reloading )
+                return;
+            page.reloading = true;
+
+            Runnable loader = new Runnable() {
+
+                @Override
+                public void run() {
+                    Object[] objects;
+                    try {
+                        objects = toElements(listPage(page.marker));
+                    } catch ( AmazonClientException e ) {
+                        pageFailed(page, e);
+                        return;
+                    } finally {
+                        synchronized ( ChildListing.this ) {
+                            page.reloading = false;
+                        }
+                    }
 
-                children.put(treePath, objects);
+                    final Map<Integer, Object> updates = new HashMap<>();
+                    // Keys were added or deleted since the page was first listed
+                    final boolean changed = objects.length != page.count;
+                    synchronized ( ChildListing.this ) {
+                        if ( !changed && !LoadingScheduler.isCurrentTaskCancelled() ) {
+                            page.elements = objects;
+                            page.lastShownNanos = System.nanoTime();
+                            for ( int index : page.pendingIndexes ) {
+                                updates.put(index, objects[index - page.start]);
+                            }
+                        }
+                        page.pendingIndexes.clear();
+                    }
+                    evictPages();
+
+                    viewer.getTree().getDisplay().asyncExec(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            if ( viewer.getTree().isDisposed() || children.get(treePath) != ChildListing.this )
+                                return;
+                            if ( changed ) {
+                                children.remove(treePath);
+                                viewer.refresh();
+                                return;
+                            }
+                            for ( Map.Entry<Integer, Object> update : updates.entrySet() ) {
+                                viewer.replace(treePath, update.getKey(), update.getValue());
+                                viewer.setHasChildren(treePath.createChildPath(update.getValue()),
+                                        update.getValue() instanceof IPath);
+                            }
+                        }
+                    });
+                }
+            };
 
-                viewer.getTree().getDisplay().syncExec(new Runnable() {
+            LoadingScheduler.getInstance().submit(ServiceAbbreviations.S3, treePath, Priority.INTERACTIVE, loader);
+        }
+
+        /**
+         * Shows an error in place of the rows waiting for a page that couldn't
+         * be listed again, unless the listing was cancelled.
+         */
+        private void pageFailed(final Page page, AmazonClientException e) {
+            final List<Integer> indexes;
+            synchronized ( this ) {
+                if ( LoadingScheduler.isCurrentTaskCancelled() ) {
+                    page.pendingIndexes.clear();
+                    return;
+                }
+                page.error = new ErrorNode(e.getMessage(), new Runnable() {
 
                     @Override
                     public void run() {
-                        if ( treePath.getSegmentCount() == 0 )
-                            viewer.setChildCount(treePath, objects.length);
-                        viewer.refresh();
+                        retryPage(page);
                     }
                 });
+                indexes = new ArrayList<>(page.pendingIndexes);
+            }
+            AwsToolkitCore.getDefault().reportException(e.getMessage(), e);
+
+            viewer.getTree().getDisplay().asyncExec(new Runnable() {
+
+                @Override
+                public void run() {
+                    if ( viewer.getTree().isDisposed() || children.get(treePath) != ChildListing.this )
+                        return;
+                    for ( int index : indexes ) {
+                        viewer.clear(treePath, index);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Returns the marker to list the page following the given one, which
+         * S3 only returns when listing with a delimiter.
+         */
+        private String getNextMarker(ObjectListing objectListing) {
+            if ( objectListing.getNextMarker() != null )
+                return objectListing.getNextMarker();
+            String marker = null;
+            List<S3ObjectSummary> summaries = objectListing.getObjectSummaries();
+            if ( !summaries.isEmpty() )
+                marker = summaries.get(summaries.size() - 1).getKey();
+            List<String> commonPrefixes = objectListing.getCommonPrefixes();
+            if ( !commonPrefixes.isEmpty() ) {
+                String lastPrefix = commonPrefixes.get(commonPrefixes.size() - 1);
+                if ( marker == null || lastPrefix.compareTo(marker) > 0 )
+                    marker = lastPrefix;
             }
+            return marker;
+        }
 
-        };
+        private ObjectListing listPage(String marker) {
+            ListObjectsRequest listObjectsRequest = new ListObjectsRequest()
+                .withBucketName(S3ObjectSummaryTable.this.bucketName)
+                .withDelimiter(DEFAULT_DELIMITER)
+                .withPrefix(prefix)
+                .withMarker(marker)
+                .withMaxKeys(PAGE_SIZE);
+            return getS3Client().listObjects(listObjectsRequest);
+        }
 
-        thread.start();
-        return thread;
+        /**
+         * Returns the children listed in a page: its objects, then its
+         * folders. Folders are only sorted within each page, so a folder
+         * listed in a later page comes after the objects of earlier pages.
+         */
+        private Object[] toElements(ObjectListing objectListing) {
+            List<Object> objects = new ArrayList<>();
+            for ( S3ObjectSummary s : objectListing.getObjectSummaries() ) {
+                if ( !s.getKey().equals(prefix) ) {
+                    objects.add(s);
+                }
+            }
+            for ( String commonPrefix : objectListing.getCommonPrefixes() ) {
+                objects.add(new Path(null, commonPrefix));
+            }
+            return objects.toArray();
+        }
     }
 
     /**
@@ -589,12 +1144,17 @@ public class S3ObjectSummaryTable extends Composite {
 
             @Override
             public void menuAboutToShow(IMenuManager manager) {
+                manager.add(new OpenObjectPreviewAction(S3ObjectSummaryTable.this));
+                manager.add(new Separator());
                 manager.add(new DeleteObjectAction(S3ObjectSummaryTable.this));
                 manager.add(new Separator());
                 manager.add(new EditObjectPermissionsAction(S3ObjectSummaryTable.this));
                 manager.add(new EditObjectTagsAction(S3ObjectSummaryTable.this));
                 manager.add(new Separator());
                 manager.add(new GeneratePresignedUrlAction(S3ObjectSummaryTable.this));
+                manager.add(new Separator());
+                manager.add(new SyncFolderAction(S3ObjectSummaryTable.this));
+                manager.add(new StorageAnalyticsAction(bucketName, getSelectedPrefix(), () -> getS3Client()));
             }
         });
         Menu menu = menuMgr.createContextMenu(viewer.getControl());
@@ -618,10 +1178,36 @@ public class S3ObjectSummaryTable extends Composite {
         return summaries;
     }
 
+    /**
+     * Returns the first selected folder in the table, or the empty prefix if
+     * no folder is selected.
+     */
+    public String getSelectedPrefix() {
+        Iterator<?> iter = ((IStructuredSelection) viewer.getSelection()).iterator();
+        while ( iter.hasNext() ) {
+            Object next = iter.next();
+            if ( next instanceof IPath ) {
+                return next.toString();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Sets the key index of the bucket, refreshed along with the prefixes of
+     * the table.
+     */
+    public void setKeyIndexer(BucketKeyIndexer keyIndexer) {
+        this.keyIndexer = keyIndexer;
+    }
+
     /**
      * Refreshes the table, optionally at at given root.
      */
     public void refresh(String prefix) {
+        if ( prefix != null && keyIndexer != null ) {
+            keyIndexer.refresh(prefix + "/");
+        }
         if ( prefix == null ) {
             children.clear();
             viewer.refresh();
@@ -637,4 +1223,4 @@ public class S3ObjectSummaryTable extends Composite {
             viewer.refresh(new Path(prefix));
         }
     }
-}
+}
@@ -95,6 +95,7 @@ class CreateBucketWizard extends Wizard {
         }
 
         client.createBucket(createBucketRequest);
+        AwsToolkitCore.getDefault().getS3BucketDirectory().bucketCreated(bucketName, regionId);
 
         S3ContentProvider.getInstance().refresh();
         return true;
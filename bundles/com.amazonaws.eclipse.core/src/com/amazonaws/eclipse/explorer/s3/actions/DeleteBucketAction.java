@@ -18,6 +18,7 @@ import java.util.Collection;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.Dialog;
@@ -71,11 +72,13 @@ public class DeleteBucketAction extends AwsAction {
         new Job("Deleting Buckets") {
             @Override
             protected IStatus run(IProgressMonitor monitor) {
+                monitor.beginTask("Deleting buckets", IProgressMonitor.UNKNOWN);
                 try {
                     ObjectUtils objectUtils = new ObjectUtils();
 
                     for ( Bucket bucket : buckets ) {
-                        objectUtils.deleteBucketAndAllVersions(bucket.getName());
+                        monitor.setTaskName("Deleting bucket " + bucket.getName());
+                        objectUtils.deleteBucketAndAllVersions(bucket.getName(), monitor);
                     }
 
                     Display.getDefault().asyncExec(new Runnable() {
@@ -87,12 +90,16 @@ public class DeleteBucketAction extends AwsAction {
 
                     actionSucceeded();
                     return Status.OK_STATUS;
+                } catch (OperationCanceledException e) {
+                    actionCanceled();
+                    return Status.CANCEL_STATUS;
                 } catch (Exception e) {
                     actionFailed();
                     return new Status(IStatus.ERROR, AwsToolkitCore.getDefault().getPluginId(),
                         "Unable to delete buckets: " + e.getMessage(), e);
                 } finally {
                     actionFinished();
+                    monitor.done();
                 }
             }
         }.schedule();
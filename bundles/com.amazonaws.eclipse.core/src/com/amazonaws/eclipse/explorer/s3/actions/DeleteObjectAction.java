@@ -19,6 +19,7 @@ import java.util.Collection;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.Dialog;
@@ -29,6 +30,7 @@ import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.mobileanalytics.AwsToolkitMetricType;
 import com.amazonaws.eclipse.explorer.AwsAction;
 import com.amazonaws.eclipse.explorer.s3.S3ObjectSummaryTable;
+import com.amazonaws.eclipse.explorer.s3.util.MultiObjectDeleter;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 
@@ -75,11 +77,17 @@ public class DeleteObjectAction extends AwsAction {
                 });
                 monitor.beginTask("Deleting objects", selectedObjects.size());
 
+                MultiObjectDeleter deleter = null;
                 try {
                     AmazonS3 s3 = table.getS3Client();
                     for ( S3ObjectSummary summary : selectedObjects ) {
-                        s3.deleteObject(summary.getBucketName(), summary.getKey());
-                        monitor.worked(1);
+                        if ( deleter == null ) {
+                            deleter = new MultiObjectDeleter(s3, summary.getBucketName(), monitor);
+                        }
+                        deleter.delete(summary.getKey(), null);
+                    }
+                    if ( deleter != null ) {
+                        deleter.awaitCompletion();
                     }
 
                     Display.getDefault().asyncExec(new Runnable() {
@@ -98,11 +106,17 @@ public class DeleteObjectAction extends AwsAction {
                     });
                     actionSucceeded();
                     return Status.OK_STATUS;
+                } catch (OperationCanceledException e) {
+                    actionCanceled();
+                    return Status.CANCEL_STATUS;
                 } catch (Exception e) {
                     actionFailed();
                     return new Status(IStatus.ERROR, AwsToolkitCore.getDefault().getPluginId(),
                         "Unable to delete objects: " + e.getMessage(), e);
                 } finally {
+                    if ( deleter != null ) {
+                        deleter.shutdown();
+                    }
                     actionFinished();
                     monitor.done();
                 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3.actions;
+
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.mobileanalytics.AwsToolkitMetricType;
+import com.amazonaws.eclipse.explorer.AwsAction;
+import com.amazonaws.eclipse.explorer.s3.ObjectPreviewEditor;
+import com.amazonaws.eclipse.explorer.s3.ObjectPreviewEditorInput;
+import com.amazonaws.eclipse.explorer.s3.S3ObjectSummaryTable;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Action to open the selected object in the preview editor, which reads only
+ * the part of the object being displayed.
+ */
+public class OpenObjectPreviewAction extends AwsAction {
+
+    private final S3ObjectSummaryTable table;
+
+    public OpenObjectPreviewAction(S3ObjectSummaryTable s3ObjectSummaryTable) {
+        super(AwsToolkitMetricType.EXPLORER_S3_OPEN_OBJECT_PREVIEW);
+        this.table = s3ObjectSummaryTable;
+        setImageDescriptor(AwsToolkitCore.getDefault().getImageRegistry().getDescriptor(AwsToolkitCore.IMAGE_SCROLL));
+        setText("Open Preview");
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return table.getSelectedObjects().size() == 1;
+    }
+
+    @Override
+    protected void doRun() {
+        S3ObjectSummary selectedObject = table.getSelectedObjects().iterator().next();
+        ObjectPreviewEditorInput input = new ObjectPreviewEditorInput(table.getAccountId(), table.getRegionId(),
+                selectedObject.getBucketName(), selectedObject.getKey());
+        try {
+            IWorkbenchWindow activeWindow = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+            activeWindow.getActivePage().openEditor(input, ObjectPreviewEditor.ID);
+            actionSucceeded();
+        } catch (PartInitException e) {
+            actionFailed();
+            AwsToolkitCore.getDefault().logError("Unable to open the Amazon S3 object preview", e);
+        } finally {
+            actionFinished();
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.eclipse.jface.action.Separator;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.ui.navigator.CommonActionProvider;
 
+import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.explorer.s3.OpenBucketEditorAction;
 import com.amazonaws.services.s3.model.Bucket;
 
@@ -29,8 +30,10 @@ public class S3ActionProvider extends CommonActionProvider {
         IStructuredSelection selection = (IStructuredSelection) getContext().getSelection();
 
         if (selection.size() == 1 && selection.toList().get(0) instanceof Bucket) {
-            Bucket bucket = (Bucket)selection.toList().get(0);
+            final Bucket bucket = (Bucket)selection.toList().get(0);
             menu.add(new OpenBucketEditorAction(bucket.getName()));
+            menu.add(new StorageAnalyticsAction(bucket.getName(), "",
+                    () -> AwsToolkitCore.getClientFactory().getS3ClientForBucket(bucket.getName())));
             menu.add(new Separator());
         }
 
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3.actions;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.mobileanalytics.AwsToolkitMetricType;
+import com.amazonaws.eclipse.core.util.BatchTransferProgress;
+import com.amazonaws.eclipse.core.util.StorageAnalytics;
+import com.amazonaws.eclipse.core.util.StorageAnalytics.Rollup;
+import com.amazonaws.eclipse.explorer.AwsAction;
+import com.amazonaws.eclipse.explorer.s3.util.StorageAnalyzer;
+import com.amazonaws.services.s3.AmazonS3;
+
+/**
+ * Action to show the object counts, sizes, storage classes and ages of the
+ * folders under a prefix of a bucket.
+ */
+public class StorageAnalyticsAction extends AwsAction {
+
+    private final String bucketName;
+    private final String prefix;
+    private final Supplier<AmazonS3> s3;
+
+    /**
+     * @param prefix
+     *            The prefix to analyze, empty for the whole bucket.
+     * @param s3
+     *            Supplies the client for the bucket; called from a background
+     *            job.
+     */
+    public StorageAnalyticsAction(String bucketName, String prefix, Supplier<AmazonS3> s3) {
+        super(AwsToolkitMetricType.EXPLORER_S3_STORAGE_ANALYTICS);
+        this.bucketName = bucketName;
+        this.prefix = prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/";
+        this.s3 = s3;
+        setText(prefix.isEmpty() ? "Storage Analytics..." : "Storage Analytics for Folder...");
+    }
+
+    @Override
+    protected void doRun() {
+        new StorageAnalyticsDialog(Display.getDefault().getActiveShell()).open();
+    }
+
+    private final class StorageAnalyticsDialog extends Dialog {
+
+        private static final int EXPORT_ID = IDialogConstants.CLIENT_ID + 1;
+
+        /** Interval between refreshes of the table while listing. */
+        private static final int REFRESH_INTERVAL_MILLIS = 500;
+
+        private final StorageAnalytics analytics = new StorageAnalytics(prefix, System.currentTimeMillis());
+        private volatile StorageAnalyzer analyzer;
+        private Job analyzeJob;
+        private volatile String status = "Listing objects...";
+
+        private Label statusLabel;
+        private TableViewer viewer;
+
+        private final Runnable refresher = new Runnable() {
+            @Override
+            public void run() {
+                if ( viewer == null || viewer.getTable().isDisposed() ) {
+                    return;
+                }
+                refresh();
+                if ( analyzeJob.getResult() == null ) {
+                    Display.getDefault().timerExec(REFRESH_INTERVAL_MILLIS, this);
+                }
+            }
+        };
+
+        StorageAnalyticsDialog(Shell parentShell) {
+            super(parentShell);
+            setShellStyle(SWT.DIALOG_TRIM | SWT.RESIZE | SWT.MODELESS);
+            setBlockOnOpen(false);
+        }
+
+        @Override
+        protected void configureShell(Shell newShell) {
+            super.configureShell(newShell);
+            newShell.setText("Storage Analytics: " + bucketName + "/" + prefix);
+        }
+
+        @Override
+        protected Control createDialogArea(Composite parent) {
+            Composite composite = (Composite) super.createDialogArea(parent);
+
+            statusLabel = new Label(composite, SWT.NONE);
+            statusLabel.setLayoutData(GridDataFactory.fillDefaults().grab(true, false).create());
+
+            viewer = new TableViewer(composite, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL);
+            Table table = viewer.getTable();
+            table.setHeaderVisible(true);
+            table.setLinesVisible(true);
+            table.setLayoutData(GridDataFactory.fillDefaults().grab(true, true).hint(800, 350).create());
+            createColumn(table, "Folder", 250, SWT.LEFT);
+            createColumn(table, "Objects", 90, SWT.RIGHT);
+            createColumn(table, "Size", 90, SWT.RIGHT);
+            createColumn(table, "Storage Classes", 200, SWT.LEFT);
+            for ( String label : StorageAnalytics.getAgeBucketLabels() ) {
+                createColumn(table, label, 80, SWT.RIGHT);
+            }
+            viewer.setContentProvider(ArrayContentProvider.getInstance());
+            viewer.setLabelProvider(new RollupLabelProvider());
+
+            startAnalysis();
+            return composite;
+        }
+
+        @Override
+        protected void createButtonsForButtonBar(Composite parent) {
+            createButton(parent, EXPORT_ID, "Export CSV...", false);
+            createButton(parent, IDialogConstants.CLOSE_ID, IDialogConstants.CLOSE_LABEL, true);
+        }
+
+        @Override
+        protected void buttonPressed(int buttonId) {
+            if ( buttonId == EXPORT_ID ) {
+                exportCsv();
+            } else {
+                close();
+            }
+        }
+
+        @Override
+        public boolean close() {
+            if ( analyzeJob != null ) {
+                analyzeJob.cancel();
+            }
+            return super.close();
+        }
+
+        private void startAnalysis() {
+            analyzeJob = new Job("Analyzing storage of " + bucketName + "/" + prefix) {
+                @Override
+                protected IStatus run(IProgressMonitor monitor) {
+                    monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+                    try {
+                        analyzer = new StorageAnalyzer(s3.get(), bucketName);
+                        analyzer.analyze(analytics, monitor);
+                        status = String.format("Done: %,d objects", analyzer.getListedCount());
+                        actionSucceeded();
+                        return Status.OK_STATUS;
+                    } catch (OperationCanceledException e) {
+                        status = "Cancelled: the rollups are incomplete";
+                        actionCanceled();
+                        return Status.CANCEL_STATUS;
+                    } catch (Exception e) {
+                        status = "Failed: " + e.getMessage();
+                        actionFailed();
+                        AwsToolkitCore.getDefault().logError("Unable to analyze the storage of " + bucketName, e);
+                        return Status.OK_STATUS;
+                    } finally {
+                        actionFinished();
+                        monitor.done();
+                        Display.getDefault().asyncExec(refresher);
+                    }
+                }
+            };
+            analyzeJob.schedule();
+            Display.getDefault().timerExec(REFRESH_INTERVAL_MILLIS, refresher);
+            refresh();
+        }
+
+        private void refresh() {
+            List<Rollup> rows = analytics.getRollups();
+            rows.add(analytics.getTotal());
+            viewer.setInput(rows);
+
+            StorageAnalyzer currentAnalyzer = analyzer;
+            if ( analyzeJob.getResult() == null && currentAnalyzer != null ) {
+                statusLabel.setText(String.format("Listing objects: %,d so far...", currentAnalyzer.getListedCount()));
+            } else {
+                statusLabel.setText(status);
+            }
+        }
+
+        private void exportCsv() {
+            FileDialog dialog = new FileDialog(getShell(), SWT.SAVE);
+            dialog.setFilterExtensions(new String[] { "*.csv" });
+            dialog.setFileName(bucketName + "-storage.csv");
+            dialog.setOverwrite(true);
+            String path = dialog.open();
+            if ( path == null ) {
+                return;
+            }
+
+            try (Writer writer = new FileWriter(path)) {
+                analytics.writeCsv(writer);
+            } catch (IOException e) {
+                AwsToolkitCore.getDefault().logError("Unable to export the storage analytics", e);
+                MessageDialog.openError(getShell(), "Export failed",
+                        "Unable to export the storage analytics: " + e.getMessage());
+            }
+        }
+
+        private void createColumn(Table table, String text, int width, int alignment) {
+            TableColumn column = new TableColumn(table, alignment);
+            column.setText(text);
+            column.setWidth(width);
+        }
+    }
+
+    private static class RollupLabelProvider extends LabelProvider implements ITableLabelProvider {
+
+        @Override
+        public Image getColumnImage(Object element, int columnIndex) {
+            return null;
+        }
+
+        @Override
+        public String getColumnText(Object element, int columnIndex) {
+            Rollup rollup = (Rollup) element;
+            switch ( columnIndex ) {
+            case 0:
+                return rollup.getName();
+            case 1:
+                return String.format("%,d", rollup.getObjectCount());
+            case 2:
+                return BatchTransferProgress.formatBytes(rollup.getTotalBytes());
+            case 3:
+                StringBuilder storageClasses = new StringBuilder();
+                for ( String storageClass : rollup.getStorageClasses() ) {
+                    if ( storageClasses.length() > 0 ) {
+                        storageClasses.append(", ");
+                    }
+                    storageClasses.append(storageClass).append(' ')
+                            .append(BatchTransferProgress.formatBytes(rollup.getTotalBytes(storageClass)));
+                }
+                return storageClasses.toString();
+            default:
+                return String.format("%,d", rollup.getAgeHistogram()[columnIndex - 4]);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3.actions;
+
+import java.io.File;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.mobileanalytics.AwsToolkitMetricType;
+import com.amazonaws.eclipse.explorer.AwsAction;
+import com.amazonaws.eclipse.explorer.s3.S3ObjectSummaryTable;
+import com.amazonaws.eclipse.explorer.s3.util.FolderSynchronizer;
+import com.amazonaws.eclipse.explorer.s3.util.FolderSynchronizer.SyncPlan;
+
+/**
+ * Action to synchronize a local folder to a prefix of the bucket, uploading
+ * only the files that changed.
+ */
+public class SyncFolderAction extends AwsAction {
+
+    private final S3ObjectSummaryTable table;
+
+    public SyncFolderAction(S3ObjectSummaryTable s3ObjectSummaryTable) {
+        super(AwsToolkitMetricType.EXPLORER_S3_SYNC_FOLDER);
+        table = s3ObjectSummaryTable;
+        setImageDescriptor(AwsToolkitCore.getDefault().getImageRegistry().getDescriptor(AwsToolkitCore.IMAGE_PUBLISH));
+    }
+
+    @Override
+    public String getText() {
+        return "Sync Folder to S3 Prefix...";
+    }
+
+    @Override
+    protected void doRun() {
+        final SyncFolderDialog dialog = new SyncFolderDialog(Display.getDefault().getActiveShell());
+        if ( dialog.open() != Window.OK || dialog.getFolder() == null ) {
+            actionCanceled();
+            actionFinished();
+            return;
+        }
+
+        final String bucketName = table.getBucketName();
+        new Job("Synchronizing " + dialog.getFolder().getName() + " to " + bucketName) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+                try {
+                    FolderSynchronizer synchronizer = new FolderSynchronizer(table.getS3Client(),
+                            new File(AwsToolkitCore.getDefault().getStateLocation().toFile(), "s3/sync-manifests"));
+                    SyncPlan plan = synchronizer.plan(dialog.getFolder(), bucketName, dialog.getPrefix(),
+                            dialog.isDeleteOrphans(), monitor);
+
+                    final String title;
+                    if ( dialog.isDryRun() ) {
+                        title = "Sync Folder Dry Run";
+                    } else {
+                        synchronizer.execute(plan, monitor);
+                        title = "Sync Folder Complete";
+                    }
+
+                    final String report = plan.getReport();
+                    AwsToolkitCore.getDefault().logInfo(report);
+                    Display.getDefault().asyncExec(new Runnable() {
+                        @Override
+                        public void run() {
+                            if ( !dialog.isDryRun() ) {
+                                table.refresh(null);
+                            }
+                            MessageDialog.openInformation(Display.getDefault().getActiveShell(), title, report);
+                        }
+                    });
+                    actionSucceeded();
+                    return Status.OK_STATUS;
+                } catch (OperationCanceledException e) {
+                    actionCanceled();
+                    return Status.CANCEL_STATUS;
+                } catch (Exception e) {
+                    actionFailed();
+                    return new Status(IStatus.ERROR, AwsToolkitCore.getDefault().getPluginId(),
+                            "Unable to synchronize folder: " + e.getMessage(), e);
+                } finally {
+                    actionFinished();
+                    monitor.done();
+                }
+            }
+        }.schedule();
+    }
+
+    private static final class SyncFolderDialog extends MessageDialog {
+
+        private File folder;
+        private String prefix = "";
+        private boolean deleteOrphans;
+        private boolean dryRun;
+
+        protected SyncFolderDialog(Shell parentShell) {
+            super(parentShell, "Sync Folder to S3 Prefix", AwsToolkitCore.getDefault().getImageRegistry()
+                    .get(AwsToolkitCore.IMAGE_AWS_ICON),
+                    "Upload the files of a local folder that differ from the objects under a prefix of the bucket.",
+                    MessageDialog.NONE, new String[] { "Sync", "Cancel" }, 0);
+        }
+
+        public File getFolder() {
+            return folder;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public boolean isDeleteOrphans() {
+            return deleteOrphans;
+        }
+
+        public boolean isDryRun() {
+            return dryRun;
+        }
+
+        @Override
+        protected Control createCustomArea(Composite parent) {
+            Composite composite = new Composite(parent, SWT.NONE);
+            composite.setLayoutData(GridDataFactory.fillDefaults().grab(true, false).create());
+            composite.setLayout(new GridLayout(3, false));
+
+            new Label(composite, SWT.NONE).setText("Local folder:");
+            final Text folderText = new Text(composite, SWT.BORDER | SWT.READ_ONLY);
+            folderText.setLayoutData(GridDataFactory.fillDefaults().grab(true, false).hint(300, SWT.DEFAULT).create());
+            Button browseButton = new Button(composite, SWT.PUSH);
+            browseButton.setText("Browse...");
+            browseButton.addSelectionListener(new SelectionAdapter() {
+                @Override
+                public void widgetSelected(SelectionEvent e) {
+                    DirectoryDialog directoryDialog = new DirectoryDialog(getShell());
+                    String path = directoryDialog.open();
+                    if ( path != null ) {
+                        folder = new File(path);
+                        folderText.setText(path);
+                    }
+                }
+            });
+
+            new Label(composite, SWT.NONE).setText("S3 prefix:");
+            final Text prefixText = new Text(composite, SWT.BORDER);
+            prefixText.setLayoutData(GridDataFactory.fillDefaults().grab(true, false).span(2, 1).create());
+            prefixText.setMessage("Empty for the root of the bucket");
+            prefixText.addModifyListener(e -> prefix = prefixText.getText().trim());
+
+            final Button deleteOrphansButton = new Button(composite, SWT.CHECK);
+            deleteOrphansButton.setText("Delete remote objects that don't exist in the local folder");
+            deleteOrphansButton.setLayoutData(GridDataFactory.fillDefaults().span(3, 1).create());
+            deleteOrphansButton.addSelectionListener(new SelectionAdapter() {
+                @Override
+                public void widgetSelected(SelectionEvent e) {
+                    deleteOrphans = deleteOrphansButton.getSelection();
+                }
+            });
+
+            final Button dryRunButton = new Button(composite, SWT.CHECK);
+            dryRunButton.setText("Dry run: only report the changes");
+            dryRunButton.setLayoutData(GridDataFactory.fillDefaults().span(3, 1).create());
+            dryRunButton.addSelectionListener(new SelectionAdapter() {
+                @Override
+                public void widgetSelected(SelectionEvent e) {
+                    dryRun = dryRunButton.getSelection();
+                }
+            });
+
+            return composite;
+        }
+    }
+}
@@ -15,17 +15,11 @@
 package com.amazonaws.eclipse.explorer.s3.dnd;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.RandomAccessFile;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.util.LocalSelectionTransfer;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.StructuredSelection;
@@ -37,9 +31,6 @@ import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.ui.navigator.CommonDropAdapter;
 import org.eclipse.ui.navigator.CommonDropAdapterAssistant;
 
-import com.amazonaws.eclipse.core.AwsToolkitCore;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 
 /**
@@ -113,7 +104,8 @@ public class DownloadDropAssistant extends CommonDropAdapterAssistant {
 
         final File outputFile = new File(fileName);
 
-        new DownloadObjectJob("Downloading " + s3object.getKey(), s3object, dropFolder, outputFile).schedule();
+        new DownloadObjectJob("Downloading " + s3object.getKey(), s3object.getBucketName(), s3object.getKey(),
+                outputFile).schedule();
 
         return Status.OK_STATUS;
     }
@@ -129,81 +121,4 @@ public class DownloadDropAssistant extends CommonDropAdapterAssistant {
         String fileName = dialog.open();
         return fileName;
     }
-
-    /**
-     * Async job to download an object from S3
-     */
-    private final class DownloadObjectJob extends Job {
-
-        private final S3ObjectSummary s3object;
-        private final IResource dropFolder;
-        private final File outputFile;
-
-        private DownloadObjectJob(String name, S3ObjectSummary s3object, IResource dropFolder, File outputFile) {
-            super(name);
-            this.s3object = s3object;
-            this.dropFolder = dropFolder;
-            this.outputFile = outputFile;
-        }
-
-        @Override
-        protected IStatus run(final IProgressMonitor monitor) {
-            FileOutputStream fos = null;
-            try {
-                AmazonS3 client = AwsToolkitCore.getClientFactory().getS3ClientForBucket(s3object.getBucketName());
-                S3Object object = client.getObject(s3object.getBucketName(), s3object.getKey());
-
-                // This number is used for reporting only; the download
-                // will appear to complete early if the file is bigger
-                // than 2GB.
-                long totalNumBytes = object.getObjectMetadata().getContentLength();
-                if ( totalNumBytes > Integer.MAX_VALUE )
-                    totalNumBytes = Integer.MAX_VALUE;
-                monitor.beginTask("Downloading", (int) totalNumBytes);
-
-                // For a new file this is a no-op, but it truncates an
-                // existing file for overwrite.
-                RandomAccessFile raf = new RandomAccessFile(outputFile, "rw");
-                raf.setLength(0);
-                raf.close();
-
-                fos = new FileOutputStream(outputFile);
-                InputStream is = object.getObjectContent();
-                byte[] buffer = new byte[4096];
-                int bytesRead = 0;
-                while ( (bytesRead = is.read(buffer)) > 0 ) {
-                    fos.write(buffer, 0, bytesRead);
-                    monitor.worked(bytesRead);
-                }
-            } catch ( Exception e ) {
-                return new Status(Status.ERROR, AwsToolkitCore.getDefault().getPluginId(), "Error downloading file from S3", e);
-            } finally {
-                if ( fos != null ) {
-                    try {
-                        fos.close();
-                    } catch ( Exception e ) {
-                        AwsToolkitCore.getDefault().logError("Couldn't close file output stream", e);
-                    }
-                }
-                monitor.done();
-            }
-
-            // Refresh the drop folder
-            // TODO: this won't work if they chose another folder in the
-            // file selection dialog.
-            Display.getDefault().asyncExec(new Runnable() {
-
-                @Override
-                public void run() {
-                    try {
-                        dropFolder.refreshLocal(1, monitor);
-                    } catch ( CoreException e ) {
-                        AwsToolkitCore.getDefault().logError("Couldn't refresh local files", e);
-                    }
-                }
-            });
-
-            return Status.OK_STATUS;
-        }
-    }
 }
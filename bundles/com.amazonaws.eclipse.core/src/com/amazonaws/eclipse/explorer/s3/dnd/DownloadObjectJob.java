@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3.dnd;
+
+import java.io.File;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.explorer.s3.util.ParallelDownloader;
+import com.amazonaws.services.s3.AmazonS3;
+
+/**
+ * Async job to download an object, or all the objects under a prefix, from S3
+ * into the workspace.
+ */
+class DownloadObjectJob extends Job {
+
+    private final String bucket;
+    private final String key;
+    private final File output;
+
+    /**
+     * @param key
+     *            The key of the object to download, or a prefix ending with a
+     *            slash to download all the objects under it.
+     * @param output
+     *            The file to download the object to, or the directory to
+     *            download the objects under the prefix to.
+     */
+    DownloadObjectJob(String name, String bucket, String key, File output) {
+        super(name);
+        this.bucket = bucket;
+        this.key = key;
+        this.output = output;
+        this.setUser(true);
+    }
+
+    /** Returns whether the given key is a prefix rather than an object key. */
+    static boolean isPrefix(String key) {
+        return key.endsWith("/");
+    }
+
+    @Override
+    protected IStatus run(final IProgressMonitor monitor) {
+        try {
+            AmazonS3 client = AwsToolkitCore.getClientFactory().getS3ClientForBucket(bucket);
+            ParallelDownloader downloader = new ParallelDownloader(client);
+            if ( isPrefix(key) ) {
+                downloader.downloadPrefix(bucket, key, output, monitor);
+            } else {
+                downloader.downloadObject(bucket, key, output, monitor);
+            }
+        } catch ( OperationCanceledException e ) {
+            return Status.CANCEL_STATUS;
+        } catch ( Exception e ) {
+            return new Status(Status.ERROR, AwsToolkitCore.getDefault().getPluginId(), "Error downloading file from S3", e);
+        } finally {
+            // Refresh the workspace folders holding the output, wherever the
+            // user chose to save it
+            final File location = isPrefix(key) ? output : output.getParentFile();
+            Display.getDefault().asyncExec(new Runnable() {
+
+                @Override
+                public void run() {
+                    IContainer[] containers = ResourcesPlugin.getWorkspace().getRoot()
+                            .findContainersForLocationURI(location.toURI());
+                    for ( IContainer container : containers ) {
+                        try {
+                            container.refreshLocal(IResource.DEPTH_INFINITE, null);
+                        } catch ( CoreException e ) {
+                            AwsToolkitCore.getDefault().logError("Couldn't refresh local files", e);
+                        }
+                    }
+                }
+            });
+        }
+
+        return Status.OK_STATUS;
+    }
+}
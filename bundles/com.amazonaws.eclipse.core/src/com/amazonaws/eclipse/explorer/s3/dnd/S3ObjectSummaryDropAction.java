@@ -1,18 +1,9 @@
 package com.amazonaws.eclipse.explorer.s3.dnd;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.RandomAccessFile;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaModelException;
@@ -22,8 +13,6 @@ import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.ui.part.IDropActionDelegate;
 
 import com.amazonaws.eclipse.core.AwsToolkitCore;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 
 public class S3ObjectSummaryDropAction implements IDropActionDelegate {
@@ -58,6 +47,14 @@ public class S3ObjectSummaryDropAction implements IDropActionDelegate {
         if ( !f.exists() )
             return false;
 
+        if ( DownloadObjectJob.isPrefix(bk.key) ) {
+            // Folders are downloaded into a folder of the same name
+            String folderName = bk.key.substring(0, bk.key.length() - 1);
+            folderName = folderName.substring(folderName.lastIndexOf('/') + 1);
+            new DownloadObjectJob("Downloading " + bk.key, bk.bucket, bk.key, new File(f, folderName)).schedule();
+            return true;
+        }
+
         String fileName = getOutputFileName(bk.key, f);
 
         if ( fileName == null || fileName.length() == 0 ) {
@@ -66,7 +63,7 @@ public class S3ObjectSummaryDropAction implements IDropActionDelegate {
 
         final File outputFile = new File(fileName);
 
-        new DownloadObjectJob("Downloading " + bk.key, bk.bucket, bk.key, dropFolder, outputFile).schedule();
+        new DownloadObjectJob("Downloading " + bk.key, bk.bucket, bk.key, outputFile).schedule();
 
         return true;
     }
@@ -87,88 +84,19 @@ public class S3ObjectSummaryDropAction implements IDropActionDelegate {
         return fileName;
     }
 
-    private final class DownloadObjectJob extends Job {
-
-        private final String key;
-        private final String bucket;
-        private final IResource dropFolder;
-        private final File outputFile;
-
-        private DownloadObjectJob(String name, String bucket, String key, IContainer dropFolder, File outputFile) {
-            super(name);
-            this.bucket = bucket;
-            this.key = key;
-            this.dropFolder = dropFolder;
-            this.outputFile = outputFile;
-        }
-
-        @Override
-        protected IStatus run(final IProgressMonitor monitor) {
-            FileOutputStream fos = null;
-            try {
-                // TODO: this won't work if the current account doesn't have read permission for the bucket and key
-                AmazonS3 client = AwsToolkitCore.getClientFactory().getS3ClientForBucket(bucket);
-                S3Object object = client.getObject(bucket, key);
-
-                // This number is used for reporting only; the download
-                // will appear to complete early if the file is bigger
-                // than 2GB.
-                long totalNumBytes = object.getObjectMetadata().getContentLength();
-                if ( totalNumBytes > Integer.MAX_VALUE )
-                    totalNumBytes = Integer.MAX_VALUE;
-                monitor.beginTask("Downloading", (int) totalNumBytes);
-
-                // For a new file this is a no-op, but it truncates an
-                // existing file for overwrite.
-                RandomAccessFile raf = new RandomAccessFile(outputFile, "rw");
-                raf.setLength(0);
-                raf.close();
-
-                fos = new FileOutputStream(outputFile);
-                InputStream is = object.getObjectContent();
-                byte[] buffer = new byte[4096];
-                int bytesRead = 0;
-                while ( (bytesRead = is.read(buffer)) > 0 ) {
-                    fos.write(buffer, 0, bytesRead);
-                    monitor.worked(bytesRead);
-                }
-            } catch ( Exception e ) {
-                return new Status(Status.ERROR, AwsToolkitCore.getDefault().getPluginId(), "Error downloading file from S3", e);
-            } finally {
-                if ( fos != null ) {
-                    try {
-                        fos.close();
-                    } catch ( Exception e ) {
-                        AwsToolkitCore.getDefault().logError("Couldn't close file output stream", e);
-                    }
-                }
-                monitor.done();
-            }
-
-            // Refresh the drop folder
-            // TODO: this won't work if they chose another folder in the
-            // file selection dialog.
-            Display.getDefault().asyncExec(new Runnable() {
-
-                @Override
-                public void run() {
-                    try {
-                        dropFolder.refreshLocal(1, monitor);
-                    } catch ( CoreException e ) {
-                        AwsToolkitCore.getDefault().logError("Couldn't refresh local files", e);
-                    }
-                }
-            });
-
-            return Status.OK_STATUS;
-        }
-    }
-
     /**
      * Encodes the object summary as a byte array.
      */
     public static byte[] encode(S3ObjectSummary s) {
-        return BucketAndKey.encode(s);
+        return BucketAndKey.encode(s.getBucketName(), s.getKey());
+    }
+
+    /**
+     * Encodes a prefix, which must end with a slash, as a byte array; all the
+     * objects under the prefix are downloaded when it's dropped.
+     */
+    public static byte[] encodePrefix(String bucketName, String prefix) {
+        return BucketAndKey.encode(bucketName, prefix);
     }
 
     static private class BucketAndKey {
@@ -176,9 +104,9 @@ public class S3ObjectSummaryDropAction implements IDropActionDelegate {
         private String bucket;
         private String key;
 
-        public static byte[] encode(S3ObjectSummary s) {
+        public static byte[] encode(String bucketName, String key) {
             StringBuilder b = new StringBuilder();
-            b.append(s.getBucketName()).append('\t').append(s.getKey());
+            b.append(bucketName).append('\t').append(key);
             return b.toString().getBytes();
         }
 
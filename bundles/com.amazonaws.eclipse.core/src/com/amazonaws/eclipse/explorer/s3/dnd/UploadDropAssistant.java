@@ -69,7 +69,7 @@ public class UploadDropAssistant extends CommonDropAdapterAssistant {
         if (filesToUpload == null || filesToUpload.length == 0)
             return Status.CANCEL_STATUS;
 
-        final TransferManager transferManager = new TransferManager(AwsToolkitCore.getClientFactory().getS3ClientForBucket(bucket.getName()));
+        final TransferManager transferManager = UploadFilesJob.newTransferManager(AwsToolkitCore.getClientFactory().getS3ClientForBucket(bucket.getName()));
         UploadFilesJob uploadFileJob = new UploadFilesJob(String.format("Upload files to bucket %s", bucket.getName()),
                     bucket.getName(), filesToUpload, transferManager);
 
@@ -15,27 +15,43 @@
 package com.amazonaws.eclipse.explorer.s3.dnd;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.swt.widgets.Display;
 
 import com.amazonaws.eclipse.core.AwsToolkitCore;
-import com.amazonaws.event.ProgressEvent;
-import com.amazonaws.event.ProgressEventType;
-import com.amazonaws.event.ProgressListener;
+import com.amazonaws.eclipse.core.preferences.PreferenceConstants;
+import com.amazonaws.eclipse.core.util.BatchTransferProgress;
+import com.amazonaws.eclipse.core.util.ResumableUploadStore;
+import com.amazonaws.eclipse.explorer.s3.util.BatchUploader;
+import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.transfer.TransferManager;
-import com.amazonaws.services.s3.transfer.Upload;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.amazonaws.services.s3.transfer.model.UploadResult;
 
 /**
- * Background job to upload files to S3
+ * Background job to upload files to S3. Up to
+ * {@link PreferenceConstants#P_S3_MAX_CONCURRENT_UPLOADS} files are uploaded
+ * at the same time, and the progress of the whole batch is reported as a
+ * single indicator. Large files are uploaded through the
+ * {@link ResumableUploadStore}, so that they can be resumed after a restart.
  */
 public class UploadFilesJob extends Job {
 
+    /** Units of work of the whole batch, reported by bytes uploaded. */
+    private static final int TOTAL_WORK = 1000;
+
+    /** Minimum delay between two runs of the refresh runnable. */
+    private static final long REFRESH_INTERVAL_MILLIS = 2000;
+
     private final String bucketName;
     private final File[] filesToUpload;
     private final TransferManager transferManager;
@@ -47,13 +63,17 @@ public class UploadFilesJob extends Job {
     }
 
     /**
-     * Sets a runnable to refresh a UI element after the upload has been
-     * complete.
+     * Sets a runnable to refresh a UI element while files are uploaded and
+     * after the upload has been complete.
      */
     public void setRefreshRunnable(Runnable refreshRunnable) {
         this.refreshRunnable = refreshRunnable;
     }
 
+    /**
+     * The given transfer manager is shut down, without its S3 client, when
+     * the job completes; see {@link #newTransferManager(AmazonS3)}.
+     */
     public UploadFilesJob(String name, String bucketName, File[] toUpload, TransferManager transferManager) {
         super(name);
         this.bucketName = bucketName;
@@ -62,99 +82,108 @@ public class UploadFilesJob extends Job {
         this.setUser(true);
     }
 
+    /**
+     * Returns a transfer manager for this job, with enough threads for the
+     * configured number of concurrent uploads.
+     */
+    public static TransferManager newTransferManager(AmazonS3 s3) {
+        final int threads = BatchUploader.getMaxConcurrentUploads();
+        return TransferManagerBuilder.standard()
+                .withS3Client(s3)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(threads))
+                .build();
+    }
+
     @Override
-    protected IStatus run(IProgressMonitor monitor) {
-        List<KeyFilePair> pairSet = getActualFilesToUpload();
-        int totalFilesToUpload = pairSet.size();
-        monitor.beginTask(String.format("Uploading %d files to Amazon S3!", totalFilesToUpload), 100 * totalFilesToUpload);
-        List<IStatus> errorStatuses = new ArrayList<>();
-        int uploadedFiles = 0;
-        for (KeyFilePair pair : pairSet) {
-            String name = pair.keyName;
-            monitor.setTaskName(String.format("%d/%d uploaded! Uploading %s!", uploadedFiles++, totalFilesToUpload, name));
-            doUpload(name, pair.file, errorStatuses, monitor);
+    protected IStatus run(final IProgressMonitor monitor) {
+        Map<String, File> files = getActualFilesToUpload();
+        long totalBytes = 0;
+        for (File file : files.values()) {
+            totalBytes += file.length();
         }
-        monitor.done();
-        if (!errorStatuses.isEmpty()) {
-            String errorMessages = aggregateErrorMessages(errorStatuses);
-            AwsToolkitCore.getDefault().reportException(errorMessages, null);
+
+        final BatchTransferProgress progress = new BatchTransferProgress(files.size(), totalBytes);
+        monitor.beginTask(String.format("Uploading %d files to Amazon S3!", files.size()), TOTAL_WORK);
+
+        final boolean[] refreshPending = new boolean[1];
+        Map<String, Exception> failures;
+        try {
+            failures = new BatchUploader(transferManager, bucketName).upload(files, progress,
+                    new BatchUploader.UploadListener() {
+
+                        private int reportedWork;
+                        private long lastRefreshMillis = System.currentTimeMillis();
+
+                        @Override
+                        public void uploadStarted(String key, File file) {
+                        }
+
+                        @Override
+                        public void uploadCompleted(String key, UploadResult result) {
+                            refreshPending[0] = true;
+                        }
+
+                        @Override
+                        public void progressChanged() {
+                            int workDone = progress.getWorkDone(TOTAL_WORK);
+                            if (workDone > reportedWork) {
+                                monitor.worked(workDone - reportedWork);
+                                reportedWork = workDone;
+                            }
+                            monitor.setTaskName(progress.getSummary());
+
+                            long now = System.currentTimeMillis();
+                            if (refreshPending[0] && now - lastRefreshMillis >= REFRESH_INTERVAL_MILLIS) {
+                                refresh();
+                                refreshPending[0] = false;
+                                lastRefreshMillis = now;
+                            }
+                        }
+                    }, monitor);
+        } catch (OperationCanceledException e) {
+            return Status.CANCEL_STATUS;
+        } finally {
+            monitor.done();
+            transferManager.shutdownNow(false);
+            if (refreshPending[0]) {
+                refresh();
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            StringBuilder errorMessages = new StringBuilder();
+            for (Entry<String, Exception> failure : failures.entrySet()) {
+                errorMessages.append(String.format("Error uploading %s: %s\n",
+                        failure.getKey(), failure.getValue().getMessage()));
+            }
+            AwsToolkitCore.getDefault().reportException(errorMessages.toString(), null);
         }
         return Status.OK_STATUS;
     }
 
-    private String aggregateErrorMessages(List<IStatus> statuses) {
-        StringBuilder builder = new StringBuilder();
-        for (IStatus status : statuses) {
-            builder.append(status.getMessage() + "\n");
+    private void refresh() {
+        if ( getRefreshRunnable() != null ) {
+            Display.getDefault().asyncExec(getRefreshRunnable());
         }
-        return builder.toString();
     }
 
-    private List<KeyFilePair> getActualFilesToUpload() {
-        List<KeyFilePair> pairSet = new ArrayList<>();
+    private Map<String, File> getActualFilesToUpload() {
+        Map<String, File> files = new LinkedHashMap<>();
         for (File file : filesToUpload) {
-            putFilesToList(null, file, pairSet);
+            putFilesToMap(null, file, files);
         }
-        return pairSet;
+        return files;
     }
 
-    private void putFilesToList(String prefix, File file, List<KeyFilePair> pairSet) {
+    private void putFilesToMap(String prefix, File file, Map<String, File> files) {
         String keyName = prefix == null ? file.getName() : prefix + "/" + file.getName();
         if (file.exists() && file.isFile()) {
-            pairSet.add(new KeyFilePair(keyName, file));
+            files.put(keyName, file);
         } else if (file.isDirectory()) {
-            File[] files = file.listFiles();
-            for (File subFile : files) {
-                putFilesToList(keyName, subFile, pairSet);
+            File[] subFiles = file.listFiles();
+            for (File subFile : subFiles) {
+                putFilesToMap(keyName, subFile, files);
             }
         }
     }
-
-    private void doUpload(final String keyName, final File file, List<IStatus> statuses, final IProgressMonitor monitor) {
-        final Upload upload = transferManager.upload(bucketName, keyName, file);
-        upload.addProgressListener(new ProgressListener(){
-            private final long totalBytes = file.length();
-            private long transferredBytes = 0;
-            private int percentTransferred = 0;
-            @Override
-            public void progressChanged(ProgressEvent event) {
-                ProgressEventType type = event.getEventType();
-                if (type == ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT) {
-                    transferredBytes += event.getBytesTransferred();
-                    int progress = Math.min((int) (100 * transferredBytes / totalBytes), 100);
-                    if (progress <= percentTransferred) {
-                        return;
-                    }
-                    monitor.worked(progress - percentTransferred);
-                    percentTransferred = progress;
-                } else if (type == ProgressEventType.TRANSFER_COMPLETED_EVENT
-                        || type == ProgressEventType.TRANSFER_CANCELED_EVENT
-                        || type == ProgressEventType.TRANSFER_FAILED_EVENT) {
-                    if (percentTransferred < 100) {
-                        monitor.worked(100 - percentTransferred);
-                    }
-                }
-            }
-        });
-
-        try {
-            upload.waitForCompletion();
-        } catch (Exception e) {
-            statuses.add(new Status(IStatus.ERROR, AwsToolkitCore.getDefault().getPluginId(),
-                    String.format("Error uploading %s: %s", keyName, e.getMessage())));
-        }
-
-        if ( getRefreshRunnable() != null ) {
-            Display.getDefault().syncExec(getRefreshRunnable());
-        }
-    }
-
-    private static class KeyFilePair {
-        String keyName;
-        File file;
-        public KeyFilePair(String keyName, File file) {
-            this.keyName = keyName;
-            this.file = file;
-        }
-    }
-}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3.util;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.preferences.PreferenceConstants;
+import com.amazonaws.eclipse.core.util.BatchTransferProgress;
+import com.amazonaws.eclipse.core.util.ResumableUploadStore;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.Upload;
+import com.amazonaws.services.s3.transfer.model.UploadResult;
+
+/**
+ * Uploads a batch of files to a bucket, at most
+ * {@link PreferenceConstants#P_S3_MAX_CONCURRENT_UPLOADS} at a time. Files
+ * are uploaded through the {@link ResumableUploadStore}, so that large ones
+ * can be resumed after a restart, and a file that can't be uploaded doesn't
+ * stop the others.
+ */
+public class BatchUploader {
+
+    /** How often the uploads are checked and their progress reported. */
+    private static final long POLL_INTERVAL_MILLIS = 200;
+
+    /** Receives the events of a batch, from the thread uploading it. */
+    public interface UploadListener {
+
+        /** Called once the upload of a file has started. */
+        void uploadStarted(String key, File file);
+
+        /**
+         * Called once a file has been uploaded. If an exception is thrown,
+         * the file is counted as failed.
+         */
+        void uploadCompleted(String key, UploadResult result) throws Exception;
+
+        /** Called after every check of the uploads, to report progress. */
+        void progressChanged();
+    }
+
+    private final TransferManager transferManager;
+    private final String bucketName;
+
+    /**
+     * @param transferManager
+     *            The transfer manager to upload with, left running; see
+     *            {@link com.amazonaws.eclipse.explorer.s3.dnd.UploadFilesJob#newTransferManager}.
+     */
+    public BatchUploader(TransferManager transferManager, String bucketName) {
+        this.transferManager = transferManager;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Returns the number of files uploaded at the same time, as configured
+     * in the preferences.
+     */
+    public static int getMaxConcurrentUploads() {
+        return Math.max(1, AwsToolkitCore.getDefault().getPreferenceStore()
+                .getInt(PreferenceConstants.P_S3_MAX_CONCURRENT_UPLOADS));
+    }
+
+    /**
+     * Uploads the given files, returning once every one of them has been
+     * attempted.
+     *
+     * @param files
+     *            The files to upload, keyed by object key.
+     * @param progress
+     *            The progress of the batch, told about every file completed.
+     * @return The reason each file that couldn't be uploaded failed, by key.
+     * @throws OperationCanceledException
+     *             If the monitor was canceled or the thread interrupted; the
+     *             uploads in flight are canceled.
+     */
+    public Map<String, Exception> upload(Map<String, File> files, BatchTransferProgress progress,
+            UploadListener listener, IProgressMonitor monitor) {
+        int maxConcurrentUploads = getMaxConcurrentUploads();
+        ResumableUploadStore uploadStore = AwsToolkitCore.getDefault().getResumableUploadStore();
+        Iterator<Entry<String, File>> pendingFiles = files.entrySet().iterator();
+        Map<Upload, String> inFlightUploads = new LinkedHashMap<>();
+        Map<String, Exception> failures = new LinkedHashMap<>();
+
+        try {
+            while (pendingFiles.hasNext() || !inFlightUploads.isEmpty()) {
+                if (monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+
+                while (pendingFiles.hasNext() && inFlightUploads.size() < maxConcurrentUploads) {
+                    Entry<String, File> file = pendingFiles.next();
+                    try {
+                        PutObjectRequest request = new PutObjectRequest(bucketName, file.getKey(), file.getValue())
+                                .withGeneralProgressListener(progress.newProgressListener());
+                        inFlightUploads.put(uploadStore.upload(transferManager, request), file.getKey());
+                        listener.uploadStarted(file.getKey(), file.getValue());
+                    } catch (Exception e) {
+                        progress.fileCompleted(true);
+                        failures.put(file.getKey(), e);
+                    }
+                }
+
+                Iterator<Entry<Upload, String>> iterator = inFlightUploads.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Entry<Upload, String> upload = iterator.next();
+                    if (!upload.getKey().isDone()) {
+                        continue;
+                    }
+                    iterator.remove();
+                    try {
+                        listener.uploadCompleted(upload.getValue(), upload.getKey().waitForUploadResult());
+                        progress.fileCompleted(false);
+                    } catch (Exception e) {
+                        progress.fileCompleted(true);
+                        failures.put(upload.getValue(), e);
+                    }
+                }
+
+                listener.progressChanged();
+                if (!inFlightUploads.isEmpty()) {
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        } finally {
+            for (Upload upload : inFlightUploads.keySet()) {
+                uploadStore.cancel(upload);
+            }
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.util.S3KeyIndex;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Maintains the {@link S3KeyIndex} of a bucket in the background. The index
+ * is persisted, so that it's available as soon as the bucket is opened again,
+ * and rebuilt by streaming the complete listing of the bucket into a new
+ * index while the previous one remains searchable. The keys under a single
+ * prefix can be refreshed without listing the whole bucket.
+ */
+public class BucketKeyIndexer {
+
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    private final String bucketName;
+    private final File indexFile;
+    private final Supplier<AmazonS3> s3;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile S3KeyIndex index;
+    private volatile String status = "";
+
+    private final Object indexLock = new Object();
+
+    /** Lists the whole bucket; only one runs at a time. */
+    private final Job rebuildJob;
+
+    /**
+     * @param indexFile
+     *            The file the index of the bucket is persisted to.
+     * @param s3
+     *            Supplies the client for the bucket; only called from
+     *            background jobs.
+     */
+    public BucketKeyIndexer(String bucketName, File indexFile, Supplier<AmazonS3> s3) {
+        this.bucketName = bucketName;
+        this.indexFile = indexFile;
+        this.s3 = s3;
+        this.rebuildJob = new Job("Indexing the keys of bucket " + bucketName) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                return rebuild(monitor);
+            }
+        };
+    }
+
+    /** Returns the current index, or null if the bucket hasn't been indexed. */
+    public S3KeyIndex getIndex() {
+        return index;
+    }
+
+    /** Returns a short description of the indexing state, for display. */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Registers a runnable called from a background thread whenever the
+     * index or its status changes.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Loads the index persisted by a previous session, in the background.
+     */
+    public void load() {
+        if (!indexFile.exists()) {
+            return;
+        }
+        Job loadJob = new Job("Loading the key index of bucket " + bucketName) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                try (InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                    S3KeyIndex loaded = S3KeyIndex.readFrom(in);
+                    synchronized (indexLock) {
+                        if (index == null) {
+                            index = loaded;
+                        }
+                    }
+                    setStatus(describe(loaded));
+                } catch (IOException e) {
+                    AwsToolkitCore.getDefault().logWarning("Unable to load the key index " + indexFile, e);
+                    indexFile.delete();
+                }
+                return Status.OK_STATUS;
+            }
+        };
+        loadJob.setSystem(true);
+        loadJob.schedule();
+    }
+
+    /** Lists the whole bucket into a new index, unless already doing so. */
+    public void rebuild() {
+        rebuildJob.schedule();
+    }
+
+    /**
+     * Lists the keys under a prefix and replaces them in the index, if the
+     * bucket has been indexed.
+     */
+    public void refresh(final String prefix) {
+        if (index == null) {
+            return;
+        }
+        Job refreshJob = new Job("Refreshing the key index of bucket " + bucketName) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                try {
+                    S3KeyIndex listing = list(prefix, monitor);
+                    if (listing == null) {
+                        return Status.CANCEL_STATUS;
+                    }
+                    S3KeyIndex refreshed;
+                    synchronized (indexLock) {
+                        refreshed = index.replacePrefix(prefix, listing);
+                        index = refreshed;
+                    }
+                    save(refreshed);
+                    setStatus(describe(refreshed));
+                } catch (Exception e) {
+                    AwsToolkitCore.getDefault().logWarning("Unable to refresh the key index of " + bucketName, e);
+                }
+                return Status.OK_STATUS;
+            }
+        };
+        refreshJob.setSystem(true);
+        refreshJob.schedule();
+    }
+
+    /** Stops any indexing in progress. */
+    public void dispose() {
+        rebuildJob.cancel();
+        listeners.clear();
+    }
+
+    private IStatus rebuild(IProgressMonitor monitor) {
+        monitor.beginTask(rebuildJob.getName(), IProgressMonitor.UNKNOWN);
+        try {
+            S3KeyIndex rebuilt = list("", monitor);
+            if (rebuilt == null) {
+                setStatus(index == null ? "" : describe(index));
+                return Status.CANCEL_STATUS;
+            }
+            synchronized (indexLock) {
+                index = rebuilt;
+            }
+            save(rebuilt);
+            setStatus(describe(rebuilt));
+            return Status.OK_STATUS;
+        } catch (Exception e) {
+            setStatus("Indexing failed: " + e.getMessage());
+            return new Status(IStatus.ERROR, AwsToolkitCore.getDefault().getPluginId(),
+                    "Unable to index the keys of bucket " + bucketName, e);
+        } finally {
+            monitor.done();
+        }
+    }
+
+    /**
+     * Streams the listing of a prefix into an index, page by page, or returns
+     * null if the monitor is cancelled.
+     */
+    private S3KeyIndex list(String prefix, IProgressMonitor monitor) {
+        long startMillis = System.currentTimeMillis();
+        S3KeyIndex.Builder builder = new S3KeyIndex.Builder();
+        ListObjectsV2Request request = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(prefix)
+                .withMaxKeys(LIST_PAGE_SIZE);
+        AmazonS3 client = s3.get();
+        ListObjectsV2Result result;
+        do {
+            if (monitor.isCanceled()) {
+                return null;
+            }
+            result = client.listObjectsV2(request);
+            for (S3ObjectSummary summary : result.getObjectSummaries()) {
+                builder.add(summary.getKey(), summary.getSize(),
+                        summary.getLastModified() == null ? 0 : summary.getLastModified().getTime());
+            }
+            request.setContinuationToken(result.getNextContinuationToken());
+            if (prefix.isEmpty()) {
+                String progress = String.format("Indexing: %,d keys listed", builder.size());
+                monitor.subTask(progress);
+                setStatus(progress);
+            }
+        } while (result.isTruncated());
+        return builder.build(startMillis);
+    }
+
+    private void save(S3KeyIndex saved) {
+        File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        indexFile.getParentFile().mkdirs();
+        try {
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                saved.writeTo(out);
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            AwsToolkitCore.getDefault().logWarning("Unable to save the key index " + indexFile, e);
+            tempFile.delete();
+        }
+    }
+
+    private static String describe(S3KeyIndex index) {
+        long minutes = (System.currentTimeMillis() - index.getCreatedMillis()) / 60000;
+        String age = minutes < 1 ? "just now" : minutes < 120 ? minutes + " min ago" : (minutes / 60) + " h ago";
+        return String.format("%,d keys indexed %s", index.size(), age);
+    }
+
+    private void setStatus(String status) {
+        this.status = status;
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
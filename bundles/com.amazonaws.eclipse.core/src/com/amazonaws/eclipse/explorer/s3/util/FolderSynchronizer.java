@@ -0,0 +1,432 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.util.BatchTransferProgress;
+import com.amazonaws.eclipse.explorer.s3.dnd.UploadFilesJob;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.model.UploadResult;
+import com.amazonaws.util.BinaryUtils;
+
+/**
+ * Synchronizes a local folder to a prefix of a bucket, uploading only the
+ * files whose content differs from the remote objects and optionally deleting
+ * the remote objects that no longer exist locally.
+ * <p>
+ * A file is unchanged when its MD5 digest matches the ETag of the remote
+ * object. The ETag of an object uploaded in parts, or encrypted with a KMS
+ * key, isn't the MD5 digest of its content, so the digests of the files
+ * uploaded by this class are also kept in a manifest per bucket, next to the
+ * ETag S3 returned for them. Objects with such an ETag that aren't in the
+ * manifest are uploaded again.
+ * <p>
+ * The remote listing is compared page by page as it's received, while the
+ * files of the same size as their remote object are hashed on a pool of
+ * threads.
+ */
+public class FolderSynchronizer {
+
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    private static final int HASH_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final AmazonS3 s3;
+    private final File manifestDirectory;
+
+    /**
+     * @param manifestDirectory
+     *            The directory the manifests of the synchronized buckets are
+     *            kept in.
+     */
+    public FolderSynchronizer(AmazonS3 s3, File manifestDirectory) {
+        this.s3 = s3;
+        this.manifestDirectory = manifestDirectory;
+    }
+
+    /**
+     * Compares a local folder with the objects under a prefix of a bucket,
+     * without changing anything.
+     *
+     * @param prefix
+     *            The prefix the relative paths of the files are appended to,
+     *            with or without the trailing slash; empty for the root of the
+     *            bucket.
+     * @param deleteOrphans
+     *            Whether the remote objects that don't exist locally should be
+     *            deleted by {@link #execute(SyncPlan, IProgressMonitor)}.
+     */
+    public SyncPlan plan(File folder, String bucketName, String prefix, boolean deleteOrphans,
+            IProgressMonitor monitor) throws IOException {
+        String keyPrefix = prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/";
+        SyncPlan plan = new SyncPlan(folder, bucketName, keyPrefix, deleteOrphans);
+
+        monitor.subTask("Scanning " + folder);
+        Map<String, File> localFiles = listFiles(folder, keyPrefix);
+        Manifest manifest = new Manifest(manifestDirectory, bucketName);
+
+        ExecutorService hashExecutor = Executors.newFixedThreadPool(HASH_THREADS);
+        try {
+            Map<S3ObjectSummary, Future<String>> comparisons = new LinkedHashMap<>();
+            Map<String, File> comparedFiles = new HashMap<>();
+            ListObjectsV2Request request = new ListObjectsV2Request()
+                    .withBucketName(bucketName)
+                    .withPrefix(keyPrefix)
+                    .withMaxKeys(LIST_PAGE_SIZE);
+            long listedObjects = 0;
+            ListObjectsV2Result result;
+            do {
+                checkCanceled(monitor);
+                result = s3.listObjectsV2(request);
+                for (S3ObjectSummary summary : result.getObjectSummaries()) {
+                    final File file = localFiles.remove(summary.getKey());
+                    if (file == null) {
+                        if (!summary.getKey().endsWith("/")) {
+                            plan.orphans.add(summary);
+                        }
+                    } else if (file.length() != summary.getSize()) {
+                        plan.uploads.put(summary.getKey(), file);
+                    } else {
+                        comparedFiles.put(summary.getKey(), file);
+                        comparisons.put(summary, hashExecutor.submit(() -> md5Hex(file)));
+                    }
+                }
+                listedObjects += result.getKeyCount();
+                monitor.subTask(String.format("Comparing %s with s3://%s/%s: %d objects listed",
+                        folder.getName(), bucketName, keyPrefix, listedObjects));
+                request.setContinuationToken(result.getNextContinuationToken());
+            } while (result.isTruncated());
+
+            for (Entry<S3ObjectSummary, Future<String>> comparison : comparisons.entrySet()) {
+                checkCanceled(monitor);
+                S3ObjectSummary summary = comparison.getKey();
+                String md5 = await(comparison.getValue());
+                if (md5.equals(summary.getETag()) || md5.equals(manifest.getMd5(summary.getKey(), summary.getETag()))) {
+                    plan.unchangedFiles++;
+                    plan.unchangedBytes += summary.getSize();
+                } else {
+                    plan.uploads.put(summary.getKey(), comparedFiles.get(summary.getKey()));
+                }
+            }
+        } finally {
+            hashExecutor.shutdownNow();
+        }
+
+        // The files left weren't listed, they're new
+        plan.uploads.putAll(localFiles);
+        return plan;
+    }
+
+    /**
+     * Uploads the changed files of a plan and deletes its orphans, if
+     * requested.
+     *
+     * @throws AmazonClientException
+     *             If any file couldn't be uploaded or any orphan couldn't be
+     *             deleted; the other files are still synchronized.
+     */
+    public void execute(SyncPlan plan, IProgressMonitor monitor) {
+        Manifest manifest = new Manifest(manifestDirectory, plan.bucketName);
+        List<String> errors = new ArrayList<>();
+        try {
+            upload(plan, manifest, errors, monitor);
+            if (plan.deleteOrphans && !plan.orphans.isEmpty()) {
+                MultiObjectDeleter deleter = new MultiObjectDeleter(s3, plan.bucketName, monitor);
+                try {
+                    for (S3ObjectSummary orphan : plan.orphans) {
+                        deleter.delete(orphan.getKey(), null);
+                        manifest.remove(orphan.getKey());
+                    }
+                    deleter.awaitCompletion();
+                } catch (AmazonClientException e) {
+                    errors.add(e.getMessage());
+                } finally {
+                    deleter.shutdown();
+                }
+            }
+        } finally {
+            manifest.save();
+        }
+
+        if (!errors.isEmpty()) {
+            throw new AmazonClientException(String.format("Unable to synchronize %d files, e.g. %s",
+                    errors.size(), errors.get(0)));
+        }
+    }
+
+    private void upload(SyncPlan plan, final Manifest manifest, List<String> errors, final IProgressMonitor monitor) {
+        if (plan.uploads.isEmpty()) {
+            return;
+        }
+
+        TransferManager transferManager = UploadFilesJob.newTransferManager(s3);
+        final ExecutorService hashExecutor = Executors.newFixedThreadPool(HASH_THREADS);
+        final BatchTransferProgress progress = new BatchTransferProgress(plan.uploads.size(), plan.getUploadBytes());
+        final Map<String, Future<String>> digests = new HashMap<>();
+        try {
+            Map<String, Exception> failures = new BatchUploader(transferManager, plan.bucketName).upload(plan.uploads,
+                    progress, new BatchUploader.UploadListener() {
+
+                        @Override
+                        public void uploadStarted(String key, final File file) {
+                            digests.put(key, hashExecutor.submit(() -> md5Hex(file)));
+                        }
+
+                        @Override
+                        public void uploadCompleted(String key, UploadResult result) throws IOException {
+                            String md5 = await(digests.remove(key));
+                            if (md5.equals(result.getETag())) {
+                                manifest.remove(key);
+                            } else {
+                                manifest.put(key, result.getETag(), md5);
+                            }
+                        }
+
+                        @Override
+                        public void progressChanged() {
+                            monitor.subTask(progress.getSummary());
+                        }
+                    }, monitor);
+            for (Entry<String, Exception> failure : failures.entrySet()) {
+                errors.add(failure.getKey() + ": " + failure.getValue().getMessage());
+            }
+        } finally {
+            hashExecutor.shutdownNow();
+            transferManager.shutdownNow(false);
+        }
+    }
+
+    /**
+     * Returns the files under the given folder, keyed by the object key they
+     * are synchronized to.
+     */
+    private static Map<String, File> listFiles(File folder, final String keyPrefix) throws IOException {
+        final Path root = folder.toPath();
+        final Map<String, File> files = new TreeMap<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    String relativePath = root.relativize(file).toString().replace(File.separatorChar, '/');
+                    files.put(keyPrefix + relativePath, file.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    /** Returns the hex encoded MD5 digest of a file, the way S3 reports ETags. */
+    static String md5Hex(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return BinaryUtils.toHex(digest.digest());
+    }
+
+    private static String await(Future<String> digest) throws IOException {
+        try {
+            return digest.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new AmazonClientException("Unable to hash file", e.getCause());
+        }
+    }
+
+    private static void checkCanceled(IProgressMonitor monitor) {
+        if (monitor.isCanceled()) {
+            throw new OperationCanceledException();
+        }
+    }
+
+    /**
+     * The changes needed to synchronize a folder to a prefix.
+     */
+    public static class SyncPlan {
+
+        private final File folder;
+        private final String bucketName;
+        private final String keyPrefix;
+        private final boolean deleteOrphans;
+
+        /** Files to upload, keyed by object key. */
+        private final Map<String, File> uploads = new TreeMap<>();
+        private final List<S3ObjectSummary> orphans = new ArrayList<>();
+        private int unchangedFiles;
+        private long unchangedBytes;
+
+        private SyncPlan(File folder, String bucketName, String keyPrefix, boolean deleteOrphans) {
+            this.folder = folder;
+            this.bucketName = bucketName;
+            this.keyPrefix = keyPrefix;
+            this.deleteOrphans = deleteOrphans;
+        }
+
+        public String getBucketName() {
+            return bucketName;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        /** Returns the files to upload, keyed by object key. */
+        public Map<String, File> getUploads() {
+            return Collections.unmodifiableMap(uploads);
+        }
+
+        public long getUploadBytes() {
+            long bytes = 0;
+            for (File file : uploads.values()) {
+                bytes += file.length();
+            }
+            return bytes;
+        }
+
+        /** Returns the remote objects that don't exist locally. */
+        public List<S3ObjectSummary> getOrphans() {
+            return Collections.unmodifiableList(orphans);
+        }
+
+        public int getUnchangedFiles() {
+            return unchangedFiles;
+        }
+
+        /** Returns the number of bytes that don't need to be transferred. */
+        public long getUnchangedBytes() {
+            return unchangedBytes;
+        }
+
+        /** Returns a human readable summary of the changes. */
+        public String getReport() {
+            StringBuilder report = new StringBuilder(String.format("Synchronizing %s to s3://%s/%s\n\n",
+                    folder, bucketName, keyPrefix));
+            report.append(String.format("%d files to upload (%s)\n",
+                    uploads.size(), BatchTransferProgress.formatBytes(getUploadBytes())));
+            report.append(String.format("%d unchanged files skipped (%s not transferred)\n",
+                    unchangedFiles, BatchTransferProgress.formatBytes(unchangedBytes)));
+            report.append(String.format(deleteOrphans ? "%d remote objects to delete\n"
+                    : "%d remote objects not found locally, kept\n", orphans.size()));
+            return report.toString();
+        }
+    }
+
+    /**
+     * The MD5 digests of the objects of a bucket whose ETag isn't their MD5
+     * digest, as uploaded by this class.
+     */
+    private static class Manifest {
+
+        private final File file;
+        private final Properties entries = new Properties();
+        private boolean dirty;
+
+        Manifest(File directory, String bucketName) {
+            this.file = new File(directory, bucketName + ".properties");
+            if (file.exists()) {
+                try (InputStream in = new FileInputStream(file)) {
+                    entries.load(in);
+                } catch (IOException e) {
+                    AwsToolkitCore.getDefault().logWarning("Unable to load the S3 sync manifest " + file, e);
+                }
+            }
+        }
+
+        /**
+         * Returns the MD5 digest recorded for the key, or null if the object
+         * has changed since it was recorded.
+         */
+        synchronized String getMd5(String key, String eTag) {
+            String entry = entries.getProperty(key);
+            if (entry == null) {
+                return null;
+            }
+            int separator = entry.indexOf(' ');
+            return entry.substring(0, separator).equals(eTag) ? entry.substring(separator + 1) : null;
+        }
+
+        synchronized void put(String key, String eTag, String md5) {
+            entries.setProperty(key, eTag + " " + md5);
+            dirty = true;
+        }
+
+        synchronized void remove(String key) {
+            dirty |= entries.remove(key) != null;
+        }
+
+        synchronized void save() {
+            if (!dirty) {
+                return;
+            }
+            file.getParentFile().mkdirs();
+            try (OutputStream out = new FileOutputStream(file)) {
+                entries.store(out, "MD5 digests of the objects synchronized to the bucket");
+                dirty = false;
+            } catch (IOException e) {
+                AwsToolkitCore.getDefault().logWarning("Unable to save the S3 sync manifest " + file, e);
+            }
+        }
+    }
+}
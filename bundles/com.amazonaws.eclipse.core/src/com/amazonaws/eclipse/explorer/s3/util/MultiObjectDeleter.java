@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException.DeleteError;
+
+/**
+ * Deletes objects from a bucket with multi-object delete requests of up to
+ * {@link #MAX_KEYS_PER_REQUEST} keys, several requests at a time. Keys are
+ * deleted in the background as they're submitted, so callers can list the next
+ * page of keys while the previous page is being deleted. Keys S3 fails to
+ * delete are retried a few times before the deletion is reported as failed.
+ * <p>
+ * Keys must be submitted from a single thread, which also reports the progress
+ * to the given monitor, one unit of work per deleted object. Cancelling the
+ * monitor stops the deletion with an {@link OperationCanceledException}.
+ */
+public class MultiObjectDeleter {
+
+    /** The maximum number of keys S3 accepts in a multi-object delete request. */
+    public static final int MAX_KEYS_PER_REQUEST = 1000;
+
+    /** Number of delete requests in flight. */
+    private static final int PARALLELISM = 4;
+
+    /** Number of times a key S3 fails to delete is attempted. */
+    private static final int MAX_ATTEMPTS = 4;
+
+    private static final long RETRY_BASE_DELAY_MILLIS = 200;
+
+    /** How often the progress is reported while waiting for the requests. */
+    private static final long PROGRESS_INTERVAL_MILLIS = 200;
+
+    private final AmazonS3 s3;
+    private final String bucketName;
+    private final IProgressMonitor monitor;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(PARALLELISM);
+    /** Bounds the batches in flight or waiting for a thread. */
+    private final Semaphore batchPermits = new Semaphore(PARALLELISM * 2);
+
+    private final List<KeyVersion> currentBatch = new ArrayList<>();
+    private final AtomicLong deletedObjects = new AtomicLong();
+    private final AtomicLong failedObjects = new AtomicLong();
+    private final AtomicReference<DeleteError> firstDeleteError = new AtomicReference<>();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    private final long startNanos = System.nanoTime();
+    private long reportedObjects;
+
+    public MultiObjectDeleter(AmazonS3 s3, String bucketName, IProgressMonitor monitor) {
+        this.s3 = s3;
+        this.bucketName = bucketName;
+        this.monitor = monitor;
+    }
+
+    /**
+     * Submits a key for deletion, waiting if too many keys are already being
+     * deleted.
+     *
+     * @param versionId
+     *            The version to delete, or null to delete the current version
+     *            of the key.
+     */
+    public void delete(String key, String versionId) {
+        checkState();
+        currentBatch.add(new KeyVersion(key, versionId));
+        if (currentBatch.size() == MAX_KEYS_PER_REQUEST) {
+            submitCurrentBatch();
+        }
+    }
+
+    /**
+     * Waits until all the submitted keys are deleted.
+     *
+     * @throws AmazonClientException
+     *             If any key couldn't be deleted.
+     */
+    public void awaitCompletion() {
+        checkState();
+        submitCurrentBatch();
+        int permits = 0;
+        while (permits < PARALLELISM * 2) {
+            if (acquireBatchPermit()) {
+                permits++;
+            }
+        }
+        batchPermits.release(PARALLELISM * 2);
+        reportProgress();
+        checkState();
+
+        DeleteError deleteError = firstDeleteError.get();
+        if (deleteError != null) {
+            throw new AmazonClientException(String.format("Unable to delete %d objects from %s, e.g. %s: %s",
+                    failedObjects.get(), bucketName, deleteError.getKey(), deleteError.getMessage()));
+        }
+    }
+
+    /** Stops the background deletions. */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public long getDeletedObjects() {
+        return deletedObjects.get();
+    }
+
+    private void submitCurrentBatch() {
+        if (currentBatch.isEmpty()) {
+            return;
+        }
+        final List<KeyVersion> keys = new ArrayList<>(currentBatch);
+        currentBatch.clear();
+        while (!acquireBatchPermit()) {
+            checkState();
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    deleteBatch(keys);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    batchPermits.release();
+                }
+            }
+        });
+        reportProgress();
+    }
+
+    /**
+     * Waits up to {@link #PROGRESS_INTERVAL_MILLIS} for a batch to complete,
+     * reporting the progress, and returns whether a permit was acquired.
+     */
+    private boolean acquireBatchPermit() {
+        try {
+            boolean acquired = batchPermits.tryAcquire(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            reportProgress();
+            if (!acquired && monitor.isCanceled()) {
+                throw cancel();
+            }
+            return acquired;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cancel();
+        }
+    }
+
+    private void deleteBatch(List<KeyVersion> keys) {
+        List<KeyVersion> remaining = keys;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                s3.deleteObjects(new DeleteObjectsRequest(bucketName).withKeys(remaining).withQuiet(true));
+                deletedObjects.addAndGet(remaining.size());
+                return;
+            } catch (MultiObjectDeleteException e) {
+                List<DeleteError> errors = e.getErrors();
+                deletedObjects.addAndGet(remaining.size() - errors.size());
+                if (attempt == MAX_ATTEMPTS) {
+                    failedObjects.addAndGet(errors.size());
+                    firstDeleteError.compareAndSet(null, errors.get(0));
+                    return;
+                }
+
+                remaining = new ArrayList<>(errors.size());
+                for (DeleteError error : errors) {
+                    remaining.add(new KeyVersion(error.getKey(), error.getVersionId()));
+                }
+                try {
+                    Thread.sleep(RETRY_BASE_DELAY_MILLIS << (attempt - 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Stops submitting keys once the deletion is cancelled or has failed. */
+    private void checkState() {
+        if (monitor.isCanceled()) {
+            throw cancel();
+        }
+        RuntimeException e = failure.get();
+        if (e != null) {
+            shutdown();
+            throw e;
+        }
+    }
+
+    private OperationCanceledException cancel() {
+        shutdown();
+        return new OperationCanceledException();
+    }
+
+    private void reportProgress() {
+        long deleted = deletedObjects.get();
+        if (deleted > reportedObjects) {
+            monitor.worked((int) (deleted - reportedObjects));
+            reportedObjects = deleted;
+        }
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1e9, 0.001);
+        monitor.subTask(String.format("%d objects deleted (%.1f objects/s)", deleted, deleted / seconds));
+    }
+}
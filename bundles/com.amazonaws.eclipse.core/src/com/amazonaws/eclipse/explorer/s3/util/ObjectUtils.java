@@ -14,8 +14,12 @@
  */
 package com.amazonaws.eclipse.explorer.s3.util;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
 import com.amazonaws.services.s3.model.S3VersionSummary;
 import com.amazonaws.services.s3.model.VersionListing;
 
@@ -28,40 +32,67 @@ public class ObjectUtils {
      * Deletes an object along with all object versions, if any exist.
      */
     public void deleteObjectAndAllVersions(String bucketName, String key) {
-        AmazonS3 s3 = AwsToolkitCore.getClientFactory().getS3ClientForBucket(bucketName);
-        VersionListing versionListing = null;
-        do {
-            if (versionListing == null) {
-                versionListing = s3.listVersions(bucketName, key);
-            } else {
-                versionListing = s3.listNextBatchOfVersions(versionListing);
-            }
-
-            for (S3VersionSummary versionSummary : versionListing.getVersionSummaries()) {
-                s3.deleteVersion(bucketName, key, versionSummary.getVersionId());
-            }
-        } while (versionListing.isTruncated());
+        deleteObjectAndAllVersions(bucketName, key, new NullProgressMonitor());
     }
 
+    /**
+     * Deletes an object along with all object versions, if any exist,
+     * reporting one unit of work per deleted version to the given monitor.
+     */
+    public void deleteObjectAndAllVersions(String bucketName, String key, IProgressMonitor monitor) {
+        AmazonS3 s3 = AwsToolkitCore.getClientFactory().getS3ClientForBucket(bucketName);
+        deleteAllVersions(s3, bucketName, key, monitor);
+    }
 
     /**
      * Deletes a bucket along with all contained objects and any object versions if they exist.
      */
     public void deleteBucketAndAllVersions(String bucketName) {
-        AmazonS3 s3 = AwsToolkitCore.getClientFactory().getS3ClientForBucket(bucketName);
-        VersionListing versionListing = null;
-        do {
-            if (versionListing == null) {
-                versionListing = s3.listVersions(bucketName, null);
-            } else {
-                versionListing = s3.listNextBatchOfVersions(versionListing);
-            }
+        deleteBucketAndAllVersions(bucketName, new NullProgressMonitor());
+    }
 
-            for (S3VersionSummary versionSummary : versionListing.getVersionSummaries()) {
-                s3.deleteVersion(bucketName, versionSummary.getKey(), versionSummary.getVersionId());
-            }
-        } while (versionListing.isTruncated());
+    /**
+     * Deletes a bucket along with all contained objects and any object
+     * versions if they exist, reporting one unit of work per deleted version
+     * to the given monitor.
+     */
+    public void deleteBucketAndAllVersions(String bucketName, IProgressMonitor monitor) {
+        AmazonS3 s3 = AwsToolkitCore.getClientFactory().getS3ClientForBucket(bucketName);
+        deleteAllVersions(s3, bucketName, null, monitor);
 
         s3.deleteBucket(bucketName);
+        AwsToolkitCore.getDefault().getS3BucketDirectory().bucketDeleted(bucketName);
+    }
+
+    /**
+     * Deletes all the versions of the given key, or of all the keys if the
+     * key is null. The next page of versions is listed while the previous
+     * one is being deleted.
+     */
+    private void deleteAllVersions(AmazonS3 s3, String bucketName, String key, IProgressMonitor monitor) {
+        MultiObjectDeleter deleter = new MultiObjectDeleter(s3, bucketName, monitor);
+        try {
+            VersionListing versionListing = null;
+            do {
+                if (versionListing == null) {
+                    versionListing = s3.listVersions(new ListVersionsRequest()
+                            .withBucketName(bucketName)
+                            .withPrefix(key)
+                            .withMaxResults(MultiObjectDeleter.MAX_KEYS_PER_REQUEST));
+                } else {
+                    versionListing = s3.listNextBatchOfVersions(versionListing);
+                }
+
+                for (S3VersionSummary versionSummary : versionListing.getVersionSummaries()) {
+                    if (key == null || key.equals(versionSummary.getKey())) {
+                        deleter.delete(versionSummary.getKey(), versionSummary.getVersionId());
+                    }
+                }
+            } while (versionListing.isTruncated());
+
+            deleter.awaitCompletion();
+        } finally {
+            deleter.shutdown();
+        }
     }
 }
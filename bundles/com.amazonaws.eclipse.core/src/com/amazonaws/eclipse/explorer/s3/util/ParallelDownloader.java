@@ -0,0 +1,554 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.eclipse.core.util.BatchTransferProgress;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Downloads objects from S3 with concurrent byte-range GETs of
+ * {@link #PART_SIZE} bytes, each written directly to its position in the
+ * output file. Objects are downloaded several at a time when downloading a
+ * prefix.
+ * <p>
+ * The parts of an object downloaded in more than one part are recorded in a
+ * journal file next to the output file, so downloading the same object to the
+ * same file after a failure or a cancellation only downloads the missing
+ * parts, as long as the object hasn't changed. The journal is deleted once the
+ * object is downloaded.
+ */
+public class ParallelDownloader {
+
+    /** Size of the ranges objects are downloaded in. */
+    public static final long PART_SIZE = 8 * 1024 * 1024;
+
+    /** Suffix of the journal recording the downloaded parts of a file. */
+    static final String JOURNAL_SUFFIX = ".s3download";
+
+    /** Number of ranges downloaded at a time. */
+    private static final int PARALLELISM = 4;
+
+    /** Number of times a part is attempted before the download fails. */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /** Units of work reported to the monitor for the whole download. */
+    private static final int TOTAL_WORK = 1000;
+
+    /** How often the progress is reported while waiting for the parts. */
+    private static final long PROGRESS_INTERVAL_MILLIS = 200;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AmazonS3 s3;
+
+    public ParallelDownloader(AmazonS3 s3) {
+        this.s3 = s3;
+    }
+
+    /**
+     * Downloads an object to the given file, resuming an earlier download to
+     * the same file if possible.
+     *
+     * @throws AmazonClientException
+     *             If the object couldn't be downloaded.
+     * @throws OperationCanceledException
+     *             If the monitor was cancelled.
+     */
+    public void downloadObject(String bucketName, String key, File file, IProgressMonitor monitor) {
+        ObjectMetadata metadata = s3.getObjectMetadata(bucketName, key);
+        List<ObjectDownload> downloads = new ArrayList<>();
+        downloads.add(new ObjectDownload(bucketName, key, metadata.getETag(), metadata.getContentLength(), file));
+        download(downloads, monitor);
+    }
+
+    /**
+     * Downloads all the objects under a prefix to the given directory, at the
+     * same path relative to the directory as their keys relative to the
+     * prefix. Objects whose keys would lead outside of the directory, e.g.
+     * with "../" segments, are skipped.
+     *
+     * @throws AmazonClientException
+     *             If any object couldn't be downloaded or was skipped; the
+     *             other objects are still downloaded.
+     * @throws OperationCanceledException
+     *             If the monitor was cancelled.
+     */
+    public void downloadPrefix(String bucketName, String prefix, File directory, IProgressMonitor monitor) {
+        monitor.subTask("Listing " + prefix);
+        File canonicalDirectory = getCanonicalFile(directory);
+        List<ObjectDownload> downloads = new ArrayList<>();
+        List<String> skippedKeys = new ArrayList<>();
+        ObjectListing objectListing = null;
+        do {
+            if ( monitor.isCanceled() )
+                throw new OperationCanceledException();
+            if ( objectListing == null ) {
+                objectListing = s3.listObjects(new ListObjectsRequest()
+                        .withBucketName(bucketName)
+                        .withPrefix(prefix));
+            } else {
+                objectListing = s3.listNextBatchOfObjects(objectListing);
+            }
+
+            for ( S3ObjectSummary summary : objectListing.getObjectSummaries() ) {
+                String relativePath = summary.getKey().substring(prefix.length());
+                // Skip the placeholders of empty folders
+                if ( relativePath.isEmpty() || relativePath.endsWith("/") )
+                    continue;
+                File file = getCanonicalFile(new File(directory, relativePath.replace('/', File.separatorChar)));
+                if ( !file.toPath().startsWith(canonicalDirectory.toPath()) ) {
+                    skippedKeys.add(summary.getKey());
+                    continue;
+                }
+                downloads.add(new ObjectDownload(bucketName, summary.getKey(), summary.getETag(), summary.getSize(), file));
+            }
+        } while ( objectListing.isTruncated() );
+
+        download(downloads, monitor);
+        if ( !skippedKeys.isEmpty() ) {
+            throw new AmazonClientException(String.format(
+                    "Skipped %d objects whose keys lead outside of %s, e.g. %s",
+                    skippedKeys.size(), directory, skippedKeys.get(0)));
+        }
+    }
+
+    private static File getCanonicalFile(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch ( IOException e ) {
+            throw new AmazonClientException("Unable to resolve " + file, e);
+        }
+    }
+
+    private void download(List<ObjectDownload> downloads, IProgressMonitor monitor) {
+        long totalBytes = 0;
+        for ( ObjectDownload download : downloads ) {
+            totalBytes += download.length;
+        }
+
+        BatchTransferProgress progress = new BatchTransferProgress(downloads.size(), totalBytes);
+        monitor.beginTask("Downloading", TOTAL_WORK);
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLELISM);
+        PartScheduler scheduler = new PartScheduler(executor, progress, monitor);
+        try {
+            for ( ObjectDownload download : downloads ) {
+                download.start(scheduler, progress);
+            }
+            scheduler.awaitCompletion();
+        } finally {
+            executor.shutdownNow();
+            for ( ObjectDownload download : downloads ) {
+                download.closeChannel();
+            }
+            monitor.done();
+        }
+
+        int failed = 0;
+        ObjectDownload firstFailure = null;
+        for ( ObjectDownload download : downloads ) {
+            if ( download.failure.get() != null ) {
+                failed++;
+                if ( firstFailure == null )
+                    firstFailure = download;
+            }
+        }
+        if ( firstFailure != null ) {
+            Exception e = firstFailure.failure.get();
+            String message = downloads.size() == 1
+                    ? String.format("Unable to download %s: %s", firstFailure.key, e.getMessage())
+                    : String.format("Unable to download %d of %d objects, e.g. %s: %s",
+                            failed, downloads.size(), firstFailure.key, e.getMessage());
+            throw new AmazonClientException(message, e);
+        }
+    }
+
+    /**
+     * Submits the parts to the executor from the caller's thread, bounding the
+     * parts in flight and reporting the progress meanwhile.
+     */
+    private static final class PartScheduler {
+        private final ExecutorService executor;
+        private final BatchTransferProgress progress;
+        private final IProgressMonitor monitor;
+        private final Semaphore permits = new Semaphore(PARALLELISM * 2);
+        private int reportedWork;
+
+        PartScheduler(ExecutorService executor, BatchTransferProgress progress, IProgressMonitor monitor) {
+            this.executor = executor;
+            this.progress = progress;
+            this.monitor = monitor;
+        }
+
+        void submit(final Runnable part) {
+            while ( !acquire() ) {
+                // Keep reporting the progress until a part completes
+            }
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        part.run();
+                    } finally {
+                        permits.release();
+                    }
+                }
+            });
+        }
+
+        void awaitCompletion() {
+            int acquired = 0;
+            while ( acquired < PARALLELISM * 2 ) {
+                if ( acquire() )
+                    acquired++;
+            }
+            permits.release(acquired);
+            reportProgress();
+        }
+
+        private boolean acquire() {
+            try {
+                boolean acquired = permits.tryAcquire(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                reportProgress();
+                if ( monitor.isCanceled() ) {
+                    if ( acquired )
+                        permits.release();
+                    executor.shutdownNow();
+                    throw new OperationCanceledException();
+                }
+                return acquired;
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                throw new OperationCanceledException();
+            }
+        }
+
+        private void reportProgress() {
+            int workDone = progress.getWorkDone(TOTAL_WORK);
+            if ( workDone > reportedWork ) {
+                monitor.worked(workDone - reportedWork);
+                reportedWork = workDone;
+            }
+            monitor.subTask(progress.getSummary());
+        }
+    }
+
+    /** The download of one object, shared by the threads downloading its parts. */
+    private final class ObjectDownload {
+        private final String bucketName;
+        private final String key;
+        private final String eTag;
+        private final long length;
+        private final File file;
+        private final int partCount;
+
+        private final AtomicInteger remainingParts = new AtomicInteger();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private FileChannel channel;
+        private DownloadJournal journal;
+        private BatchTransferProgress progress;
+
+        ObjectDownload(String bucketName, String key, String eTag, long length, File file) {
+            this.bucketName = bucketName;
+            this.key = key;
+            this.eTag = eTag;
+            this.length = length;
+            this.file = file;
+            this.partCount = (int) ((length + PART_SIZE - 1) / PART_SIZE);
+        }
+
+        /** Opens the output file and submits the parts that are still missing. */
+        void start(PartScheduler scheduler, BatchTransferProgress progress) {
+            this.progress = progress;
+            BitSet completedParts;
+            try {
+                File parent = file.getParentFile();
+                if ( parent != null && !parent.isDirectory() && !parent.mkdirs() )
+                    throw new IOException("Unable to create directory " + parent);
+
+                journal = new DownloadJournal(new File(file.getParentFile(), "." + file.getName() + JOURNAL_SUFFIX));
+                completedParts = partCount > 1 && file.isFile()
+                        ? journal.load(eTag, length, PART_SIZE)
+                        : new BitSet();
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                // Overwrite any existing file, unless resuming its download
+                channel.truncate(completedParts.isEmpty() ? 0 : length);
+            } catch ( IOException e ) {
+                fail(e);
+                progress.fileCompleted(true);
+                return;
+            }
+
+            remainingParts.set(partCount - completedParts.cardinality());
+            if ( remainingParts.get() == 0 ) {
+                complete();
+                return;
+            }
+            for ( int part = 0; part < partCount; part++ ) {
+                if ( completedParts.get(part) ) {
+                    progress.bytesTransferred(getPartEnd(part) - getPartStart(part));
+                    continue;
+                }
+                final int partNumber = part;
+                scheduler.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        downloadPart(partNumber);
+                    }
+                });
+            }
+        }
+
+        private long getPartStart(int part) {
+            return part * PART_SIZE;
+        }
+
+        /** Returns the exclusive end of the given part. */
+        private long getPartEnd(int part) {
+            return Math.min(getPartStart(part) + PART_SIZE, length);
+        }
+
+        private void downloadPart(int part) {
+            for ( int attempt = 1; failure.get() == null; attempt++ ) {
+                long written = 0;
+                try {
+                    written = transferPart(part);
+                    if ( partCount > 1 ) {
+                        // Only record parts that made it to the disk
+                        channel.force(false);
+                        journal.partCompleted(part, eTag, length, PART_SIZE);
+                    }
+                    break;
+                } catch ( Exception e ) {
+                    // The part is downloaded again from its start
+                    progress.bytesTransferred(-written);
+                    if ( Thread.currentThread().isInterrupted() )
+                        return;
+                    if ( attempt == MAX_ATTEMPTS || !isRetryable(e) ) {
+                        fail(e);
+                        break;
+                    }
+                }
+            }
+            if ( remainingParts.decrementAndGet() == 0 )
+                complete();
+        }
+
+        /**
+         * Downloads a part to its position in the file and returns the number
+         * of bytes written.
+         */
+        private long transferPart(int part) throws IOException {
+            long start = getPartStart(part);
+            long end = getPartEnd(part);
+            GetObjectRequest request = new GetObjectRequest(bucketName, key).withRange(start, end - 1);
+            if ( eTag != null )
+                request.withMatchingETagConstraint(eTag);
+            S3Object object = s3.getObject(request);
+            if ( object == null )
+                throw new ObjectModifiedException(key);
+
+            long position = start;
+            S3ObjectInputStream in = object.getObjectContent();
+            try {
+                ReadableByteChannel source = Channels.newChannel(in);
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                while ( position < end && source.read(buffer) >= 0 ) {
+                    buffer.flip();
+                    while ( buffer.hasRemaining() ) {
+                        int bytes = channel.write(buffer, position);
+                        position += bytes;
+                        progress.bytesTransferred(bytes);
+                    }
+                    buffer.clear();
+                }
+                if ( position != end )
+                    throw new IOException("Unexpected end of the content of " + key);
+            } catch ( IOException | RuntimeException e ) {
+                in.abort();
+                progress.bytesTransferred(-(position - start));
+                throw e;
+            } finally {
+                in.close();
+            }
+            return position - start;
+        }
+
+        private boolean isRetryable(Exception e) {
+            if ( e instanceof ObjectModifiedException )
+                return false;
+            if ( e instanceof AmazonServiceException ) {
+                AmazonServiceException ase = (AmazonServiceException) e;
+                return ase.getStatusCode() >= 500 || ase.getStatusCode() == 429
+                        || "SlowDown".equals(ase.getErrorCode()) || "RequestTimeout".equals(ase.getErrorCode());
+            }
+            return true;
+        }
+
+        private void fail(Exception e) {
+            failure.compareAndSet(null, e);
+            if ( e instanceof ObjectModifiedException && journal != null )
+                journal.delete();
+        }
+
+        private void complete() {
+            try {
+                if ( channel != null )
+                    channel.close();
+            } catch ( IOException e ) {
+                fail(e);
+            }
+            boolean failed = failure.get() != null;
+            if ( !failed )
+                journal.delete();
+            progress.fileCompleted(failed);
+        }
+
+        /** Closes the output file if parts are still being downloaded, e.g. after a cancellation. */
+        void closeChannel() {
+            try {
+                if ( channel != null && channel.isOpen() )
+                    channel.close();
+            } catch ( IOException e ) {
+                // The parts written so far are recorded in the journal
+            }
+        }
+    }
+
+    /** The object was replaced by another version during the download. */
+    private static final class ObjectModifiedException extends AmazonClientException {
+        private static final long serialVersionUID = 1L;
+
+        ObjectModifiedException(String key) {
+            super(key + " was modified during the download; download it again to get the new version");
+        }
+    }
+
+    /**
+     * Records the downloaded parts of a file, with the ETag and length of the
+     * object, so the download can be resumed.
+     */
+    static final class DownloadJournal {
+        private static final String ETAG = "eTag";
+        private static final String LENGTH = "length";
+        private static final String PART_SIZE = "partSize";
+        private static final String COMPLETED_PARTS = "completedParts";
+
+        private final File file;
+        private final BitSet completedParts = new BitSet();
+
+        DownloadJournal(File file) {
+            this.file = file;
+        }
+
+        /**
+         * Loads the parts recorded for the given object, or returns no parts if
+         * the journal is missing or was written for another object version.
+         */
+        synchronized BitSet load(String eTag, long length, long partSize) {
+            completedParts.clear();
+            if ( !file.isFile() || eTag == null )
+                return new BitSet();
+
+            Properties properties = new Properties();
+            try ( InputStream in = new FileInputStream(file) ) {
+                properties.load(in);
+            } catch ( IOException e ) {
+                return new BitSet();
+            }
+            if ( !eTag.equals(properties.getProperty(ETAG))
+                    || !String.valueOf(length).equals(properties.getProperty(LENGTH))
+                    || !String.valueOf(partSize).equals(properties.getProperty(PART_SIZE)) ) {
+                return new BitSet();
+            }
+
+            try {
+                for ( String part : properties.getProperty(COMPLETED_PARTS, "").split(",") ) {
+                    if ( !part.isEmpty() )
+                        completedParts.set(Integer.parseInt(part));
+                }
+            } catch ( NumberFormatException e ) {
+                completedParts.clear();
+            }
+            return (BitSet) completedParts.clone();
+        }
+
+        /** Records a downloaded part, replacing the journal atomically. */
+        synchronized void partCompleted(int part, String eTag, long length, long partSize) throws IOException {
+            if ( eTag == null )
+                return;
+            completedParts.set(part);
+
+            StringBuilder parts = new StringBuilder();
+            for ( int i = completedParts.nextSetBit(0); i >= 0; i = completedParts.nextSetBit(i + 1) ) {
+                if ( parts.length() > 0 )
+                    parts.append(',');
+                parts.append(i);
+            }
+            Properties properties = new Properties();
+            properties.setProperty(ETAG, eTag);
+            properties.setProperty(LENGTH, String.valueOf(length));
+            properties.setProperty(PART_SIZE, String.valueOf(partSize));
+            properties.setProperty(COMPLETED_PARTS, parts.toString());
+
+            File temp = new File(file.getPath() + ".tmp");
+            try ( OutputStream out = new FileOutputStream(temp) ) {
+                properties.store(out, null);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        synchronized void delete() {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.explorer.s3.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.eclipse.core.util.StorageAnalytics;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Streams the listing of a prefix of a bucket into a
+ * {@link StorageAnalytics}, listing the folders directly under the prefix in
+ * parallel. Each page of the listing is merged into the analytics as soon as
+ * it's aggregated, so the rollups can be displayed while they build.
+ */
+public class StorageAnalyzer {
+
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    /** Maximum number of folders listed at the same time. */
+    private static final int MAX_CONCURRENT_LISTINGS = 8;
+
+    private final AmazonS3 s3;
+    private final String bucketName;
+    private final AtomicLong listedCount = new AtomicLong();
+
+    public StorageAnalyzer(AmazonS3 s3, String bucketName) {
+        this.s3 = s3;
+        this.bucketName = bucketName;
+    }
+
+    /** Returns the number of objects listed so far. */
+    public long getListedCount() {
+        return listedCount.get();
+    }
+
+    /**
+     * Lists all the objects under the prefix of the given analytics into it,
+     * blocking until done.
+     *
+     * @throws OperationCanceledException
+     *             If the monitor is cancelled.
+     */
+    public void analyze(final StorageAnalytics analytics, final IProgressMonitor monitor) {
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_LISTINGS);
+        try {
+            List<Future<?>> listings = new ArrayList<>();
+            ListObjectsV2Request request = new ListObjectsV2Request()
+                    .withBucketName(bucketName)
+                    .withPrefix(analytics.getPrefix())
+                    .withDelimiter("/")
+                    .withMaxKeys(LIST_PAGE_SIZE);
+            ListObjectsV2Result result;
+            do {
+                checkCanceled(monitor);
+                result = s3.listObjectsV2(request);
+                aggregate(result, analytics);
+                for (final String folder : result.getCommonPrefixes()) {
+                    listings.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            listFolder(folder, analytics, monitor);
+                        }
+                    }));
+                }
+                request.setContinuationToken(result.getNextContinuationToken());
+            } while (result.isTruncated());
+
+            for (Future<?> listing : listings) {
+                try {
+                    listing.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OperationCanceledException();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new AmazonClientException("Unable to list " + bucketName, e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void listFolder(String folder, StorageAnalytics analytics, IProgressMonitor monitor) {
+        ListObjectsV2Request request = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(folder)
+                .withMaxKeys(LIST_PAGE_SIZE);
+        ListObjectsV2Result result;
+        do {
+            checkCanceled(monitor);
+            result = s3.listObjectsV2(request);
+            aggregate(result, analytics);
+            request.setContinuationToken(result.getNextContinuationToken());
+        } while (result.isTruncated());
+    }
+
+    /** Aggregates a page on its own, then merges it in a single step. */
+    private void aggregate(ListObjectsV2Result page, StorageAnalytics analytics) {
+        StorageAnalytics pageAnalytics = new StorageAnalytics(analytics.getPrefix(), analytics.getNowMillis());
+        for (S3ObjectSummary summary : page.getObjectSummaries()) {
+            pageAnalytics.add(summary.getKey(), summary.getSize(), summary.getStorageClass(),
+                    summary.getLastModified() == null ? 0 : summary.getLastModified().getTime());
+        }
+        analytics.merge(pageAnalytics);
+        listedCount.addAndGet(page.getObjectSummaries().size());
+    }
+
+    private static void checkCanceled(IProgressMonitor monitor) {
+        if (monitor.isCanceled()) {
+            throw new OperationCanceledException();
+        }
+    }
+}
@@ -58,7 +58,9 @@ import org.eclipse.ui.part.EditorPart;
 
 import com.amazonaws.eclipse.core.AWSClientFactory;
 import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
 import com.amazonaws.eclipse.core.ui.IRefreshable;
+import com.amazonaws.eclipse.explorer.LoadingScheduler;
 import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.model.GetTopicAttributesRequest;
 import com.amazonaws.services.sns.model.ListSubscriptionsByTopicRequest;
@@ -131,7 +133,7 @@ public class TopicEditor extends EditorPart implements IRefreshable {
     }
 
 
-    private class LoadTopicAttributesThread extends Thread {
+    private class LoadTopicAttributesThread implements Runnable {
         @Override
         public void run() {
             try {
@@ -207,8 +209,8 @@ public class TopicEditor extends EditorPart implements IRefreshable {
 
         @Override
         public void run() {
-            new LoadTopicAttributesThread().start();
-            new LoadSubscriptionsThread().start();
+            LoadingScheduler.getInstance().submit(ServiceAbbreviations.SNS, new LoadTopicAttributesThread());
+            LoadingScheduler.getInstance().submit(ServiceAbbreviations.SNS, new LoadSubscriptionsThread());
         }
     }
 
@@ -323,7 +325,7 @@ public class TopicEditor extends EditorPart implements IRefreshable {
         topicArnLabel = toolkit.createText(summaryComposite, "", SWT.READ_ONLY);
         gdf.applyTo(topicArnLabel);
 
-        new LoadTopicAttributesThread().start();
+        LoadingScheduler.getInstance().submit(ServiceAbbreviations.SNS, new LoadTopicAttributesThread());
     }
 
     private void createSubscriptionsComposite(FormToolkit toolkit, Composite parent) {
@@ -389,10 +391,10 @@ public class TopicEditor extends EditorPart implements IRefreshable {
 
     @Override
     public void refreshData() {
-        new LoadSubscriptionsThread().start();
+        LoadingScheduler.getInstance().submit(ServiceAbbreviations.SNS, new LoadSubscriptionsThread());
     }
 
-    private class LoadSubscriptionsThread extends Thread {
+    private class LoadSubscriptionsThread implements Runnable {
         @Override
         public void run() {
             AmazonSNS sns = getClient();
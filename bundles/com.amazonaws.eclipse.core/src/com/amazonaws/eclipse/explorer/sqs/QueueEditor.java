@@ -71,7 +71,9 @@ import org.eclipse.ui.part.EditorPart;
 
 import com.amazonaws.eclipse.core.AWSClientFactory;
 import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
 import com.amazonaws.eclipse.core.ui.IRefreshable;
+import com.amazonaws.eclipse.explorer.LoadingScheduler;
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.model.DeleteMessageRequest;
 import com.amazonaws.services.sqs.model.GetQueueAttributesRequest;
@@ -179,8 +181,8 @@ public class QueueEditor extends EditorPart implements IRefreshable {
 
         @Override
         public void run() {
-            new LoadMessagesThread().start();
-            new LoadQueueAttributesThread().start();
+            LoadingScheduler.getInstance().submit(ServiceAbbreviations.SQS, new LoadMessagesThread());
+            LoadingScheduler.getInstance().submit(ServiceAbbreviations.SQS, new LoadQueueAttributesThread());
         }
     }
 
@@ -219,7 +221,7 @@ public class QueueEditor extends EditorPart implements IRefreshable {
         queueDelayLabel = toolkit.createText(composite, "", SWT.READ_ONLY);
         gridDataFactory.applyTo(queueDelayLabel);
 
-        new LoadQueueAttributesThread().start();
+        LoadingScheduler.getInstance().submit(ServiceAbbreviations.SQS, new LoadQueueAttributesThread());
     }
 
     private AmazonSQS getClient() {
@@ -227,7 +229,7 @@ public class QueueEditor extends EditorPart implements IRefreshable {
         return clientFactory.getSQSClientByEndpoint(queueEditorInput.getRegionEndpoint());
     }
 
-    private class LoadQueueAttributesThread extends Thread {
+    private class LoadQueueAttributesThread implements Runnable {
         @Override
         public void run() {
             GetQueueAttributesRequest request = new GetQueueAttributesRequest(queueEditorInput.getQueueUrl()).withAttributeNames(ALL);
@@ -255,7 +257,7 @@ public class QueueEditor extends EditorPart implements IRefreshable {
         }
     }
 
-    private class LoadMessagesThread extends Thread {
+    private class LoadMessagesThread implements Runnable {
         @Override
         public void run() {
             final Map<String, Message> messagesById = new HashMap<>();
@@ -410,7 +412,7 @@ public class QueueEditor extends EditorPart implements IRefreshable {
         viewer.getTree().setMenu(menu);
         getSite().registerContextMenu(menuManager, viewer);
 
-        new LoadMessagesThread().start();
+        LoadingScheduler.getInstance().submit(ServiceAbbreviations.SQS, new LoadMessagesThread());
     }
 
     private void createColumns(TreeColumnLayout columnLayout, Tree tree) {
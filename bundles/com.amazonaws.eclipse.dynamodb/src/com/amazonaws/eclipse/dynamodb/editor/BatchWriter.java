@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.eclipse.core.util.CapacityLimiter;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ * Sends one batch of puts and deletes to a table, retrying the items DynamoDB
+ * leaves unprocessed with jittered exponential backoff. A writer is used for a
+ * single batch, and keeps track of the requests still unprocessed so that the
+ * caller can tell what's left when writing stops early.
+ */
+class BatchWriter {
+
+    /** Most write requests a BatchWriteItem request may contain. */
+    static final int MAX_BATCH_SIZE = 25;
+
+    /** How many times a batch is sent before its unprocessed items are given up. */
+    static final int MAX_BATCH_ATTEMPTS = 10;
+    private static final long BASE_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private final AmazonDynamoDB dynamoDB;
+    private final String tableName;
+    private final CapacityLimiter limiter;
+    private List<WriteRequest> unprocessed;
+
+    /**
+     * @param limiter
+     *            The write capacity each request is throttled by, or null to
+     *            send requests as fast as DynamoDB accepts them.
+     */
+    BatchWriter(AmazonDynamoDB dynamoDB, String tableName, CapacityLimiter limiter, List<WriteRequest> batch) {
+        this.dynamoDB = dynamoDB;
+        this.tableName = tableName;
+        this.limiter = limiter;
+        this.unprocessed = batch;
+    }
+
+    /**
+     * Sends the batch until every request in it has been processed, it has
+     * been sent {@link #MAX_BATCH_ATTEMPTS} times, or {@link #isCanceled()}
+     * returns true. Whatever happens, {@link #getUnprocessed()} then returns
+     * the requests that weren't written.
+     *
+     * @throws AmazonClientException
+     *             If DynamoDB rejects a request; none of the unprocessed
+     *             requests were written.
+     */
+    void write() throws InterruptedException {
+        for ( int attempt = 1; !unprocessed.isEmpty() && attempt <= MAX_BATCH_ATTEMPTS && !isCanceled(); attempt++ ) {
+            if ( attempt > 1 ) {
+                backoff(attempt - 1);
+            }
+            BatchWriteItemRequest request = new BatchWriteItemRequest(
+                    Collections.singletonMap(tableName, unprocessed));
+            if ( limiter != null ) {
+                limiter.acquire();
+                request.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            }
+
+            BatchWriteItemResult result = dynamoDB.batchWriteItem(request);
+            if ( limiter != null && result.getConsumedCapacity() != null ) {
+                for ( ConsumedCapacity consumed : result.getConsumedCapacity() ) {
+                    limiter.consume(consumed.getCapacityUnits());
+                }
+            }
+            Map<String, List<WriteRequest>> unprocessedItems = result.getUnprocessedItems();
+            unprocessed = unprocessedItems == null || !unprocessedItems.containsKey(tableName)
+                    ? Collections.<WriteRequest>emptyList() : unprocessedItems.get(tableName);
+        }
+    }
+
+    /**
+     * Returns the requests of the batch that haven't been written.
+     */
+    List<WriteRequest> getUnprocessed() {
+        return unprocessed;
+    }
+
+    /**
+     * Returns whether writing should stop before the next attempt. The
+     * default implementation never stops early.
+     */
+    protected boolean isCanceled() {
+        return false;
+    }
+
+    /**
+     * Sleeps for a random time of up to an exponentially growing limit, so
+     * that concurrent batches don't retry in lockstep.
+     */
+    static void backoff(int retry) throws InterruptedException {
+        long limit = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(retry, 16));
+        Thread.sleep(ThreadLocalRandom.current().nextLong(limit + 1));
+    }
+}
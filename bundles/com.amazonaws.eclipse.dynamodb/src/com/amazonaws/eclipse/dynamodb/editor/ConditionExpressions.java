@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+
+/**
+ * Turns the conditions assembled in the editor into condition and projection
+ * expressions. Attribute names and values are always passed as placeholders,
+ * so reserved words and special characters need no escaping.
+ */
+final class ConditionExpressions {
+
+    /** Operators a sort key condition of a query can use. */
+    static final Collection<ComparisonOperator> KEY_CONDITION_OPERATORS = Arrays.asList(
+            ComparisonOperator.EQ, ComparisonOperator.LT, ComparisonOperator.LE, ComparisonOperator.GT,
+            ComparisonOperator.GE, ComparisonOperator.BETWEEN, ComparisonOperator.BEGINS_WITH);
+
+    private final Map<String, String> names = new HashMap<>();
+    private final Map<String, AttributeValue> values = new HashMap<>();
+
+    /**
+     * Returns the expression for all the given conditions, joined with AND, or
+     * null if there are none.
+     */
+    String and(Map<String, Condition> conditions) {
+        if ( conditions.isEmpty() ) {
+            return null;
+        }
+        List<String> expressions = new ArrayList<>();
+        for ( Map.Entry<String, Condition> condition : conditions.entrySet() ) {
+            expressions.add(condition(condition.getKey(), condition.getValue()));
+        }
+        return join(" AND ", expressions);
+    }
+
+    /**
+     * Returns the expression for a single condition on an attribute.
+     */
+    String condition(String attributeName, Condition condition) {
+        String name = name(attributeName);
+        List<AttributeValue> operands = condition.getAttributeValueList();
+        switch ( ComparisonOperator.fromValue(condition.getComparisonOperator()) ) {
+        case EQ:
+            return name + " = " + value(operands.get(0));
+        case NE:
+            return name + " <> " + value(operands.get(0));
+        case LT:
+            return name + " < " + value(operands.get(0));
+        case LE:
+            return name + " <= " + value(operands.get(0));
+        case GT:
+            return name + " > " + value(operands.get(0));
+        case GE:
+            return name + " >= " + value(operands.get(0));
+        case BETWEEN:
+            return name + " BETWEEN " + value(operands.get(0)) + " AND " + value(operands.get(1));
+        case BEGINS_WITH:
+            return "begins_with(" + name + ", " + value(operands.get(0)) + ")";
+        case CONTAINS:
+            return "contains(" + name + ", " + value(operands.get(0)) + ")";
+        case NOT_CONTAINS:
+            return "NOT contains(" + name + ", " + value(operands.get(0)) + ")";
+        case NULL:
+            return "attribute_not_exists(" + name + ")";
+        case NOT_NULL:
+            return "attribute_exists(" + name + ")";
+        case IN:
+            List<String> placeholders = new ArrayList<>();
+            for ( AttributeValue operand : operands ) {
+                placeholders.add(value(operand));
+            }
+            return name + " IN (" + join(", ", placeholders) + ")";
+        default:
+            throw new IllegalArgumentException("Unsupported comparison operator " + condition.getComparisonOperator());
+        }
+    }
+
+    /**
+     * Returns the projection expression for the given attributes, or null if
+     * there are none.
+     */
+    String projection(Collection<String> attributeNames) {
+        if ( attributeNames.isEmpty() ) {
+            return null;
+        }
+        List<String> placeholders = new ArrayList<>();
+        for ( String attributeName : attributeNames ) {
+            placeholders.add(name(attributeName));
+        }
+        return join(", ", placeholders);
+    }
+
+    /**
+     * Returns the placeholders of the attribute names used so far, or null if
+     * there are none.
+     */
+    Map<String, String> getNames() {
+        return names.isEmpty() ? null : names;
+    }
+
+    /**
+     * Returns the placeholders of the attribute values used so far, or null
+     * if there are none.
+     */
+    Map<String, AttributeValue> getValues() {
+        return values.isEmpty() ? null : values;
+    }
+
+    private String name(String attributeName) {
+        for ( Map.Entry<String, String> name : names.entrySet() ) {
+            if ( name.getValue().equals(attributeName) ) {
+                return name.getKey();
+            }
+        }
+        String placeholder = "#n" + names.size();
+        names.put(placeholder, attributeName);
+        return placeholder;
+    }
+
+    private String value(AttributeValue value) {
+        String placeholder = ":v" + values.size();
+        values.put(placeholder, value);
+        return placeholder;
+    }
+
+    private static String join(String separator, List<String> parts) {
+        StringBuilder builder = new StringBuilder();
+        for ( String part : parts ) {
+            if ( builder.length() > 0 ) {
+                builder.append(separator);
+            }
+            builder.append(part);
+        }
+        return builder.toString();
+    }
+}
@@ -25,10 +25,7 @@ import static com.amazonaws.eclipse.dynamodb.editor.AttributeValueUtil.getDataTy
 import static com.amazonaws.eclipse.dynamodb.editor.AttributeValueUtil.getValuesFromAttribute;
 import static com.amazonaws.eclipse.dynamodb.editor.AttributeValueUtil.setAttribute;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -36,17 +33,23 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.eclipse.core.commands.IHandler;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.ControlContribution;
 import org.eclipse.jface.action.IMenuListener;
 import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.MenuManager;
@@ -59,7 +62,8 @@ import org.eclipse.jface.layout.GridLayoutFactory;
 import org.eclipse.jface.layout.TableColumnLayout;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.viewers.ColumnWeightData;
-import org.eclipse.jface.viewers.IStructuredContentProvider;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.ITableColorProvider;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.swt.SWT;
@@ -77,19 +81,24 @@ import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.TraverseEvent;
 import org.eclipse.swt.events.TraverseListener;
+import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.layout.FormAttachment;
 import org.eclipse.swt.layout.FormData;
 import org.eclipse.swt.layout.FormLayout;
+import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
-import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Link;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Sash;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
@@ -104,37 +113,38 @@ import org.eclipse.ui.handlers.IHandlerService;
 import org.eclipse.ui.part.EditorPart;
 import org.eclipse.ui.statushandlers.StatusManager;
 
-import com.amazonaws.AmazonClientException;
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.mobileanalytics.AwsToolkitMetricType;
 import com.amazonaws.eclipse.core.ui.AbstractTableLabelProvider;
 import com.amazonaws.eclipse.dynamodb.AbstractAddNewAttributeDialog;
 import com.amazonaws.eclipse.dynamodb.DynamoDBPlugin;
+import com.amazonaws.eclipse.dynamodb.preferences.PreferenceInitializer;
 import com.amazonaws.eclipse.explorer.AwsAction;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeAction;
 import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
-import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
-import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
 import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
 import com.amazonaws.services.dynamodbv2.model.KeyType;
-import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
-import com.amazonaws.services.dynamodbv2.model.ScanResult;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
-import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 
 /**
  * Scan editor for DynamoDB tables.
  */
 public class DynamoDBTableEditor extends EditorPart {
 
-    private static final String[] exportExtensions = new String[] { "*.csv" };
+    /** Entry of the index combo that queries the table itself. */
+    private static final String TABLE_INDEX_LABEL = "(table)";
 
     /*
      * SWT editor glue
@@ -164,8 +174,37 @@ public class DynamoDBTableEditor extends EditorPart {
      * Table info that we fetch and store
      */
     private KeySchemaWithAttributeType tableKey;
+    private final Map<String, KeySchemaWithAttributeType> indexKeys = new LinkedHashMap<>();
     final Set<String> knownAttributes = new HashSet<>();
-    private ScanResult scanResult = new ScanResult();
+
+    /*
+     * The current scan or query, counted so that pages of an older one can be
+     * told apart, the job reading its pages, how many segments new scans are
+     * split into and the read capacity consumed so far.
+     */
+    private ItemPages pages;
+    private int scanGeneration;
+    private Job scanJob;
+    private int scanSegments;
+    private double consumedCapacity;
+
+    /*
+     * Query options: whether to query instead of scanning, the index to query
+     * (null for the table itself) and the attributes to return (empty for all).
+     */
+    private boolean queryMode;
+    private String queryIndexName;
+    private final List<String> projection = new ArrayList<>();
+
+    /*
+     * Controls of the query options
+     */
+    private Button scanModeButton;
+    private Button queryModeButton;
+    private Combo indexCombo;
+    private Text projectionText;
+    private Link querySuggestion;
+    private Label consumedCapacityLabel;
 
     /*
      * Actions to enable and disable
@@ -181,104 +220,88 @@ public class DynamoDBTableEditor extends EditorPart {
 
         monitor.beginTask("Saving changes", editedItems.size() + deletedItems.size());
 
+        Map<Map<String, AttributeValue>, String> failures;
         try{
             AmazonDynamoDB dynamoDBClient = AwsToolkitCore.getClientFactory(tableEditorInput.getAccountId())
                     .getDynamoDBV2Client();
 
             /*
-             * Save all edited items, only touching edited attributes.
+             * Due to a bug in Dynamo, updateItem will not create a new item
+             * when only the key is specified. Therefore, new items are put
+             * and edited items are updated, only touching edited attributes,
+             * as in DynamoDBMapper.save().
              */
-            if ( !editedItems.isEmpty() ) {
-                for ( Iterator<Entry<Map<String, AttributeValue>, EditedItem>> iter = editedItems.iterator(); iter.hasNext(); ) {
-                    Entry<Map<String, AttributeValue>, EditedItem> editedItem = iter.next();
-
-                    try {
-                        /*
-                         * Due to a bug in Dynamo, updateItem will not create a
-                         * new item when only the key is specified. Therefore,
-                         * we need two code paths here, as in
-                         * DynamoDBMapper.save().
-                         */
-                        if ( editedItem.getValue().getEditedAttributes().isEmpty() ) {
-                            PutItemRequest rq = new PutItemRequest().withTableName(tableEditorInput.getTableName());
-                            rq.setItem(editedItem.getValue().getAttributes());
-                            Map<String, ExpectedAttributeValue> expected = new HashMap<>();
-                            for ( String attr : editedItem.getValue().getAttributes().keySet() ) {
-                                expected.put(attr, new ExpectedAttributeValue().withExists(false));
-                            }
-                            rq.setExpected(expected);
-
-                            dynamoDBClient.putItem(rq);
-
+            Map<Map<String, AttributeValue>, Map<String, AttributeValue>> newItems = new LinkedHashMap<>();
+            Map<Map<String, AttributeValue>, Map<String, AttributeValueUpdate>> updates = new LinkedHashMap<>();
+            for ( Iterator<Entry<Map<String, AttributeValue>, EditedItem>> iter = editedItems.iterator(); iter.hasNext(); ) {
+                Entry<Map<String, AttributeValue>, EditedItem> editedItem = iter.next();
+                if ( editedItem.getValue().getEditedAttributes().isEmpty() ) {
+                    newItems.put(editedItem.getKey(), editedItem.getValue().getAttributes());
+                } else {
+                    Map<String, AttributeValueUpdate> values = new HashMap<>();
+                    for ( String attributeName : editedItem.getValue().getEditedAttributes() ) {
+                        AttributeValueUpdate update = new AttributeValueUpdate();
+                        AttributeValue attributeValue = editedItem.getValue().getAttributes()
+                                .get(attributeName);
+                        if ( attributeValue == null ) {
+                            update.setAction(AttributeAction.DELETE);
                         } else {
-                            UpdateItemRequest rq = new UpdateItemRequest().withTableName(tableEditorInput
-                                    .getTableName());
-                            rq.setKey(editedItem.getKey());
-                            Map<String, AttributeValueUpdate> values = new HashMap<>();
-                            for ( String attributeName : editedItem.getValue().getEditedAttributes() ) {
-                                AttributeValueUpdate update = new AttributeValueUpdate();
-                                AttributeValue attributeValue = editedItem.getValue().getAttributes()
-                                        .get(attributeName);
-                                if ( attributeValue == null ) {
-                                    update.setAction(AttributeAction.DELETE);
-                                } else {
-                                    update.setAction(AttributeAction.PUT);
-                                    update.setValue(attributeValue);
-                                }
-                                values.put(attributeName, update);
-                            }
-
-                            rq.setAttributeUpdates(values);
-
-                            dynamoDBClient.updateItem(rq);
-                        }
-
-                        for ( int col = 0; col < viewer.getTable().getColumnCount(); col++ ) {
-                            editedItem.getValue().getTableItem()
-                                    .setForeground(col, Display.getDefault().getSystemColor(SWT.COLOR_BLACK));
+                            update.setAction(AttributeAction.PUT);
+                            update.setValue(attributeValue);
                         }
-                        iter.remove();
-                        monitor.worked(1);
-
-                    } catch ( AmazonClientException e ) {
-                        StatusManager.getManager().handle(
-                                new Status(IStatus.ERROR, DynamoDBPlugin.PLUGIN_ID, "Error saving item with key "
-                                        + editedItem.getKey() + ": " + e.getMessage()), StatusManager.SHOW);
-                        return;
+                        values.put(attributeName, update);
                     }
+                    updates.put(editedItem.getKey(), values);
                 }
             }
 
+            List<String> keyAttributeNames = new ArrayList<>();
+            keyAttributeNames.add(tableKey.getHashKeyAttributeName());
+            if ( tableKey.hasRangeKey() ) {
+                keyAttributeNames.add(tableKey.getRangeKeyAttributeName());
+            }
+            failures = new ItemWriter(dynamoDBClient, tableEditorInput.getTableName(), keyAttributeNames)
+                    .write(newItems, updates, new ArrayList<>(deletedItems), monitor);
+
             /*
-             * Delete all deleted items.
+             * Clean up the edited state of every change that was saved.
              */
-            if ( !deletedItems.isEmpty() ) {
-                for ( Iterator<Map<String, AttributeValue>> iter = deletedItems.iterator(); iter.hasNext(); ) {
-                    Map<String, AttributeValue> deletedItem = iter.next();
-                    try {
-                        dynamoDBClient.deleteItem(new DeleteItemRequest()
-                                .withTableName(tableEditorInput.getTableName()).withKey(deletedItem));
-                    } catch ( AmazonClientException e ) {
-                        StatusManager.getManager().handle(
-                                new Status(IStatus.ERROR, DynamoDBPlugin.PLUGIN_ID, "Error deleting item with key "
-                                        + deletedItem + ": " + e.getMessage()), StatusManager.SHOW);
-                        return;
-                    }
+            for ( Iterator<Entry<Map<String, AttributeValue>, EditedItem>> iter = editedItems.iterator(); iter.hasNext(); ) {
+                Entry<Map<String, AttributeValue>, EditedItem> editedItem = iter.next();
+                if ( !failures.containsKey(editedItem.getKey()) ) {
+                    addedItems.remove(editedItem.getKey());
                     iter.remove();
-                    monitor.worked(1);
                 }
             }
+            for ( Iterator<Map<String, AttributeValue>> iter = deletedItems.iterator(); iter.hasNext(); ) {
+                if ( !failures.containsKey(iter.next()) ) {
+                    iter.remove();
+                }
+            }
+
+            // Saved changes are no longer shown as edited
+            viewer.refresh();
 
         /*
-         * Exception handling: if we fail to execute any action above, the
-         * editor is left in a sane state -- we clean up edited state as we
-         * make each service call, so all we have to do is notify of the
-         * exception and return without updating the editor's dirty state.
+         * Exception handling: changes that failed are left in the edited
+         * state, so all we have to do is report them and return without
+         * updating the editor's dirty state.
          */
         } finally {
             monitor.done();
         }
 
+        if ( !failures.isEmpty() ) {
+            MultiStatus status = new MultiStatus(DynamoDBPlugin.PLUGIN_ID, IStatus.ERROR,
+                    "Couldn't save " + failures.size() + (failures.size() == 1 ? " item" : " items"), null);
+            for ( Entry<Map<String, AttributeValue>, String> failure : failures.entrySet() ) {
+                status.add(new Status(IStatus.ERROR, DynamoDBPlugin.PLUGIN_ID, "Error saving item with key "
+                        + failure.getKey() + ": " + failure.getValue()));
+            }
+            StatusManager.getManager().handle(status, StatusManager.SHOW);
+            return;
+        }
+
         dirty = false;
         this.saveAction.setEnabled(false);
         firePropertyChange(PROP_DIRTY);
@@ -294,6 +317,8 @@ public class DynamoDBTableEditor extends EditorPart {
         setSite(site);
         setInput(input);
         this.tableEditorInput = (TableEditorInput) input;
+        this.scanSegments = Math.max(1, Math.min(ParallelScan.MAX_SEGMENTS, DynamoDBPlugin.getDefault()
+                .getPreferenceStore().getInt(PreferenceInitializer.SCAN_SEGMENTS_PREFERENCE_NAME)));
         setPartName(input.getName());
     }
 
@@ -380,6 +405,8 @@ public class DynamoDBTableEditor extends EditorPart {
         final Composite scanEditor = new Composite(composite, SWT.None);
         GridLayoutFactory.fillDefaults().applyTo(scanEditor);
 
+        createQueryOptions(scanEditor);
+
         final Button addCondition = new Button(scanEditor, SWT.PUSH);
         addCondition.setToolTipText("Add scan condition");
         addCondition.setText("Add scan condition");
@@ -404,6 +431,127 @@ public class DynamoDBTableEditor extends EditorPart {
         return scanEditor;
     }
 
+    /**
+     * Creates the row choosing between a scan and a query, along with the
+     * index and projection of the query.
+     */
+    private void createQueryOptions(Composite scanEditor) {
+        Composite options = new Composite(scanEditor, SWT.None);
+        GridLayoutFactory.fillDefaults().numColumns(6).margins(5, 0).applyTo(options);
+        GridDataFactory.fillDefaults().grab(true, false).applyTo(options);
+
+        scanModeButton = new Button(options, SWT.RADIO);
+        scanModeButton.setText("Scan");
+        scanModeButton.setToolTipText("Read the whole table, keeping the items matching the conditions");
+        scanModeButton.setSelection(true);
+
+        queryModeButton = new Button(options, SWT.RADIO);
+        queryModeButton.setText("Query");
+        queryModeButton.setToolTipText("Read only the items with the partition key given by an \"Equals\" condition");
+        queryModeButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                setQueryMode(queryModeButton.getSelection());
+            }
+        });
+
+        new Label(options, SWT.None).setText("Index:");
+        indexCombo = new Combo(options, SWT.READ_ONLY | SWT.DROP_DOWN);
+        indexCombo.setItems(new String[] { TABLE_INDEX_LABEL });
+        indexCombo.select(0);
+        indexCombo.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                queryIndexName = indexCombo.getSelectionIndex() <= 0 ? null : indexCombo.getText();
+            }
+        });
+
+        new Label(options, SWT.None).setText("Projection:");
+        projectionText = new Text(options, SWT.BORDER);
+        projectionText.setMessage("All attributes");
+        projectionText.setToolTipText("Comma-separated names of the attributes to return");
+        projectionText.addModifyListener(new ModifyListener() {
+            @Override
+            public void modifyText(ModifyEvent e) {
+                projection.clear();
+                for ( String attributeName : projectionText.getText().split(",") ) {
+                    if ( attributeName.trim().length() > 0 ) {
+                        projection.add(attributeName.trim());
+                    }
+                }
+            }
+        });
+        GridDataFactory.fillDefaults().grab(true, false).applyTo(projectionText);
+
+        querySuggestion = new Link(options, SWT.None);
+        querySuggestion.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                String indexName = (String) querySuggestion.getData();
+                indexCombo.select(Math.max(0, indexCombo.indexOf(indexName)));
+                queryIndexName = indexCombo.getSelectionIndex() <= 0 ? null : indexCombo.getText();
+                scanModeButton.setSelection(false);
+                queryModeButton.setSelection(true);
+                setQueryMode(true);
+                runScan();
+            }
+        });
+        GridDataFactory.fillDefaults().span(6, 1).exclude(true).applyTo(querySuggestion);
+        querySuggestion.setVisible(false);
+
+        setQueryMode(false);
+    }
+
+    private void setQueryMode(boolean queryMode) {
+        this.queryMode = queryMode;
+        indexCombo.setEnabled(queryMode);
+        projectionText.setEnabled(queryMode);
+        if ( queryMode ) {
+            showQuerySuggestion(null);
+        }
+    }
+
+    /**
+     * Shows a link running the current conditions as a query of the given
+     * index, or hides it if the index is null.
+     */
+    private void showQuerySuggestion(String indexName) {
+        if ( querySuggestion.isDisposed() ) {
+            return;
+        }
+        if ( indexName != null ) {
+            String target = TABLE_INDEX_LABEL.equals(indexName) ? "the table" : "index " + indexName;
+            querySuggestion.setText("The conditions include the partition key of " + target
+                    + ", so it can be read without a full table scan: <a>run as a query</a>");
+            querySuggestion.setData(indexName);
+        }
+        querySuggestion.setVisible(indexName != null);
+        ((GridData) querySuggestion.getLayoutData()).exclude = indexName == null;
+        querySuggestion.getParent().getParent().getParent().layout(true, true);
+    }
+
+    /**
+     * Lists the indexes of the table in the index combo, once they are known.
+     */
+    private void updateIndexes() {
+        if ( indexCombo.getItemCount() == indexKeys.size() + 1 ) {
+            return;
+        }
+        String selected = indexCombo.getText();
+        List<String> items = new ArrayList<>();
+        items.add(TABLE_INDEX_LABEL);
+        items.addAll(indexKeys.keySet());
+        indexCombo.setItems(items.toArray(new String[items.size()]));
+        indexCombo.select(Math.max(0, items.indexOf(selected)));
+        indexCombo.getParent().layout();
+    }
+
+    private void updateConsumedCapacity() {
+        if ( consumedCapacityLabel != null && !consumedCapacityLabel.isDisposed() ) {
+            consumedCapacityLabel.setText(String.format("Consumed: %.1f read capacity units", consumedCapacity));
+        }
+    }
+
     private void createActions() {
         runScanAction = new AwsAction(AwsToolkitMetricType.EXPLORER_DYNAMODB_RUN_SCAN) {
             @Override
@@ -491,77 +639,35 @@ public class DynamoDBTableEditor extends EditorPart {
 
             @Override
             public String getText() {
-                return "Export as CSV";
+                return "Export table";
             }
 
             @Override
             protected void doRun() {
-                FileDialog dialog = new FileDialog(Display.getCurrent().getActiveShell(), SWT.SAVE);
-                dialog.setOverwrite(true);
-                dialog.setFilterExtensions(exportExtensions);
-                String csvFile = dialog.open();
-                if (csvFile != null) {
-                    writeCsvFile(csvFile);
-                } else {
+                Map<String, Condition> conditions = getConditions();
+                String filterDescription = queryMode ? "query" : conditions.isEmpty() ? null : "scan";
+                ExportTableDialog dialog = new ExportTableDialog(Display.getCurrent().getActiveShell(),
+                        tableEditorInput.getTableName(), filterDescription);
+                if ( dialog.open() != 0 ) {
                     actionCanceled();
+                    actionFinished();
+                    return;
                 }
-                actionFinished();
-            }
 
-            private void writeCsvFile(final String csvFile) {
                 try {
-                    // truncate file before writing
-                    RandomAccessFile raf = new RandomAccessFile(new File(csvFile), "rw");
-                    raf.setLength(0L);
-                    raf.close();
-
-                    List<Map<String, AttributeValue>> items = new LinkedList<>();
-
-                    for ( TableItem tableItem : viewer.getTable().getItems() ) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, AttributeValue> e = (Map<String, AttributeValue>) tableItem.getData();
-                        items.add(e);
-                    }
-
-                    BufferedWriter out = new BufferedWriter(new FileWriter(csvFile));
-                    boolean seenOne = false;
-                    for (String col : contentProvider.getColumns()) {
-                        if ( seenOne ) {
-                            out.write(",");
-                        } else {
-                            seenOne = true;
-                        }
-                        out.write(col);
-                    }
-                    out.write("\n");
-
-                    for ( Map<String, AttributeValue> item : items ) {
-                        seenOne = false;
-                        for (String col : contentProvider.getColumns()) {
-                            if (seenOne) {
-                                out.write(",");
-                            } else {
-                                seenOne = true;
-                            }
-                            AttributeValue values = item.get(col);
-                            if (values != null) {
-                                String value = format(values);
-                                // For csv files, we need to quote all values and escape all quotes
-                                value = value.replaceAll("\"", "\"\"");
-                                value = "\"" + value + "\"";
-                                out.write(value);
-                            }
-                        }
-                        out.write("\n");
-                    }
-
-                    out.close();
+                    TableExporter exporter = createExporter(dialog, conditions);
+                    boolean resume = exporter.hasResumableProgress() && MessageDialog.openQuestion(
+                            Display.getCurrent().getActiveShell(), "Resume Export",
+                            "An interrupted export to " + dialog.getFile().getName()
+                                    + " was found. Resume it where it stopped?\n\nChoose No to start the export over.");
+                    exportTable(exporter, resume, dialog.getFile());
                     actionSucceeded();
-
-                } catch (Exception e) {
+                } catch ( IllegalArgumentException e ) {
                     actionFailed();
-                    AwsToolkitCore.getDefault().logError("Couldn't save CSV file", e);
+                    StatusManager.getManager().handle(
+                            new Status(IStatus.ERROR, DynamoDBPlugin.PLUGIN_ID, e.getMessage()), StatusManager.SHOW);
                 }
+                actionFinished();
             }
 
         };
@@ -618,18 +724,78 @@ public class DynamoDBTableEditor extends EditorPart {
         addNewAttributeAction.setEnabled(false);
 
         toolBarManager.add(runScanAction);
+        toolBarManager.add(new ScanSegmentsContribution());
         toolBarManager.add(nextPageResultsAction);
         toolBarManager.add(saveAction);
         toolBarManager.add(exportAsCSVAction);
         toolBarManager.add(addNewAttributeAction);
+        toolBarManager.add(new ConsumedCapacityContribution());
         toolBarManager.update(true);
     }
 
+    /**
+     * Toolbar spinner choosing how many segments a scan reads in parallel,
+     * remembered across editors.
+     */
+    private final class ScanSegmentsContribution extends ControlContribution {
+
+        private ScanSegmentsContribution() {
+            super("scanSegments");
+        }
+
+        @Override
+        protected Control createControl(Composite parent) {
+            Composite composite = new Composite(parent, SWT.None);
+            GridLayoutFactory.fillDefaults().numColumns(2).margins(5, 0).applyTo(composite);
+
+            Label label = new Label(composite, SWT.None);
+            label.setText("Segments:");
+            GridDataFactory.swtDefaults().align(SWT.BEGINNING, SWT.CENTER).applyTo(label);
+
+            final Spinner spinner = new Spinner(composite, SWT.BORDER);
+            spinner.setToolTipText("Number of segments the scan reads in parallel");
+            spinner.setValues(scanSegments, 1, ParallelScan.MAX_SEGMENTS, 0, 1, 4);
+            spinner.addModifyListener(new ModifyListener() {
+
+                @Override
+                public void modifyText(ModifyEvent e) {
+                    scanSegments = spinner.getSelection();
+                    DynamoDBPlugin.getDefault().getPreferenceStore()
+                            .setValue(PreferenceInitializer.SCAN_SEGMENTS_PREFERENCE_NAME, scanSegments);
+                }
+            });
+            return composite;
+        }
+    }
+
+    /**
+     * Toolbar label showing the read capacity consumed by the results shown.
+     */
+    private final class ConsumedCapacityContribution extends ControlContribution {
+
+        private ConsumedCapacityContribution() {
+            super("consumedCapacity");
+        }
+
+        @Override
+        protected Control createControl(Composite parent) {
+            Composite composite = new Composite(parent, SWT.None);
+            GridLayoutFactory.fillDefaults().margins(5, 0).applyTo(composite);
+
+            consumedCapacityLabel = new Label(composite, SWT.None);
+            GridDataFactory.swtDefaults().align(SWT.BEGINNING, SWT.CENTER).hint(250, SWT.DEFAULT)
+                    .applyTo(consumedCapacityLabel);
+            updateConsumedCapacity();
+            return composite;
+        }
+    }
+
     private void createResultsTable(Composite resultsComposite) {
         TableColumnLayout tableColumnLayout = new TableColumnLayout();
         resultsComposite.setLayout(tableColumnLayout);
 
-        this.viewer = new TableViewer(resultsComposite);
+        this.viewer = new TableViewer(resultsComposite, SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL
+                | SWT.FULL_SELECTION | SWT.BORDER | SWT.VIRTUAL);
         this.viewer.getTable().setLinesVisible(true);
         this.viewer.getTable().setHeaderVisible(true);
 
@@ -696,6 +862,7 @@ public class DynamoDBTableEditor extends EditorPart {
     private void runScan() {
 
         // Clear out the existing table and edit states
+        cancelScan();
         this.viewer.getTable().setEnabled(false);
         runScanAction.setEnabled(false);
         nextPageResultsAction.setEnabled(false);
@@ -708,57 +875,67 @@ public class DynamoDBTableEditor extends EditorPart {
         for ( TableColumn col : this.viewer.getTable().getColumns() ) {
             col.dispose();
         }
-
-        new Thread() {
+        this.viewer.setInput(null);
+        this.pages = null;
+        this.consumedCapacity = 0;
+        updateConsumedCapacity();
+        showQuerySuggestion(null);
+
+        final int generation = ++scanGeneration;
+        final Map<String, Condition> conditions = getConditions();
+        final boolean query = queryMode;
+        final String indexName = queryIndexName;
+        final List<String> projectionAttributes = new ArrayList<>(projection);
+        final int totalSegments = scanSegments;
+        final AmazonDynamoDB dynamoDBClient = AwsToolkitCore.getClientFactory(tableEditorInput.getAccountId())
+                .getDynamoDBV2Client();
+
+        scanJob = new Job((query ? "Querying " : "Scanning ") + tableEditorInput.getTableName()) {
 
             @Override
-            public void run() {
-                if ( tableKey == null ) {
-                    DescribeTableResult describeTable = AwsToolkitCore
-                            .getClientFactory(DynamoDBTableEditor.this.tableEditorInput.getAccountId())
-                            .getDynamoDBV2Client()
-                            .describeTable(new DescribeTableRequest().withTableName(tableEditorInput.getTableName()));
-                    TableDescription tableDescription = describeTable.getTable();
-                    tableKey = convertToKeySchemaWithAttributeType(tableDescription);
-                }
-
-                scanResult = new ScanResult();
+            protected IStatus run(IProgressMonitor monitor) {
+                ItemPages newPages = null;
                 try {
-                    ScanRequest scanRequest = new ScanRequest().withTableName(tableEditorInput.getTableName());
-                    scanRequest.setScanFilter(new HashMap<String, Condition>());
-                    for ( ScanConditionRow row : scanConditions ) {
-                        if ( row.shouldExecute() ) {
-                            scanRequest.getScanFilter().put(row.getAttributeName(), row.getScanCondition());
-                        }
+                    if ( tableKey == null ) {
+                        DescribeTableResult describeTable = dynamoDBClient
+                                .describeTable(new DescribeTableRequest().withTableName(tableEditorInput.getTableName()));
+                        readKeySchemas(describeTable.getTable());
                     }
-                    scanResult = AwsToolkitCore.getClientFactory(DynamoDBTableEditor.this.tableEditorInput.getAccountId())
-                            .getDynamoDBV2Client().scan(scanRequest);
+                    if ( query ) {
+                        newPages = new TableQuery(dynamoDBClient,
+                                createQueryRequest(conditions, indexName, projectionAttributes));
+                    } else {
+                        newPages = new ParallelScan(dynamoDBClient, createScanRequest(conditions), totalSegments);
+                        final String suggestedIndex = findQueryableIndex(conditions);
+                        Display.getDefault().asyncExec(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                if ( generation == scanGeneration ) {
+                                    showQuerySuggestion(suggestedIndex);
+                                }
+                            }
+                        });
+                    }
+                } catch ( IllegalArgumentException e ) {
+                    StatusManager.getManager().handle(
+                            new Status(IStatus.ERROR, DynamoDBPlugin.PLUGIN_ID, e.getMessage()), StatusManager.SHOW);
+                    readFinished(generation, null);
+                    return Status.OK_STATUS;
                 } catch ( Exception e ) {
                     DynamoDBPlugin.getDefault().reportException(e.getMessage(), e);
-                    return;
+                    readFinished(generation, null);
+                    return Status.OK_STATUS;
                 }
-
-                final ScanResult result = scanResult;
-                Display.getDefault().asyncExec(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        viewer.setInput(result.getItems());
-                        viewer.getTable().setEnabled(true);
-                        viewer.getTable().getParent().layout();
-                        runScanAction.setEnabled(true);
-                        nextPageResultsAction.setEnabled(scanResult.getLastEvaluatedKey() != null);
-                        exportAsCSVAction.setEnabled(true);
-                        addNewAttributeAction.setEnabled(true);
-                    }
-                });
+                return readNextPage(generation, newPages, monitor);
             }
-
-        }.start();
+        };
+        scanJob.schedule();
     }
 
     /**
-     * Fetches the next page of results from the scan and updates the table with them.
+     * Fetches the next page of results from the scan or query and updates the
+     * table with them.
      */
     private void getNextPageResults() {
 
@@ -767,172 +944,505 @@ public class DynamoDBTableEditor extends EditorPart {
         nextPageResultsAction.setEnabled(false);
         exportAsCSVAction.setEnabled(false);
 
-        new Thread() {
+        final int generation = scanGeneration;
+        final ItemPages currentPages = this.pages;
+        scanJob = new Job("Reading " + tableEditorInput.getTableName()) {
 
             @Override
-            public void run() {
+            protected IStatus run(IProgressMonitor monitor) {
+                return readNextPage(generation, currentPages, monitor);
+            }
+        };
+        scanJob.schedule();
+    }
+
+    /**
+     * Returns the conditions of the rows the user has enabled, by attribute
+     * name.
+     */
+    private Map<String, Condition> getConditions() {
+        Map<String, Condition> conditions = new HashMap<>();
+        for ( ScanConditionRow row : scanConditions ) {
+            if ( !row.isDisposed() && row.shouldExecute() ) {
+                conditions.put(row.getAttributeName(), row.getScanCondition());
+            }
+        }
+        return conditions;
+    }
+
+    /**
+     * Returns a scan request of the table filtered by the given conditions.
+     */
+    private ScanRequest createScanRequest(Map<String, Condition> conditions) {
+        ScanRequest scanRequest = new ScanRequest().withTableName(tableEditorInput.getTableName());
+        scanRequest.setScanFilter(conditions);
+        scanRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        return scanRequest;
+    }
+
+    /**
+     * Returns a query request of the table, or of the given index, using the
+     * conditions on its keys as key conditions and the other conditions as a
+     * filter.
+     *
+     * @throws IllegalArgumentException
+     *             If there is no "Equals" condition on the partition key.
+     */
+    private QueryRequest createQueryRequest(Map<String, Condition> conditions, String indexName,
+            List<String> projectionAttributes) {
+        KeySchemaWithAttributeType key = indexName == null ? tableKey : indexKeys.get(indexName);
+        if ( key == null ) {
+            throw new IllegalArgumentException("The table has no index named " + indexName);
+        }
 
+        Map<String, Condition> filterConditions = new HashMap<>(conditions);
+        Map<String, Condition> keyConditions = new HashMap<>();
+        Condition hashKeyCondition = filterConditions.remove(key.getHashKeyAttributeName());
+        if ( hashKeyCondition == null
+                || !ComparisonOperator.EQ.toString().equals(hashKeyCondition.getComparisonOperator()) ) {
+            throw new IllegalArgumentException("A query needs an \"Equals\" condition on the partition key "
+                    + key.getHashKeyAttributeName());
+        }
+        keyConditions.put(key.getHashKeyAttributeName(), hashKeyCondition);
+        if ( key.hasRangeKey() ) {
+            Condition rangeKeyCondition = filterConditions.get(key.getRangeKeyAttributeName());
+            if ( rangeKeyCondition != null && ConditionExpressions.KEY_CONDITION_OPERATORS
+                    .contains(ComparisonOperator.fromValue(rangeKeyCondition.getComparisonOperator())) ) {
+                keyConditions.put(key.getRangeKeyAttributeName(),
+                        filterConditions.remove(key.getRangeKeyAttributeName()));
+            }
+        }
+
+        ConditionExpressions expressions = new ConditionExpressions();
+        QueryRequest queryRequest = new QueryRequest().withTableName(tableEditorInput.getTableName())
+                .withIndexName(indexName)
+                .withKeyConditionExpression(expressions.and(keyConditions))
+                .withFilterExpression(expressions.and(filterConditions))
+                .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        if ( !projectionAttributes.isEmpty() ) {
+            // Always return the table key, so that the items can be edited
+            Set<String> attributes = new LinkedHashSet<>();
+            attributes.add(tableKey.getHashKeyAttributeName());
+            if ( tableKey.hasRangeKey() ) {
+                attributes.add(tableKey.getRangeKeyAttributeName());
+            }
+            attributes.addAll(projectionAttributes);
+            queryRequest.setProjectionExpression(expressions.projection(attributes));
+        }
+        queryRequest.setExpressionAttributeNames(expressions.getNames());
+        queryRequest.setExpressionAttributeValues(expressions.getValues());
+        return queryRequest;
+    }
+
+    /**
+     * Returns an exporter of the whole table, or of the items of the current
+     * scan or query if the user asked for them.
+     *
+     * @throws IllegalArgumentException
+     *             If the current query can't be run.
+     */
+    private TableExporter createExporter(ExportTableDialog dialog, Map<String, Condition> conditions) {
+        AmazonDynamoDB dynamoDBClient = AwsToolkitCore.getClientFactory(tableEditorInput.getAccountId())
+                .getDynamoDBV2Client();
+        List<String> keyAttributeNames = new ArrayList<>();
+        keyAttributeNames.add(tableKey.getHashKeyAttributeName());
+        if ( tableKey.hasRangeKey() ) {
+            keyAttributeNames.add(tableKey.getRangeKeyAttributeName());
+        }
+
+        if ( dialog.isFiltered() && queryMode ) {
+            return TableExporter.forQuery(dynamoDBClient, createQueryRequest(conditions, queryIndexName, projection),
+                    keyAttributeNames, dialog.getFile(), dialog.getFormat(), dialog.isGzip(),
+                    dialog.getReadCapacityUnitsPerSecond());
+        }
+        ScanRequest scanRequest = createScanRequest(
+                dialog.isFiltered() ? conditions : new HashMap<String, Condition>());
+        return TableExporter.forScan(dynamoDBClient, scanRequest, scanSegments, keyAttributeNames,
+                dialog.getFile(), dialog.getFormat(), dialog.isGzip(), dialog.getReadCapacityUnitsPerSecond());
+    }
+
+    /**
+     * Runs the given export in a job, reporting any failure.
+     */
+    private void exportTable(final TableExporter exporter, final boolean resume, final File file) {
+        Job exportJob = new Job("Exporting " + tableEditorInput.getTableName() + " to " + file.getName()) {
+
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
                 try {
-                    ScanRequest scanRequest = new ScanRequest().withTableName(tableEditorInput.getTableName());
-                    scanRequest.setScanFilter(new HashMap<String, Condition>());
-                    for ( ScanConditionRow row : scanConditions ) {
-                        if ( row.shouldExecute() ) {
-                            scanRequest.getScanFilter().put(row.getAttributeName(), row.getScanCondition());
-                        }
-                    }
-                    scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
-                    scanResult = AwsToolkitCore.getClientFactory(DynamoDBTableEditor.this.tableEditorInput.getAccountId())
-                            .getDynamoDBV2Client().scan(scanRequest);
+                    exporter.run(resume, monitor);
                 } catch ( Exception e ) {
-                    DynamoDBPlugin.getDefault().reportException(e.getMessage(), e);
-                    return;
+                    return new Status(IStatus.ERROR, DynamoDBPlugin.PLUGIN_ID, "Couldn't export "
+                            + tableEditorInput.getTableName() + " to " + file
+                            + ". Export to the same file again to resume it: " + e.getMessage(), e);
                 }
+                return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+            }
+        };
+        exportJob.setUser(true);
+        exportJob.schedule();
+    }
 
-                final ScanResult result = scanResult;
-                Display.getDefault().asyncExec(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        contentProvider.addItems(result.getItems());
-                        viewer.refresh();
-                        DynamoDBTableEditor.this.viewer.getTable().setEnabled(true);
-                        DynamoDBTableEditor.this.viewer.getTable().getParent().layout();
-                        runScanAction.setEnabled(true);
-                        nextPageResultsAction.setEnabled(scanResult.getLastEvaluatedKey() != null);
-                        exportAsCSVAction.setEnabled(true);
-                    }
-                });
+    /**
+     * Returns the name of the index, or {@link #TABLE_INDEX_LABEL} for the
+     * table itself, that the given conditions could query instead of
+     * scanning, or null if there is none.
+     */
+    private String findQueryableIndex(Map<String, Condition> conditions) {
+        if ( hasHashKeyCondition(tableKey, conditions) ) {
+            return TABLE_INDEX_LABEL;
+        }
+        for ( Entry<String, KeySchemaWithAttributeType> index : indexKeys.entrySet() ) {
+            if ( hasHashKeyCondition(index.getValue(), conditions) ) {
+                return index.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasHashKeyCondition(KeySchemaWithAttributeType key, Map<String, Condition> conditions) {
+        Condition condition = conditions.get(key.getHashKeyAttributeName());
+        return condition != null && ComparisonOperator.EQ.toString().equals(condition.getComparisonOperator());
+    }
+
+    /**
+     * Reads the next page of the given scan or query, adding the items to the
+     * table as each page arrives. Runs in a job; canceling it stops all the
+     * requests.
+     */
+    private IStatus readNextPage(final int generation, final ItemPages currentPages, IProgressMonitor monitor) {
+        monitor.beginTask("Reading " + tableEditorInput.getTableName(), IProgressMonitor.UNKNOWN);
+        try {
+            currentPages.readNextPage(new ItemPages.PageListener() {
+
+                @Override
+                public void pageReceived(final ItemPages.PageStart start, final List<Map<String, AttributeValue>> items,
+                        final double consumedCapacityUnits) {
+                    Display.getDefault().asyncExec(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            addPage(generation, currentPages, start, items, consumedCapacityUnits);
+                        }
+                    });
+                }
+            }, monitor);
+        } catch ( Exception e ) {
+            DynamoDBPlugin.getDefault().reportException(e.getMessage(), e);
+        } finally {
+            monitor.done();
+            readFinished(generation, currentPages);
+        }
+        return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+    }
+
+    /**
+     * Adds a page of items from the scan or query of the given generation to
+     * the table, unless a newer one has replaced it. Must be called from the
+     * UI thread.
+     */
+    private void addPage(int generation, ItemPages currentPages, ItemPages.PageStart start,
+            List<Map<String, AttributeValue>> items, double consumedCapacityUnits) {
+        if ( generation != scanGeneration || viewer.getTable().isDisposed() ) {
+            return;
+        }
+        if ( viewer.getInput() == null ) {
+            viewer.setInput(currentPages);
+        }
+        contentProvider.addItems(start, items);
+        viewer.getTable().getParent().layout();
+        consumedCapacity += consumedCapacityUnits;
+        updateConsumedCapacity();
+    }
+
+    /**
+     * Re-enables the table once the scan or query of the given generation has
+     * read its pages, unless a newer one has replaced it.
+     *
+     * @param currentPages
+     *            The pages read, or null if the scan or query couldn't start.
+     */
+    private void readFinished(final int generation, final ItemPages currentPages) {
+        Display.getDefault().asyncExec(new Runnable() {
+
+            @Override
+            public void run() {
+                if ( generation != scanGeneration || viewer.getTable().isDisposed() ) {
+                    return;
+                }
+                pages = currentPages;
+                if ( viewer.getInput() == null && tableKey != null ) {
+                    viewer.setInput(currentPages != null ? currentPages : Collections.emptyList());
+                }
+                updateIndexes();
+                viewer.getTable().setEnabled(true);
+                viewer.getTable().getParent().layout();
+                runScanAction.setEnabled(true);
+                nextPageResultsAction.setEnabled(currentPages != null && currentPages.hasMorePages());
+                exportAsCSVAction.setEnabled(true);
+                addNewAttributeAction.setEnabled(true);
             }
+        });
+    }
+
+    /**
+     * Cancels the scan or query job, if one is running, which stops all its
+     * requests.
+     */
+    private void cancelScan() {
+        if ( scanJob != null ) {
+            scanJob.cancel();
+            scanJob = null;
+        }
+    }
 
-        }.start();
+    @Override
+    public void dispose() {
+        cancelScan();
+        super.dispose();
     }
 
     /**
-     * Content provider creates columns for the table and keeps track of them
-     * for other parts of the UI.
+     * Content provider of the virtual results table. Rows are only
+     * materialized when they're shown, from pages held in a bounded cache;
+     * rows of a page that was dropped from the cache are shown once the page
+     * has been read again. Also creates the columns of the table as new
+     * attributes show up, and keeps track of them for other parts of the UI.
      */
-    private class ContentProvider implements IStructuredContentProvider {
+    private class ContentProvider implements ILazyContentProvider {
 
-        private List<Map<String, AttributeValue>> input;
-        private final List<Map<String, AttributeValue>> elementList = new ArrayList<>();
+        private final ResultPages results = new ResultPages(ResultPages.MAX_CACHED_PAGES);
+        private final Set<ResultPages.Block> pagesBeingRead = new HashSet<>();
         private final List<String> columns = new ArrayList<>();
 
+        /** The scan or query being shown, or null if none could be run. */
+        private ItemPages source;
+
+        /** Empty row at the end for adding new items. */
+        private Map<String, AttributeValue> newItemRow = new HashMap<>();
+
         /**
-         * Adds a single item to the table.
+         * Adds a single item to the table, in place of the empty row at the
+         * end.
          */
         void addItem(Map<String, AttributeValue> item) {
-            elementList.set(elementList.size() - 1, item);
-            elementList.add(new HashMap<String, AttributeValue>());
-            viewer.refresh();
+            int row = results.getRowCount();
+            results.addItem(item);
+            newItemRow = new HashMap<>();
+            viewer.setItemCount(results.getRowCount() + 1);
+            viewer.replace(item, row);
+            viewer.replace(newItemRow, row + 1);
         }
 
         /**
-         * Adds a list of new items to the table.
+         * Adds a page of new items to the table.
          */
-        public void addItems(List<Map<String, AttributeValue>> items) {
-            // Remove the (possible) empty row and add it to the end
-            if ( !elementList.isEmpty() && elementList.get(elementList.size() - 1).isEmpty() ) {
-                elementList.remove(elementList.size() - 1);
-            }
-
-            elementList.addAll(items);
+        void addItems(ItemPages.PageStart start, List<Map<String, AttributeValue>> items) {
+            int firstNewRow = results.getRowCount();
+            clearRows(results.addPage(start, items));
 
             // expand columns if necessary
-            List<String> columns = new LinkedList<>();
+            Set<String> newColumns = new TreeSet<>();
             for ( Map<String, AttributeValue> item : items ) {
-                columns.addAll(item.keySet());
+                newColumns.addAll(item.keySet());
+            }
+            newColumns.removeAll(this.columns);
+            synchronized (knownAttributes) {
+                knownAttributes.addAll(newColumns);
             }
 
             Table table = (Table) viewer.getControl();
             TableColumnLayout layout = (TableColumnLayout) table.getParent().getLayout();
-            for ( String column : columns ) {
-                if ( !this.columns.contains(column) ) {
-                    this.columns.add(column);
-                    createColumn(table, layout, column);
-                }
+            for ( String column : newColumns ) {
+                this.columns.add(column);
+                createColumn(table, layout, column);
             }
 
-            // empty row for adding new rows
-            elementList.add(new HashMap<String, AttributeValue>());
+            refreshRows(firstNewRow);
         }
 
-        @Override
-        @SuppressWarnings("unchecked")
-        public void inputChanged(final Viewer viewer, final Object oldInput, final Object newInput) {
-            this.input = (List<Map<String, AttributeValue>>) newInput;
-            this.elementList.clear();
-            this.columns.clear();
+        /**
+         * Returns the item of the given row, or null if it's the empty row at
+         * the end or its page isn't in memory.
+         */
+        Map<String, AttributeValue> getItem(int row) {
+            return row < results.getRowCount() ? results.getItem(row) : null;
+        }
 
-            initializeElements();
+        /**
+         * Keeps the page of the given row in memory, so that changes to its
+         * items aren't lost. Returns false if the page has already been
+         * dropped from memory, in which case the row can't be changed.
+         */
+        boolean pin(int row) {
+            return row >= results.getRowCount() || results.pin(row);
+        }
 
-            if ( this.input != null ) {
-                Table table = (Table) viewer.getControl();
-                TableColumnLayout layout = (TableColumnLayout) table.getParent().getLayout();
+        /**
+         * Removes the given row, returning false if it can't be because its
+         * page isn't in memory.
+         */
+        boolean removeRow(int row) {
+            return results.removeRow(row);
+        }
 
-                for ( String col : this.columns ) {
-                    createColumn(table, layout, col);
-                }
-            }
+        /**
+         * Updates the number of rows and shows again the rows from the given
+         * one to the end, since their items may have moved.
+         */
+        void refreshRows(int fromRow) {
+            viewer.setItemCount(results.getRowCount() + 1);
+            clearRows(fromRow, results.getRowCount() + 1);
         }
 
-        private void createColumn(Table table, TableColumnLayout layout, String col) {
-            TableColumn column = new TableColumn(table, SWT.NONE);
-            column.setText(col);
-            layout.setColumnData(column, new ColumnWeightData(10));
+        /**
+         * Unlinks the rows of a page dropped from memory from its items, so
+         * that they're read again when they're shown.
+         */
+        private void clearRows(ResultPages.Block dropped) {
+            if ( dropped != null ) {
+                int firstRow = results.getFirstRow(dropped);
+                clearRows(firstRow, firstRow + dropped.getSize());
+            }
         }
 
-        @Override
-        public void dispose() {
+        private void clearRows(int fromRow, int toRow) {
+            for ( int row = fromRow; row < toRow; row++ ) {
+                viewer.clear(row);
+            }
         }
 
         @Override
-        public Object[] getElements(final Object inputElement) {
-            initializeElements();
-            return this.elementList.toArray();
+        public void updateElement(int index) {
+            if ( index >= results.getRowCount() ) {
+                viewer.replace(newItemRow, index);
+                return;
+            }
+            Map<String, AttributeValue> item = results.getItem(index);
+            if ( item != null ) {
+                viewer.replace(item, index);
+            } else {
+                readPage(results.getBlock(index));
+            }
         }
 
-        private synchronized void initializeElements() {
-            if ( elementList.isEmpty() && input != null ) {
-
-                Set<String> columns = new HashSet<>();
+        /**
+         * Reads again a page that was dropped from memory, then shows its
+         * rows.
+         */
+        private void readPage(final ResultPages.Block block) {
+            if ( source == null || !pagesBeingRead.add(block) ) {
+                return;
+            }
+            final int generation = scanGeneration;
+            final ItemPages pageSource = source;
+            Job readJob = new Job("Reading " + tableEditorInput.getTableName()) {
 
-                for ( Map<String, AttributeValue> item : input ) {
-                    columns.addAll(item.keySet());
-                }
-                // We add the hash and range keys back in at the beginning, so
-                // remove them for now
-                columns.remove(tableKey.getHashKeyAttributeName());
-                if ( tableKey.hasRangeKey() ) {
-                    columns.remove(tableKey.getRangeKeyAttributeName());
+                @Override
+                protected IStatus run(IProgressMonitor monitor) {
+                    try {
+                        pageSource.readPage(block.getStart(), new ItemPages.PageListener() {
+
+                            @Override
+                            public void pageReceived(ItemPages.PageStart start,
+                                    final List<Map<String, AttributeValue>> items, final double consumedCapacityUnits) {
+                                Display.getDefault().asyncExec(new Runnable() {
+
+                                    @Override
+                                    public void run() {
+                                        pageRead(generation, block, items, consumedCapacityUnits);
+                                    }
+                                });
+                            }
+                        });
+                    } catch ( Exception e ) {
+                        DynamoDBPlugin.getDefault().reportException(e.getMessage(), e);
+                        Display.getDefault().asyncExec(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                pageRead(generation, block, null, 0);
+                            }
+                        });
+                    }
+                    return Status.OK_STATUS;
                 }
+            };
+            readJob.setSystem(true);
+            readJob.schedule();
+        }
 
-                List<String> sortedColumns = new ArrayList<>();
-                sortedColumns.addAll(columns);
-                Collections.sort(sortedColumns);
+        /**
+         * Shows the rows of a page that was read again, unless a newer scan or
+         * query has replaced the one it belongs to.
+         *
+         * @param items
+         *            The items of the page, or null if it couldn't be read.
+         */
+        private void pageRead(int generation, ResultPages.Block block, List<Map<String, AttributeValue>> items,
+                double consumedCapacityUnits) {
+            if ( generation != scanGeneration || viewer.getTable().isDisposed() ) {
+                return;
+            }
+            pagesBeingRead.remove(block);
+            consumedCapacity += consumedCapacityUnits;
+            updateConsumedCapacity();
+            if ( items == null ) {
+                return;
+            }
+            int previousSize = block.getSize();
+            clearRows(results.pageRead(block, items));
+            if ( block.getSize() == previousSize ) {
+                int firstRow = results.getFirstRow(block);
+                clearRows(firstRow, firstRow + block.getSize());
+            } else {
+                refreshRows(results.getFirstRow(block));
+            }
+        }
 
-                sortedColumns.add(0, tableKey.getHashKeyAttributeName());
+        @Override
+        public void inputChanged(final Viewer viewer, final Object oldInput, final Object newInput) {
+            this.source = newInput instanceof ItemPages ? (ItemPages) newInput : null;
+            this.results.clear();
+            this.pagesBeingRead.clear();
+            this.columns.clear();
+            this.newItemRow = new HashMap<>();
+
+            if ( newInput != null ) {
+                // The hash and range keys come first
+                this.columns.add(tableKey.getHashKeyAttributeName());
                 if ( tableKey.hasRangeKey() ) {
-                    sortedColumns.add(1, tableKey.getRangeKeyAttributeName());
+                    this.columns.add(tableKey.getRangeKeyAttributeName());
                 }
-
                 synchronized (knownAttributes) {
-                    knownAttributes.addAll(sortedColumns);
+                    knownAttributes.addAll(this.columns);
                 }
 
-                elementList.addAll(input);
-                // empty row at the end for adding new rows
-                elementList.add(new HashMap<String, AttributeValue>());
-
-                this.columns.addAll(sortedColumns);
+                Table table = (Table) viewer.getControl();
+                TableColumnLayout layout = (TableColumnLayout) table.getParent().getLayout();
+                for ( String col : this.columns ) {
+                    createColumn(table, layout, col);
+                }
+                ((TableViewer) viewer).setItemCount(1);
             }
         }
 
-        private synchronized List<String> getColumns() {
+        private void createColumn(Table table, TableColumnLayout layout, String col) {
+            TableColumn column = new TableColumn(table, SWT.NONE);
+            column.setText(col);
+            layout.setColumnData(column, new ColumnWeightData(10));
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        private List<String> getColumns() {
             return this.columns;
         }
     }
 
-    private class LabelProvider extends AbstractTableLabelProvider {
+    private class LabelProvider extends AbstractTableLabelProvider implements ITableColorProvider {
 
         @Override
         public String getColumnText(final Object element, final int columnIndex) {
@@ -943,6 +1453,34 @@ public class DynamoDBTableEditor extends EditorPart {
             AttributeValue values = item.get(column);
             return format(values);
         }
+
+        /**
+         * Shows unsaved changes in red. Rows of a virtual table lose their
+         * colors when they're shown again, so they're worked out from the
+         * edited items every time.
+         */
+        @Override
+        public Color getForeground(final Object element, final int columnIndex) {
+            @SuppressWarnings("unchecked")
+            Map<String, AttributeValue> item = (Map<String, AttributeValue>) element;
+            if ( item.isEmpty() || tableKey == null ) {
+                return null;
+            }
+
+            Map<String, AttributeValue> key = getKey(item);
+            EditedItem editedItem = editedItems.get(key);
+            String column = DynamoDBTableEditor.this.contentProvider.getColumns().get(columnIndex);
+            if ( addedItems.contains(key)
+                    || (editedItem != null && editedItem.getEditedAttributes().contains(column)) ) {
+                return Display.getDefault().getSystemColor(SWT.COLOR_RED);
+            }
+            return null;
+        }
+
+        @Override
+        public Color getBackground(final Object element, final int columnIndex) {
+            return null;
+        }
     }
 
     /**
@@ -1036,6 +1574,11 @@ public class DynamoDBTableEditor extends EditorPart {
                             editorComposite.dispose();
                         }
 
+                        // The row's page is still being read
+                        if ( item.getData() == null ) {
+                            return;
+                        }
+
                         if ( isLastRow ) {
                             invokeNewItemDialog(item, row);
                             return;
@@ -1139,13 +1682,17 @@ public class DynamoDBTableEditor extends EditorPart {
             // Remove all these indices from the data model of the content
             // provider. We go through them backwards to avoid having to
             // recalculate offsets caused by the list shifting to fill in the
-            // gaps.
+            // gaps. Rows whose page isn't in memory are left alone, as is the
+            // empty row at the end.
             Collections.sort(selectionIndices);
             for (int i = selectionIndices.size() - 1; i >= 0; i--) {
-                Integer selectionIndex = selectionIndices.get(i);
-                contentProvider.elementList.remove(selectionIndex.intValue());
+                int selectionIndex = selectionIndices.get(i);
+                Map<String, AttributeValue> item = contentProvider.getItem(selectionIndex);
+                if ( item == null || !contentProvider.removeRow(selectionIndex) ) {
+                    continue;
+                }
 
-                Map<String, AttributeValue> key = getKey(table.getItem(selectionIndex));
+                Map<String, AttributeValue> key = getKey(item);
                 editedItems.remove(key);
                 // If this is a newly-added item, don't try to issue a delete
                 // request for it.
@@ -1158,7 +1705,10 @@ public class DynamoDBTableEditor extends EditorPart {
 
             markDirty();
 
-            viewer.refresh();
+            table.deselectAll();
+            if ( !selectionIndices.isEmpty() ) {
+                contentProvider.refreshRows(selectionIndices.get(0));
+            }
         }
 
         /**
@@ -1335,6 +1885,15 @@ public class DynamoDBTableEditor extends EditorPart {
         final String attributeName = item.getParent().getColumn(column).getText();
         @SuppressWarnings("unchecked")
         Map<String, AttributeValue> dynamoDbItem = (Map<String, AttributeValue>) item.getData();
+
+        // Keep the edited item's page in memory until it's saved. If the page
+        // has already been dropped, the change would be lost, so the row is
+        // shown again as it's stored instead.
+        if ( !contentProvider.pin(row) ) {
+            viewer.clear(row);
+            return;
+        }
+
         AttributeValue attributeValue = dynamoDbItem.get(attributeName);
         if ( attributeValue == null ) {
             attributeValue = new AttributeValue();
@@ -1345,7 +1904,7 @@ public class DynamoDBTableEditor extends EditorPart {
 
         Map<String, AttributeValue> editedItemKey = getKey(item);
         if ( !editedItems.containsKey(editedItemKey) ) {
-            editedItems.add(editedItemKey, new EditedItem(dynamoDbItem, item));
+            editedItems.add(editedItemKey, new EditedItem(dynamoDbItem));
         }
 
         // Don't add key attributes to the list of edited attributes
@@ -1375,10 +1934,15 @@ public class DynamoDBTableEditor extends EditorPart {
      * Returns a key for recording a change to the item given, reusing the key
      * if it exists or returning a new one otherwise.
      */
+    @SuppressWarnings("unchecked")
     private Map<String, AttributeValue> getKey(final TableItem item) {
-        @SuppressWarnings("unchecked")
-        Map<String, AttributeValue> dynamoDbItem = (Map<String, AttributeValue>) item.getData();
+        return getKey((Map<String, AttributeValue>) item.getData());
+    }
 
+    /**
+     * Returns the key attributes of the given item.
+     */
+    private Map<String, AttributeValue> getKey(final Map<String, AttributeValue> dynamoDbItem) {
         Map<String, AttributeValue> keyAttributes = new HashMap<>();
 
         String hashKeyAttributeName = tableKey.getHashKeyAttributeName();
@@ -1392,23 +1956,54 @@ public class DynamoDBTableEditor extends EditorPart {
         return keyAttributes;
     }
 
+    /**
+     * Reads the key schemas of the table and of its secondary indexes.
+     */
+    private void readKeySchemas(TableDescription table) {
+        Map<String, KeySchemaWithAttributeType> indexes = new LinkedHashMap<>();
+        if ( table.getLocalSecondaryIndexes() != null ) {
+            for ( LocalSecondaryIndexDescription index : table.getLocalSecondaryIndexes() ) {
+                indexes.put(index.getIndexName(),
+                        convertToKeySchemaWithAttributeType(index.getKeySchema(), table.getAttributeDefinitions()));
+            }
+        }
+        if ( table.getGlobalSecondaryIndexes() != null ) {
+            for ( GlobalSecondaryIndexDescription index : table.getGlobalSecondaryIndexes() ) {
+                indexes.put(index.getIndexName(),
+                        convertToKeySchemaWithAttributeType(index.getKeySchema(), table.getAttributeDefinitions()));
+            }
+        }
+        indexKeys.clear();
+        indexKeys.putAll(indexes);
+        tableKey = convertToKeySchemaWithAttributeType(table);
+    }
+
     /**
      * Use DynamoDB V2 to get the attribtue names and types of both hash and range keys
      * of the table, and then save them in a KeySchemaWithAttributeType object.
      */
     private static KeySchemaWithAttributeType convertToKeySchemaWithAttributeType(
             TableDescription table) {
+        return convertToKeySchemaWithAttributeType(table.getKeySchema(), table.getAttributeDefinitions());
+    }
+
+    /**
+     * Get the attribute names and types of the keys of a table or index,
+     * using the attribute definitions of its table.
+     */
+    private static KeySchemaWithAttributeType convertToKeySchemaWithAttributeType(
+            List<KeySchemaElement> keySchemaElements, List<AttributeDefinition> attributeDefinitions) {
         KeySchemaWithAttributeType keySchema = new KeySchemaWithAttributeType();
         String hashKeyAttributeName = null;
         String rangeKeyAttributeName = null;
-        for (KeySchemaElement key : table.getKeySchema()) {
+        for (KeySchemaElement key : keySchemaElements) {
             if (key.getKeyType().equals(KeyType.HASH.toString())) {
                 hashKeyAttributeName = key.getAttributeName();
             } else if (key.getKeyType().equals(KeyType.RANGE.toString())) {
                 rangeKeyAttributeName = key.getAttributeName();
             }
         }
-        for (AttributeDefinition attribute : table.getAttributeDefinitions()) {
+        for (AttributeDefinition attribute : attributeDefinitions) {
             if (hashKeyAttributeName.equals(attribute.getAttributeName())) {
                 keySchema.setHashKeyElement(hashKeyAttributeName,
                         attribute.getAttributeType());
@@ -18,8 +18,6 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-import org.eclipse.swt.widgets.TableItem;
-
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 
 /**
@@ -29,11 +27,9 @@ class EditedItem {
 
     private final Set<String> editedAttributes = new HashSet<>();
     private Map<String, AttributeValue> attributes;
-    private final TableItem tableItem;
 
-    public EditedItem(Map<String, AttributeValue> attributes, TableItem tableItem) {
+    public EditedItem(Map<String, AttributeValue> attributes) {
         this.attributes = attributes;
-        this.tableItem = tableItem;
     }
 
     public Map<String, AttributeValue> getAttributes() {
@@ -52,8 +48,4 @@ class EditedItem {
         editedAttributes.add(attributeName);
     }
 
-    public TableItem getTableItem() {
-        return tableItem;
-    }
-
 }
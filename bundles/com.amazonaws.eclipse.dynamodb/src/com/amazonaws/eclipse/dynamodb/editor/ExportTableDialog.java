@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.io.File;
+
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.jface.layout.GridLayoutFactory;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Text;
+
+import com.amazonaws.eclipse.dynamodb.editor.TableExporter.Format;
+
+/**
+ * Asks where and how to export the items of a table.
+ */
+class ExportTableDialog extends MessageDialog {
+
+    /** Largest read capacity budget the dialog offers, in units per second. */
+    private static final int MAX_READ_CAPACITY = 100000;
+
+    private final String filterDescription;
+
+    private Text fileText;
+    private Combo formatCombo;
+    private Button gzipButton;
+    private Spinner readCapacitySpinner;
+    private Button filteredButton;
+
+    private File file;
+    private Format format = Format.CSV;
+    private boolean gzip;
+    private int readCapacityUnitsPerSecond;
+    private boolean filtered;
+
+    /**
+     * @param filterDescription
+     *            What the current scan or query reads, offered as an
+     *            alternative to the whole table, or null if the whole table
+     *            is being read.
+     */
+    ExportTableDialog(Shell shell, String tableName, String filterDescription) {
+        super(shell, "Export Table", null, "Export the items of " + tableName
+                + " to a file. An interrupted export can be resumed by exporting to the same file again.",
+                MessageDialog.NONE, new String[] { IDialogConstants.OK_LABEL, IDialogConstants.CANCEL_LABEL }, 0);
+        this.filterDescription = filterDescription;
+    }
+
+    @Override
+    protected Control createCustomArea(Composite parent) {
+        Composite composite = new Composite(parent, SWT.NONE);
+        GridDataFactory.fillDefaults().grab(true, false).applyTo(composite);
+        GridLayoutFactory.fillDefaults().numColumns(3).applyTo(composite);
+
+        new Label(composite, SWT.NONE).setText("File:");
+        fileText = new Text(composite, SWT.BORDER);
+        GridDataFactory.fillDefaults().grab(true, false).hint(300, SWT.DEFAULT).applyTo(fileText);
+        fileText.addModifyListener(new ModifyListener() {
+
+            @Override
+            public void modifyText(ModifyEvent e) {
+                validate();
+            }
+        });
+        Button browseButton = new Button(composite, SWT.PUSH);
+        browseButton.setText("Browse...");
+        browseButton.addSelectionListener(new SelectionAdapter() {
+
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                FileDialog dialog = new FileDialog(getShell(), SWT.SAVE);
+                dialog.setFilterExtensions(new String[] { getSelectedFormat().getExtension(), "*.*" });
+                String path = dialog.open();
+                if ( path != null ) {
+                    fileText.setText(path);
+                }
+            }
+        });
+
+        new Label(composite, SWT.NONE).setText("Format:");
+        formatCombo = new Combo(composite, SWT.READ_ONLY);
+        for ( Format format : Format.values() ) {
+            formatCombo.add(format.getLabel());
+        }
+        formatCombo.select(0);
+        GridDataFactory.fillDefaults().span(2, 1).applyTo(formatCombo);
+
+        gzipButton = new Button(composite, SWT.CHECK);
+        gzipButton.setText("Compress with gzip");
+        GridDataFactory.fillDefaults().span(3, 1).applyTo(gzipButton);
+
+        new Label(composite, SWT.NONE).setText("Read capacity:");
+        readCapacitySpinner = new Spinner(composite, SWT.BORDER);
+        readCapacitySpinner.setValues(0, 0, MAX_READ_CAPACITY, 0, 1, 100);
+        readCapacitySpinner.setToolTipText("Read capacity units per second the export may consume");
+        new Label(composite, SWT.NONE).setText("units per second (0 for no limit)");
+
+        if ( filterDescription != null ) {
+            filteredButton = new Button(composite, SWT.CHECK);
+            filteredButton.setText("Only export the items of the current " + filterDescription);
+            GridDataFactory.fillDefaults().span(3, 1).applyTo(filteredButton);
+        }
+
+        return composite;
+    }
+
+    @Override
+    protected void createButtonsForButtonBar(Composite parent) {
+        super.createButtonsForButtonBar(parent);
+        validate();
+    }
+
+    private void validate() {
+        Button okButton = getButton(0);
+        if ( okButton != null ) {
+            okButton.setEnabled(fileText.getText().trim().length() > 0);
+        }
+    }
+
+    private Format getSelectedFormat() {
+        return Format.values()[formatCombo.getSelectionIndex()];
+    }
+
+    @Override
+    protected void buttonPressed(int buttonId) {
+        if ( buttonId == 0 ) {
+            file = new File(fileText.getText().trim());
+            if ( file.exists() && !new File(file.getPath() + TableExporter.PROGRESS_FILE_SUFFIX).exists()
+                    && !MessageDialog.openQuestion(getShell(), "File Exists",
+                            file.getName() + " already exists. Do you want to replace it?") ) {
+                return;
+            }
+            format = getSelectedFormat();
+            gzip = gzipButton.getSelection();
+            readCapacityUnitsPerSecond = readCapacitySpinner.getSelection();
+            filtered = filteredButton != null && filteredButton.getSelection();
+        }
+        super.buttonPressed(buttonId);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    Format getFormat() {
+        return format;
+    }
+
+    boolean isGzip() {
+        return gzip;
+    }
+
+    /** Returns the read capacity the export may consume, or zero for no limit. */
+    int getReadCapacityUnitsPerSecond() {
+        return readCapacityUnitsPerSecond;
+    }
+
+    /** Returns whether to export only the items of the current scan or query. */
+    boolean isFiltered() {
+        return filtered;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.wizard.Wizard;
+import org.eclipse.ui.statushandlers.StatusManager;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.dynamodb.DynamoDBPlugin;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+
+/**
+ * Wizard to load the items of a CSV or JSON Lines file into a table, keeping
+ * the write capacity consumed under a share of the table's provisioned
+ * throughput. The import runs in a job once the wizard is finished.
+ */
+public class ImportTableWizard extends Wizard {
+
+    private final String tableName;
+    private final AmazonDynamoDB dynamoDBClient;
+    private final TableDescription tableDescription;
+    private ImportTableWizardPage page;
+
+    public ImportTableWizard(String tableName) {
+        this.tableName = tableName;
+        this.dynamoDBClient = AwsToolkitCore.getClientFactory(AwsToolkitCore.getDefault().getCurrentAccountId())
+                .getDynamoDBV2Client();
+        this.tableDescription = dynamoDBClient.describeTable(new DescribeTableRequest().withTableName(tableName))
+                .getTable();
+        setWindowTitle("Import Items");
+    }
+
+    @Override
+    public void addPages() {
+        Long writeCapacityUnits = tableDescription.getProvisionedThroughput() == null ? null
+                : tableDescription.getProvisionedThroughput().getWriteCapacityUnits();
+        page = new ImportTableWizardPage(tableName, writeCapacityUnits == null ? 0 : writeCapacityUnits);
+        addPage(page);
+    }
+
+    @Override
+    public boolean performFinish() {
+        Map<String, String> keyAttributeTypes = new LinkedHashMap<>();
+        for ( KeySchemaElement key : tableDescription.getKeySchema() ) {
+            for ( AttributeDefinition attribute : tableDescription.getAttributeDefinitions() ) {
+                if ( attribute.getAttributeName().equals(key.getAttributeName()) ) {
+                    keyAttributeTypes.put(key.getAttributeName(), attribute.getAttributeType());
+                }
+            }
+        }
+
+        final File file = page.getFile();
+        final TableImporter importer = new TableImporter(dynamoDBClient, tableName, keyAttributeTypes, file,
+                page.getFormat(), page.getWriterThreads(), page.getWriteCapacityUnitsPerSecond());
+        final boolean resume = importer.hasResumableProgress() && MessageDialog.openQuestion(getShell(),
+                "Resume Import", "An interrupted import of " + file.getName() + " into " + tableName
+                        + " was found. Resume it where it stopped?\n\nChoose No to import the whole file again.");
+
+        Job importJob = new Job("Importing " + file.getName() + " into " + tableName) {
+
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                List<String> failures;
+                try {
+                    failures = importer.run(resume, monitor);
+                } catch ( Exception e ) {
+                    return new Status(IStatus.ERROR, DynamoDBPlugin.PLUGIN_ID, "Couldn't import " + file + " into "
+                            + tableName + ". Import the same file again to resume: " + e.getMessage(), e);
+                }
+
+                if ( !failures.isEmpty() ) {
+                    MultiStatus status = new MultiStatus(DynamoDBPlugin.PLUGIN_ID, IStatus.WARNING,
+                            "Couldn't import " + importer.getFailureCount()
+                                    + (importer.getFailureCount() == 1 ? " item" : " items") + " of " + file.getName(),
+                            null);
+                    for ( String failure : failures ) {
+                        status.add(new Status(IStatus.WARNING, DynamoDBPlugin.PLUGIN_ID, failure));
+                    }
+                    StatusManager.getManager().handle(status, StatusManager.SHOW);
+                }
+                return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+            }
+        };
+        importJob.setUser(true);
+        importJob.schedule();
+        return true;
+    }
+}
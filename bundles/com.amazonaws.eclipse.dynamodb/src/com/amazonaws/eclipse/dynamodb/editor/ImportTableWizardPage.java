@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.io.File;
+
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.jface.layout.GridLayoutFactory;
+import org.eclipse.jface.wizard.WizardPage;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Text;
+
+import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.dynamodb.editor.TableExporter.Format;
+
+/**
+ * Page of the {@link ImportTableWizard} asking for the file to import and how
+ * fast to write it.
+ */
+class ImportTableWizardPage extends WizardPage {
+
+    /** Most writer threads the page offers. */
+    private static final int MAX_WRITER_THREADS = 32;
+    private static final int DEFAULT_WRITER_THREADS = 4;
+    private static final int DEFAULT_CAPACITY_PERCENT = 50;
+
+    private final long writeCapacityUnits;
+
+    private Text fileText;
+    private Combo formatCombo;
+    private Spinner writerThreadsSpinner;
+    private Spinner capacityPercentSpinner;
+
+    /**
+     * @param writeCapacityUnits
+     *            The provisioned write capacity of the table, or zero if it
+     *            isn't known.
+     */
+    ImportTableWizardPage(String tableName, long writeCapacityUnits) {
+        super("importTable");
+        this.writeCapacityUnits = writeCapacityUnits;
+        setTitle("Import Items into " + tableName);
+        setDescription("Load the items of a CSV or JSON Lines file, optionally gzipped, into the table. "
+                + "Items with the same key as an existing item replace it.");
+        setImageDescriptor(AwsToolkitCore.getDefault().getImageRegistry().getDescriptor("dynamodb-service"));
+    }
+
+    @Override
+    public void createControl(Composite parent) {
+        Composite composite = new Composite(parent, SWT.NONE);
+        GridDataFactory.fillDefaults().grab(true, true).applyTo(composite);
+        GridLayoutFactory.swtDefaults().numColumns(3).applyTo(composite);
+
+        new Label(composite, SWT.NONE).setText("File:");
+        fileText = new Text(composite, SWT.BORDER);
+        GridDataFactory.fillDefaults().grab(true, false).applyTo(fileText);
+        fileText.addModifyListener(new ModifyListener() {
+
+            @Override
+            public void modifyText(ModifyEvent e) {
+                String name = fileText.getText().trim().toLowerCase();
+                if ( name.endsWith(".jsonl") || name.endsWith(".jsonl.gz") || name.endsWith(".json")
+                        || name.endsWith(".json.gz") ) {
+                    formatCombo.select(Format.JSON_LINES.ordinal());
+                } else if ( name.endsWith(".csv") || name.endsWith(".csv.gz") ) {
+                    formatCombo.select(Format.CSV.ordinal());
+                }
+                validate();
+            }
+        });
+        Button browseButton = new Button(composite, SWT.PUSH);
+        browseButton.setText("Browse...");
+        browseButton.addSelectionListener(new SelectionAdapter() {
+
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                FileDialog dialog = new FileDialog(getShell(), SWT.OPEN);
+                dialog.setFilterExtensions(new String[] { "*.csv;*.csv.gz", "*.jsonl;*.jsonl.gz;*.json", "*.*" });
+                String path = dialog.open();
+                if ( path != null ) {
+                    fileText.setText(path);
+                }
+            }
+        });
+
+        new Label(composite, SWT.NONE).setText("Format:");
+        formatCombo = new Combo(composite, SWT.READ_ONLY);
+        for ( Format format : Format.values() ) {
+            formatCombo.add(format.getLabel());
+        }
+        formatCombo.select(0);
+        GridDataFactory.fillDefaults().span(2, 1).applyTo(formatCombo);
+
+        new Label(composite, SWT.NONE).setText("Writer threads:");
+        writerThreadsSpinner = new Spinner(composite, SWT.BORDER);
+        writerThreadsSpinner.setValues(DEFAULT_WRITER_THREADS, 1, MAX_WRITER_THREADS, 0, 1, 4);
+        GridDataFactory.fillDefaults().span(2, 1).applyTo(writerThreadsSpinner);
+
+        new Label(composite, SWT.NONE).setText("Write capacity:");
+        capacityPercentSpinner = new Spinner(composite, SWT.BORDER);
+        capacityPercentSpinner.setValues(DEFAULT_CAPACITY_PERCENT, 1, 100, 0, 1, 10);
+        Label capacityLabel = new Label(composite, SWT.NONE);
+        if ( writeCapacityUnits > 0 ) {
+            capacityLabel.setText("% of the table's " + writeCapacityUnits + " write capacity units");
+        } else {
+            capacityLabel.setText("The table's write capacity is unknown, so writes aren't limited");
+            capacityPercentSpinner.setEnabled(false);
+        }
+
+        setControl(composite);
+        validate();
+    }
+
+    private void validate() {
+        String path = fileText.getText().trim();
+        if ( path.isEmpty() ) {
+            setErrorMessage(null);
+            setPageComplete(false);
+        } else if ( !new File(path).isFile() ) {
+            setErrorMessage("The file " + path + " doesn't exist");
+            setPageComplete(false);
+        } else {
+            setErrorMessage(null);
+            setPageComplete(true);
+        }
+    }
+
+    File getFile() {
+        return new File(fileText.getText().trim());
+    }
+
+    Format getFormat() {
+        return Format.values()[formatCombo.getSelectionIndex()];
+    }
+
+    int getWriterThreads() {
+        return writerThreadsSpinner.getSelection();
+    }
+
+    /** Returns the write capacity the import may consume, or zero for no limit. */
+    double getWriteCapacityUnitsPerSecond() {
+        return writeCapacityUnits * capacityPercentSpinner.getSelection() / 100.0;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.util.BinaryUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Reads and writes items in the DynamoDB JSON format, where every attribute value is an
+ * object keyed by its data type, e.g. <code>{"id":{"S":"a"}}</code>, so that
+ * exported items keep their exact types.
+ */
+final class ItemJson {
+
+    private ItemJson() {
+    }
+
+    /**
+     * Writes the given item as a JSON object.
+     */
+    static void writeItem(JsonGenerator generator, Map<String, AttributeValue> item) throws IOException {
+        generator.writeStartObject();
+        for ( Entry<String, AttributeValue> attribute : item.entrySet() ) {
+            generator.writeFieldName(attribute.getKey());
+            writeValue(generator, attribute.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads an item from a JSON object written by
+     * {@link #writeItem(JsonGenerator, Map)}.
+     *
+     * @throws IllegalArgumentException
+     *             If the object isn't an item in the DynamoDB JSON format.
+     */
+    static Map<String, AttributeValue> readItem(JsonNode node) {
+        if ( !node.isObject() ) {
+            throw new IllegalArgumentException("Expected a JSON object but found " + node.getNodeType());
+        }
+        Map<String, AttributeValue> item = new LinkedHashMap<>();
+        for ( Iterator<Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+            Entry<String, JsonNode> field = fields.next();
+            item.put(field.getKey(), readValue(field.getKey(), field.getValue()));
+        }
+        return item;
+    }
+
+    private static AttributeValue readValue(String name, JsonNode node) {
+        if ( !node.isObject() || node.size() != 1 ) {
+            throw new IllegalArgumentException("The value of " + name
+                    + " must be an object with a single data type, such as {\"S\":\"text\"}");
+        }
+        Entry<String, JsonNode> typed = node.fields().next();
+        JsonNode value = typed.getValue();
+        switch ( typed.getKey() ) {
+        case "S":
+            return new AttributeValue().withS(value.asText());
+        case "N":
+            return new AttributeValue().withN(value.asText());
+        case "B":
+            return new AttributeValue().withB(ByteBuffer.wrap(BinaryUtils.fromBase64(value.asText())));
+        case "SS":
+            return new AttributeValue().withSS(readStrings(value));
+        case "NS":
+            return new AttributeValue().withNS(readStrings(value));
+        case "BS":
+            List<ByteBuffer> bs = new ArrayList<>();
+            for ( String s : readStrings(value) ) {
+                bs.add(ByteBuffer.wrap(BinaryUtils.fromBase64(s)));
+            }
+            return new AttributeValue().withBS(bs);
+        case "BOOL":
+            return new AttributeValue().withBOOL(value.asBoolean());
+        case "NULL":
+            return new AttributeValue().withNULL(value.asBoolean());
+        case "M":
+            return new AttributeValue().withM(readItem(value));
+        case "L":
+            List<AttributeValue> l = new ArrayList<>();
+            for ( JsonNode element : value ) {
+                l.add(readValue(name, element));
+            }
+            return new AttributeValue().withL(l);
+        default:
+            throw new IllegalArgumentException("Unknown data type " + typed.getKey() + " of " + name);
+        }
+    }
+
+    private static List<String> readStrings(JsonNode array) {
+        List<String> strings = new ArrayList<>(array.size());
+        for ( JsonNode element : array ) {
+            strings.add(element.asText());
+        }
+        return strings;
+    }
+
+    private static void writeValue(JsonGenerator generator, AttributeValue value) throws IOException {
+        generator.writeStartObject();
+        if ( value.getS() != null ) {
+            generator.writeStringField("S", value.getS());
+        } else if ( value.getN() != null ) {
+            generator.writeStringField("N", value.getN());
+        } else if ( value.getB() != null ) {
+            generator.writeStringField("B", toBase64(value.getB()));
+        } else if ( value.getSS() != null ) {
+            writeStrings(generator, "SS", value.getSS());
+        } else if ( value.getNS() != null ) {
+            writeStrings(generator, "NS", value.getNS());
+        } else if ( value.getBS() != null ) {
+            generator.writeArrayFieldStart("BS");
+            for ( ByteBuffer b : value.getBS() ) {
+                generator.writeString(toBase64(b));
+            }
+            generator.writeEndArray();
+        } else if ( value.getBOOL() != null ) {
+            generator.writeBooleanField("BOOL", value.getBOOL());
+        } else if ( value.getNULL() != null ) {
+            generator.writeBooleanField("NULL", value.getNULL());
+        } else if ( value.getM() != null ) {
+            generator.writeFieldName("M");
+            writeItem(generator, value.getM());
+        } else if ( value.getL() != null ) {
+            generator.writeArrayFieldStart("L");
+            for ( AttributeValue element : value.getL() ) {
+                writeValue(generator, element);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeStrings(JsonGenerator generator, String type, List<String> strings) throws IOException {
+        generator.writeArrayFieldStart(type);
+        for ( String s : strings ) {
+            generator.writeString(s);
+        }
+        generator.writeEndArray();
+    }
+
+    private static String toBase64(ByteBuffer b) {
+        return BinaryUtils.toBase64(BinaryUtils.copyBytesFrom(b));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * The pages of items of a scan or query, read one batch at a time into the
+ * table editor. Any page read can be read again from where it started, so
+ * that the editor doesn't have to keep every page in memory.
+ */
+interface ItemPages {
+
+    /** Receives the items of each page, from the thread that read it. */
+    interface PageListener {
+
+        /**
+         * @param start
+         *            Where the page starts, to read it again with
+         *            {@link ItemPages#readPage(PageStart, PageListener)}.
+         * @param consumedCapacityUnits
+         *            The read capacity the page consumed, or zero if the
+         *            service didn't report it.
+         */
+        void pageReceived(PageStart start, List<Map<String, AttributeValue>> items, double consumedCapacityUnits);
+    }
+
+    /**
+     * Where a page starts: the segment of the scan it belongs to and the key
+     * it was read from.
+     */
+    final class PageStart {
+        private final int segment;
+        private final Map<String, AttributeValue> exclusiveStartKey;
+
+        PageStart(int segment, Map<String, AttributeValue> exclusiveStartKey) {
+            this.segment = segment;
+            this.exclusiveStartKey = exclusiveStartKey;
+        }
+
+        int getSegment() {
+            return segment;
+        }
+
+        /** Returns the key to start reading after, or null for the first page. */
+        Map<String, AttributeValue> getExclusiveStartKey() {
+            return exclusiveStartKey;
+        }
+    }
+
+    /**
+     * Returns whether there are more items to read.
+     */
+    boolean hasMorePages();
+
+    /**
+     * Reads the next batch of pages, handing each to the listener as soon as
+     * it arrives, and returns once they all have been. If the monitor is
+     * canceled, outstanding requests are abandoned and the position is kept,
+     * so the same pages are read again next time.
+     *
+     * @throws com.amazonaws.AmazonClientException
+     *             If a request fails; its position is kept.
+     */
+    void readNextPage(PageListener listener, IProgressMonitor monitor);
+
+    /**
+     * Reads again the page that starts at the given position, handing it to
+     * the listener. Its items may differ from the first time it was read if
+     * the table has changed since.
+     *
+     * @throws com.amazonaws.AmazonClientException
+     *             If the request fails.
+     */
+    void readPage(PageStart start, PageListener listener);
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ * Writes the changes made in the table editor. New items and deletions are
+ * grouped into BatchWriteItem requests sent several at a time, retrying
+ * unprocessed items with jittered exponential backoff, while attribute
+ * updates are sent as individual UpdateItem requests on a bounded pool. Every
+ * change is attempted, and the ones that fail are reported by key at the end.
+ */
+class ItemWriter {
+
+    /** Most keys a BatchGetItem request may contain. */
+    static final int BATCH_GET_SIZE = 100;
+
+    private static final int MAX_CONCURRENT_BATCHES = 4;
+    private static final int MAX_CONCURRENT_UPDATES = 8;
+
+    /** How often the writer checks whether the save has been canceled. */
+    private static final long CANCEL_POLL_MILLIS = 100;
+
+    private static final String CANCELED_MESSAGE = "The save was canceled";
+
+    private final AmazonDynamoDB dynamoDB;
+    private final String tableName;
+    private final List<String> keyAttributeNames;
+    private final Map<Map<String, AttributeValue>, String> failures = Collections
+            .synchronizedMap(new LinkedHashMap<Map<String, AttributeValue>, String>());
+    private volatile boolean canceled;
+
+    /**
+     * @param keyAttributeNames
+     *            The names of the hash key and, if any, range key of the table.
+     */
+    ItemWriter(AmazonDynamoDB dynamoDB, String tableName, List<String> keyAttributeNames) {
+        this.dynamoDB = dynamoDB;
+        this.tableName = tableName;
+        this.keyAttributeNames = keyAttributeNames;
+    }
+
+    /**
+     * Writes the given changes, returning once every one of them has been
+     * attempted. Progress is reported from the calling thread, one unit per
+     * change.
+     *
+     * @param newItems
+     *            Items to create, by key. An item fails if one with the same
+     *            key already exists.
+     * @param updates
+     *            Attribute updates of existing items, by key.
+     * @param deletedKeys
+     *            Keys of the items to delete.
+     * @return The error message of each change that failed, by key. Changes
+     *         not in the map were saved.
+     */
+    Map<Map<String, AttributeValue>, String> write(Map<Map<String, AttributeValue>, Map<String, AttributeValue>> newItems,
+            Map<Map<String, AttributeValue>, Map<String, AttributeValueUpdate>> updates,
+            List<Map<String, AttributeValue>> deletedKeys, IProgressMonitor monitor) {
+        failures.clear();
+        canceled = false;
+
+        ExecutorService batchExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_BATCHES);
+        ExecutorService updateExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_UPDATES);
+        LinkedBlockingQueue<Future<Integer>> completed = new LinkedBlockingQueue<>();
+        CompletionService<Integer> batches = new ExecutorCompletionService<>(batchExecutor, completed);
+        CompletionService<Integer> singleUpdates = new ExecutorCompletionService<>(updateExecutor, completed);
+        int pending = 0;
+        try {
+            // Updates don't depend on anything, so start them first
+            for ( final Entry<Map<String, AttributeValue>, Map<String, AttributeValueUpdate>> update : updates.entrySet() ) {
+                singleUpdates.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        updateItem(update.getKey(), update.getValue());
+                        return 1;
+                    }
+                });
+                pending++;
+            }
+
+            List<WriteRequest> writeRequests = new ArrayList<>();
+            for ( Entry<Map<String, AttributeValue>, Map<String, AttributeValue>> newItem : findMissingItems(newItems).entrySet() ) {
+                writeRequests.add(new WriteRequest().withPutRequest(new PutRequest().withItem(newItem.getValue())));
+            }
+            monitor.worked(newItems.size() - writeRequests.size());
+            for ( Map<String, AttributeValue> deletedKey : deletedKeys ) {
+                writeRequests.add(new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(deletedKey)));
+            }
+            for ( int start = 0; start < writeRequests.size(); start += BatchWriter.MAX_BATCH_SIZE ) {
+                final List<WriteRequest> batch = new ArrayList<>(writeRequests.subList(start,
+                        Math.min(start + BatchWriter.MAX_BATCH_SIZE, writeRequests.size())));
+                batches.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        writeBatch(batch);
+                        return batch.size();
+                    }
+                });
+                pending++;
+            }
+
+            while ( pending > 0 ) {
+                if ( monitor.isCanceled() ) {
+                    canceled = true;
+                }
+                Future<Integer> done = completed.poll(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if ( done == null ) {
+                    continue;
+                }
+                pending--;
+                try {
+                    monitor.worked(done.get());
+                } catch ( ExecutionException e ) {
+                    // Tasks record their own failures
+                }
+            }
+        } catch ( InterruptedException e ) {
+            canceled = true;
+            Thread.currentThread().interrupt();
+        } finally {
+            batchExecutor.shutdownNow();
+            updateExecutor.shutdownNow();
+        }
+
+        synchronized (failures) {
+            return new LinkedHashMap<>(failures);
+        }
+    }
+
+    /**
+     * Returns the new items whose keys don't exist in the table yet, failing
+     * the others. BatchWriteItem can't make a put conditional, so existing
+     * keys are looked up beforehand; the items of keys that can't be looked
+     * up fail as well.
+     */
+    private Map<Map<String, AttributeValue>, Map<String, AttributeValue>> findMissingItems(
+            Map<Map<String, AttributeValue>, Map<String, AttributeValue>> newItems) throws InterruptedException {
+        Map<Map<String, AttributeValue>, Map<String, AttributeValue>> missing = new LinkedHashMap<>(newItems);
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(newItems.keySet());
+        for ( int start = 0; start < keys.size(); start += BATCH_GET_SIZE ) {
+            Map<String, KeysAndAttributes> unprocessed = new HashMap<>();
+            unprocessed.put(tableName, new KeysAndAttributes().withConsistentRead(true)
+                    .withAttributesToGet(keyAttributeNames)
+                    .withKeys(keys.subList(start, Math.min(start + BATCH_GET_SIZE, keys.size()))));
+            for ( int attempt = 1; unprocessed != null && !unprocessed.isEmpty(); attempt++ ) {
+                if ( canceled || attempt > BatchWriter.MAX_BATCH_ATTEMPTS ) {
+                    String message = canceled ? CANCELED_MESSAGE
+                            : "Couldn't check whether the item already exists";
+                    for ( Map<String, AttributeValue> key : unprocessed.get(tableName).getKeys() ) {
+                        fail(key, message);
+                        missing.remove(key);
+                    }
+                    break;
+                }
+                if ( attempt > 1 ) {
+                    BatchWriter.backoff(attempt - 1);
+                }
+                try {
+                    BatchGetItemResult result = dynamoDB.batchGetItem(new BatchGetItemRequest(unprocessed));
+                    List<Map<String, AttributeValue>> existing = result.getResponses().get(tableName);
+                    if ( existing != null ) {
+                        for ( Map<String, AttributeValue> key : existing ) {
+                            fail(key, "An item with this key already exists");
+                            missing.remove(key);
+                        }
+                    }
+                    unprocessed = result.getUnprocessedKeys();
+                } catch ( AmazonClientException e ) {
+                    for ( Map<String, AttributeValue> key : unprocessed.get(tableName).getKeys() ) {
+                        fail(key, e.getMessage());
+                        missing.remove(key);
+                    }
+                    break;
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Writes a batch of puts and deletes, retrying unprocessed items with
+     * backoff. If the batch is rejected as a whole, its items are written one
+     * at a time to tell which of them failed.
+     */
+    private void writeBatch(List<WriteRequest> batch) {
+        BatchWriter writer = new BatchWriter(dynamoDB, tableName, null, batch) {
+            @Override
+            protected boolean isCanceled() {
+                return canceled;
+            }
+        };
+        try {
+            writer.write();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            canceled = true;
+        } catch ( AmazonClientException e ) {
+            for ( WriteRequest writeRequest : writer.getUnprocessed() ) {
+                writeItem(writeRequest);
+            }
+            return;
+        }
+
+        String message = canceled ? CANCELED_MESSAGE
+                : "The item was still unprocessed after " + BatchWriter.MAX_BATCH_ATTEMPTS + " attempts";
+        for ( WriteRequest writeRequest : writer.getUnprocessed() ) {
+            fail(getKey(writeRequest), message);
+        }
+    }
+
+    /**
+     * Sends a single put or delete of a batch that was rejected. Puts only
+     * create new items, so they're conditional on the key not existing in
+     * case an item was written since the keys were looked up.
+     */
+    private void writeItem(WriteRequest writeRequest) {
+        if ( canceled ) {
+            fail(getKey(writeRequest), CANCELED_MESSAGE);
+            return;
+        }
+        try {
+            if ( writeRequest.getPutRequest() != null ) {
+                dynamoDB.putItem(new PutItemRequest().withTableName(tableName)
+                        .withItem(writeRequest.getPutRequest().getItem())
+                        .withConditionExpression("attribute_not_exists(#k)")
+                        .withExpressionAttributeNames(Collections.singletonMap("#k", keyAttributeNames.get(0))));
+            } else {
+                dynamoDB.deleteItem(new DeleteItemRequest().withTableName(tableName)
+                        .withKey(writeRequest.getDeleteRequest().getKey()));
+            }
+        } catch ( ConditionalCheckFailedException e ) {
+            fail(getKey(writeRequest), "An item with this key already exists");
+        } catch ( AmazonClientException e ) {
+            fail(getKey(writeRequest), e.getMessage());
+        }
+    }
+
+    private void updateItem(Map<String, AttributeValue> key, Map<String, AttributeValueUpdate> attributeUpdates) {
+        if ( canceled ) {
+            fail(key, CANCELED_MESSAGE);
+            return;
+        }
+        try {
+            dynamoDB.updateItem(new UpdateItemRequest().withTableName(tableName).withKey(key)
+                    .withAttributeUpdates(attributeUpdates));
+        } catch ( AmazonClientException e ) {
+            fail(key, e.getMessage());
+        }
+    }
+
+    private Map<String, AttributeValue> getKey(WriteRequest writeRequest) {
+        if ( writeRequest.getDeleteRequest() != null ) {
+            return writeRequest.getDeleteRequest().getKey();
+        }
+        Map<String, AttributeValue> key = new HashMap<>();
+        for ( String keyAttributeName : keyAttributeNames ) {
+            key.put(keyAttributeName, writeRequest.getPutRequest().getItem().get(keyAttributeName));
+        }
+        return key;
+    }
+
+    private void fail(Map<String, AttributeValue> key, String message) {
+        failures.put(key, message);
+    }
+}
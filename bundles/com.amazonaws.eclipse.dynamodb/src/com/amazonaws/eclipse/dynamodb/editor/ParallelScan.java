@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+
+/**
+ * A scan of a table split into segments that are read in parallel. Each call
+ * to {@link #readNextPage(PageListener, IProgressMonitor)} reads one more page
+ * of every segment that isn't finished yet, handing each page to the listener
+ * as soon as it arrives, whichever segment it comes from. The position of each
+ * segment is kept between calls, so the next call continues where every
+ * segment left off.
+ */
+class ParallelScan implements ItemPages {
+
+    /** Largest number of segments the editor lets the user ask for. */
+    static final int MAX_SEGMENTS = 64;
+
+    /** How often a waiting scan checks whether it has been canceled. */
+    private static final long CANCEL_POLL_MILLIS = 100;
+
+    private final AmazonDynamoDB dynamoDB;
+    private final ScanRequest scanRequest;
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * @param scanRequest
+     *            The table name and filter of the scan; copied for every
+     *            request, never modified.
+     * @param totalSegments
+     *            How many segments to read in parallel. A single segment runs
+     *            a plain sequential scan.
+     */
+    ParallelScan(AmazonDynamoDB dynamoDB, ScanRequest scanRequest, int totalSegments) {
+        this.dynamoDB = dynamoDB;
+        this.scanRequest = scanRequest;
+        for ( int i = 0; i < totalSegments; i++ ) {
+            segments.add(new Segment(i));
+        }
+    }
+
+    @Override
+    public boolean hasMorePages() {
+        for ( Segment segment : segments ) {
+            if ( !segment.finished ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the next page of every unfinished segment in parallel. If
+     * segments fail, the first error is thrown once the other segments are
+     * done.
+     */
+    @Override
+    public void readNextPage(final PageListener listener, IProgressMonitor monitor) {
+        List<Segment> pending = new ArrayList<>();
+        for ( Segment segment : segments ) {
+            if ( !segment.finished ) {
+                pending.add(segment);
+            }
+        }
+        if ( pending.isEmpty() ) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(pending.size());
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for ( final Segment segment : pending ) {
+                futures.add(completionService.submit(() -> {
+                    segment.readNextPage(listener);
+                    return null;
+                }));
+            }
+
+            AmazonClientException error = null;
+            int remaining = futures.size();
+            while ( remaining > 0 ) {
+                if ( monitor.isCanceled() ) {
+                    return;
+                }
+                Future<Void> done = completionService.poll(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if ( done == null ) {
+                    continue;
+                }
+                remaining--;
+                try {
+                    done.get();
+                } catch ( ExecutionException e ) {
+                    if ( error == null ) {
+                        error = e.getCause() instanceof AmazonClientException
+                                ? (AmazonClientException) e.getCause()
+                                : new AmazonClientException(e.getCause().getMessage(), e.getCause());
+                    }
+                }
+            }
+            if ( error != null ) {
+                throw error;
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for ( Future<Void> future : futures ) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void readPage(PageStart start, PageListener listener) {
+        ScanResult result = dynamoDB.scan(createRequest(start));
+        listener.pageReceived(start, result.getItems(), result.getConsumedCapacity() == null ? 0
+                : result.getConsumedCapacity().getCapacityUnits());
+    }
+
+    private ScanRequest createRequest(PageStart start) {
+        ScanRequest request = scanRequest.clone().withExclusiveStartKey(start.getExclusiveStartKey());
+        if ( segments.size() > 1 ) {
+            request.withSegment(start.getSegment()).withTotalSegments(segments.size());
+        }
+        return request;
+    }
+
+    /**
+     * The position of one segment of the scan.
+     */
+    private final class Segment {
+        private final int number;
+        private volatile Map<String, AttributeValue> lastEvaluatedKey;
+        private volatile boolean finished;
+
+        Segment(int number) {
+            this.number = number;
+        }
+
+        void readNextPage(PageListener listener) {
+            PageStart start = new PageStart(number, lastEvaluatedKey);
+            ScanResult result = dynamoDB.scan(createRequest(start));
+            if ( Thread.currentThread().isInterrupted() ) {
+                return;
+            }
+
+            listener.pageReceived(start, result.getItems(), result.getConsumedCapacity() == null ? 0
+                    : result.getConsumedCapacity().getCapacityUnits());
+            lastEvaluatedKey = result.getLastEvaluatedKey();
+            finished = lastEvaluatedKey == null;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.amazonaws.eclipse.dynamodb.editor.ItemPages.PageStart;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * The rows of the table editor's results, kept as the pages they were read
+ * in. Only the most recently used pages are held in memory; the others are
+ * dropped and read again from where they started when the table scrolls back
+ * to them. Pages with unsaved changes, and items added in the editor, are
+ * never dropped.
+ * <p>
+ * Rows keep their position when pages are dropped, since the size of every
+ * page is remembered; pages without items take no room in memory. This class
+ * is only used from the UI thread.
+ */
+class ResultPages {
+
+    /**
+     * How many pages read from the table are held in memory. A page holds up
+     * to 1 MB of items.
+     */
+    static final int MAX_CACHED_PAGES = 16;
+
+    /**
+     * A run of consecutive rows: either a page read from the table, or items
+     * added in the editor.
+     */
+    static final class Block {
+        private final int index;
+        private final PageStart start;
+        private int size;
+
+        private Block(int index, PageStart start, int size) {
+            this.index = index;
+            this.start = start;
+            this.size = size;
+        }
+
+        /** Returns where the page starts, or null for added items. */
+        PageStart getStart() {
+            return start;
+        }
+
+        int getSize() {
+            return size;
+        }
+    }
+
+    private final List<Block> blocks = new ArrayList<>();
+    private final Map<Block, List<Map<String, AttributeValue>>> cachedPages;
+    private final Map<Block, List<Map<String, AttributeValue>>> pinnedPages = new HashMap<>();
+    private int rowCount;
+
+    /** The page dropped from memory by the last page put in it, if any. */
+    private Block dropped;
+
+    /** The first row of each block, or null if they need to be counted again. */
+    private int[] firstRows;
+
+    ResultPages(final int maxCachedPages) {
+        this.cachedPages = new LinkedHashMap<Block, List<Map<String, AttributeValue>>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<Block, List<Map<String, AttributeValue>>> eldest) {
+                if ( size() > maxCachedPages ) {
+                    dropped = eldest.getKey();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Adds the rows of a page read from the table. Returns the page dropped
+     * from memory to make room for it, or null if none was.
+     */
+    Block addPage(PageStart start, List<Map<String, AttributeValue>> items) {
+        Block block = new Block(blocks.size(), start, items.size());
+        blocks.add(block);
+        rowCount += items.size();
+        firstRows = null;
+        return cache(block, items);
+    }
+
+    /**
+     * Adds an item created in the editor after the last row.
+     */
+    void addItem(Map<String, AttributeValue> item) {
+        Block last = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if ( last == null || last.start != null ) {
+            last = new Block(blocks.size(), null, 0);
+            blocks.add(last);
+            pinnedPages.put(last, new ArrayList<Map<String, AttributeValue>>());
+        }
+        pinnedPages.get(last).add(item);
+        last.size++;
+        rowCount++;
+        firstRows = null;
+    }
+
+    /**
+     * Returns the item of the given row, or null if its page isn't in memory.
+     */
+    Map<String, AttributeValue> getItem(int row) {
+        Block block = getBlock(row);
+        List<Map<String, AttributeValue>> items = getItems(block);
+        return items == null ? null : items.get(row - getFirstRow(block));
+    }
+
+    /**
+     * Returns the block holding the given row.
+     */
+    Block getBlock(int row) {
+        if ( row < 0 || row >= rowCount ) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        int[] first = getFirstRows();
+        int low = 0;
+        int high = blocks.size() - 1;
+        while ( low < high ) {
+            int middle = (low + high + 1) >>> 1;
+            if ( first[middle] <= row ) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return blocks.get(low);
+    }
+
+    /**
+     * Returns the first row of the given block.
+     */
+    int getFirstRow(Block block) {
+        return getFirstRows()[block.index];
+    }
+
+    /**
+     * Keeps the page of the given row in memory from now on, so that changes
+     * to its items aren't lost. Returns false if the page isn't in memory.
+     */
+    boolean pin(int row) {
+        Block block = getBlock(row);
+        if ( pinnedPages.containsKey(block) ) {
+            return true;
+        }
+        List<Map<String, AttributeValue>> items = cachedPages.remove(block);
+        if ( items == null ) {
+            return false;
+        }
+        pinnedPages.put(block, items);
+        return true;
+    }
+
+    /**
+     * Removes the given row, keeping its page in memory from now on. Returns
+     * false, removing nothing, if the page isn't in memory.
+     */
+    boolean removeRow(int row) {
+        if ( !pin(row) ) {
+            return false;
+        }
+        Block block = getBlock(row);
+        pinnedPages.get(block).remove(row - getFirstRow(block));
+        block.size--;
+        rowCount--;
+        firstRows = null;
+        return true;
+    }
+
+    /**
+     * Puts back in memory the items of a page that was read again. If the
+     * table has changed and the page now has a different number of items,
+     * the rows after it move. Returns the page dropped from memory to make
+     * room for it, or null if none was.
+     */
+    Block pageRead(Block block, List<Map<String, AttributeValue>> items) {
+        if ( block.index >= blocks.size() || blocks.get(block.index) != block || pinnedPages.containsKey(block) ) {
+            return null;
+        }
+        rowCount += items.size() - block.size;
+        block.size = items.size();
+        firstRows = null;
+        return cache(block, items);
+    }
+
+    void clear() {
+        blocks.clear();
+        cachedPages.clear();
+        pinnedPages.clear();
+        rowCount = 0;
+        firstRows = null;
+    }
+
+    private Block cache(Block block, List<Map<String, AttributeValue>> items) {
+        if ( items.isEmpty() ) {
+            cachedPages.remove(block);
+            return null;
+        }
+        dropped = null;
+        cachedPages.put(block, new ArrayList<>(items));
+        return dropped;
+    }
+
+    private List<Map<String, AttributeValue>> getItems(Block block) {
+        List<Map<String, AttributeValue>> items = pinnedPages.get(block);
+        return items != null ? items : cachedPages.get(block);
+    }
+
+    private int[] getFirstRows() {
+        if ( firstRows == null ) {
+            firstRows = new int[blocks.size()];
+            int row = 0;
+            for ( int i = 0; i < blocks.size(); i++ ) {
+                firstRows[i] = row;
+                row += blocks.get(i).size;
+            }
+        }
+        return firstRows;
+    }
+}
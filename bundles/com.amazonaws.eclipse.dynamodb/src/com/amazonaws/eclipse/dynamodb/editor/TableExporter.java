@@ -0,0 +1,609 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import static com.amazonaws.eclipse.dynamodb.editor.AttributeValueUtil.format;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.eclipse.core.util.CapacityLimiter;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.util.BinaryUtils;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Streams every item of a scan or query to a CSV or JSON Lines file,
+ * optionally gzipped. Scans are split into segments read in parallel, and
+ * each page is written out as soon as it arrives, so memory use doesn't grow
+ * with the size of the table. CSV columns are discovered by a first pass over
+ * the items, since a table has no fixed schema.
+ * <p>
+ * After every page, the position of each segment and the length of the
+ * output written so far are saved next to the output file. An interrupted
+ * export can be resumed from there: the output is cut back to the saved
+ * length, and every segment continues from its last evaluated key. Gzipped
+ * output is written as one gzip member per page for the same reason.
+ */
+class TableExporter {
+
+    enum Format {
+        CSV("CSV", "*.csv"),
+        JSON_LINES("JSON Lines (DynamoDB JSON)", "*.jsonl");
+
+        private final String label;
+        private final String extension;
+
+        private Format(String label, String extension) {
+            this.label = label;
+            this.extension = extension;
+        }
+
+        String getLabel() {
+            return label;
+        }
+
+        String getExtension() {
+            return extension;
+        }
+    }
+
+    /** Suffix of the file saving the progress of an export. */
+    static final String PROGRESS_FILE_SUFFIX = ".export-progress";
+
+    /** How often the export checks whether it has been canceled. */
+    private static final long CANCEL_POLL_MILLIS = 100;
+
+    private final AmazonDynamoDB dynamoDB;
+    private final ScanRequest scanRequest;
+    private final QueryRequest queryRequest;
+    private final int totalSegments;
+    private final List<String> keyAttributeNames;
+    private final File file;
+    private final File progressFile;
+    private final Format format;
+    private final boolean gzip;
+    private final CapacityLimiter limiter;
+    private final JsonFactory jsonFactory = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+
+    /*
+     * Progress saved after every page
+     */
+    private List<String> columns;
+    private Map<String, AttributeValue>[] segmentKeys;
+    private boolean[] segmentsFinished;
+    private long outputLength;
+    private long itemCount;
+
+    /*
+     * Output currently being written
+     */
+    private FileOutputStream output;
+    private GzipMember gzipMember;
+    private Writer writer;
+
+    /**
+     * Returns an exporter of the items of a scan, split into the given number
+     * of segments.
+     *
+     * @param keyAttributeNames
+     *            The key attributes of the table, which come first in CSV
+     *            output.
+     * @param readCapacityUnitsPerSecond
+     *            The read capacity the export may consume, or zero for no
+     *            limit.
+     */
+    static TableExporter forScan(AmazonDynamoDB dynamoDB, ScanRequest scanRequest, int totalSegments,
+            List<String> keyAttributeNames, File file, Format format, boolean gzip, double readCapacityUnitsPerSecond) {
+        return new TableExporter(dynamoDB, scanRequest, null, totalSegments, keyAttributeNames, file, format, gzip,
+                readCapacityUnitsPerSecond);
+    }
+
+    /**
+     * Returns an exporter of the items of a query.
+     *
+     * @see #forScan(AmazonDynamoDB, ScanRequest, int, List, File, Format,
+     *      boolean, double)
+     */
+    static TableExporter forQuery(AmazonDynamoDB dynamoDB, QueryRequest queryRequest,
+            List<String> keyAttributeNames, File file, Format format, boolean gzip, double readCapacityUnitsPerSecond) {
+        return new TableExporter(dynamoDB, null, queryRequest, 1, keyAttributeNames, file, format, gzip,
+                readCapacityUnitsPerSecond);
+    }
+
+    private TableExporter(AmazonDynamoDB dynamoDB, ScanRequest scanRequest, QueryRequest queryRequest,
+            int totalSegments, List<String> keyAttributeNames, File file, Format format, boolean gzip,
+            double readCapacityUnitsPerSecond) {
+        this.dynamoDB = dynamoDB;
+        this.scanRequest = scanRequest;
+        this.queryRequest = queryRequest;
+        this.totalSegments = totalSegments;
+        this.keyAttributeNames = keyAttributeNames;
+        this.file = file;
+        this.progressFile = new File(file.getPath() + PROGRESS_FILE_SUFFIX);
+        this.format = format;
+        this.gzip = gzip;
+        this.limiter = readCapacityUnitsPerSecond > 0 ? new CapacityLimiter(readCapacityUnitsPerSecond) : null;
+    }
+
+    /**
+     * Returns whether an interrupted run of this same export, to the same
+     * file, can be resumed.
+     */
+    boolean hasResumableProgress() {
+        try {
+            return loadProgress() != null;
+        } catch ( IOException e ) {
+            return false;
+        }
+    }
+
+    /**
+     * Exports the items, returning early if the monitor is canceled.
+     *
+     * @param resume
+     *            Whether to continue an interrupted run of this export, if
+     *            there is one, rather than starting over.
+     * @throws AmazonClientException
+     *             If a request fails. The export can be resumed.
+     */
+    void run(boolean resume, IProgressMonitor monitor) throws IOException, InterruptedException {
+        monitor.beginTask("Exporting to " + file.getName(), IProgressMonitor.UNKNOWN);
+        try {
+            Properties saved = resume ? loadProgress() : null;
+            if ( saved != null ) {
+                restoreProgress(saved);
+            } else {
+                resetProgress();
+            }
+
+            if ( format == Format.CSV && columns == null ) {
+                columns = discoverColumns(monitor);
+                if ( monitor.isCanceled() ) {
+                    return;
+                }
+                saveProgress();
+            }
+
+            openOutput();
+            readAll(segmentKeys, segmentsFinished, "Exported", itemCount, new PageHandler() {
+                @Override
+                public void pageRead(int segment, List<Map<String, AttributeValue>> items,
+                        Map<String, AttributeValue> lastEvaluatedKey) throws IOException {
+                    writePage(segment, items, lastEvaluatedKey);
+                }
+            }, monitor);
+            closeOutput();
+
+            if ( !monitor.isCanceled() ) {
+                Files.deleteIfExists(progressFile.toPath());
+            }
+        } finally {
+            if ( output != null ) {
+                output.close();
+                output = null;
+            }
+            monitor.done();
+        }
+    }
+
+    /**
+     * Reads every item once to collect the names of their attributes, the
+     * key attributes first and the others in alphabetical order.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> discoverColumns(IProgressMonitor monitor) throws IOException, InterruptedException {
+        final Set<String> attributeNames = new TreeSet<>();
+        readAll(new Map[totalSegments], new boolean[totalSegments], "Discovering columns:", 0, new PageHandler() {
+            @Override
+            public void pageRead(int segment, List<Map<String, AttributeValue>> items,
+                    Map<String, AttributeValue> lastEvaluatedKey) {
+                synchronized (attributeNames) {
+                    for ( Map<String, AttributeValue> item : items ) {
+                        attributeNames.addAll(item.keySet());
+                    }
+                }
+            }
+        }, monitor);
+
+        List<String> result = new ArrayList<>(keyAttributeNames);
+        attributeNames.removeAll(keyAttributeNames);
+        result.addAll(attributeNames);
+        return result;
+    }
+
+    /** Receives every page read, from the thread of its segment. */
+    private interface PageHandler {
+        void pageRead(int segment, List<Map<String, AttributeValue>> items,
+                Map<String, AttributeValue> lastEvaluatedKey) throws IOException;
+    }
+
+    /**
+     * Reads the unfinished segments in parallel, starting from the given
+     * keys, until they are all finished or the monitor is canceled.
+     */
+    private void readAll(final Map<String, AttributeValue>[] startKeys, boolean[] finished, String progressLabel,
+            long initialCount, final PageHandler handler, IProgressMonitor monitor)
+            throws IOException, InterruptedException {
+        final AtomicLong count = new AtomicLong(initialCount);
+        ExecutorService executor = Executors.newFixedThreadPool(totalSegments);
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for ( int i = 0; i < totalSegments; i++ ) {
+                if ( finished[i] ) {
+                    continue;
+                }
+                final int segment = i;
+                futures.add(completionService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        Map<String, AttributeValue> startKey = startKeys[segment];
+                        do {
+                            if ( limiter != null ) {
+                                limiter.acquire();
+                            }
+                            Page page = readPage(segment, startKey);
+                            if ( limiter != null ) {
+                                limiter.consume(page.consumedCapacityUnits);
+                            }
+                            if ( Thread.currentThread().isInterrupted() ) {
+                                return null;
+                            }
+                            handler.pageRead(segment, page.items, page.lastEvaluatedKey);
+                            count.addAndGet(page.items.size());
+                            startKey = page.lastEvaluatedKey;
+                        } while ( startKey != null );
+                        return null;
+                    }
+                }));
+            }
+
+            for ( int remaining = futures.size(); remaining > 0; ) {
+                if ( monitor.isCanceled() ) {
+                    return;
+                }
+                monitor.subTask(String.format("%s %,d items", progressLabel, count.get()));
+                Future<Void> done = completionService.poll(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if ( done == null ) {
+                    continue;
+                }
+                remaining--;
+                try {
+                    done.get();
+                } catch ( ExecutionException e ) {
+                    if ( e.getCause() instanceof IOException ) {
+                        throw (IOException) e.getCause();
+                    } else if ( e.getCause() instanceof RuntimeException ) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new AmazonClientException(e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } finally {
+            for ( Future<Void> future : futures ) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private Page readPage(int segment, Map<String, AttributeValue> startKey) {
+        if ( queryRequest != null ) {
+            QueryResult result = dynamoDB.query(queryRequest.clone()
+                    .withExclusiveStartKey(startKey)
+                    .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL));
+            return new Page(result.getItems(), result.getLastEvaluatedKey(), result.getConsumedCapacity());
+        }
+
+        ScanRequest request = scanRequest.clone()
+                .withExclusiveStartKey(startKey)
+                .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        if ( totalSegments > 1 ) {
+            request.withSegment(segment).withTotalSegments(totalSegments);
+        }
+        ScanResult result = dynamoDB.scan(request);
+        return new Page(result.getItems(), result.getLastEvaluatedKey(), result.getConsumedCapacity());
+    }
+
+    private static final class Page {
+        private final List<Map<String, AttributeValue>> items;
+        private final Map<String, AttributeValue> lastEvaluatedKey;
+        private final double consumedCapacityUnits;
+
+        Page(List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey,
+                ConsumedCapacity consumedCapacity) {
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+            this.consumedCapacityUnits = consumedCapacity == null ? 0 : consumedCapacity.getCapacityUnits();
+        }
+    }
+
+    /*
+     * Output
+     */
+
+    /**
+     * Opens the output file, cut back to the length written so far, and
+     * writes the CSV header if the file is empty.
+     */
+    private void openOutput() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(outputLength);
+        }
+        output = new FileOutputStream(file, true);
+        if ( outputLength == 0 && format == Format.CSV ) {
+            startMember();
+            writeCsvRow(columns);
+            endMember();
+            saveProgress();
+        }
+    }
+
+    /**
+     * Writes the items of a page and saves the progress of its segment.
+     */
+    private synchronized void writePage(int segment, List<Map<String, AttributeValue>> items,
+            Map<String, AttributeValue> lastEvaluatedKey) throws IOException {
+        if ( !items.isEmpty() ) {
+            startMember();
+            for ( Map<String, AttributeValue> item : items ) {
+                if ( format == Format.CSV ) {
+                    List<String> values = new ArrayList<>(columns.size());
+                    for ( String column : columns ) {
+                        AttributeValue value = item.get(column);
+                        values.add(value == null ? null : format(value));
+                    }
+                    writeCsvRow(values);
+                } else {
+                    JsonGenerator generator = jsonFactory.createGenerator(writer);
+                    ItemJson.writeItem(generator, item);
+                    generator.close();
+                    writer.write('\n');
+                }
+            }
+            endMember();
+        }
+
+        segmentKeys[segment] = lastEvaluatedKey;
+        segmentsFinished[segment] = lastEvaluatedKey == null;
+        itemCount += items.size();
+        saveProgress();
+    }
+
+    /**
+     * Writes a CSV row, quoting every value; null values are left empty.
+     */
+    private void writeCsvRow(List<String> values) throws IOException {
+        boolean seenOne = false;
+        for ( String value : values ) {
+            if ( seenOne ) {
+                writer.write(',');
+            } else {
+                seenOne = true;
+            }
+            if ( value != null ) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void startMember() throws IOException {
+        OutputStream stream = output;
+        if ( gzip ) {
+            stream = gzipMember = new GzipMember(output);
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Flushes everything written since {@link #startMember()}, completing the
+     * gzip member if compressing, and records the new length of the output.
+     */
+    private void endMember() throws IOException {
+        writer.flush();
+        writer = null;
+        if ( gzipMember != null ) {
+            gzipMember.end();
+            gzipMember = null;
+        }
+        output.flush();
+        outputLength = output.getChannel().position();
+    }
+
+    private void closeOutput() throws IOException {
+        output.close();
+        output = null;
+    }
+
+    /**
+     * A gzip member that releases its compressor once complete, without
+     * closing the file, so that the next page can start a new member.
+     */
+    private static final class GzipMember extends GZIPOutputStream {
+        GzipMember(OutputStream out) throws IOException {
+            super(out, 64 * 1024);
+        }
+
+        void end() throws IOException {
+            finish();
+            def.end();
+        }
+    }
+
+    /*
+     * Progress
+     */
+
+    /**
+     * Returns the saved progress of this export, or null if there is none or
+     * it belongs to a different export.
+     */
+    private Properties loadProgress() throws IOException {
+        if ( !progressFile.isFile() || !file.isFile() ) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(progressFile)) {
+            properties.load(in);
+        }
+        return getDescription().equals(properties.getProperty("export")) ? properties : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resetProgress() {
+        columns = null;
+        segmentKeys = new Map[totalSegments];
+        segmentsFinished = new boolean[totalSegments];
+        outputLength = 0;
+        itemCount = 0;
+    }
+
+    private void restoreProgress(Properties properties) {
+        resetProgress();
+        outputLength = Long.parseLong(properties.getProperty("length"));
+        itemCount = Long.parseLong(properties.getProperty("items"));
+        if ( properties.getProperty("columns") != null ) {
+            columns = new ArrayList<>();
+            for ( int i = 0; i < Integer.parseInt(properties.getProperty("columns")); i++ ) {
+                columns.add(properties.getProperty("column." + i));
+            }
+        }
+        for ( int segment = 0; segment < totalSegments; segment++ ) {
+            String prefix = "segment." + segment + ".";
+            segmentsFinished[segment] = Boolean.parseBoolean(properties.getProperty(prefix + "finished"));
+            for ( String name : properties.stringPropertyNames() ) {
+                if ( name.startsWith(prefix + "key.") ) {
+                    if ( segmentKeys[segment] == null ) {
+                        segmentKeys[segment] = new HashMap<>();
+                    }
+                    segmentKeys[segment].put(name.substring(prefix.length() + 4),
+                            decodeKeyValue(properties.getProperty(name)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the progress, replacing the previous progress file only once the
+     * new one is completely written.
+     */
+    private void saveProgress() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("export", getDescription());
+        properties.setProperty("length", Long.toString(outputLength));
+        properties.setProperty("items", Long.toString(itemCount));
+        if ( columns != null ) {
+            properties.setProperty("columns", Integer.toString(columns.size()));
+            for ( int i = 0; i < columns.size(); i++ ) {
+                properties.setProperty("column." + i, columns.get(i));
+            }
+        }
+        for ( int segment = 0; segment < totalSegments; segment++ ) {
+            String prefix = "segment." + segment + ".";
+            properties.setProperty(prefix + "finished", Boolean.toString(segmentsFinished[segment]));
+            if ( segmentKeys[segment] != null ) {
+                for ( Entry<String, AttributeValue> key : segmentKeys[segment].entrySet() ) {
+                    properties.setProperty(prefix + "key." + key.getKey(), encodeKeyValue(key.getValue()));
+                }
+            }
+        }
+
+        File tempFile = new File(progressFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            properties.store(out, "Progress of a DynamoDB table export to " + file.getName());
+        }
+        Files.move(tempFile.toPath(), progressFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Returns a description of what this export reads and writes; progress
+     * is only resumed by an export with the same description.
+     */
+    private String getDescription() {
+        return Arrays.asList(format, gzip, totalSegments, scanRequest != null ? scanRequest : queryRequest)
+                .toString();
+    }
+
+    /** Key attributes can only be strings, numbers or binaries. */
+    private static String encodeKeyValue(AttributeValue value) {
+        if ( value.getS() != null ) {
+            return "S:" + value.getS();
+        } else if ( value.getN() != null ) {
+            return "N:" + value.getN();
+        }
+        return "B:" + BinaryUtils.toBase64(BinaryUtils.copyBytesFrom(value.getB()));
+    }
+
+    private static AttributeValue decodeKeyValue(String encoded) {
+        String value = encoded.substring(2);
+        switch ( encoded.charAt(0) ) {
+        case 'S':
+            return new AttributeValue().withS(value);
+        case 'N':
+            return new AttributeValue().withN(value);
+        default:
+            return new AttributeValue().withB(ByteBuffer.wrap(BinaryUtils.fromBase64(value)));
+        }
+    }
+}
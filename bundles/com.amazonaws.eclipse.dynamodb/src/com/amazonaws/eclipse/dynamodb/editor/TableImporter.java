@@ -0,0 +1,624 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonServiceException.ErrorType;
+import com.amazonaws.eclipse.core.util.CapacityLimiter;
+import com.amazonaws.eclipse.dynamodb.editor.TableExporter.Format;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.amazonaws.util.BinaryUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Loads the items of a CSV or JSON Lines file, optionally gzipped, into a
+ * table. The file is read in order and its items are grouped into
+ * BatchWriteItem requests sent by a fixed number of writer threads, with a
+ * {@link CapacityLimiter} keeping the write capacity consumed under a budget.
+ * Only a few batches per writer are read ahead, so memory use doesn't grow
+ * with the size of the file.
+ * <p>
+ * CSV files carry no data types: key attributes get the types of the table's
+ * key, and every other value is imported as a string. Empty CSV values are
+ * left out of the item.
+ * <p>
+ * The offset in the file up to which every item has been written is saved
+ * next to the file as the import goes. An interrupted import can be resumed
+ * from there; items after that offset that were already written are simply
+ * put again.
+ */
+class TableImporter {
+
+    /** Suffix of the file saving the progress of an import. */
+    static final String PROGRESS_FILE_SUFFIX = ".import-progress";
+
+    /** Most items a BatchWriteItem request may contain. */
+    private static final int BATCH_SIZE = BatchWriter.MAX_BATCH_SIZE;
+
+    /** How many batches per writer thread are read ahead of the writers. */
+    private static final int BATCHES_READ_AHEAD = 2;
+
+    /** How often the import checks whether it has been canceled. */
+    private static final long CANCEL_POLL_MILLIS = 100;
+
+    /** How often progress is saved and shown. */
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+    /** Most failed items described individually; the others are counted. */
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    private final AmazonDynamoDB dynamoDB;
+    private final String tableName;
+    private final Map<String, String> keyAttributeTypes;
+    private final File file;
+    private final File progressFile;
+    private final Format format;
+    private final int writerThreads;
+    private final CapacityLimiter limiter;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong itemsWritten = new AtomicLong();
+
+    /**
+     * @param keyAttributeTypes
+     *            The data type (S, N or B) of each key attribute of the table.
+     * @param writeCapacityUnitsPerSecond
+     *            The write capacity the import may consume, or zero for no
+     *            limit.
+     */
+    TableImporter(AmazonDynamoDB dynamoDB, String tableName, Map<String, String> keyAttributeTypes, File file,
+            Format format, int writerThreads, double writeCapacityUnitsPerSecond) {
+        this.dynamoDB = dynamoDB;
+        this.tableName = tableName;
+        this.keyAttributeTypes = keyAttributeTypes;
+        this.file = file;
+        this.progressFile = new File(file.getPath() + PROGRESS_FILE_SUFFIX);
+        this.format = format;
+        this.writerThreads = writerThreads;
+        this.limiter = writeCapacityUnitsPerSecond > 0 ? new CapacityLimiter(writeCapacityUnitsPerSecond) : null;
+    }
+
+    /**
+     * Returns whether an interrupted import of the same file into the same
+     * table can be resumed.
+     */
+    boolean hasResumableProgress() {
+        try {
+            return loadProgress() != null;
+        } catch ( IOException e ) {
+            return false;
+        }
+    }
+
+    /**
+     * Imports the items of the file, returning early if the monitor is
+     * canceled. Items that are invalid or rejected by DynamoDB are skipped
+     * and reported.
+     *
+     * @param resume
+     *            Whether to continue an interrupted import of this file, if
+     *            there is one, rather than starting over.
+     * @return A description of each item that couldn't be imported, by record
+     *         number in the file.
+     * @throws AmazonClientException
+     *             If the table can't be written to, for instance because
+     *             throttled requests still fail after retrying. The import
+     *             can be resumed.
+     */
+    List<String> run(boolean resume, IProgressMonitor monitor) throws IOException, InterruptedException {
+        failures.clear();
+        failureCount.set(0);
+        itemsWritten.set(0);
+
+        Properties saved = resume ? loadProgress() : null;
+        long startOffset = saved == null ? 0 : Long.parseLong(saved.getProperty("offset"));
+        long startRecords = saved == null ? 0 : Long.parseLong(saved.getProperty("records"));
+        long previousItems = saved == null ? 0 : Long.parseLong(saved.getProperty("items"));
+
+        int totalWork = (int) Math.min(Integer.MAX_VALUE, file.length() / 1024 + 1);
+        monitor.beginTask("Importing " + file.getName() + " into " + tableName, totalWork);
+        ExecutorService executor = Executors.newFixedThreadPool(writerThreads);
+        CompletionService<Batch> completionService = new ExecutorCompletionService<>(executor);
+        try (FileInputStream fileIn = new FileInputStream(file)) {
+            RecordReader reader = new RecordReader(open(fileIn));
+            List<String> columns = null;
+            if ( format == Format.CSV ) {
+                byte[] header = reader.next();
+                if ( header == null ) {
+                    return Collections.emptyList();
+                }
+                columns = parseCsvRecord(new String(header, StandardCharsets.UTF_8));
+            }
+            reader.skipTo(startOffset, startRecords);
+
+            Progress progress = new Progress(reader.offset, reader.recordNumber, previousItems);
+            long startMillis = System.currentTimeMillis();
+            long startPosition = fileIn.getChannel().position();
+            long lastReportMillis = startMillis;
+            int reportedWork = 0;
+            int inFlight = 0;
+            long nextSequence = 0;
+            boolean endOfFile = false;
+
+            while ( !endOfFile || inFlight > 0 ) {
+                if ( monitor.isCanceled() ) {
+                    progress.save();
+                    return getFailures();
+                }
+
+                // Read ahead until every writer has a couple of batches queued
+                while ( !endOfFile && inFlight < writerThreads * BATCHES_READ_AHEAD ) {
+                    final Batch batch = readBatch(reader, columns, nextSequence++);
+                    endOfFile = batch.items.size() < BATCH_SIZE;
+                    completionService.submit(new Callable<Batch>() {
+                        @Override
+                        public Batch call() throws InterruptedException {
+                            writeBatch(batch);
+                            return batch;
+                        }
+                    });
+                    inFlight++;
+                }
+
+                Future<Batch> done = completionService.poll(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if ( done != null ) {
+                    inFlight--;
+                    try {
+                        progress.batchWritten(done.get());
+                    } catch ( ExecutionException e ) {
+                        progress.save();
+                        if ( e.getCause() instanceof RuntimeException ) {
+                            throw (RuntimeException) e.getCause();
+                        }
+                        throw new AmazonClientException(e.getCause().getMessage(), e.getCause());
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if ( now - lastReportMillis >= PROGRESS_INTERVAL_MILLIS ) {
+                    lastReportMillis = now;
+                    progress.save();
+                    long position = fileIn.getChannel().position();
+                    int work = (int) Math.min(totalWork, position / 1024);
+                    monitor.worked(work - reportedWork);
+                    reportedWork = work;
+                    monitor.subTask(describeProgress(now - startMillis, position - startPosition,
+                            file.length() - position));
+                }
+            }
+
+            Files.deleteIfExists(progressFile.toPath());
+            return getFailures();
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            monitor.done();
+        }
+    }
+
+    /**
+     * Returns the throughput of the import so far and the time it should take
+     * to read the rest of the file at that rate.
+     */
+    private String describeProgress(long elapsedMillis, long bytesRead, long bytesLeft) {
+        double seconds = Math.max(1, elapsedMillis) / 1000.0;
+        String description = String.format("%,d items written, %,.0f items per second", itemsWritten.get(),
+                itemsWritten.get() / seconds);
+        if ( bytesRead > 0 ) {
+            long secondsLeft = (long) (bytesLeft * seconds / bytesRead);
+            if ( secondsLeft < 60 ) {
+                description += String.format(", %d seconds left", secondsLeft);
+            } else if ( secondsLeft < 3600 ) {
+                description += String.format(", about %d minutes left", secondsLeft / 60);
+            } else {
+                description += String.format(", about %.1f hours left", secondsLeft / 3600.0);
+            }
+        }
+        return description;
+    }
+
+    /** Returns how many items the last run couldn't import. */
+    long getFailureCount() {
+        return failureCount.get();
+    }
+
+    private List<String> getFailures() {
+        synchronized (failures) {
+            List<String> result = new ArrayList<>(failures);
+            if ( failureCount.get() > failures.size() ) {
+                result.add(String.format("%,d more items failed", failureCount.get() - failures.size()));
+            }
+            return result;
+        }
+    }
+
+    private void fail(long recordNumber, String message) {
+        failureCount.incrementAndGet();
+        synchronized (failures) {
+            if ( failures.size() < MAX_REPORTED_FAILURES ) {
+                failures.add("Record " + recordNumber + ": " + message);
+            }
+        }
+    }
+
+    /**
+     * Opens the file, decompressing it if it's gzipped.
+     */
+    private static InputStream open(FileInputStream fileIn) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(fileIn, 64 * 1024);
+        in.mark(2);
+        boolean gzipped = in.read() == 0x1f && in.read() == 0x8b;
+        in.reset();
+        return gzipped ? new BufferedInputStream(new GZIPInputStream(in, 64 * 1024), 64 * 1024) : in;
+    }
+
+    /*
+     * Reading
+     */
+
+    /** A group of items written by a single BatchWriteItem request. */
+    private static final class Batch {
+        private final long sequence;
+        private final List<Map<String, AttributeValue>> items = new ArrayList<>(BATCH_SIZE);
+        private final List<Long> recordNumbers = new ArrayList<>(BATCH_SIZE);
+        private long endOffset;
+        private long endRecordNumber;
+
+        Batch(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Reads the next batch of items, skipping the records that aren't valid
+     * items. A batch smaller than {@link #BATCH_SIZE} is the last one.
+     */
+    private Batch readBatch(RecordReader reader, List<String> columns, long sequence) throws IOException {
+        Batch batch = new Batch(sequence);
+        byte[] record;
+        while ( batch.items.size() < BATCH_SIZE && (record = reader.next()) != null ) {
+            try {
+                Map<String, AttributeValue> item = toItem(new String(record, StandardCharsets.UTF_8), columns);
+                for ( String keyAttributeName : keyAttributeTypes.keySet() ) {
+                    if ( !item.containsKey(keyAttributeName) ) {
+                        throw new IllegalArgumentException("The item has no value for the key attribute "
+                                + keyAttributeName);
+                    }
+                }
+                batch.items.add(item);
+                batch.recordNumbers.add(reader.recordNumber);
+            } catch ( JsonProcessingException e ) {
+                fail(reader.recordNumber, e.getOriginalMessage());
+            } catch ( IllegalArgumentException e ) {
+                fail(reader.recordNumber, e.getMessage());
+            }
+        }
+        batch.endOffset = reader.offset;
+        batch.endRecordNumber = reader.recordNumber;
+        return batch;
+    }
+
+    private Map<String, AttributeValue> toItem(String record, List<String> columns) throws IOException {
+        if ( format == Format.JSON_LINES ) {
+            return ItemJson.readItem(objectMapper.readTree(record));
+        }
+
+        List<String> values = parseCsvRecord(record);
+        if ( values.size() > columns.size() ) {
+            throw new IllegalArgumentException("The record has " + values.size() + " values but the file only has "
+                    + columns.size() + " columns");
+        }
+        Map<String, AttributeValue> item = new LinkedHashMap<>();
+        for ( int i = 0; i < values.size(); i++ ) {
+            String value = values.get(i);
+            if ( value.isEmpty() ) {
+                continue;
+            }
+            String type = keyAttributeTypes.get(columns.get(i));
+            if ( "N".equals(type) ) {
+                item.put(columns.get(i), new AttributeValue().withN(value));
+            } else if ( "B".equals(type) ) {
+                item.put(columns.get(i), new AttributeValue().withB(ByteBuffer.wrap(BinaryUtils.fromBase64(value))));
+            } else {
+                item.put(columns.get(i), new AttributeValue().withS(value));
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Splits a CSV record into its values, unquoting quoted values.
+     */
+    static List<String> parseCsvRecord(String record) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for ( int i = 0; i < record.length(); i++ ) {
+            char c = record.charAt(i);
+            if ( quoted ) {
+                if ( c != '"' ) {
+                    value.append(c);
+                } else if ( i + 1 < record.length() && record.charAt(i + 1) == '"' ) {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if ( c == '"' ) {
+                quoted = true;
+            } else if ( c == ',' ) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * Reads the file one record at a time, keeping track of the offset of the
+     * end of the last record read. A record is a line, except that CSV
+     * records may contain line breaks inside quoted values.
+     */
+    private final class RecordReader {
+        private final InputStream in;
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        private long offset;
+        private long recordNumber;
+
+        RecordReader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Returns the next record that isn't blank, without its line break,
+         * or null at the end of the file.
+         */
+        byte[] next() throws IOException {
+            record.reset();
+            boolean quoted = false;
+            int b;
+            while ( (b = in.read()) != -1 ) {
+                offset++;
+                if ( b == '\n' && !quoted ) {
+                    if ( isBlank() ) {
+                        record.reset();
+                        continue;
+                    }
+                    break;
+                }
+                if ( b == '"' && format == Format.CSV ) {
+                    quoted = !quoted;
+                }
+                record.write(b);
+            }
+            if ( isBlank() ) {
+                return null;
+            }
+            recordNumber++;
+            byte[] bytes = record.toByteArray();
+            return bytes[bytes.length - 1] == '\r' ? Arrays.copyOf(bytes, bytes.length - 1) : bytes;
+        }
+
+        private boolean isBlank() {
+            return record.size() == 0 || (record.size() == 1 && record.toByteArray()[0] == '\r');
+        }
+
+        /**
+         * Skips ahead to the given offset, which must be the end of a record.
+         */
+        void skipTo(long targetOffset, long targetRecordNumber) throws IOException {
+            while ( offset < targetOffset ) {
+                long skipped = in.skip(targetOffset - offset);
+                if ( skipped <= 0 ) {
+                    if ( in.read() == -1 ) {
+                        break;
+                    }
+                    skipped = 1;
+                }
+                offset += skipped;
+            }
+            recordNumber = Math.max(recordNumber, targetRecordNumber);
+        }
+    }
+
+    /*
+     * Writing
+     */
+
+    /**
+     * Writes a batch, retrying unprocessed items with backoff. If DynamoDB
+     * rejects the batch as invalid, its items are put one at a time to tell
+     * which of them are invalid.
+     *
+     * @throws AmazonClientException
+     *             If the batch still can't be written after retrying.
+     */
+    private void writeBatch(Batch batch) throws InterruptedException {
+        if ( batch.items.isEmpty() ) {
+            return;
+        }
+        List<WriteRequest> requests = new ArrayList<>(batch.items.size());
+        for ( Map<String, AttributeValue> item : batch.items ) {
+            requests.add(new WriteRequest().withPutRequest(new PutRequest().withItem(item)));
+        }
+
+        BatchWriter writer = new BatchWriter(dynamoDB, tableName, limiter, requests);
+        try {
+            writer.write();
+        } catch ( AmazonServiceException e ) {
+            if ( !isInvalidRequest(e) ) {
+                throw e;
+            }
+            List<WriteRequest> rejected = writer.getUnprocessed();
+            for ( int i = 0; i < batch.items.size(); i++ ) {
+                if ( rejected.contains(requests.get(i)) ) {
+                    putItem(batch.items.get(i), batch.recordNumbers.get(i));
+                }
+            }
+            return;
+        } finally {
+            itemsWritten.addAndGet(requests.size() - writer.getUnprocessed().size());
+        }
+
+        int remaining = writer.getUnprocessed().size();
+        if ( remaining > 0 ) {
+            throw new AmazonClientException(remaining + " items were still unprocessed after "
+                    + BatchWriter.MAX_BATCH_ATTEMPTS + " attempts; the table may need more write capacity");
+        }
+    }
+
+    private void putItem(Map<String, AttributeValue> item, long recordNumber) throws InterruptedException {
+        if ( limiter != null ) {
+            limiter.acquire();
+        }
+        try {
+            PutItemResult result = dynamoDB.putItem(new PutItemRequest().withTableName(tableName).withItem(item)
+                    .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL));
+            if ( limiter != null && result.getConsumedCapacity() != null ) {
+                limiter.consume(result.getConsumedCapacity().getCapacityUnits());
+            }
+            itemsWritten.incrementAndGet();
+        } catch ( AmazonServiceException e ) {
+            if ( !isInvalidRequest(e) ) {
+                throw e;
+            }
+            fail(recordNumber, e.getErrorMessage());
+        }
+    }
+
+    /**
+     * Returns whether DynamoDB rejected a request because of what it
+     * contains, rather than because it was throttled or failed.
+     */
+    private static boolean isInvalidRequest(AmazonServiceException e) {
+        return e.getErrorType() == ErrorType.Client && e.getStatusCode() == 400
+                && "ValidationException".equals(e.getErrorCode());
+    }
+
+    /*
+     * Progress
+     */
+
+    /**
+     * Tracks the offset up to which every batch has been written. Batches
+     * finish out of order, so the offset only moves past a batch once all
+     * the batches before it are written too.
+     */
+    private final class Progress {
+        private final TreeMap<Long, Batch> finished = new TreeMap<>();
+        private long nextSequence;
+        private long offset;
+        private long recordNumber;
+        private final long previousItems;
+
+        Progress(long offset, long recordNumber, long previousItems) {
+            this.offset = offset;
+            this.recordNumber = recordNumber;
+            this.previousItems = previousItems;
+        }
+
+        void batchWritten(Batch batch) {
+            finished.put(batch.sequence, batch);
+            while ( !finished.isEmpty() && finished.firstKey() == nextSequence ) {
+                Batch next = finished.remove(nextSequence++);
+                offset = next.endOffset;
+                recordNumber = next.endRecordNumber;
+            }
+        }
+
+        /**
+         * Saves the progress, replacing the previous progress file only once
+         * the new one is completely written.
+         */
+        void save() throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("import", getDescription());
+            properties.setProperty("offset", Long.toString(offset));
+            properties.setProperty("records", Long.toString(recordNumber));
+            properties.setProperty("items", Long.toString(previousItems + itemsWritten.get()));
+
+            File tempFile = new File(progressFile.getPath() + ".tmp");
+            try (OutputStream out = new FileOutputStream(tempFile)) {
+                properties.store(out, "Progress of a DynamoDB table import from " + file.getName());
+            }
+            Files.move(tempFile.toPath(), progressFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Returns the saved progress of this import, or null if there is none or
+     * it belongs to another import or an older version of the file.
+     */
+    private Properties loadProgress() throws IOException {
+        if ( !progressFile.isFile() ) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(progressFile)) {
+            properties.load(in);
+        }
+        return getDescription().equals(properties.getProperty("import")) ? properties : null;
+    }
+
+    private String getDescription() {
+        return Arrays.asList(tableName, format, file.length(), file.lastModified()).toString();
+    }
+}
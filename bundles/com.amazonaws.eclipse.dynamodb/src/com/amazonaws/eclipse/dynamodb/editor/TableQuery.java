@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.dynamodb.editor;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+
+/**
+ * A query of a table or one of its indexes, read one page at a time.
+ */
+class TableQuery implements ItemPages {
+
+    private final AmazonDynamoDB dynamoDB;
+    private final QueryRequest queryRequest;
+    private Map<String, AttributeValue> lastEvaluatedKey;
+    private boolean finished;
+
+    /**
+     * @param queryRequest
+     *            The key conditions, filter and projection of the query;
+     *            copied for every request, never modified.
+     */
+    TableQuery(AmazonDynamoDB dynamoDB, QueryRequest queryRequest) {
+        this.dynamoDB = dynamoDB;
+        this.queryRequest = queryRequest;
+    }
+
+    @Override
+    public synchronized boolean hasMorePages() {
+        return !finished;
+    }
+
+    @Override
+    public synchronized void readNextPage(PageListener listener, IProgressMonitor monitor) {
+        if ( finished || monitor.isCanceled() ) {
+            return;
+        }
+        PageStart start = new PageStart(0, lastEvaluatedKey);
+        QueryResult result = dynamoDB.query(queryRequest.clone().withExclusiveStartKey(lastEvaluatedKey));
+        if ( monitor.isCanceled() ) {
+            return;
+        }
+
+        listener.pageReceived(start, result.getItems(), result.getConsumedCapacity() == null ? 0
+                : result.getConsumedCapacity().getCapacityUnits());
+        lastEvaluatedKey = result.getLastEvaluatedKey();
+        finished = lastEvaluatedKey == null;
+    }
+
+    @Override
+    public void readPage(PageStart start, PageListener listener) {
+        QueryResult result = dynamoDB.query(queryRequest.clone().withExclusiveStartKey(start.getExclusiveStartKey()));
+        listener.pageReceived(start, result.getItems(), result.getConsumedCapacity() == null ? 0
+                : result.getConsumedCapacity().getCapacityUnits());
+    }
+}
@@ -32,6 +32,11 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 
     public static final int DEFAULT_PORT = 8000;
 
+    /** Number of segments the table editor scans in parallel. */
+    public static final String SCAN_SEGMENTS_PREFERENCE_NAME =
+        "com.amazonaws.eclipse.dynamodb.editor.preferences.scanSegments";
+    public static final int DEFAULT_SCAN_SEGMENTS = 4;
+
     @Override
     public void initializeDefaultPreferences() {
         IPreferenceStore store = DynamoDBPlugin.getDefault().getPreferenceStore();
@@ -44,5 +49,9 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
             TestToolPreferencePage.DEFAULT_PORT_PREFERENCE_NAME,
             DEFAULT_PORT
         );
+        store.setDefault(
+            SCAN_SEGMENTS_PREFERENCE_NAME,
+            DEFAULT_SCAN_SEGMENTS
+        );
     }
 }
@@ -51,11 +51,12 @@ public class DynamoDBContentProvider extends AbstractContentProvider {
                     if ( dynamoDBNode.getTableStatus() != TableStatus.ACTIVE ) {
                         TableStatus updatedStatus;
                         try {
-                            updatedStatus = TableStatus.valueOf(dynamoDBClient
-                                    .describeTable(
+                            updatedStatus = TableStatus.valueOf(AwsToolkitCore.getDefault().getRequestCoalescer()
+                                    .execute(dynamoDBClient,
                                             new DescribeTableRequest()
                                                     .withTableName(dynamoDBNode
-                                                            .getTableName())).getTable()
+                                                            .getTableName()),
+                                            dynamoDBClient::describeTable).getTable()
                                     .getTableStatus());
                         } catch ( AmazonServiceException ase ) {
                             if (ase.getErrorCode().equalsIgnoreCase(
@@ -142,4 +143,22 @@ public class DynamoDBContentProvider extends AbstractContentProvider {
     public String getServiceAbbreviation() {
         return ServiceAbbreviations.DYNAMODB;
     }
+
+    @Override
+    protected String getSnapshotKey(Object parentElement) {
+        return parentElement == DynamoDBRootNode.NODE ? "tables" : null;
+    }
+
+    @Override
+    protected String toSnapshotValue(Object child) {
+        return child instanceof DynamoDBTableNode ? ((DynamoDBTableNode) child).getTableName() : null;
+    }
+
+    /**
+     * Snapshotted tables start with an unknown status, like freshly listed ones.
+     */
+    @Override
+    protected Object fromSnapshotValue(String value) {
+        return new DynamoDBTableNode(value, null);
+    }
 }
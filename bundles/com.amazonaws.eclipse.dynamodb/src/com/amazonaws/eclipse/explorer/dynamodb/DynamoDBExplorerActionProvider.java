@@ -18,6 +18,7 @@ import com.amazonaws.AmazonClientException;
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.regions.RegionUtils;
 import com.amazonaws.eclipse.dynamodb.DynamoDBPlugin;
+import com.amazonaws.eclipse.dynamodb.editor.ImportTableWizard;
 import com.amazonaws.eclipse.dynamodb.testtool.StartTestToolWizard;
 import com.amazonaws.eclipse.dynamodb.testtool.TestToolManager;
 import com.amazonaws.services.dynamodbv2.model.DeleteTableRequest;
@@ -40,6 +41,7 @@ public class DynamoDBExplorerActionProvider extends CommonActionProvider {
         if ( selection.getFirstElement() instanceof DynamoDBTableNode ) {
             String tableName = ((DynamoDBTableNode) selection.getFirstElement()).getTableName();
             menu.add(new DeleteTableAction(tableName));
+            menu.add(new ImportItemsAction(tableName));
             menu.add(new Separator());
             menu.add(new TablePropertiesAction(tableName));
         } else {
@@ -208,6 +210,42 @@ public class DynamoDBExplorerActionProvider extends CommonActionProvider {
         }
     }
 
+    private static class ImportItemsAction extends Action {
+
+        private final String tableName;
+
+        public ImportItemsAction(String tableName) {
+            this.tableName = tableName;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Import items from a CSV or JSON Lines file";
+        }
+
+        @Override
+        public String getToolTipText() {
+            return getDescription();
+        }
+
+        @Override
+        public String getText() {
+            return "Import Items...";
+        }
+
+        @Override
+        public void run() {
+            ImportTableWizard wizard;
+            try {
+                wizard = new ImportTableWizard(tableName);
+            } catch ( AmazonClientException e ) {
+                DynamoDBPlugin.getDefault().reportException("Couldn't describe table " + tableName, e);
+                return;
+            }
+            new WizardDialog(Display.getCurrent().getActiveShell(), wizard).open();
+        }
+    }
+
     private static class TablePropertiesAction extends Action {
 
         private final String tableName;
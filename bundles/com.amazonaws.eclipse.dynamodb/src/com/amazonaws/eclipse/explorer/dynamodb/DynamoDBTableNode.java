@@ -59,10 +59,11 @@ public class DynamoDBTableNode extends ExplorerNode {
                     boolean describeTableError = false;
                     TableStatus updatedStatus = null;
                     try {
-                        updatedStatus = TableStatus.valueOf(dynamoDBClient
-                                .describeTable(
+                        updatedStatus = TableStatus.valueOf(AwsToolkitCore.getDefault().getRequestCoalescer()
+                                .execute(dynamoDBClient,
                                         new DescribeTableRequest()
-                                                .withTableName(tableName)).getTable()
+                                                .withTableName(tableName),
+                                        dynamoDBClient::describeTable).getTable()
                                 .getTableStatus());
                     } catch ( AmazonServiceException ase ) {
                         if (ase.getErrorCode().equalsIgnoreCase(
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
 import com.amazonaws.services.ec2.model.DescribeInstancesResult;
@@ -128,7 +129,8 @@ public class InstanceUtils {
 
         DescribeInstancesRequest request = new DescribeInstancesRequest();
         request.setInstanceIds(serviceInstanceIds);
-        DescribeInstancesResult response = ec2.describeInstances(request);
+        DescribeInstancesResult response = AwsToolkitCore.getDefault().getRequestCoalescer()
+                .execute(ec2, request, ec2::describeInstances);
 
         List<Reservation> reservations = response.getReservations();
         for (Reservation reservation : reservations) {
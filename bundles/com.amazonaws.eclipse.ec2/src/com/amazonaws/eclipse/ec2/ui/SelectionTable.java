@@ -36,6 +36,7 @@ import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.regions.Region;
 import com.amazonaws.eclipse.core.regions.RegionUtils;
 import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
+import com.amazonaws.eclipse.core.util.AdaptiveRateLimiter;
 import com.amazonaws.services.ec2.AmazonEC2;
 
 /**
@@ -192,6 +193,16 @@ public abstract class SelectionTable extends Composite {
         return AwsToolkitCore.getClientFactory(accountId).getEC2ClientByEndpoint(regionEndpoint);
     }
 
+    /**
+     * Returns the rate limiter shared by the background pollers calling EC2
+     * with the account and region of this table.
+     */
+    protected AdaptiveRateLimiter getRateLimiter() {
+        Region region = ec2RegionOverride != null ? ec2RegionOverride : RegionUtils.getCurrentRegion();
+        return AwsToolkitCore.getClientFactory(accountIdOverride)
+                .getRateLimiter(region.getId(), ServiceAbbreviations.EC2);
+    }
+
     /**
      * Returns the current selection in this table.
      *
@@ -226,7 +226,7 @@ public class SnapshotSelectionTable extends SelectionTable implements IRefreshab
 
         refreshSnapshots();
 
-        refreshTimer = new RefreshTimer(this, REFRESH_PERIOD_IN_MILLISECONDS);
+        refreshTimer = new RefreshTimer(this, REFRESH_PERIOD_IN_MILLISECONDS, this::getRateLimiter);
     }
 
     /**
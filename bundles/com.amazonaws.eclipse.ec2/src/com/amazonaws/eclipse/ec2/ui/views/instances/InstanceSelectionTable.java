@@ -56,6 +56,7 @@ import com.amazonaws.eclipse.ec2.utils.IMenu;
 import com.amazonaws.eclipse.ec2.utils.MenuAction;
 import com.amazonaws.eclipse.ec2.utils.MenuHandler;
 import com.amazonaws.eclipse.explorer.AwsAction;
+import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
 import com.amazonaws.services.ec2.model.DescribeInstancesResult;
 import com.amazonaws.services.ec2.model.Instance;
@@ -135,7 +136,7 @@ public class InstanceSelectionTable extends SelectionTable implements IRefreshab
 
         setComparator(new InstanceComparator(this, ViewContentAndLabelProvider.LAUNCH_TIME_COLUMN));
 
-        refreshInstanceListTimer = new RefreshTimer(this);
+        refreshInstanceListTimer = new RefreshTimer(this, RefreshTimer.DEFAULT_TIMER_PERIOD, this::getRateLimiter);
         refreshInstanceListTimer.startTimer();
     }
 
@@ -540,7 +541,9 @@ public class InstanceSelectionTable extends SelectionTable implements IRefreshab
                     final Map<String, List<String>> securityGroupsByInstanceId = new HashMap<>();
 
                     if (needsToDescribeInstances) {
-                        DescribeInstancesResult response = getAwsEc2Client().describeInstances(describeInstancesRequest);
+                        AmazonEC2 ec2 = getAwsEc2Client();
+                        DescribeInstancesResult response = AwsToolkitCore.getDefault().getRequestCoalescer()
+                                .execute(ec2, describeInstancesRequest, ec2::describeInstances);
                         reservations = response.getReservations();
 
                         noOfInstances = -1;    //Reset the value
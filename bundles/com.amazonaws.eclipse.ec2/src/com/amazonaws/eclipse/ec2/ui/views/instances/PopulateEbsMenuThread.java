@@ -69,7 +69,8 @@ class PopulateEbsMenuThread extends Thread {
     public void run() {
         try {
             AmazonEC2 ec2 = Ec2Plugin.getDefault().getDefaultEC2Client();
-            List<Volume> volumes = ec2.describeVolumes(new DescribeVolumesRequest()).getVolumes();
+            List<Volume> volumes = AwsToolkitCore.getDefault().getRequestCoalescer()
+                    .execute(ec2, new DescribeVolumesRequest(), ec2::describeVolumes).getVolumes();
 
             for (Volume volume : volumes) {
                 String status = volume.getState();
@@ -15,9 +15,12 @@
 
 package com.amazonaws.eclipse.ec2.ui.views.instances;
 
+import java.util.function.Supplier;
+
 import org.eclipse.swt.widgets.Display;
 
 import com.amazonaws.eclipse.core.ui.IRefreshable;
+import com.amazonaws.eclipse.core.util.AdaptiveRateLimiter;
 
 /**
  * Timer responsible for controlling when a specified control is refreshed.
@@ -32,6 +35,9 @@ public class RefreshTimer implements Runnable {
     /** The period (in milliseconds) between refreshes */
     private int refreshPeriodInMilliseconds;
 
+    /** Optional source of the rate limiter the refreshes go through */
+    private final Supplier<AdaptiveRateLimiter> rateLimiterSupplier;
+
     /**
      * Creates a new RefreshTimer ready to refresh the specified control
      * with the default period. Note that once a RefreshTimer has been
@@ -57,8 +63,28 @@ public class RefreshTimer implements Runnable {
      *            The period between refreshes, in milliseconds.
      */
     public RefreshTimer(IRefreshable control, int refreshPeriodInMilliseconds) {
+        this(control, refreshPeriodInMilliseconds, null);
+    }
+
+    /**
+     * Creates a new RefreshTimer ready to refresh the specified control
+     * with the specified period, going through a rate limiter. A refresh is
+     * skipped when the limiter has no token left, and the period is widened
+     * while the service is throttling requests.
+     *
+     * @param control
+     *            The control this timer is responsible for refreshing.
+     * @param refreshPeriodInMilliseconds
+     *            The period between refreshes, in milliseconds.
+     * @param rateLimiterSupplier
+     *            Returns the rate limiter to go through, which may change
+     *            with the selected account and region.
+     */
+    public RefreshTimer(IRefreshable control, int refreshPeriodInMilliseconds,
+            Supplier<AdaptiveRateLimiter> rateLimiterSupplier) {
         this.control = control;
         this.refreshPeriodInMilliseconds = refreshPeriodInMilliseconds;
+        this.rateLimiterSupplier = rateLimiterSupplier;
     }
     
     /* (non-Javadoc)
@@ -66,7 +92,10 @@ public class RefreshTimer implements Runnable {
      */
     @Override
     public void run() {
-        control.refreshData();
+        AdaptiveRateLimiter rateLimiter = getRateLimiter();
+        if (rateLimiter == null || rateLimiter.tryAcquire()) {
+            control.refreshData();
+        }
         
         startTimer();
     }
@@ -87,7 +116,10 @@ public class RefreshTimer implements Runnable {
      * Starts this refresh timer.
      */
     public void startTimer() {
-        Display.getDefault().timerExec(refreshPeriodInMilliseconds, this);
+        AdaptiveRateLimiter rateLimiter = getRateLimiter();
+        int period = rateLimiter == null ? refreshPeriodInMilliseconds
+                : (int) rateLimiter.getIntervalMillis(refreshPeriodInMilliseconds);
+        Display.getDefault().timerExec(period, this);
     }
     
     /**
@@ -96,5 +128,9 @@ public class RefreshTimer implements Runnable {
     public void stopTimer() {
         Display.getDefault().timerExec(-1, this);
     }
+
+    private AdaptiveRateLimiter getRateLimiter() {
+        return rateLimiterSupplier == null ? null : rateLimiterSupplier.get();
+    }
     
 }
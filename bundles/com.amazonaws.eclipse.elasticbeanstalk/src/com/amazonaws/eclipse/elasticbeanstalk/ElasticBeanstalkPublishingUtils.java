@@ -29,6 +29,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.ui.statushandlers.StatusManager;
 import org.eclipse.wst.server.core.IModule;
@@ -65,6 +66,7 @@ import com.amazonaws.services.identitymanagement.model.InstanceProfile;
 import com.amazonaws.services.identitymanagement.model.PutRolePolicyRequest;
 import com.amazonaws.services.identitymanagement.model.Role;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.util.StringUtils;
 
 public class ElasticBeanstalkPublishingUtils {
@@ -115,6 +117,7 @@ public class ElasticBeanstalkPublishingUtils {
                 trace("Creating Amazon S3 bucket");
                 monitor.setTaskName("Creating Amazon S3 bucket");
                 s3.createBucket(bucketName);
+                AwsToolkitCore.getDefault().getS3BucketDirectory().bucketCreated(bucketName, environment.getRegionId());
                 checkForCancellation(monitor);
             }
 
@@ -122,13 +125,16 @@ public class ElasticBeanstalkPublishingUtils {
             monitor.setTaskName("Uploading application to Amazon S3");
 
             long startTime = System.currentTimeMillis();
-            s3.putObject(bucketName, key, war.toFile());
+            AwsToolkitCore.getDefault().getResumableUploadStore()
+                    .upload(s3, new PutObjectRequest(bucketName, key, war.toFile()), monitor);
             long endTime = System.currentTimeMillis();
 
             ElasticBeanstalkAnalytics.trackUploadMetrics(endTime - startTime, war.toFile().length());
 
             checkForCancellation(monitor);
             monitor.worked(40);
+        } catch (OperationCanceledException e) {
+            throw new CoreException(new Status(Status.CANCEL, ElasticBeanstalkPlugin.PLUGIN_ID, "Canceled"));
         } catch (AmazonClientException ace) {
             throw new CoreException(new Status(IStatus.ERROR, ElasticBeanstalkPlugin.PLUGIN_ID,
                     "Unable to upload application to Amazon S3: " + ace.getMessage(), ace));
@@ -35,10 +35,12 @@ import org.eclipse.wst.server.core.internal.ServerWorkingCopy;
 import org.eclipse.wst.server.core.internal.facets.FacetUtil;
 import org.eclipse.wst.server.core.model.ServerDelegate;
 
+import com.amazonaws.eclipse.core.AWSClientFactory;
 import com.amazonaws.eclipse.core.AccountInfo;
 import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.core.regions.RegionUtils;
 import com.amazonaws.eclipse.core.regions.ServiceAbbreviations;
+import com.amazonaws.eclipse.core.util.AdaptiveRateLimiter;
 import com.amazonaws.eclipse.elasticbeanstalk.util.ElasticBeanstalkClientExtensions;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.AuthorizeSecurityGroupIngressRequest;
@@ -586,6 +588,18 @@ public class Environment extends ServerDelegate {
      * Returns a client for this environment.
      */
     public AWSElasticBeanstalk getClient() {
+        return getClientFactory().getElasticBeanstalkClientByEndpoint(getRegionEndpoint());
+    }
+
+    /**
+     * Returns the rate limiter that background polls of this environment
+     * should go through.
+     */
+    public AdaptiveRateLimiter getRateLimiter() {
+        return getClientFactory().getRateLimiter(getRegionId(), ServiceAbbreviations.BEANSTALK);
+    }
+
+    private AWSClientFactory getClientFactory() {
         AccountInfo account = AwsToolkitCore.getDefault()
                 .getAccountManager()
                     .getAccountInfo(getAccountId());
@@ -596,8 +610,7 @@ public class Environment extends ServerDelegate {
             account = AwsToolkitCore.getDefault().getAccountInfo();
         }
 
-        return AwsToolkitCore.getClientFactory(account.getInternalAccountId())
-                .getElasticBeanstalkClientByEndpoint(getRegionEndpoint());
+        return AwsToolkitCore.getClientFactory(account.getInternalAccountId());
     }
 
     /**
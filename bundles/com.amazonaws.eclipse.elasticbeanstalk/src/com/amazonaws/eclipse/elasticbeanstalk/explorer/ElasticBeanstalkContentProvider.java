@@ -97,8 +97,9 @@ public class ElasticBeanstalkContentProvider extends AbstractContentProvider imp
                 public Object[] loadData() {
                     AWSElasticBeanstalk beanstalk = AwsToolkitCore.getClientFactory()
                         .getElasticBeanstalkClient();
-                    List<EnvironmentDescription> environments = beanstalk.describeEnvironments(
-                        new DescribeEnvironmentsRequest().withApplicationName(app.getApplicationName()))
+                    List<EnvironmentDescription> environments = AwsToolkitCore.getDefault().getRequestCoalescer()
+                        .execute(beanstalk, new DescribeEnvironmentsRequest().withApplicationName(app.getApplicationName()),
+                                beanstalk::describeEnvironments)
                         .getEnvironments();
                     return environments.toArray();
                 }
@@ -32,10 +32,12 @@ import org.eclipse.wst.server.core.ServerCore;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.eclipse.core.AwsToolkitCore;
+import com.amazonaws.eclipse.core.util.AdaptiveRateLimiter;
 import com.amazonaws.eclipse.elasticbeanstalk.ElasticBeanstalkPlugin;
 import com.amazonaws.eclipse.elasticbeanstalk.Environment;
 import com.amazonaws.eclipse.elasticbeanstalk.EnvironmentBehavior;
 import com.amazonaws.eclipse.elasticbeanstalk.util.ElasticBeanstalkClientExtensions;
+import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.elasticbeanstalk.model.ConfigurationSettingsDescription;
 import com.amazonaws.services.elasticbeanstalk.model.EnvironmentDescription;
 import com.amazonaws.services.elasticbeanstalk.model.EnvironmentStatus;
@@ -64,6 +66,7 @@ public class SyncEnvironmentsJob extends Job {
         trace("Syncing environment statuses");
 
         boolean transitioningEnvironment = false;
+        double backoff = 1;
         Exception syncingError = null;
         for (IServer server : ServerCore.getServers()) {
             if (server.getServerType() == null) continue;
@@ -74,19 +77,34 @@ public class SyncEnvironmentsJob extends Job {
                 Environment environment = (Environment)server.loadAdapter(Environment.class, monitor);
                 EnvironmentBehavior behavior = (EnvironmentBehavior)server.loadAdapter(EnvironmentBehavior.class, monitor);
 
+                // Environments sharing an account and region also share a request budget
+                AdaptiveRateLimiter rateLimiter = environment.getRateLimiter();
+                backoff = Math.max(backoff, rateLimiter.getBackoff());
+                if (!rateLimiter.tryAcquire()) {
+                    trace("Deferring sync of environment " + environment.getEnvironmentName());
+                    transitioningEnvironment = true;
+                    continue;
+                }
+
                 monitor.setTaskName("Syncing environment " + environment.getEnvironmentName());
                 try {
                     trace("Syncing server: " + server.getName() + ", " + "environment: " + environment.getEnvironmentName());
                     transitioningEnvironment |= syncEnvironment(environment, behavior);
                     previousErrorMessage = null;
                 } catch (AmazonClientException ace) {
-                    syncingError = ace;
+                    if (RetryUtils.isThrottlingException(ace)) {
+                        // The rate limiter widens the intervals, no need to complain
+                        backoff = Math.max(backoff, rateLimiter.getBackoff());
+                        transitioningEnvironment = true;
+                    } else {
+                        syncingError = ace;
+                    }
                 }
             }
         }
 
         if ( syncingError != null ) {
-            schedule(LONG_DELAY);
+            schedule((long) (LONG_DELAY * backoff));
 
             // Don't keep complaining about being unable to synchronize
             if ( previousErrorMessage != null &&
@@ -99,8 +117,8 @@ public class SyncEnvironmentsJob extends Job {
                     "Unable to synchronize an environment", syncingError);
         }
 
-        if (transitioningEnvironment) schedule(SHORT_DELAY + RANDOM.nextInt(5 * 1000));
-        else schedule(LONG_DELAY + RANDOM.nextInt(5 * 1000));
+        if (transitioningEnvironment) schedule((long) (SHORT_DELAY * backoff) + RANDOM.nextInt(5 * 1000));
+        else schedule((long) (LONG_DELAY * backoff) + RANDOM.nextInt(5 * 1000));
 
         return Status.OK_STATUS;
     }
@@ -200,8 +200,10 @@ public class EventLogEditorSection extends ServerEditorSection {
         protected IStatus run(IProgressMonitor monitor) {
             AWSElasticBeanstalk client = AwsToolkitCore.getClientFactory(environment.getAccountId())
                     .getElasticBeanstalkClientByEndpoint(environment.getRegionEndpoint());
-             final List<EventDescription> events = client.describeEvents(new DescribeEventsRequest()
-                 .withEnvironmentName(environment.getEnvironmentName())).getEvents();
+             final List<EventDescription> events = AwsToolkitCore.getDefault().getRequestCoalescer()
+                 .execute(client, new DescribeEventsRequest().withEnvironmentName(environment.getEnvironmentName()),
+                         client::describeEvents)
+                 .getEvents();
 
              Display.getDefault().syncExec(new Runnable() {
                 @Override
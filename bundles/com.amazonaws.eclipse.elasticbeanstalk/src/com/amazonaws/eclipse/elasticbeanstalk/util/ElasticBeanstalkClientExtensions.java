@@ -16,6 +16,7 @@ package com.amazonaws.eclipse.elasticbeanstalk.util;
 
 import java.util.List;
 
+import com.amazonaws.eclipse.core.AwsToolkitCore;
 import com.amazonaws.eclipse.elasticbeanstalk.Environment;
 import com.amazonaws.services.elasticbeanstalk.AWSElasticBeanstalk;
 import com.amazonaws.services.elasticbeanstalk.model.ApplicationDescription;
@@ -60,9 +61,7 @@ public class ElasticBeanstalkClientExtensions {
      * @return {@link EnvironmentDescription} for a given environment
      */
     public EnvironmentDescription getEnvironmentDescription(String environmentName) {
-        List<EnvironmentDescription> environments = client.describeEnvironments(
-                new DescribeEnvironmentsRequest().withEnvironmentNames(environmentName)).getEnvironments();
-        return getFirstOrNull(environments);
+        return describeEnvironment(new DescribeEnvironmentsRequest().withEnvironmentNames(environmentName));
     }
 
     /**
@@ -71,9 +70,18 @@ public class ElasticBeanstalkClientExtensions {
      * @return {@link EnvironmentDescription} for a given application/environment
      */
     public EnvironmentDescription getEnvironmentDescription(String applicationName, String environmentName) {
-        List<EnvironmentDescription> environments = client.describeEnvironments(
-                new DescribeEnvironmentsRequest().withApplicationName(applicationName).withEnvironmentNames(
-                        environmentName)).getEnvironments();
+        return describeEnvironment(new DescribeEnvironmentsRequest().withApplicationName(applicationName)
+                .withEnvironmentNames(environmentName));
+    }
+
+    /**
+     * Environment descriptions are polled by the sync job, the server editor
+     * and the publishing jobs at the same time, so identical calls share one
+     * result.
+     */
+    private EnvironmentDescription describeEnvironment(DescribeEnvironmentsRequest request) {
+        List<EnvironmentDescription> environments = AwsToolkitCore.getDefault().getRequestCoalescer()
+                .execute(client, request, client::describeEnvironments).getEnvironments();
         return getFirstOrNull(environments);
     }
 
@@ -75,4 +75,29 @@ public class LambdaContentProvider extends AbstractContentProvider {
         return ServiceAbbreviations.LAMBDA;
     }
 
+    @Override
+    protected String getSnapshotKey(Object parentElement) {
+        return parentElement instanceof LambdaRootElement ? "functions" : null;
+    }
+
+    @Override
+    protected String toSnapshotValue(Object child) {
+        if (!(child instanceof FunctionNode)) {
+            return null;
+        }
+        FunctionConfiguration function = ((FunctionNode) child).function;
+        return function.getFunctionName() + "\t" + function.getFunctionArn();
+    }
+
+    @Override
+    protected Object fromSnapshotValue(String value) {
+        String[] fields = value.split("\t", -1);
+        if (fields.length != 2) {
+            return null;
+        }
+        return new FunctionNode(new FunctionConfiguration()
+                .withFunctionName(fields[0])
+                .withFunctionArn(fields[1]));
+    }
+
 }
@@ -92,7 +92,7 @@ public class UploadFunctionUtil {
             putObjectRequest.withSSEAwsKeyManagementParams(new SSEAwsKeyManagementParams(key.getKeyId()));
         }
 
-        s3.putObject(putObjectRequest);
+        AwsToolkitCore.getDefault().getResumableUploadStore().upload(s3, putObjectRequest, monitor);
         long uploadTime = System.currentTimeMillis() - startTime;
 
         LambdaAnalytics.trackUploadS3BucketTime(uploadTime);
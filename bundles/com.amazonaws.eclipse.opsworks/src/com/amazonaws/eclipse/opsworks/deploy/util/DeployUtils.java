@@ -185,7 +185,8 @@ public class DeployUtils {
         if (dataModel.getS3ApplicationSource().isAsPublicHttpArchive()) {
             putObjectRequest.setCannedAcl(CannedAccessControlList.PublicRead);
         }
-        s3Client.putObject(putObjectRequest);
+        AwsToolkitCore.getDefault().getResumableUploadStore().upload(
+                s3Client, putObjectRequest, progressMonitor);
 
         OpsWorksPlugin.getDefault().logInfo(
                 "Upload succeed. [s3://" + bucketName + "/" + keyName + "]");
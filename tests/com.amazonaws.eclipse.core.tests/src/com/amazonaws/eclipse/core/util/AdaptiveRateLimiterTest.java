@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveRateLimiterTest {
+
+    @Test
+    public void testBurstIsExhausted() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(0.001, 2);
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testThrottlingWidensIntervalsUntilRecovery() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter();
+        Assert.assertEquals(1000, limiter.getIntervalMillis(1000));
+
+        limiter.onThrottled();
+        // Throttled retries of the same call only back off once
+        limiter.onThrottled();
+        Assert.assertEquals(2000, limiter.getIntervalMillis(1000));
+        Assert.assertFalse(limiter.tryAcquire());
+
+        limiter.onSuccess();
+        Assert.assertEquals(1800, limiter.getIntervalMillis(1000));
+
+        for (int i = 0; i < 100; i++) {
+            limiter.onSuccess();
+        }
+        Assert.assertEquals(1000, limiter.getIntervalMillis(1000));
+    }
+}
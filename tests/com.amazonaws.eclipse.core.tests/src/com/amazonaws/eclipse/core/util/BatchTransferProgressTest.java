@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.ProgressListener;
+
+public class BatchTransferProgressTest {
+
+    @Test
+    public void testRetriedBytesAreCountedOnce() {
+        BatchTransferProgress progress = new BatchTransferProgress(2, 200);
+        ProgressListener listener = progress.newProgressListener();
+
+        listener.progressChanged(new ProgressEvent(ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT, 80));
+        listener.progressChanged(new ProgressEvent(ProgressEventType.HTTP_REQUEST_CONTENT_RESET_EVENT, 80));
+        listener.progressChanged(new ProgressEvent(ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT, 100));
+        listener.progressChanged(new ProgressEvent(ProgressEventType.TRANSFER_COMPLETED_EVENT));
+        progress.fileCompleted(false);
+
+        Assert.assertEquals(100, progress.getTransferredBytes());
+        Assert.assertEquals(500, progress.getWorkDone(1000));
+        Assert.assertEquals(1, progress.getCompletedFiles());
+    }
+
+    @Test
+    public void testEmptyFilesAreCountedByFile() {
+        BatchTransferProgress progress = new BatchTransferProgress(4, 0);
+        progress.fileCompleted(false);
+        progress.fileCompleted(true);
+
+        Assert.assertEquals(500, progress.getWorkDone(1000));
+        Assert.assertEquals(1, progress.getFailedFiles());
+        Assert.assertTrue(progress.getSummary().endsWith(", 1 failed"));
+    }
+
+    @Test
+    public void testFormatBytes() {
+        Assert.assertEquals("512 B", BatchTransferProgress.formatBytes(512));
+        Assert.assertEquals(String.format("%.1f KB", 1.5), BatchTransferProgress.formatBytes(1536));
+        Assert.assertEquals(String.format("%.1f GB", 2.0), BatchTransferProgress.formatBytes(2L << 30));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CapacityLimiterTest {
+
+    @Test
+    public void testRequestsWaitOnceBurstIsConsumed() {
+        CapacityLimiter limiter = new CapacityLimiter(0.001, 5);
+        Assert.assertEquals(0, limiter.getWaitMillis());
+
+        limiter.consume(2);
+        Assert.assertEquals(0, limiter.getWaitMillis());
+
+        limiter.consume(4);
+        Assert.assertTrue(limiter.getWaitMillis() > 0);
+    }
+
+    @Test
+    public void testDebtDelaysNextRequests() {
+        CapacityLimiter limiter = new CapacityLimiter(10, 10);
+        limiter.consume(30);
+
+        long waitMillis = limiter.getWaitMillis();
+        Assert.assertTrue(waitMillis > 1900);
+        Assert.assertTrue(waitMillis <= 2000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBudgetMustBePositive() {
+        new CapacityLimiter(0);
+    }
+}
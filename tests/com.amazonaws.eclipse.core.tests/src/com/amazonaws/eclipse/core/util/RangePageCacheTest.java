@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.eclipse.core.util.RangePageCache.RangeReader;
+
+public class RangePageCacheTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes();
+
+    private static class RecordingReader implements RangeReader {
+        final List<String> ranges = new ArrayList<>();
+
+        @Override
+        public byte[] read(long start, long end) {
+            ranges.add(start + "-" + end);
+            return Arrays.copyOfRange(CONTENT, (int) start, (int) end + 1);
+        }
+    }
+
+    @Test
+    public void testAdjacentMissingPagesAreReadTogether() throws IOException {
+        RecordingReader reader = new RecordingReader();
+        RangePageCache cache = new RangePageCache(reader, CONTENT.length, 4, 10);
+
+        Assert.assertEquals("3456789a", new String(cache.read(3, 8)));
+        Assert.assertEquals(Arrays.asList("0-11"), reader.ranges);
+
+        Assert.assertEquals("89abcdef", new String(cache.read(8, 8)));
+        Assert.assertEquals(Arrays.asList("0-11", "12-15"), reader.ranges);
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void testReadStopsAtEndOfObject() throws IOException {
+        RecordingReader reader = new RecordingReader();
+        RangePageCache cache = new RangePageCache(reader, CONTENT.length, 8, 10);
+
+        Assert.assertEquals("wxyz", new String(cache.read(32, 100)));
+        Assert.assertEquals(Arrays.asList("32-35"), reader.ranges);
+        Assert.assertEquals(0, cache.read(36, 10).length);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPagesAreEvicted() throws IOException {
+        RecordingReader reader = new RecordingReader();
+        RangePageCache cache = new RangePageCache(reader, CONTENT.length, 4, 2);
+
+        cache.read(0, 4);
+        cache.read(4, 4);
+        cache.read(0, 4);
+        cache.read(8, 4);
+        cache.read(0, 4);
+        cache.read(4, 4);
+        Assert.assertEquals(Arrays.asList("0-3", "4-7", "8-11", "4-7"), reader.ranges);
+    }
+
+    @Test
+    public void testReset() throws IOException {
+        RecordingReader reader = new RecordingReader();
+        RangePageCache cache = new RangePageCache(reader, 10, 4, 10);
+
+        Assert.assertEquals("89", new String(cache.read(8, 4)));
+        cache.reset(CONTENT.length);
+        Assert.assertEquals("89ab", new String(cache.read(8, 4)));
+        Assert.assertEquals(Arrays.asList("8-9", "8-11"), reader.ranges);
+    }
+}
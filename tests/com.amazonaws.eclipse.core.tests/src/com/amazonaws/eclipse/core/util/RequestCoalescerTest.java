@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.eclipse.core.metrics.RequestMetrics;
+
+public class RequestCoalescerTest {
+
+    private final Object client = new Object();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final RequestMetrics metrics = new RequestMetrics();
+
+    @Test
+    public void testConcurrentIdenticalCallsShareOneCall() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(metrics, 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        Thread first = new Thread(() -> coalescer.execute(client, new TestRequest("a"), request -> {
+            started.countDown();
+            awaitQuietly(release);
+            return calls.incrementAndGet();
+        }));
+        first.start();
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        final int[] joined = new int[1];
+        Thread second = new Thread(() -> joined[0] = coalescer.execute(client, new TestRequest("a"),
+                request -> calls.incrementAndGet()));
+        second.start();
+        while (second.getState() != Thread.State.WAITING && second.isAlive()) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        first.join();
+        second.join();
+
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(1, joined[0]);
+        Assert.assertEquals(1, metrics.getJoinedCallCount());
+    }
+
+    @Test
+    public void testResultIsReusedWithinWindowOnly() {
+        RequestCoalescer coalescer = new RequestCoalescer(metrics, 60 * 1000);
+        coalescer.execute(client, new TestRequest("a"), request -> calls.incrementAndGet());
+        coalescer.execute(client, new TestRequest("a"), request -> calls.incrementAndGet());
+        coalescer.execute(client, new TestRequest("b"), request -> calls.incrementAndGet());
+        coalescer.execute(new Object(), new TestRequest("a"), request -> calls.incrementAndGet());
+        Assert.assertEquals(3, calls.get());
+        Assert.assertEquals(1, metrics.getReusedResultCount());
+
+        coalescer.clear();
+        coalescer.execute(client, new TestRequest("a"), request -> calls.incrementAndGet());
+        Assert.assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void testFailedCallsAreNotRemembered() {
+        RequestCoalescer coalescer = new RequestCoalescer(metrics, 60 * 1000);
+        try {
+            coalescer.execute(client, new TestRequest("a"), request -> {
+                throw new IllegalStateException();
+            });
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+        coalescer.execute(client, new TestRequest("a"), request -> calls.incrementAndGet());
+        Assert.assertEquals(1, calls.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestRequest extends AmazonWebServiceRequest {
+        private final String name;
+
+        TestRequest(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof TestRequest && ((TestRequest) obj).name.equals(name);
+        }
+    }
+}
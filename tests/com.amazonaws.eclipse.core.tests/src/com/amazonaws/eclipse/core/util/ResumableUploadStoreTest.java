@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.eclipse.core.util.ResumableUploadStore.PendingUpload;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.PersistableUpload;
+
+public class ResumableUploadStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSavedUploadIsPending() throws IOException {
+        File file = newFile("archive.zip", 1024);
+        File directory = new File(folder.getRoot(), "uploads");
+        ResumableUploadStore store = new ResumableUploadStore(directory);
+
+        store.save(new File(directory, "first.upload"), newState(file, "upload-id"),
+                new PutObjectRequest("bucket", "app/archive.zip", file), "account");
+
+        List<PendingUpload> pendingUploads = store.getPendingUploads();
+        Assert.assertEquals(1, pendingUploads.size());
+        PendingUpload pendingUpload = pendingUploads.get(0);
+        Assert.assertEquals("upload-id", pendingUpload.getUploadId());
+        Assert.assertEquals("bucket", pendingUpload.getBucketName());
+        Assert.assertEquals("app/archive.zip", pendingUpload.getKey());
+        Assert.assertEquals(file.getAbsoluteFile(), pendingUpload.getFile());
+        Assert.assertEquals("account", pendingUpload.getAccountId());
+
+        long now = System.currentTimeMillis();
+        Assert.assertFalse(pendingUpload.isAbandoned(now));
+        Assert.assertTrue(pendingUpload.isAbandoned(now + ResumableUploadStore.ABANDONED_UPLOAD_AGE_MILLIS + 1000));
+    }
+
+    @Test
+    public void testUploadOfChangedFileIsAbandoned() throws IOException {
+        File file = newFile("archive.zip", 1024);
+        File directory = new File(folder.getRoot(), "uploads");
+        ResumableUploadStore store = new ResumableUploadStore(directory);
+
+        store.save(new File(directory, "first.upload"), newState(file, "upload-id"),
+                new PutObjectRequest("bucket", "archive.zip", file), null);
+        Files.write(file.toPath(), new byte[2048]);
+
+        PendingUpload pendingUpload = store.getPendingUploads().get(0);
+        Assert.assertNull(pendingUpload.getAccountId());
+        Assert.assertTrue(pendingUpload.isAbandoned(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void testMissingDirectoryHasNoPendingUploads() {
+        ResumableUploadStore store = new ResumableUploadStore(new File(folder.getRoot(), "missing"));
+        Assert.assertTrue(store.getPendingUploads().isEmpty());
+    }
+
+    private File newFile(String name, int length) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), new byte[length]);
+        return file;
+    }
+
+    private static PersistableUpload newState(File file, String uploadId) {
+        return new PersistableUpload("bucket", "archive.zip", file.getAbsolutePath(), uploadId, 5 << 20, 16 << 20);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.Bucket;
+
+public class S3BucketDirectoryTest {
+
+    private static class FakeS3 extends AbstractAmazonS3 {
+        final AtomicInteger listBucketsCount = new AtomicInteger();
+        final AtomicInteger getBucketLocationCount = new AtomicInteger();
+        final List<Bucket> buckets = new ArrayList<>(Arrays.asList(
+                new Bucket("west-1"), new Bucket("east"), new Bucket("west-2")));
+
+        @Override
+        public List<Bucket> listBuckets() {
+            listBucketsCount.incrementAndGet();
+            return new ArrayList<>(buckets);
+        }
+
+        @Override
+        public String getBucketLocation(String bucketName) {
+            getBucketLocationCount.incrementAndGet();
+            return bucketName.startsWith("west") ? "us-west-2" : "US";
+        }
+    }
+
+    private final S3BucketDirectory directory = new S3BucketDirectory(new S3BucketRegionCache(null, 100),
+            S3BucketDirectory.DEFAULT_BUCKET_LIST_TTL_MILLIS);
+
+    @After
+    public void tearDown() {
+        directory.shutdown();
+    }
+
+    @Test
+    public void testBucketsAreListedAndResolvedOnce() {
+        FakeS3 s3 = new FakeS3();
+
+        Assert.assertEquals(names("west-1", "west-2"), names(directory.listBucketsInRegion("account", s3, "us-west-2")));
+        Assert.assertEquals(names("east"), names(directory.listBucketsInRegion("account", s3, "us-east-1")));
+        Assert.assertEquals(1, s3.listBucketsCount.get());
+        Assert.assertEquals(3, s3.getBucketLocationCount.get());
+
+        directory.listBucketsInRegion("other-account", s3, "us-east-1");
+        Assert.assertEquals(2, s3.listBucketsCount.get());
+        Assert.assertEquals(3, s3.getBucketLocationCount.get());
+    }
+
+    @Test
+    public void testCreatedBucketIsListed() {
+        FakeS3 s3 = new FakeS3();
+        directory.listBucketsInRegion("account", s3, "us-west-2");
+
+        s3.buckets.add(new Bucket("new-bucket"));
+        directory.bucketCreated("new-bucket", "eu-west-1");
+
+        Assert.assertEquals(names("new-bucket"), names(directory.listBucketsInRegion("account", s3, "eu-west-1")));
+        Assert.assertEquals(2, s3.listBucketsCount.get());
+        Assert.assertEquals(3, s3.getBucketLocationCount.get());
+    }
+
+    @Test
+    public void testListingRacingWithCreationIsNotKept() {
+        FakeS3 s3 = new FakeS3() {
+            @Override
+            public List<Bucket> listBuckets() {
+                List<Bucket> listed = super.listBuckets();
+                if (listBucketsCount.get() == 1) {
+                    // The bucket is created while the first listing is in flight
+                    buckets.add(new Bucket("new-bucket"));
+                    directory.bucketCreated("new-bucket", "eu-west-1");
+                }
+                return listed;
+            }
+        };
+
+        Assert.assertEquals(names(), names(directory.listBucketsInRegion("account", s3, "eu-west-1")));
+        Assert.assertEquals(names("new-bucket"), names(directory.listBucketsInRegion("account", s3, "eu-west-1")));
+        Assert.assertEquals(2, s3.listBucketsCount.get());
+    }
+
+    private static List<String> names(String... names) {
+        return Arrays.asList(names);
+    }
+
+    private static List<String> names(List<Bucket> buckets) {
+        List<String> names = new ArrayList<>();
+        for (Bucket bucket : buckets) {
+            names.add(bucket.getName());
+        }
+        return names;
+    }
+}
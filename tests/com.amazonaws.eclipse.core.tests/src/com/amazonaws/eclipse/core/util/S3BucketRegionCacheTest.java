@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class S3BucketRegionCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        S3BucketRegionCache cache = new S3BucketRegionCache(null, 2);
+        cache.putRegion("foo", "us-west-2");
+        cache.putRegion("bar", "eu-west-1");
+        cache.getCachedRegion("foo");
+        cache.putRegion("baz", "us-east-1");
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals("us-west-2", cache.getCachedRegion("foo"));
+        Assert.assertNull(cache.getCachedRegion("bar"));
+        Assert.assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testInvalidate() {
+        S3BucketRegionCache cache = new S3BucketRegionCache(null, 10);
+        cache.putRegion("foo", "us-west-2");
+        cache.invalidate("foo");
+        Assert.assertNull(cache.getCachedRegion("foo"));
+    }
+
+    @Test
+    public void testCacheSurvivesReload() throws IOException {
+        File cacheFile = new File(Files.createTempDirectory("s3").toFile(), "bucket-regions.properties");
+        S3BucketRegionCache cache = new S3BucketRegionCache(cacheFile, 10);
+        cache.putRegion("foo", "us-west-2");
+        cache.save();
+
+        S3BucketRegionCache reloaded = new S3BucketRegionCache(cacheFile, 10);
+        Assert.assertEquals("us-west-2", reloaded.getCachedRegion("foo"));
+    }
+
+    @Test
+    public void testToRegionId() {
+        Assert.assertEquals("us-east-1", S3BucketRegionCache.toRegionId(null));
+        Assert.assertEquals("us-east-1", S3BucketRegionCache.toRegionId("US"));
+        Assert.assertEquals("eu-west-1", S3BucketRegionCache.toRegionId("EU"));
+        Assert.assertEquals("ap-south-1", S3BucketRegionCache.toRegionId("ap-south-1"));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.eclipse.core.util.S3KeyIndex.KeyEntry;
+import com.amazonaws.eclipse.core.util.S3KeyIndex.PrefixSummary;
+
+public class S3KeyIndexTest {
+
+    private static S3KeyIndex newIndex() {
+        return new S3KeyIndex.Builder()
+                .add("site/index.html", 10, 1)
+                .add("site/css/main.css", 20, 2)
+                .add("site/css/print.css", 5, 3)
+                .add("logs/2018/01/access.log", 1000, 4)
+                .add("logs/", 0, 5)
+                .add("logs/2018/02/access.log", 2000, 6)
+                .add("README", 1, 7)
+                .build(42);
+    }
+
+    @Test
+    public void testKeysAreSortedAndFragmentsShared() {
+        S3KeyIndex index = newIndex();
+        Assert.assertEquals(7, index.size());
+        Assert.assertEquals("README", index.getKey(0));
+        Assert.assertEquals("site/index.html", index.getKey(6));
+        // "logs/", "2018/", "01/", "02/", "access.log", "site/", "css/", ...
+        Assert.assertEquals(11, index.getFragmentCount());
+    }
+
+    @Test
+    public void testSearchIgnoresCaseAndSpansFragments() {
+        S3KeyIndex index = newIndex();
+        Assert.assertEquals(keys("site/css/main.css", "site/css/print.css"), keys(index.search("CSS", 10)));
+        Assert.assertEquals(keys("logs/2018/02/access.log"), keys(index.search("8/02/a", 10)));
+        Assert.assertEquals(keys("logs/2018/01/access.log"), keys(index.search("access", 1)));
+        Assert.assertTrue(index.search("missing", 10).isEmpty());
+    }
+
+    @Test
+    public void testPrefixQueries() {
+        S3KeyIndex index = newIndex();
+        PrefixSummary logs = index.summarize("logs/");
+        Assert.assertEquals(3, logs.getObjectCount());
+        Assert.assertEquals(3000, logs.getTotalBytes());
+
+        List<PrefixSummary> rollUp = index.rollUp("logs/2018/");
+        Assert.assertEquals(2, rollUp.size());
+        Assert.assertEquals("logs/2018/01/", rollUp.get(0).getPrefix());
+        Assert.assertEquals(2000, rollUp.get(1).getTotalBytes());
+
+        List<PrefixSummary> root = index.rollUp("");
+        Assert.assertEquals(3, root.size());
+        Assert.assertEquals("logs/", root.get(1).getPrefix());
+        Assert.assertEquals(3, root.get(1).getObjectCount());
+
+        Assert.assertEquals(keys("logs/2018/02/access.log", "logs/2018/01/access.log", "site/css/main.css"),
+                keys(index.getLargestObjects("", 3)));
+    }
+
+    @Test
+    public void testReplacePrefix() {
+        S3KeyIndex listing = new S3KeyIndex.Builder()
+                .add("site/index.html", 11, 8)
+                .add("site/about.html", 3, 9)
+                .build(0);
+        S3KeyIndex index = newIndex().replacePrefix("site/", listing);
+
+        Assert.assertEquals(6, index.size());
+        Assert.assertEquals(14, index.summarize("site/").getTotalBytes());
+        Assert.assertEquals(42, index.getCreatedMillis());
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        newIndex().writeTo(out);
+        S3KeyIndex index = S3KeyIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        Assert.assertEquals(7, index.size());
+        Assert.assertEquals(42, index.getCreatedMillis());
+        Assert.assertEquals("logs/2018/01/access.log", index.getKey(2));
+        Assert.assertEquals(3036, index.summarize("").getTotalBytes());
+    }
+
+    private static List<String> keys(String... keys) {
+        List<String> list = new ArrayList<>();
+        for (String key : keys) {
+            list.add(key);
+        }
+        return list;
+    }
+
+    private static List<String> keys(List<KeyEntry> entries) {
+        List<String> list = new ArrayList<>();
+        for (KeyEntry entry : entries) {
+            list.add(entry.getKey());
+        }
+        return list;
+    }
+}
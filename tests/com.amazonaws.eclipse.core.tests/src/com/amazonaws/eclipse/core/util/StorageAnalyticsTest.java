@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.eclipse.core.util;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.eclipse.core.util.StorageAnalytics.Rollup;
+
+public class StorageAnalyticsTest {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis(10000);
+
+    private static long daysAgo(int days) {
+        return NOW - TimeUnit.DAYS.toMillis(days);
+    }
+
+    @Test
+    public void testRollupsByFolder() {
+        StorageAnalytics analytics = new StorageAnalytics("logs/", NOW);
+        analytics.add("logs/2018/01/access.log", 100, "STANDARD", daysAgo(400));
+        analytics.add("logs/2018/02/access.log", 200, "GLACIER", daysAgo(2000));
+        analytics.add("logs/2019/01/access.log", 50, null, daysAgo(1));
+        analytics.add("logs/README", 1, "STANDARD", 0);
+
+        List<Rollup> rollups = analytics.getRollups();
+        Assert.assertEquals(3, rollups.size());
+        Assert.assertEquals(StorageAnalytics.FILES_ROLLUP, rollups.get(0).getName());
+        Rollup logs2018 = rollups.get(1);
+        Assert.assertEquals("logs/2018/", logs2018.getName());
+        Assert.assertEquals(2, logs2018.getObjectCount());
+        Assert.assertEquals(300, logs2018.getTotalBytes());
+        Assert.assertEquals(200, logs2018.getTotalBytes("GLACIER"));
+        Assert.assertArrayEquals(new long[] { 0, 0, 0, 1, 1 }, logs2018.getAgeHistogram());
+
+        Rollup total = analytics.getTotal();
+        Assert.assertEquals(4, total.getObjectCount());
+        Assert.assertEquals(351, total.getTotalBytes());
+        Assert.assertEquals(3, total.getObjectCount("STANDARD"));
+        Assert.assertArrayEquals(new long[] { 2, 0, 0, 1, 1 }, total.getAgeHistogram());
+    }
+
+    @Test
+    public void testMerge() {
+        StorageAnalytics analytics = new StorageAnalytics("", NOW);
+        analytics.add("a/1", 10, "STANDARD", daysAgo(50));
+
+        StorageAnalytics page = new StorageAnalytics("", NOW);
+        page.add("a/2", 5, "STANDARD_IA", daysAgo(50));
+        page.add("b/1", 7, "STANDARD", daysAgo(50));
+        analytics.merge(page);
+
+        List<Rollup> rollups = analytics.getRollups();
+        Assert.assertEquals(2, rollups.size());
+        Assert.assertEquals(15, rollups.get(0).getTotalBytes());
+        Assert.assertEquals(1, rollups.get(0).getObjectCount("STANDARD_IA"));
+        Assert.assertEquals(3, analytics.getTotal().getAgeHistogram()[1]);
+    }
+
+    @Test
+    public void testWriteCsv() {
+        StorageAnalytics analytics = new StorageAnalytics("", NOW);
+        analytics.add("a,b/1", 10, "STANDARD", daysAgo(1));
+        analytics.add("c/1", 20, "GLACIER", daysAgo(1));
+
+        StringWriter writer = new StringWriter();
+        analytics.writeCsv(writer);
+        String[] lines = writer.toString().split("\\r?\\n");
+
+        Assert.assertEquals(4, lines.length);
+        Assert.assertTrue(lines[0].startsWith("Prefix,Objects,Bytes,GLACIER Objects,GLACIER Bytes,STANDARD Objects"));
+        Assert.assertEquals("\"a,b/\",1,10,0,0,1,10,1,0,0,0,0", lines[1]);
+        Assert.assertEquals("(total),2,30,1,20,1,10,2,0,0,0,0", lines[3]);
+    }
+}